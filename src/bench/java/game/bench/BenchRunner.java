@@ -0,0 +1,407 @@
+package game.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Runs the benchmarks and writes the results as JSON.
+ *
+ * Measures average time per operation the way JMH's AverageTime mode does:
+ * a number of warmup iterations, then measured iterations of a fixed length,
+ * each reporting ns/op. The JSON file uses JMH's result layout (benchmark,
+ * mode, primaryMetric.score/scoreError/rawData, secondaryMetrics), so tools
+ * that read JMH results can read it too. Allocation per operation is
+ * reported as the secondary metric gc.alloc.rate.norm when the JVM supports it.
+ *
+ * Like JMH, each benchmark runs in its own JVM by default, started with the
+ * same JVM arguments and class path, so the JIT profile one benchmark leaves
+ * behind cannot skew the next. With several forks the score and error are
+ * computed over the iterations of all of them, and rawData holds one list
+ * per fork. --forks 0 runs everything in this JVM, which is quicker but
+ * less trustworthy.
+ *
+ * Usage:
+ *   java game.bench.BenchRunner [--warmup 5] [--iterations 10] [--time 500]
+ *       [--forks 1] [--filter regex] [--out bench_results.json]
+ *       [--baseline old.json [--threshold 10]]
+ *
+ * With --baseline, each score is compared with the same benchmark in an
+ * earlier result file, and the exit status is 1 if any benchmark is slower
+ * by more than threshold percent.
+ */
+public class BenchRunner {
+
+	// Student's t quantiles for a 99.9% confidence interval (JMH's default), by degrees of freedom
+	private static final double[] T_999 = {
+		636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59,
+		4.44, 4.32, 4.22, 4.14, 4.07, 4.01, 3.97, 3.92, 3.88, 3.85,
+		3.82, 3.79, 3.77, 3.75, 3.73, 3.71, 3.69, 3.67, 3.66, 3.65
+	};
+	// Smallest batch of calls timed as one sample, so nanoTime() overhead stays negligible
+	private static final long MIN_BATCH_NANOS = 20_000;
+
+	private int warmupIterations = 5;
+	private int measurementIterations = 10;
+	private long iterationMillis = 500;
+	private int forks = 1;
+	// Set in a forked JVM, which measures one benchmark and only writes the result file
+	private boolean forked = false;
+	private Pattern filter = null;
+	private String outFile = "bench_results.json";
+	private String baselineFile = null;
+	private double thresholdPercent = 10;
+
+	private final Blackhole blackhole = new Blackhole();
+	private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+	public static void main(String[] args) throws Exception {
+		BenchRunner runner = new BenchRunner();
+		runner.parseArguments(args);
+		System.exit(runner.run(List.of(
+			new CharacterMappingBench(),
+			new BusinessRulesBench(),
+			new JsonParsingBench(),
+			new DashboardAssemblyBench(),
+			new NameSearchBench()
+		)));
+	}
+
+	private void parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String value = i + 1 < args.length ? args[i + 1] : null;
+			switch (args[i]) {
+			case "--warmup": warmupIterations = Integer.parseInt(value); i++; break;
+			case "--iterations": measurementIterations = Integer.parseInt(value); i++; break;
+			case "--time": iterationMillis = Long.parseLong(value); i++; break;
+			case "--forks": forks = Integer.parseInt(value); i++; break;
+			case "--forked": forked = true; forks = 0; break;
+			case "--filter": filter = Pattern.compile(value); i++; break;
+			case "--out": outFile = value; i++; break;
+			case "--baseline": baselineFile = value; i++; break;
+			case "--threshold": thresholdPercent = Double.parseDouble(value); i++; break;
+			default:
+				throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			}
+		}
+		if (measurementIterations < 2) {
+			throw new IllegalArgumentException("--iterations must be at least 2");
+		}
+		if (forks < 0) {
+			throw new IllegalArgumentException("--forks must not be negative");
+		}
+	}
+
+	private int run(List<Benchmark> benchmarks) throws Exception {
+		List<Map<String, Object>> results = new ArrayList<>();
+
+		for (Benchmark benchmark : benchmarks) {
+			Map<String, Benchmark.Operation> operations = new LinkedHashMap<>();
+			for (Map.Entry<String, Benchmark.Operation> e : benchmark.operations().entrySet()) {
+				String name = benchmark.getClass().getName() + "." + e.getKey();
+				if (filter == null || filter.matcher(name).find()) {
+					operations.put(name, e.getValue());
+				}
+			}
+			if (operations.isEmpty()) {
+				continue;
+			}
+
+			if (forks > 0) {
+				// The forks set the benchmark up themselves
+				for (String name : operations.keySet()) {
+					System.out.println("⏱️ " + name);
+					results.add(measureInForks(name));
+				}
+				continue;
+			}
+			benchmark.setUp();
+			for (Map.Entry<String, Benchmark.Operation> e : operations.entrySet()) {
+				if (!forked) {
+					System.out.println("⏱️ " + e.getKey());
+				}
+				results.add(measure(e.getKey(), e.getValue()));
+			}
+		}
+
+		mapper.writeValue(new File(outFile), results);
+		if (forked) {
+			return 0;
+		}
+		printTable(results);
+		System.out.println("✅ Wrote " + results.size() + " results to " + outFile);
+
+		return baselineFile == null ? 0 : compareWithBaseline(results);
+	}
+
+	private Map<String, Object> measure(String name, Benchmark.Operation operation) throws Exception {
+		// The first call fails fast if a fixture is broken, before any timing
+		blackhole.consume(operation.run());
+		int batch = calibrateBatch(operation);
+
+		for (int i = 0; i < warmupIterations; i++) {
+			runIteration(operation, batch);
+		}
+
+		double[] nanosPerOp = new double[measurementIterations];
+		double[] bytesPerOp = new double[measurementIterations];
+		for (int i = 0; i < measurementIterations; i++) {
+			long allocatedBefore = allocatedBytes();
+			long[] timing = runIteration(operation, batch);
+			long allocatedAfter = allocatedBytes();
+			nanosPerOp[i] = (double) timing[0] / timing[1];
+			bytesPerOp[i] = allocatedBefore < 0 ? -1 : (double) (allocatedAfter - allocatedBefore) / timing[1];
+			System.out.printf("   iteration %2d: %,.1f ns/op%n", i + 1, nanosPerOp[i]);
+		}
+
+		return result(name, 0, new double[][] { nanosPerOp }, bytesPerOp[0] < 0 ? null : new double[][] { bytesPerOp });
+	}
+
+	/**
+	 * Measure one benchmark in forks fresh JVMs, one after the other, and
+	 * combine their iterations
+	 */
+	private Map<String, Object> measureInForks(String name) throws Exception {
+		double[][] nanosPerOp = new double[forks][];
+		double[][] bytesPerOp = new double[forks][];
+		boolean allocationMeasured = true;
+		for (int fork = 0; fork < forks; fork++) {
+			System.out.println("   fork " + (fork + 1) + " of " + forks);
+			File forkOut = File.createTempFile("bench-fork", ".json");
+			try {
+				runFork(name, forkOut);
+				JsonNode result = mapper.readTree(forkOut).path(0);
+				nanosPerOp[fork] = samples(result.path("primaryMetric"));
+				JsonNode allocation = result.path("secondaryMetrics").path("gc.alloc.rate.norm");
+				if (allocation.isMissingNode()) {
+					allocationMeasured = false;
+				} else {
+					bytesPerOp[fork] = samples(allocation);
+				}
+			} finally {
+				forkOut.delete();
+			}
+		}
+		return result(name, forks, nanosPerOp, allocationMeasured ? bytesPerOp : null);
+	}
+
+	/**
+	 * Run this class in a new JVM on just the named benchmark, writing its result to out
+	 */
+	private void runFork(String name, File out) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(BenchRunner.class.getName());
+		command.addAll(List.of(
+			"--forked",
+			"--warmup", String.valueOf(warmupIterations),
+			"--iterations", String.valueOf(measurementIterations),
+			"--time", String.valueOf(iterationMillis),
+			"--filter", "^" + Pattern.quote(name) + "$",
+			"--out", out.getPath()));
+		int status = new ProcessBuilder(command).inheritIO().start().waitFor();
+		if (status != 0) {
+			throw new IOException("Fork running " + name + " exited with status " + status);
+		}
+	}
+
+	/**
+	 * The iterations of a metric from a single-fork result file
+	 */
+	private static double[] samples(JsonNode metric) {
+		JsonNode raw = metric.path("rawData").path(0);
+		double[] samples = new double[raw.size()];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = raw.get(i).asDouble();
+		}
+		return samples;
+	}
+
+	/**
+	 * A result in JMH's layout. Each array holds the iterations of one fork;
+	 * bytesPerOp is null when allocation was not measured.
+	 */
+	private Map<String, Object> result(String name, int forks, double[][] nanosPerOp, double[][] bytesPerOp) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("benchmark", name);
+		result.put("mode", "avgt");
+		result.put("threads", 1);
+		result.put("forks", forks);
+		result.put("jdkVersion", System.getProperty("java.version"));
+		result.put("vmName", System.getProperty("java.vm.name"));
+		result.put("warmupIterations", warmupIterations);
+		result.put("warmupTime", iterationMillis + " ms");
+		result.put("measurementIterations", measurementIterations);
+		result.put("measurementTime", iterationMillis + " ms");
+		result.put("primaryMetric", metric(nanosPerOp, "ns/op"));
+
+		Map<String, Object> secondary = new LinkedHashMap<>();
+		if (bytesPerOp != null) {
+			secondary.put("gc.alloc.rate.norm", metric(bytesPerOp, "B/op"));
+		}
+		result.put("secondaryMetrics", secondary);
+		return result;
+	}
+
+	/**
+	 * Number of calls per timed batch, doubled until a batch takes MIN_BATCH_NANOS
+	 */
+	private int calibrateBatch(Benchmark.Operation operation) throws Exception {
+		int batch = 1;
+		while (batch < (1 << 24)) {
+			long start = System.nanoTime();
+			for (int i = 0; i < batch; i++) {
+				blackhole.consume(operation.run());
+			}
+			if (System.nanoTime() - start >= MIN_BATCH_NANOS) {
+				break;
+			}
+			batch <<= 1;
+		}
+		return batch;
+	}
+
+	/**
+	 * Run batches for iterationMillis
+	 * @return {elapsed nanos, operations}
+	 */
+	private long[] runIteration(Benchmark.Operation operation, int batch) throws Exception {
+		long deadline = System.nanoTime() + iterationMillis * 1_000_000;
+		long operations = 0;
+		long start = System.nanoTime();
+		long now;
+		do {
+			for (int i = 0; i < batch; i++) {
+				blackhole.consume(operation.run());
+			}
+			operations += batch;
+			now = System.nanoTime();
+		} while (now < deadline);
+		return new long[] { now - start, operations };
+	}
+
+	private static long allocatedBytes() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+				&& threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+			return threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+		}
+		return -1;
+	}
+
+	private static Map<String, Object> metric(double[][] forkSamples, String unit) {
+		List<List<Double>> raw = new ArrayList<>();
+		int count = 0;
+		for (double[] fork : forkSamples) {
+			List<Double> forkRaw = new ArrayList<>();
+			for (double s : fork) {
+				forkRaw.add(s);
+			}
+			raw.add(forkRaw);
+			count += fork.length;
+		}
+		double[] samples = new double[count];
+		int next = 0;
+		for (double[] fork : forkSamples) {
+			System.arraycopy(fork, 0, samples, next, fork.length);
+			next += fork.length;
+		}
+
+		double mean = 0;
+		for (double s : samples) {
+			mean += s;
+		}
+		mean /= samples.length;
+
+		double variance = 0;
+		double min = Double.MAX_VALUE;
+		double max = 0;
+		for (double s : samples) {
+			variance += (s - mean) * (s - mean);
+			min = Math.min(min, s);
+			max = Math.max(max, s);
+		}
+		variance /= samples.length - 1;
+		int df = samples.length - 1;
+		double t = df <= T_999.length ? T_999[df - 1] : 3.291;
+		double error = t * Math.sqrt(variance / samples.length);
+
+		Map<String, Object> metric = new LinkedHashMap<>();
+		metric.put("score", mean);
+		metric.put("scoreError", error);
+		metric.put("scoreConfidence", List.of(mean - error, mean + error));
+		metric.put("scorePercentiles", Map.of("0.0", min, "100.0", max));
+		metric.put("scoreUnit", unit);
+		metric.put("rawData", raw);
+		return metric;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void printTable(List<Map<String, Object>> results) {
+		System.out.println();
+		System.out.printf("%-70s %14s %12s %12s%n", "Benchmark", "Score", "Error", "B/op");
+		for (Map<String, Object> result : results) {
+			Map<String, Object> primary = (Map<String, Object>) result.get("primaryMetric");
+			Map<String, Object> alloc = (Map<String, Object>) ((Map<String, Object>) result.get("secondaryMetrics")).get("gc.alloc.rate.norm");
+			System.out.printf("%-70s %,14.1f ± %,10.1f %12s  ns/op%n",
+				shortName((String) result.get("benchmark")),
+				(Double) primary.get("score"),
+				(Double) primary.get("scoreError"),
+				alloc == null ? "-" : String.format("%,.0f", (Double) alloc.get("score")));
+		}
+		System.out.println();
+	}
+
+	private static String shortName(String benchmark) {
+		return benchmark.startsWith("game.bench.") ? benchmark.substring("game.bench.".length()) : benchmark;
+	}
+
+	/**
+	 * Print the change of every score against the baseline file
+	 * @return 1 if any benchmark regressed by more than thresholdPercent, else 0
+	 */
+	@SuppressWarnings("unchecked")
+	private int compareWithBaseline(List<Map<String, Object>> results) throws IOException {
+		Map<String, Double> baseline = new HashMap<>();
+		for (JsonNode node : mapper.readTree(new File(baselineFile))) {
+			baseline.put(node.path("benchmark").asText(), node.path("primaryMetric").path("score").asDouble());
+		}
+
+		int regressions = 0;
+		System.out.println("📊 Compared with " + baselineFile + " (threshold " + thresholdPercent + "%)");
+		for (Map<String, Object> result : results) {
+			String name = (String) result.get("benchmark");
+			Double before = baseline.get(name);
+			if (before == null || before <= 0) {
+				System.out.printf("   %-70s %s%n", shortName(name), "new");
+				continue;
+			}
+			double after = (Double) ((Map<String, Object>) result.get("primaryMetric")).get("score");
+			double change = (after - before) * 100 / before;
+			boolean regressed = change > thresholdPercent;
+			if (regressed) {
+				regressions++;
+			}
+			System.out.printf("   %-70s %+8.1f%% %s%n", shortName(name), change, regressed ? "❌" : "");
+		}
+
+		if (regressions > 0) {
+			System.err.println("❌ " + regressions + " benchmark(s) slower than the baseline by more than " + thresholdPercent + "%");
+			return 1;
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,30 @@
+package game.bench;
+
+import java.util.Map;
+
+/**
+ * A group of related benchmarks, run by BenchRunner.
+ *
+ * Each operation is timed on its own; whatever it returns is passed to a
+ * Blackhole, so the work cannot be optimised away.
+ */
+public interface Benchmark {
+
+	/**
+	 * Work to measure; the result is consumed by the runner
+	 */
+	@FunctionalInterface
+	interface Operation {
+		Object run() throws Exception;
+	}
+
+	/**
+	 * Build fixtures. Called once, before any operation of this benchmark runs.
+	 */
+	default void setUp() throws Exception {}
+
+	/**
+	 * Operations by name, in the order they run
+	 */
+	Map<String, Operation> operations();
+}
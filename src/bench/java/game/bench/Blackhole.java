@@ -0,0 +1,26 @@
+package game.bench;
+
+/**
+ * Sink for benchmark results.
+ *
+ * Storing each result in a field lets it escape, so the JIT cannot drop the
+ * computation that produced it; the occasional volatile write keeps the
+ * field from being treated as dead.
+ */
+final class Blackhole {
+
+	private Object last;
+	private long consumed;
+	private volatile Object published;
+
+	void consume(Object result) {
+		last = result;
+		if ((++consumed & 0xFFFF) == 0) {
+			published = last;
+		}
+	}
+
+	long getConsumedCount() {
+		return consumed;
+	}
+}
@@ -0,0 +1,92 @@
+package game.bench;
+
+import static game.bench.StandInDatabase.row;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.dal.CatalogCache;
+import game.model.*;
+import game.service.BusinessRulesService;
+import game.service.BusinessRulesService.BusinessRuleException;
+
+/**
+ * BusinessRulesService validation paths: the checks over already loaded
+ * jobs, the same checks loading the jobs through the DAO, and the cost of a
+ * rejected validation.
+ */
+public class BusinessRulesBench implements Benchmark {
+
+	private Connection cxn;
+	private Characters character;
+	private List<CharacterUnlockedJob> jobs;
+	private Weapons weapon;
+	private Weapons lockedWeapon;
+
+	@Override
+	public void setUp() {
+		Players player = new Players(1, "Player1", "Surname1", "player1@example.com", LocalDateTime.of(2025, 6, 1, 12, 0));
+		Clans clan = new Clans("Stormwind Guard", Clans.Races.HUMAN);
+		weapon = new Weapons(1001, "Weapon 1001", 30, 1, new BigDecimal("125.50"), 25, "Paladin", 60);
+		lockedWeapon = new Weapons(1002, "Weapon 1002", 30, 1, new BigDecimal("125.50"), 25, "Necromancer", 60);
+		character = new Characters(1, player, "Char1", "Lastname1", clan, weapon);
+
+		jobs = new ArrayList<>();
+		List<Map<String, Object>> jobRows = new ArrayList<>();
+		for (int i = 0; i < CharacterMappingBench.JOBS.length; i++) {
+			String job = CharacterMappingBench.JOBS[i];
+			int level = 10 + i * 8;
+			jobs.add(new CharacterUnlockedJob(character, job, level, level * 1500));
+			jobRows.add(row("charID", 1, "jobName", job, "jobLevel", level, "XP", level * 1500));
+		}
+
+		cxn = new StandInDatabase()
+			.route("FROM CharacterUnlockedJob", jobRows)
+			.connect();
+		// Weapon lookups in validateEquipmentSlot are served by the catalog cache
+		CatalogCache.putWeapon(weapon, CatalogCache.version());
+	}
+
+	@Override
+	public Map<String, Operation> operations() {
+		Map<String, Operation> operations = new LinkedHashMap<>();
+		operations.put("levelRequirementLoadedJobs", () -> {
+			BusinessRulesService.validateLevelRequirement(jobs, weapon);
+			return jobs;
+		});
+		operations.put("jobCompatibilityLoadedJobs", () -> {
+			BusinessRulesService.validateJobCompatibility(jobs, weapon);
+			return jobs;
+		});
+		operations.put("jobCompatibilityRejected", () -> {
+			try {
+				BusinessRulesService.validateJobCompatibility(jobs, lockedWeapon);
+				throw new IllegalStateException("Expected the locked job to be rejected");
+			} catch (BusinessRuleException e) {
+				return e;
+			}
+		});
+		operations.put("jobProgression", () -> {
+			BusinessRulesService.validateJobProgression(50, 120_000);
+			return character;
+		});
+		operations.put("levelRequirementViaDao", () -> {
+			BusinessRulesService.validateLevelRequirement(cxn, character, weapon);
+			return character;
+		});
+		operations.put("jobCompatibilityViaDao", () -> {
+			BusinessRulesService.validateJobCompatibility(cxn, character, weapon);
+			return character;
+		});
+		operations.put("equipmentSlotMainHand", () -> {
+			BusinessRulesService.validateEquipmentSlot(cxn, weapon, "MAIN_HAND");
+			return weapon;
+		});
+		return operations;
+	}
+}
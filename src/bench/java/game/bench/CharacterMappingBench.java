@@ -0,0 +1,114 @@
+package game.bench;
+
+import static game.bench.StandInDatabase.row;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.dal.CharactersDao;
+import game.dal.DalSession;
+import game.model.Characters;
+
+/**
+ * CharactersDao row mapping: joined character rows to Characters with
+ * shared Players, Clans and Weapons, with and without a DalSession.
+ */
+public class CharacterMappingBench implements Benchmark {
+
+	static final int CHARACTERS = 1000;
+	static final int PLAYERS = 200;
+	static final int WEAPONS = 40;
+	static final String[][] CLANS = {
+		{ "Ironforge Vanguard", "Dwarf" },
+		{ "Silvermoon Court", "Elf" },
+		{ "Bilgewater Cartel", "Goblin" },
+		{ "Stormwind Guard", "Human" },
+		{ "Warsong Clan", "Orc" }
+	};
+	static final String[] JOBS = { "Warrior", "Paladin", "Hunter", "Rogue", "Priest", "Mage" };
+
+	private Connection cxn;
+	private List<Integer> playerIDs;
+
+	@Override
+	public void setUp() {
+		List<Map<String, Object>> rows = characterRows(CHARACTERS);
+		StandInDatabase db = new StandInDatabase()
+			.route("WHERE c.charID = ?", rows.subList(0, 1))
+			.route("WHERE p.playerID IN", rows.subList(0, 25))
+			.route("FROM Characters c ", rows);
+		cxn = db.connect();
+
+		playerIDs = new ArrayList<>();
+		for (int i = 1; i <= 5; i++) {
+			playerIDs.add(i);
+		}
+	}
+
+	@Override
+	public Map<String, Operation> operations() {
+		Map<String, Operation> operations = new LinkedHashMap<>();
+		operations.put("getAllCharacters", () -> CharactersDao.getAllCharacters(cxn, "characterLastName", "asc"));
+		operations.put("getAllCharactersInSession", () -> {
+			DalSession session = DalSession.open();
+			try {
+				return CharactersDao.getAllCharacters(cxn, "characterLastName", "asc");
+			} finally {
+				session.close();
+			}
+		});
+		operations.put("getCharactersByPlayerIDs", () -> CharactersDao.getCharactersByPlayerIDs(cxn, playerIDs, "clan", "asc"));
+		operations.put("getCharacterByCharID", () -> CharactersDao.getCharacterByCharID(cxn, 1));
+		operations.put("getCharacterByCharIDRepeatedInSession", () -> {
+			DalSession session = DalSession.open();
+			try {
+				Characters character = null;
+				for (int i = 0; i < 10; i++) {
+					character = CharactersDao.getCharacterByCharID(cxn, 1);
+				}
+				return character;
+			} finally {
+				session.close();
+			}
+		});
+		return operations;
+	}
+
+	/**
+	 * Rows shaped like CharactersDao's joined character query.
+	 * Players own CHARACTERS / PLAYERS characters each; clans and weapons repeat.
+	 */
+	static List<Map<String, Object>> characterRows(int count) {
+		List<Map<String, Object>> rows = new ArrayList<>(count);
+		for (int i = 1; i <= count; i++) {
+			int playerID = (i - 1) % PLAYERS + 1;
+			String[] clan = CLANS[i % CLANS.length];
+			int weaponID = 1000 + i % WEAPONS;
+			rows.add(row(
+				"charID", i,
+				"firstName", "Char" + i,
+				"lastName", "Lastname" + (i % 97),
+				"playerID", playerID,
+				"pFirstName", "Player" + playerID,
+				"pLastName", "Surname" + playerID,
+				"emailAddress", "player" + playerID + "@example.com",
+				"lastActiveDateTime", "2025-06-" + String.format("%02d", playerID % 28 + 1) + " 12:00:00",
+				"clanName", clan[0],
+				"race", clan[1],
+				"weaponID", weaponID,
+				"itemName", "Weapon " + weaponID,
+				"level", weaponID % 60 + 1,
+				"maxStackSize", 1,
+				"price", new BigDecimal("125.50"),
+				"requiredLevel", weaponID % 50 + 1,
+				"wearableJob", JOBS[weaponID % JOBS.length],
+				"damage", 20 + weaponID % 80
+			));
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,90 @@
+package game.bench;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import game.dal.CharactersDao;
+import game.dal.CurrenciesDao;
+import game.model.Characters;
+import game.model.Currencies;
+import game.service.CurrencyLedger;
+
+/**
+ * CurrencyLedger on the hot characters: a mix of credits, debits,
+ * transfers between them and batches of grants, on one currency.
+ * The currency with the loosest caps is used, so few operations are
+ * rejected for hitting one.
+ */
+public class CurrencyLedgerWorkload implements LoadWorkload {
+
+	private static final int GRANTS_PER_BATCH = 10;
+
+	private final List<Integer> charIDs = new ArrayList<>();
+	private String currencyName;
+
+	@Override
+	public Map<String, String> setUp(Connection cxn, int hotCharacters) throws SQLException {
+		try (PreparedStatement selectStmt = cxn.prepareStatement("SELECT charID FROM Characters ORDER BY charID LIMIT ?;")) {
+			selectStmt.setInt(1, hotCharacters);
+			try (ResultSet results = selectStmt.executeQuery()) {
+				while (results.next()) {
+					charIDs.add(results.getInt("charID"));
+				}
+			}
+		}
+		final String selectLoosestCurrency = """
+			SELECT currencyName FROM Currencies
+			ORDER BY weeklyCap IS NULL DESC, weeklyCap DESC, cap IS NULL DESC, cap DESC
+			LIMIT 1;
+			""";
+		try (PreparedStatement selectStmt = cxn.prepareStatement(selectLoosestCurrency);
+				ResultSet results = selectStmt.executeQuery()) {
+			if (results.next()) {
+				currencyName = results.getString("currencyName");
+			}
+		}
+		if (charIDs.size() < 2 || currencyName == null) {
+			return Map.of();
+		}
+		return Map.of("characters", String.valueOf(charIDs.size()), "currency", currencyName);
+	}
+
+	@Override
+	public Operation newWorker(Connection cxn) throws SQLException {
+		List<Characters> characters = new ArrayList<>();
+		for (int charID : charIDs) {
+			characters.add(CharactersDao.getCharacterByCharID(cxn, charID));
+		}
+		Currencies currency = CurrenciesDao.getCurrenciesByName(cxn, currencyName);
+
+		return workerCxn -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			Characters character = characters.get(random.nextInt(characters.size()));
+			BigDecimal amount = BigDecimal.valueOf(random.nextInt(100, 500), 2);
+			int pick = random.nextInt(10);
+			if (pick < 4) {
+				CurrencyLedger.credit(workerCxn, character, currency, amount);
+			} else if (pick < 7) {
+				CurrencyLedger.debit(workerCxn, character, currency, amount);
+			} else if (pick < 9) {
+				Characters other = characters.get(random.nextInt(characters.size()));
+				if (other != character) {
+					CurrencyLedger.transfer(workerCxn, character, other, currency, amount);
+				}
+			} else {
+				List<CurrencyLedger.Grant> grants = new ArrayList<>(GRANTS_PER_BATCH);
+				for (int i = 0; i < GRANTS_PER_BATCH; i++) {
+					grants.add(new CurrencyLedger.Grant(characters.get(random.nextInt(characters.size())), currency, amount));
+				}
+				CurrencyLedger.creditAll(workerCxn, grants);
+			}
+		};
+	}
+}
@@ -0,0 +1,110 @@
+package game.bench;
+
+import static game.bench.StandInDatabase.row;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.dal.ViewsDao;
+import game.model.Analytics.Dashboard;
+
+/**
+ * Analytics dashboard assembly: every ViewsDao section read and mapped into
+ * an Analytics.Dashboard, as DashboardLoader does, but sequentially and on a
+ * stand-in connection, so only the mapping and assembly are measured.
+ */
+public class DashboardAssemblyBench implements Benchmark {
+
+	private Connection cxn;
+
+	@Override
+	public void setUp() {
+		List<Map<String, Object>> daily = new ArrayList<>();
+		for (int day = 1; day <= 30; day++) {
+			daily.add(row("activity_date", String.format("2025-06-%02d", day), "active_count", 40 + day * 3));
+		}
+
+		List<Map<String, Object>> jobs = new ArrayList<>();
+		for (String job : CharacterMappingBench.JOBS) {
+			jobs.add(row("job_name", job, "character_count", 150 + job.length() * 10, "percentage", 16.67));
+		}
+
+		List<Map<String, Object>> clans = new ArrayList<>();
+		for (String[] clan : CharacterMappingBench.CLANS) {
+			clans.add(row("clan_name", clan[0], "race", clan[1], "character_count", 200, "percentage", 20.0));
+		}
+
+		List<Map<String, Object>> currencies = new ArrayList<>();
+		for (String currency : new String[] { "Gold", "Honor", "Valor", "Conquest", "Timewarped Badge" }) {
+			currencies.add(row(
+				"currency_name", currency,
+				"cap", new BigDecimal("99999.00"),
+				"weekly_cap", new BigDecimal("1000.00"),
+				"players_with_currency", 180,
+				"avg_amount", new BigDecimal("4520.37"),
+				"max_amount", new BigDecimal("98000.00"),
+				"total_in_circulation", new BigDecimal("813666.60")));
+		}
+
+		List<Map<String, Object>> itemTypes = List.of(
+			row("item_type", "Weapon", "count", 40),
+			row("item_type", "Gear", "count", 120),
+			row("item_type", "Consumable", "count", 60));
+
+		List<Map<String, Object>> topByLevel = new ArrayList<>();
+		List<Map<String, Object>> topByWealth = new ArrayList<>();
+		for (int i = 1; i <= 10; i++) {
+			topByLevel.add(row(
+				"character_name", "Char" + i + " Lastname" + i,
+				"player_name", "Player" + i + " Surname" + i,
+				"max_level", 100 - i,
+				"current_job", CharacterMappingBench.JOBS[i % CharacterMappingBench.JOBS.length],
+				"race", CharacterMappingBench.CLANS[i % CharacterMappingBench.CLANS.length][1]));
+			topByWealth.add(row(
+				"character_name", "Char" + i + " Lastname" + i,
+				"total_wealth", new BigDecimal(250_000 - i * 10_000),
+				"currency_types", 5));
+		}
+
+		cxn = new StandInDatabase()
+			.route("DailyActivePlayersView", daily)
+			.route("JobDistributionView", jobs)
+			.route("ClanDistributionView", clans)
+			.route("CurrencyStatsView", currencies)
+			.route("ItemTypeDistributionView", itemTypes)
+			.route("TopPlayersByLevelView", topByLevel)
+			.route("TopPlayersByWealthView", topByWealth)
+			.route("OverallStatsView", List.of(row(
+				"total_players", 200,
+				"total_characters", 1000,
+				"total_weapons", 40,
+				"total_gears", 120,
+				"total_consumables", 60,
+				"total_clans", 5)))
+			.connect();
+	}
+
+	@Override
+	public Map<String, Operation> operations() {
+		Map<String, Operation> operations = new LinkedHashMap<>();
+		operations.put("assembleDashboard", () -> {
+			Dashboard dashboard = new Dashboard();
+			dashboard.setOverallStats(ViewsDao.getOverallStats(cxn));
+			dashboard.setDailyActivePlayers(ViewsDao.getDailyActivePlayers(cxn));
+			dashboard.setTopPlayersByLevel(ViewsDao.getTopPlayersByLevel(cxn));
+			dashboard.setTopPlayersByWealth(ViewsDao.getTopPlayersByWealth(cxn));
+			dashboard.setJobDistribution(ViewsDao.getJobDistribution(cxn));
+			dashboard.setClanDistribution(ViewsDao.getClanDistribution(cxn));
+			dashboard.setCurrencyStats(ViewsDao.getCurrencyStats(cxn));
+			dashboard.setItemTypeStats(ViewsDao.getItemTypeStats(cxn));
+			return dashboard;
+		});
+		operations.put("currencyStatsSection", () -> ViewsDao.getCurrencyStats(cxn));
+		operations.put("dailyActivePlayersSection", () -> ViewsDao.getDailyActivePlayers(cxn));
+		return operations;
+	}
+}
@@ -0,0 +1,45 @@
+package game.bench;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import game.etl.WoWApiClient;
+
+/**
+ * Battle.net response parsing: the regex helpers extractJsonValue and
+ * extractJsonArray next to the streaming parsers that replaced them in the
+ * ETL, over the same payloads.
+ */
+public class JsonParsingBench implements Benchmark {
+
+	private final WoWApiClient client = new WoWApiClient();
+
+	private String item;
+	private String races;
+	private String realms;
+	private byte[] realmBytes;
+
+	@Override
+	public void setUp() throws Exception {
+		item = Payloads.load("item-19019.json");
+		races = Payloads.load("playable-race-index.json");
+		realms = Payloads.load("realm-index.json");
+		realmBytes = realms.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public Map<String, Operation> operations() {
+		Map<String, Operation> operations = new LinkedHashMap<>();
+		operations.put("extractJsonValueItemName", () -> client.extractJsonValue(item, "name"));
+		operations.put("extractJsonValueItemSellPrice", () -> client.extractJsonValue(item, "sell_price"));
+		operations.put("extractJsonArrayRaces", () -> client.extractJsonArray(races, "races"));
+		operations.put("extractJsonArrayRealms", () -> client.extractJsonArray(realms, "realms"));
+		operations.put("parseItem", () -> client.parseItem(item));
+		operations.put("parseRealmsFirst50", () -> client.parseRealms(realms, 50));
+		operations.put("parseRealmsAll", () -> client.parseRealms(realms, Integer.MAX_VALUE));
+		operations.put("parseRealmsAllFromStream", () -> client.parseRealms(new ByteArrayInputStream(realmBytes), Integer.MAX_VALUE));
+		return operations;
+	}
+}
@@ -0,0 +1,192 @@
+package game.bench;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import game.dal.ConnectionManager;
+import game.dal.LatencyHistogram;
+import game.service.BusinessRulesService.BusinessRuleException;
+
+/**
+ * Throughput of a database-bound operation under contention.
+ *
+ * Unlike the BenchRunner benchmarks these need the MySQL database, and
+ * write to it: worker threads keep running a workload's operation against a
+ * few hot characters, so they contend for the same rows. Throughput and
+ * operation latency are measured after a warmup, and written as JSON in
+ * JMH's result layout (mode thrpt), with latency percentiles, rejected and
+ * failed operations and the workload's own counters as secondary metrics.
+ *
+ * Usage:
+ *   java game.bench.LoadRunner weaponSwap|currencyLedger [--threads 8]
+ *       [--characters 4] [--warmup 5] [--time 20] [--out load_results.json]
+ *
+ * --warmup and --time are in seconds. Fewer characters means more contention.
+ */
+public class LoadRunner {
+
+	private static final Map<String, Supplier<LoadWorkload>> WORKLOADS = new LinkedHashMap<>();
+	static {
+		WORKLOADS.put("weaponSwap", WeaponSwapWorkload::new);
+		WORKLOADS.put("currencyLedger", CurrencyLedgerWorkload::new);
+	}
+
+	private String workloadName;
+	private int threads = 8;
+	private int hotCharacters = 4;
+	private long warmupSeconds = 5;
+	private long measurementSeconds = 20;
+	private String outFile = "load_results.json";
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private volatile boolean running = true;
+
+	public static void main(String[] args) throws Exception {
+		LoadRunner runner = new LoadRunner();
+		runner.parseArguments(args);
+		try {
+			runner.run(WORKLOADS.get(runner.workloadName).get());
+		} finally {
+			ConnectionManager.shutdown();
+		}
+	}
+
+	private void parseArguments(String[] args) {
+		if (args.length == 0 || !WORKLOADS.containsKey(args[0])) {
+			throw new IllegalArgumentException("First argument must be one of " + WORKLOADS.keySet());
+		}
+		workloadName = args[0];
+		for (int i = 1; i < args.length; i++) {
+			String value = i + 1 < args.length ? args[i + 1] : null;
+			switch (args[i]) {
+			case "--threads": threads = Integer.parseInt(value); i++; break;
+			case "--characters": hotCharacters = Integer.parseInt(value); i++; break;
+			case "--warmup": warmupSeconds = Long.parseLong(value); i++; break;
+			case "--time": measurementSeconds = Long.parseLong(value); i++; break;
+			case "--out": outFile = value; i++; break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+	}
+
+	private void run(LoadWorkload workload) throws Exception {
+		Map<String, String> params;
+		List<LoadWorkload.Operation> operations = new ArrayList<>();
+		try (Connection cxn = ConnectionManager.getConnection()) {
+			params = workload.setUp(cxn, hotCharacters);
+			if (params.isEmpty()) {
+				System.err.println("❌ Nothing to run " + workloadName + " against; load the sample data first");
+				return;
+			}
+			for (int i = 0; i < threads; i++) {
+				operations.add(workload.newWorker(cxn));
+			}
+		}
+		System.out.println("🏁 " + workloadName + " on " + threads + " threads, " + params);
+
+		List<Thread> workers = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			LoadWorkload.Operation operation = operations.get(i);
+			workers.add(Thread.ofPlatform().name(workloadName + "-" + i).start(() -> work(operation)));
+		}
+
+		// The services report every operation on stdout; keep that out of the measurement
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		Map<String, Long> countersBefore;
+		long elapsedNanos;
+		try {
+			Thread.sleep(warmupSeconds * 1000);
+			latency.reset();
+			completed.reset();
+			rejected.reset();
+			failed.reset();
+			countersBefore = workload.counters();
+			long start = System.nanoTime();
+			Thread.sleep(measurementSeconds * 1000);
+			elapsedNanos = System.nanoTime() - start;
+		} finally {
+			running = false;
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			System.setOut(console);
+		}
+
+		double throughput = completed.sum() / (elapsedNanos / 1_000_000_000.0);
+		System.out.printf("📊 %,.1f ops/s, p50 %.2f ms, p99 %.2f ms, %d rejected, %d failed%n",
+			throughput, millisAt(50), millisAt(99), rejected.sum(), failed.sum());
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("benchmark", "game.bench." + workload.getClass().getSimpleName() + ".run");
+		result.put("mode", "thrpt");
+		result.put("threads", threads);
+		result.put("forks", 0);
+		result.put("jdkVersion", System.getProperty("java.version"));
+		result.put("vmName", System.getProperty("java.vm.name"));
+		result.put("warmupTime", warmupSeconds + " s");
+		result.put("measurementTime", measurementSeconds + " s");
+		result.put("params", params);
+		result.put("primaryMetric", metric(throughput, "ops/s"));
+
+		Map<String, Object> secondary = new LinkedHashMap<>();
+		secondary.put("latency.p50", metric(millisAt(50), "ms"));
+		secondary.put("latency.p95", metric(millisAt(95), "ms"));
+		secondary.put("latency.p99", metric(millisAt(99), "ms"));
+		secondary.put("rejected", metric(rejected.sum(), "#"));
+		secondary.put("failed", metric(failed.sum(), "#"));
+		for (Map.Entry<String, Long> counter : workload.counters().entrySet()) {
+			long delta = counter.getValue() - countersBefore.getOrDefault(counter.getKey(), 0L);
+			System.out.println("   " + counter.getKey() + ": " + delta);
+			secondary.put(counter.getKey(), metric(delta, "#"));
+		}
+		result.put("secondaryMetrics", secondary);
+
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(outFile), List.of(result));
+		System.out.println("💾 Results written to " + outFile);
+	}
+
+	private void work(LoadWorkload.Operation operation) {
+		while (running) {
+			long start = System.nanoTime();
+			try (Connection cxn = ConnectionManager.getConnection()) {
+				operation.run(cxn);
+				latency.record(System.nanoTime() - start);
+				completed.increment();
+			} catch (BusinessRuleException e) {
+				rejected.increment();
+			} catch (Exception e) {
+				failed.increment();
+				System.err.println("⚠️ Operation failed: " + e.getMessage());
+			}
+		}
+	}
+
+	private double millisAt(double percentile) {
+		return latency.getValueAtPercentile(percentile) / 1_000_000.0;
+	}
+
+	private static Map<String, Object> metric(double score, String unit) {
+		Map<String, Object> metric = new LinkedHashMap<>();
+		metric.put("score", score);
+		metric.put("scoreError", Double.NaN);
+		metric.put("scoreUnit", unit);
+		metric.put("rawData", List.of(List.of(score)));
+		return metric;
+	}
+}
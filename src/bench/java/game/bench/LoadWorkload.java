@@ -0,0 +1,40 @@
+package game.bench;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * A concurrent, database-bound workload for LoadRunner.
+ *
+ * Each worker thread gets its own Operation from newWorker() and calls it
+ * in a loop, with a connection borrowed from the pool for each call.
+ */
+public interface LoadWorkload {
+
+	interface Operation {
+		/**
+		 * Run one operation. A BusinessRuleException counts as rejected,
+		 * any other exception as failed.
+		 */
+		void run(Connection cxn) throws Exception;
+	}
+
+	/**
+	 * Pick the data to work on, hotCharacters being how many characters the
+	 * workers contend for.
+	 * @return what the workload picked, for the report; empty if the database
+	 *         has nothing suitable
+	 */
+	Map<String, String> setUp(Connection cxn, int hotCharacters) throws SQLException;
+
+	Operation newWorker(Connection cxn) throws SQLException;
+
+	/**
+	 * Counters of the code under test, read before and after the measurement
+	 * and reported as the difference
+	 */
+	default Map<String, Long> counters() {
+		return Map.of();
+	}
+}
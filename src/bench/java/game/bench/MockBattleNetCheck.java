@@ -0,0 +1,288 @@
+package game.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import game.etl.ApiFetcher;
+import game.etl.WoWApiClient;
+
+/**
+ * Checks ApiFetcher against a stub Battle.net server on localhost.
+ *
+ * The stub serves the OAuth token and a few API paths that fail in set
+ * ways, and records when each request arrived and how many were in flight.
+ * The checks cover retrying 429 and 5xx with jittered backoff, Retry-After,
+ * giving up after the last retry, not retrying other errors, token bucket
+ * pacing and the concurrency bound. Needs no network or credentials:
+ *
+ *   java game.bench.MockBattleNetCheck
+ *
+ * The exit status is 1 if any check fails.
+ */
+public class MockBattleNetCheck {
+
+	private static final String NAMESPACE = "static-us";
+
+	private final HttpServer server;
+	// Platform threads, like a server in another process: the fetcher's virtual threads
+	// may pin every carrier while they wait for the token
+	private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+	private final String baseUrl;
+	// Arrival times of the requests to each path, in nanoseconds
+	private final Map<String, List<Long>> arrivals = new ConcurrentHashMap<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final List<String> failures = new ArrayList<>();
+
+	public static void main(String[] args) throws Exception {
+		MockBattleNetCheck check = new MockBattleNetCheck();
+		try {
+			check.run();
+		} finally {
+			check.server.stop(0);
+			check.serverThreads.shutdownNow();
+		}
+		if (!check.failures.isEmpty()) {
+			System.err.println("❌ " + check.failures.size() + " ApiFetcher check(s) failed:");
+			for (String failure : check.failures) {
+				System.err.println("   " + failure);
+			}
+			System.exit(1);
+		}
+		System.out.println("✅ All ApiFetcher checks passed");
+	}
+
+	private MockBattleNetCheck() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(serverThreads);
+		server.createContext("/token", exchange -> respond(exchange, 200,
+				"{\"access_token\":\"stub-token\",\"token_type\":\"bearer\",\"expires_in\":86399}"));
+		server.createContext("/data/wow/item/", this::item);
+		server.start();
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * /data/wow/item/{behaviour}-{n}: the behaviour decides the responses,
+	 * n only makes each endpoint distinct
+	 */
+	private void item(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		List<Long> times = arrivals.computeIfAbsent(path, p -> new CopyOnWriteArrayList<>());
+		times.add(System.nanoTime());
+		int attempt = times.size();
+		String behaviour = path.substring("/data/wow/item/".length()).replaceAll("-\\d+$", "");
+
+		int running = inFlight.incrementAndGet();
+		maxInFlight.accumulateAndGet(running, Math::max);
+		try {
+			if (!"Bearer stub-token".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+				respond(exchange, 401, "{}");
+				return;
+			}
+			switch (behaviour) {
+				// 429, then 503, then the item
+				case "flaky" -> respond(exchange, attempt == 1 ? 429 : attempt == 2 ? 503 : 200, body(path));
+				case "once" -> respond(exchange, attempt == 1 ? 503 : 200, body(path));
+				case "limited" -> {
+					if (attempt == 1) {
+						exchange.getResponseHeaders().add("Retry-After", "1");
+					}
+					respond(exchange, attempt == 1 ? 429 : 200, body(path));
+				}
+				case "down" -> respond(exchange, 500, "{}");
+				case "missing" -> respond(exchange, 404, "{}");
+				case "slow" -> {
+					sleep(100);
+					respond(exchange, 200, body(path));
+				}
+				default -> respond(exchange, 200, body(path));
+			}
+		} finally {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	private void run() throws Exception {
+		checkRetriesUntilSuccess();
+		checkJitter();
+		checkRetryAfter();
+		checkGivesUp();
+		checkNoRetryOnClientError();
+		checkPacing();
+		checkConcurrencyBound();
+	}
+
+	private void checkRetriesUntilSuccess() throws Exception {
+		try (ApiFetcher fetcher = fetcher(1000, 8, 4, 20)) {
+			String body = fetchBody(fetcher, "/data/wow/item/flaky-1");
+			expect(body.equals(body("/data/wow/item/flaky-1")), "429 then 503 then 200 returns the item, got " + body);
+			expect(attempts("/data/wow/item/flaky-1") == 3, "429 then 503 then 200 takes 3 requests, took " + attempts("/data/wow/item/flaky-1"));
+			expect(fetcher.getRetryCount() == 2, "429 then 503 counts 2 retries, counted " + fetcher.getRetryCount());
+		}
+	}
+
+	/**
+	 * Full jitter: a first retry waits anywhere in [0, base], so the waits
+	 * of many requests that failed together are spread out
+	 */
+	private void checkJitter() throws Exception {
+		long baseMillis = 100;
+		int count = 30;
+		try (ApiFetcher fetcher = fetcher(1000, count, 4, baseMillis)) {
+			List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				futures.add(fetcher.fetch("/data/wow/item/once-" + i, NAMESPACE));
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+		}
+		long shortest = Long.MAX_VALUE;
+		long longest = 0;
+		for (int i = 0; i < count; i++) {
+			List<Long> times = arrivals.get("/data/wow/item/once-" + i);
+			long waitMillis = TimeUnit.NANOSECONDS.toMillis(times.get(1) - times.get(0));
+			shortest = Math.min(shortest, waitMillis);
+			longest = Math.max(longest, waitMillis);
+		}
+		// Slack for scheduling and the request itself
+		expect(longest <= baseMillis + 150, "first retry waits at most about " + baseMillis + "ms, longest was " + longest + "ms");
+		expect(longest - shortest >= baseMillis / 4,
+				"retry waits are spread out, from " + shortest + "ms to " + longest + "ms");
+	}
+
+	private void checkRetryAfter() throws Exception {
+		try (ApiFetcher fetcher = fetcher(1000, 8, 4, 10)) {
+			fetchBody(fetcher, "/data/wow/item/limited-1");
+		}
+		List<Long> times = arrivals.get("/data/wow/item/limited-1");
+		long waitMillis = TimeUnit.NANOSECONDS.toMillis(times.get(1) - times.get(0));
+		expect(waitMillis >= 1000, "Retry-After: 1 waits at least 1000ms, waited " + waitMillis + "ms");
+	}
+
+	private void checkGivesUp() throws Exception {
+		int maxRetries = 3;
+		try (ApiFetcher fetcher = fetcher(1000, 8, maxRetries, 5)) {
+			try {
+				fetchBody(fetcher, "/data/wow/item/down-1");
+				expect(false, "an endpoint that keeps failing with 500 fails the fetch");
+			} catch (ExecutionException e) {
+				expect(fetcher.getFailureCount() == 1, "a fetch that gives up counts one failure, counted " + fetcher.getFailureCount());
+			}
+		}
+		expect(attempts("/data/wow/item/down-1") == maxRetries + 1,
+				"500 is retried " + maxRetries + " times, requests made: " + attempts("/data/wow/item/down-1"));
+	}
+
+	private void checkNoRetryOnClientError() throws Exception {
+		try (ApiFetcher fetcher = fetcher(1000, 8, 4, 5)) {
+			try {
+				fetchBody(fetcher, "/data/wow/item/missing-1");
+				expect(false, "404 fails the fetch");
+			} catch (ExecutionException e) {
+				// expected
+			}
+		}
+		expect(attempts("/data/wow/item/missing-1") == 1, "404 is not retried, requests made: " + attempts("/data/wow/item/missing-1"));
+	}
+
+	/**
+	 * The bucket holds maxConcurrent tokens and refills at the rate, so n
+	 * requests take at least (n - maxConcurrent) / rate seconds
+	 */
+	private void checkPacing() throws Exception {
+		double rate = 20;
+		int burst = 4;
+		int count = 24;
+		long start = System.nanoTime();
+		try (ApiFetcher fetcher = fetcher(rate, burst, 0, 5)) {
+			fetchAll(fetcher, "ok", count);
+		}
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		long expectedMillis = (long) ((count - burst) / rate * 1000);
+		expect(elapsedMillis >= expectedMillis * 9 / 10,
+				count + " requests at " + rate + "/s take about " + expectedMillis + "ms, took " + elapsedMillis + "ms");
+		expect(elapsedMillis < expectedMillis * 3,
+				count + " requests at " + rate + "/s take less than " + expectedMillis * 3 + "ms, took " + elapsedMillis + "ms");
+	}
+
+	private void checkConcurrencyBound() throws Exception {
+		int maxConcurrent = 3;
+		maxInFlight.set(0);
+		try (ApiFetcher fetcher = fetcher(1000, maxConcurrent, 0, 5)) {
+			fetchAll(fetcher, "slow", 12);
+		}
+		expect(maxInFlight.get() <= maxConcurrent,
+				"at most " + maxConcurrent + " requests in flight, saw " + maxInFlight.get());
+		expect(maxInFlight.get() == maxConcurrent,
+				"slow requests fill all " + maxConcurrent + " slots, saw at most " + maxInFlight.get());
+	}
+
+	private ApiFetcher fetcher(double requestsPerSecond, int maxConcurrent, int maxRetries, long baseBackoffMillis) {
+		WoWApiClient client = new WoWApiClient(baseUrl, baseUrl + "/token");
+		client.setResponseCache(null);
+		return new ApiFetcher(client, requestsPerSecond, maxConcurrent, maxRetries, baseBackoffMillis);
+	}
+
+	private static String fetchBody(ApiFetcher fetcher, String endpoint) throws Exception {
+		return new String(fetcher.fetch(endpoint, NAMESPACE).get(30, TimeUnit.SECONDS), StandardCharsets.UTF_8);
+	}
+
+	private void fetchAll(ApiFetcher fetcher, String behaviour, int count) throws Exception {
+		List<String> endpoints = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			endpoints.add("/data/wow/item/" + behaviour + "-" + i);
+		}
+		int handled = fetcher.fetchEach(endpoints, NAMESPACE, body -> body, body -> true);
+		expect(handled == count, "all " + count + " " + behaviour + " requests succeed, " + handled + " did");
+	}
+
+	private int attempts(String path) {
+		List<Long> times = arrivals.get(path);
+		return times == null ? 0 : times.size();
+	}
+
+	private void expect(boolean condition, String description) {
+		if (condition) {
+			System.out.println("   ok: " + description);
+		} else {
+			failures.add(description);
+		}
+	}
+
+	private static String body(String path) {
+		return "{\"id\":\"" + path + "\"}";
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package game.bench;
+
+import static game.bench.StandInDatabase.row;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import game.dal.NameSearchIndex;
+
+/**
+ * NameSearchIndex lookups over generated names, next to a plain scan of
+ * every name, which is the work a LIKE '%name%' query does per search.
+ */
+public class NameSearchBench implements Benchmark {
+
+	static final int PLAYERS = 100_000;
+	static final int CHARACTERS_PER_PLAYER = 2;
+	static final int LIMIT = 500;
+	static final String[] SYLLABLES = {
+		"an", "bel", "cor", "dra", "el", "fen", "gar", "hal", "is", "jor",
+		"kal", "lor", "mor", "nel", "or", "pan", "quin", "ros", "sil", "thor",
+		"ul", "val", "wen", "xan", "yor", "zan"
+	};
+
+	private String[] lastNames;
+	private int nextRename = 0;
+
+	@Override
+	public void setUp() throws Exception {
+		Random random = new Random(42);
+		lastNames = new String[PLAYERS];
+		List<Map<String, Object>> players = new ArrayList<>(PLAYERS);
+		List<Map<String, Object>> characters = new ArrayList<>(PLAYERS * CHARACTERS_PER_PLAYER);
+		for (int playerID = 1; playerID <= PLAYERS; playerID++) {
+			String lastName = name(random);
+			lastNames[playerID - 1] = lastName.toLowerCase(Locale.ROOT);
+			players.add(row("playerID", playerID, "lastName", lastName));
+			for (int i = 0; i < CHARACTERS_PER_PLAYER; i++) {
+				characters.add(row("charID", characters.size() + 1, "playerID", playerID,
+						"firstName", name(random), "lastName", lastName));
+			}
+		}
+		Connection cxn = new StandInDatabase()
+			.route("FROM Players", players)
+			.route("FROM Characters", characters)
+			.connect();
+		NameSearchIndex.build(cxn);
+	}
+
+	@Override
+	public Map<String, Operation> operations() {
+		Map<String, Operation> operations = new LinkedHashMap<>();
+		operations.put("findByLastNamePrefix", () -> NameSearchIndex.findPlayersByLastName("Morel", LIMIT));
+		operations.put("findByLastNameSubstring", () -> NameSearchIndex.findPlayersByLastName("orva", LIMIT));
+		operations.put("findByLastNameTwoLetters", () -> NameSearchIndex.findPlayersByLastName("qu", LIMIT));
+		operations.put("findByCharacterName", () -> NameSearchIndex.findPlayersByCharacterName("thor", LIMIT));
+		operations.put("scanAllLastNames", () -> {
+			List<Integer> matches = new ArrayList<>();
+			for (int i = 0; i < lastNames.length && matches.size() < LIMIT; i++) {
+				if (lastNames[i].contains("orva")) {
+					matches.add(i + 1);
+				}
+			}
+			return matches;
+		});
+		operations.put("renamePlayer", () -> {
+			int playerID = nextRename++ % PLAYERS + 1;
+			NameSearchIndex.putPlayer(playerID, lastNames[playerID - 1]);
+			return playerID;
+		});
+		return operations;
+	}
+
+	private static String name(Random random) {
+		StringBuilder name = new StringBuilder();
+		int syllables = 2 + random.nextInt(2);
+		for (int i = 0; i < syllables; i++) {
+			name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+		return name.toString();
+	}
+}
@@ -0,0 +1,34 @@
+package game.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Battle.net API payloads for the parsing benchmarks.
+ *
+ * Looked up on the classpath under /payloads first, then in
+ * src/bench/resources/payloads relative to the working directory, so the
+ * benchmarks also run from the project root without copying resources.
+ */
+final class Payloads {
+
+	private static final Path SOURCE_DIR = Path.of("src", "bench", "resources", "payloads");
+
+	private Payloads() {}
+
+	static String load(String name) throws IOException {
+		try (InputStream in = Payloads.class.getResourceAsStream("/payloads/" + name)) {
+			if (in != null) {
+				return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			}
+		}
+		Path file = SOURCE_DIR.resolve(name);
+		if (!Files.exists(file)) {
+			throw new IOException("Payload not found: " + name + " (looked in classpath /payloads and " + SOURCE_DIR + ")");
+		}
+		return Files.readString(file, StandardCharsets.UTF_8);
+	}
+}
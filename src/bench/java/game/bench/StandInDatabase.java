@@ -0,0 +1,289 @@
+package game.bench;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-process stand-in for the MySQL database, used by the DB-bound benchmarks.
+ *
+ * Queries are answered from canned rows registered with route(); the first
+ * route whose SQL fragment occurs in the statement's SQL wins. Parameters are
+ * accepted and ignored, so a route returns the same rows whatever is bound.
+ * The JDBC objects are java.lang.reflect.Proxy instances implementing only
+ * what the DAOs call, which keeps the cost measured close to the cost of the
+ * mapping code itself rather than of a driver or the network.
+ */
+public class StandInDatabase {
+
+	private final List<String> fragments = new ArrayList<>();
+	private final List<List<Map<String, Object>>> rowSets = new ArrayList<>();
+	// Route lookups by exact SQL string, so matching is not part of the measurement
+	private final Map<String, List<Map<String, Object>>> resolved = new HashMap<>();
+
+	private long queries = 0;
+
+	/**
+	 * Answer every query whose SQL contains sqlFragment with rows.
+	 * Column labels are matched case-insensitively, as MySQL does.
+	 */
+	public StandInDatabase route(String sqlFragment, List<Map<String, Object>> rows) {
+		List<Map<String, Object>> copy = new ArrayList<>(rows.size());
+		for (Map<String, Object> row : rows) {
+			Map<String, Object> labelled = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+			labelled.putAll(row);
+			copy.add(labelled);
+		}
+		fragments.add(sqlFragment);
+		rowSets.add(copy);
+		resolved.clear();
+		return this;
+	}
+
+	/**
+	 * A row built from alternating label/value pairs
+	 */
+	public static Map<String, Object> row(Object... labelsAndValues) {
+		Map<String, Object> row = new LinkedHashMap<>();
+		for (int i = 0; i < labelsAndValues.length; i += 2) {
+			row.put((String) labelsAndValues[i], labelsAndValues[i + 1]);
+		}
+		return row;
+	}
+
+	/**
+	 * A new connection to the stand-in database
+	 */
+	public Connection connect() {
+		return proxy(Connection.class, new ConnectionHandler());
+	}
+
+	public long getQueryCount() {
+		return queries;
+	}
+
+	private List<Map<String, Object>> rowsFor(String sql) throws SQLException {
+		List<Map<String, Object>> rows = resolved.get(sql);
+		if (rows == null) {
+			for (int i = 0; i < fragments.size() && rows == null; i++) {
+				if (sql.contains(fragments.get(i))) {
+					rows = rowSets.get(i);
+				}
+			}
+			if (rows == null) {
+				throw new SQLException("No stand-in rows for: " + sql);
+			}
+			resolved.put(sql, rows);
+		}
+		queries++;
+		return rows;
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(StandInDatabase.class.getClassLoader(), new Class<?>[] { type }, handler));
+	}
+
+	private static Object defaultValue(Class<?> type) {
+		if (type == boolean.class) {
+			return false;
+		}
+		if (type == int.class) {
+			return 0;
+		}
+		if (type == long.class) {
+			return 0L;
+		}
+		if (type == double.class) {
+			return 0d;
+		}
+		return null;
+	}
+
+	private static Object objectMethod(Object proxy, Method method, Object[] args) {
+		switch (method.getName()) {
+		case "toString": return "StandIn" + proxy.getClass().getInterfaces()[0].getSimpleName();
+		case "hashCode": return System.identityHashCode(proxy);
+		case "equals": return proxy == args[0];
+		default: return null;
+		}
+	}
+
+	private class ConnectionHandler implements InvocationHandler {
+		private boolean closed = false;
+		private boolean autoCommit = true;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getDeclaringClass() == Object.class) {
+				return objectMethod(proxy, method, args);
+			}
+			switch (method.getName()) {
+			case "prepareStatement":
+				return proxy(PreparedStatement.class, new StatementHandler((Connection) proxy, (String) args[0]));
+			case "createStatement":
+				return proxy(Statement.class, new StatementHandler((Connection) proxy, null));
+			case "close": closed = true; return null;
+			case "isClosed": return closed;
+			case "isValid": return !closed;
+			case "getAutoCommit": return autoCommit;
+			case "setAutoCommit": autoCommit = (Boolean) args[0]; return null;
+			case "commit":
+			case "rollback":
+			case "setTransactionIsolation":
+			case "clearWarnings":
+				return null;
+			default:
+				throw new SQLException("Stand-in connection does not support " + method.getName());
+			}
+		}
+	}
+
+	private class StatementHandler implements InvocationHandler {
+		private final Connection connection;
+		private final String sql;
+		private ResultSet current;
+
+		StatementHandler(Connection connection, String sql) {
+			this.connection = connection;
+			this.sql = sql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getDeclaringClass() == Object.class) {
+				return objectMethod(proxy, method, args);
+			}
+			String name = method.getName();
+			if (name.startsWith("set") || name.startsWith("clear") || name.equals("addBatch")) {
+				return null;
+			}
+			switch (name) {
+			case "executeQuery":
+				current = newResultSet(rowsFor(args != null && args.length > 0 ? (String) args[0] : sql));
+				return current;
+			case "execute":
+				current = newResultSet(rowsFor(args != null && args.length > 0 ? (String) args[0] : sql));
+				return true;
+			case "getResultSet": return current;
+			case "getMoreResults": current = null; return false;
+			case "getUpdateCount": return -1;
+			case "executeUpdate": return 1;
+			case "executeBatch": return new int[0];
+			case "getConnection": return connection;
+			case "close":
+			case "closeOnCompletion":
+				return null;
+			case "isClosed": return false;
+			default:
+				return defaultValue(method.getReturnType());
+			}
+		}
+	}
+
+	private static ResultSet newResultSet(List<Map<String, Object>> rows) {
+		return proxy(ResultSet.class, new ResultSetHandler(rows));
+	}
+
+	private static class ResultSetHandler implements InvocationHandler {
+		private final List<Map<String, Object>> rows;
+		private int position = -1;
+		private boolean wasNull = false;
+		private boolean closed = false;
+
+		ResultSetHandler(List<Map<String, Object>> rows) {
+			this.rows = rows;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getDeclaringClass() == Object.class) {
+				return objectMethod(proxy, method, args);
+			}
+			String name = method.getName();
+			switch (name) {
+			case "next": return ++position < rows.size();
+			case "close": closed = true; return null;
+			case "isClosed": return closed;
+			case "wasNull": return wasNull;
+			default:
+				break;
+			}
+			if (!name.startsWith("get") || args == null || args.length == 0) {
+				return defaultValue(method.getReturnType());
+			}
+			if (position < 0 || position >= rows.size()) {
+				throw new SQLException("ResultSet is not positioned on a row");
+			}
+
+			Object value = column(args[0]);
+			wasNull = value == null;
+			Class<?> type = args.length > 1 && args[1] instanceof Class<?> ? (Class<?>) args[1] : method.getReturnType();
+			try {
+				return convert(value, type);
+			} catch (ClassCastException | NumberFormatException e) {
+				throw new SQLException("Cannot read " + args[0] + " as " + type.getSimpleName(), e);
+			}
+		}
+
+		private Object column(Object labelOrIndex) throws SQLException {
+			Map<String, Object> row = rows.get(position);
+			if (labelOrIndex instanceof Integer index) {
+				int i = 1;
+				for (Object value : row.values()) {
+					if (i++ == index) {
+						return value;
+					}
+				}
+				throw new SQLException("Column index out of range: " + index);
+			}
+			if (!row.containsKey(labelOrIndex)) {
+				throw new SQLException("Column '" + labelOrIndex + "' not found");
+			}
+			return row.get(labelOrIndex);
+		}
+
+		private static Object convert(Object value, Class<?> type) {
+			if (value == null) {
+				return defaultValue(type);
+			}
+			if (type == Object.class || type.isInstance(value)) {
+				return value;
+			}
+			if (type == String.class) {
+				return value.toString();
+			}
+			if (type == int.class || type == Integer.class) {
+				return ((Number) value).intValue();
+			}
+			if (type == long.class || type == Long.class) {
+				return ((Number) value).longValue();
+			}
+			if (type == double.class || type == Double.class) {
+				return ((Number) value).doubleValue();
+			}
+			if (type == boolean.class || type == Boolean.class) {
+				return ((Number) value).intValue() != 0;
+			}
+			if (type == BigDecimal.class) {
+				return new BigDecimal(value.toString());
+			}
+			if (type == Timestamp.class) {
+				return Timestamp.valueOf(value.toString());
+			}
+			throw new ClassCastException(value.getClass().getName() + " to " + type.getName());
+		}
+	}
+}
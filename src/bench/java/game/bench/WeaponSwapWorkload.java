@@ -0,0 +1,85 @@
+package game.bench;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import game.dal.CharactersDao;
+import game.dal.WeaponsDao;
+import game.model.Characters;
+import game.model.Weapons;
+import game.service.BusinessRulesService;
+
+/**
+ * BusinessRulesService.equipWeapon: swaps the equipped weapon of the hot
+ * characters among weapons each of them owns and may equip.
+ */
+public class WeaponSwapWorkload implements LoadWorkload {
+
+	// charID -> weapons in its inventory that pass the level and job checks
+	private final Map<Integer, List<Integer>> targets = new LinkedHashMap<>();
+
+	@Override
+	public Map<String, String> setUp(Connection cxn, int hotCharacters) throws SQLException {
+		final String selectEquippable = """
+			SELECT DISTINCT i.charID, i.`instance` AS weaponID
+			FROM Inventory i
+			  JOIN Weapons w ON w.itemID = i.`instance`
+			  JOIN Equipments e ON e.itemID = w.itemID
+			  JOIN CharacterUnlockedJob j ON j.charID = i.charID AND j.jobName = w.wearableJob
+			WHERE e.requiredLevel <= (SELECT GREATEST(COALESCE(MAX(m.jobLevel), 1), 1)
+			    FROM CharacterUnlockedJob m WHERE m.charID = i.charID)
+			ORDER BY i.charID, weaponID
+			""";
+
+		Map<Integer, List<Integer>> all = new LinkedHashMap<>();
+		try (PreparedStatement selectStmt = cxn.prepareStatement(selectEquippable);
+				ResultSet results = selectStmt.executeQuery()) {
+			while (results.next()) {
+				all.computeIfAbsent(results.getInt("charID"), id -> new ArrayList<>()).add(results.getInt("weaponID"));
+			}
+		}
+		// Only characters with two weapons to swap between
+		for (Map.Entry<Integer, List<Integer>> e : all.entrySet()) {
+			if (e.getValue().size() >= 2 && targets.size() < hotCharacters) {
+				targets.put(e.getKey(), e.getValue());
+			}
+		}
+		return targets.isEmpty() ? Map.of() : Map.of("characters", String.valueOf(targets.size()));
+	}
+
+	/**
+	 * Each worker has its own Characters, since equipWeapon updates them
+	 */
+	@Override
+	public Operation newWorker(Connection cxn) throws SQLException {
+		List<Characters> characters = new ArrayList<>();
+		List<List<Weapons>> weapons = new ArrayList<>();
+		for (Map.Entry<Integer, List<Integer>> e : targets.entrySet()) {
+			characters.add(CharactersDao.getCharacterByCharID(cxn, e.getKey()));
+			List<Weapons> owned = new ArrayList<>();
+			for (int weaponID : e.getValue()) {
+				owned.add(WeaponsDao.getWeaponByItemID(cxn, weaponID));
+			}
+			weapons.add(owned);
+		}
+
+		return workerCxn -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int target = random.nextInt(characters.size());
+			List<Weapons> owned = weapons.get(target);
+			BusinessRulesService.equipWeapon(workerCxn, characters.get(target), owned.get(random.nextInt(owned.size())));
+		};
+	}
+
+	@Override
+	public Map<String, Long> counters() {
+		return Map.of("deadlockRetries", BusinessRulesService.getEquipRetryCount());
+	}
+}
@@ -4,6 +4,9 @@ import java.sql.Connection;
 import java.sql.SQLException;
 
 import game.dal.ConnectionManager;
+import game.sql.SchemaMigrations;
+import game.sql.StoredProcedures;
+import game.sql.SummaryTables;
 
 /**
  * Manual script to create views if they don't exist
@@ -22,7 +25,12 @@ public class CreateViewsManually {
     
     public static void createViewsManually() throws SQLException {
         try (Connection cxn = ConnectionManager.getConnection()) {
+            // Bring the indexes up to date first; the summary triggers rely on them
+            SchemaMigrations.migrate(cxn);
+            // The aggregate views read from the summary tables
+            SummaryTables.createAll(cxn);
             Driver.createDatabaseViews(cxn);
+            StoredProcedures.createAll(cxn);
         }
     }
 }
\ No newline at end of file
@@ -338,12 +338,17 @@ public class Driver {
 	                     'EARRING', 'NECKLACE', 'WRIST', 'RING'))
 	            );
 	        """);
+
+	        // 19. Indexes and later changes, see SchemaMigrations
+	        game.sql.SchemaMigrations.migrate(cxn);
 	    }
-	    
+
 	    // Create business rule triggers and views
 	    try (Connection cxn = ConnectionManager.getConnection()) {
 	        game.sql.BusinessRuleTriggers.createAllTriggers(cxn);
+	        game.sql.SummaryTables.createAll(cxn);
 	        createDatabaseViews(cxn);
+	        game.sql.StoredProcedures.createAll(cxn);
 	    }
 	    
 	    
@@ -369,15 +374,17 @@ public class Driver {
 	    
 	    try {
 	        // 1. Overall Statistics View (Create this first as it's needed immediately)
+	        // Player, character and clan counts come from EntityCount, one row per slot
+	        // (see SummaryTables); the item tables are small catalog tables only written by the ETL
 	        cxn.createStatement().executeUpdate("""
 	            CREATE VIEW OverallStatsView AS
 	            SELECT 
-	                (SELECT COUNT(*) FROM Players) as total_players,
-	                (SELECT COUNT(*) FROM Characters) as total_characters,
+	                (SELECT COALESCE(SUM(total), 0) FROM EntityCount WHERE entity = 'Players') as total_players,
+	                (SELECT COALESCE(SUM(total), 0) FROM EntityCount WHERE entity = 'Characters') as total_characters,
 	                (SELECT COUNT(*) FROM Weapons) as total_weapons,
 	                (SELECT COUNT(*) FROM Gears) as total_gears,
 	                (SELECT COUNT(*) FROM Consumables) as total_consumables,
-	                (SELECT COUNT(*) FROM Clans) as total_clans;
+	                (SELECT COALESCE(SUM(total), 0) FROM EntityCount WHERE entity = 'Clans') as total_clans;
 	        """);
 	        System.out.println("✅ Created OverallStatsView");
 	        
@@ -398,12 +405,17 @@ public class Driver {
 	        cxn.createStatement().executeUpdate("""
 	            CREATE VIEW JobDistributionView AS
 	            SELECT 
-	                w.wearableJob as job_name,
-	                COUNT(*) as character_count,
-	                ROUND(COUNT(*) * 100.0 / (SELECT COUNT(*) FROM Characters), 2) as percentage
-	            FROM Characters c
-	            JOIN Weapons w ON c.weaponWeared = w.itemID
-	            GROUP BY w.wearableJob
+	                js.jobName as job_name,
+	                js.characterCount as character_count,
+	                ROUND(js.characterCount * 100.0 / NULLIF(ec.total, 0), 2) as percentage
+	            FROM (
+	                -- One row per job and slot, see SummaryTables
+	                SELECT jobName, SUM(characterCount) AS characterCount
+	                FROM JobSummary
+	                GROUP BY jobName
+	            ) js
+	            CROSS JOIN (SELECT SUM(total) AS total FROM EntityCount WHERE entity = 'Characters') ec
+	            WHERE js.characterCount > 0
 	            ORDER BY character_count DESC;
 	        """);
 	        System.out.println("✅ Created JobDistributionView");
@@ -412,14 +424,14 @@ public class Driver {
 	        cxn.createStatement().executeUpdate("""
 	            CREATE VIEW ClanDistributionView AS
 	            SELECT 
-	                cl.clanName as clan_name,
+	                cs.clanName as clan_name,
 	                cl.race,
-	                COUNT(c.charID) as character_count,
-	                ROUND(COUNT(c.charID) * 100.0 / (SELECT COUNT(*) FROM Characters), 2) as percentage
-	            FROM Clans cl
-	            LEFT JOIN Characters c ON cl.clanName = c.clan
-	            GROUP BY cl.clanName, cl.race
-	            HAVING character_count > 0
+	                cs.characterCount as character_count,
+	                ROUND(cs.characterCount * 100.0 / NULLIF(ec.total, 0), 2) as percentage
+	            FROM ClanSummary cs
+	            JOIN Clans cl ON cs.clanName = cl.clanName
+	            CROSS JOIN (SELECT SUM(total) AS total FROM EntityCount WHERE entity = 'Characters') ec
+	            WHERE cs.characterCount > 0
 	            ORDER BY character_count DESC;
 	        """);
 	        System.out.println("✅ Created ClanDistributionView");
@@ -431,13 +443,20 @@ public class Driver {
 	                curr.currencyName as currency_name,
 	                curr.cap,
 	                curr.weeklyCap as weekly_cap,
-	                COUNT(cw.charID) as players_with_currency,
-	                COALESCE(AVG(cw.amount), 0) as avg_amount,
-	                COALESCE(MAX(cw.amount), 0) as max_amount,
-	                COALESCE(SUM(cw.amount), 0) as total_in_circulation
+	                COALESCE(cs.holderCount, 0) as players_with_currency,
+	                COALESCE(cs.totalAmount / NULLIF(cs.holderCount, 0), 0) as avg_amount,
+	                COALESCE(cs.maxAmount, 0) as max_amount,
+	                COALESCE(cs.totalAmount, 0) as total_in_circulation
 	            FROM Currencies curr
-	            LEFT JOIN CharacterWealth cw ON curr.currencyName = cw.currencyName
-	            GROUP BY curr.currencyName, curr.cap, curr.weeklyCap
+	            LEFT JOIN (
+	                -- One row per currency and slot, see SummaryTables
+	                SELECT currencyName,
+	                       SUM(holderCount) AS holderCount,
+	                       SUM(totalAmount) AS totalAmount,
+	                       MAX(maxAmount) AS maxAmount
+	                FROM CurrencySummary
+	                GROUP BY currencyName
+	            ) cs ON curr.currencyName = cs.currencyName
 	            ORDER BY total_in_circulation DESC;
 	        """);
 	        System.out.println("✅ Created CurrencyStatsView");
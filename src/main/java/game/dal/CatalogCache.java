@@ -0,0 +1,269 @@
+package game.dal;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import game.model.*;
+
+/**
+ * Process-wide cache of the catalog tables (Clans, Currencies, Statistics
+ * and Weapons), keyed by primary key.
+ *
+ * These rows are loaded once by the ETL and rarely change, but are looked
+ * up inside loops all over the DAL. The DAO get methods check here first
+ * and fill the cache on a miss; the DAO create, update and delete methods
+ * keep it current. Lookups hand out copies since the models are mutable.
+ *
+ * Rows are only cached from connections in autocommit mode: inside a
+ * transaction a row that was read or written may still be rolled back,
+ * and caching it would leave an entry for a row that does not exist.
+ *
+ * Every invalidation bumps a version counter. A DAO reads the version
+ * before it queries a row and passes it to put, which caches nothing if
+ * the version moved meanwhile; otherwise a reader that queried just before
+ * an update could put the old row back after the update invalidated it.
+ * A write inside a transaction invalidates at once and again when the
+ * transaction ends (see ConnectionPool), since until the commit readers
+ * still see, and may cache, the old row.
+ *
+ * Writes made to the database outside the DAOs (or by another process)
+ * are not seen until invalidateAll() or warm() is called.
+ */
+public class CatalogCache {
+
+	private static final Map<String, Clans> clans = new ConcurrentHashMap<>();
+	private static final Map<String, Currencies> currencies = new ConcurrentHashMap<>();
+	private static final Map<String, Statistics> statistics = new ConcurrentHashMap<>();
+	private static final Map<Integer, Weapons> weapons = new ConcurrentHashMap<>();
+
+	// Bumped by every invalidation, see put
+	private static final AtomicLong version = new AtomicLong();
+	// Invalidations to repeat when the current thread's transaction ends
+	private static final ThreadLocal<List<Runnable>> afterTransaction = ThreadLocal.withInitial(ArrayList::new);
+
+	private static final LongAdder hits = new LongAdder();
+	private static final LongAdder misses = new LongAdder();
+
+	private CatalogCache() {}
+
+	/**
+	 * Load every catalog row, replacing whatever is cached
+	 */
+	public static void warm(Connection cxn) throws SQLException {
+		invalidateAll();
+		long readVersion = version();
+		for (Clans clan : ClansDao.getAllClans(cxn)) {
+			putClan(clan, readVersion);
+		}
+		for (Currencies currency : CurrenciesDao.getAllCurrencies(cxn)) {
+			putCurrency(currency, readVersion);
+		}
+		for (Statistics stat : StatisticsDao.getAllStatistics(cxn)) {
+			putStatistics(stat, readVersion);
+		}
+		for (Weapons weapon : WeaponsDao.getAllWeapons(cxn)) {
+			putWeapon(weapon, readVersion);
+		}
+	}
+
+	/**
+	 * Whether what was just read or written on cxn is committed, so that it
+	 * may be cached
+	 */
+	static boolean canCache(Connection cxn) throws SQLException {
+		return cxn.getAutoCommit();
+	}
+
+	/**
+	 * The current version; read it before querying a row to pass to put
+	 */
+	public static long version() {
+		return version.get();
+	}
+
+	/**
+	 * Repeat the invalidations made inside the transaction that just ended
+	 * on this thread. Called by the pooled connections on commit, rollback
+	 * and when auto-commit is switched back on.
+	 */
+	static void transactionEnded() {
+		List<Runnable> pending = afterTransaction.get();
+		if (pending.isEmpty()) {
+			return;
+		}
+		List<Runnable> invalidations = new ArrayList<>(pending);
+		pending.clear();
+		for (Runnable invalidation : invalidations) {
+			invalidation.run();
+		}
+	}
+
+	/**
+	 * Drop everything cached
+	 */
+	public static void invalidateAll() {
+		version.incrementAndGet();
+		clans.clear();
+		currencies.clear();
+		statistics.clear();
+		weapons.clear();
+	}
+
+	// Clans
+
+	public static Clans getClan(String clanName) {
+		Clans clan = clanName == null ? null : clans.get(clanName);
+		count(clan);
+		return clan == null ? null : new Clans(clan.getClanName(), clan.getRace());
+	}
+
+	public static void putClan(Clans clan, long readVersion) {
+		if (clan != null) {
+			put(clans, clan.getClanName(), new Clans(clan.getClanName(), clan.getRace()), readVersion);
+		}
+	}
+
+	public static void invalidateClan(Connection cxn, String clanName) throws SQLException {
+		if (clanName != null) {
+			invalidate(cxn, clans, clanName);
+		}
+	}
+
+	// Currencies
+
+	public static Currencies getCurrency(String currencyName) {
+		Currencies currency = currencyName == null ? null : currencies.get(currencyName);
+		count(currency);
+		return currency == null ? null
+				: new Currencies(currency.getCurrencyName(), currency.getCap(), currency.getWeeklyCap());
+	}
+
+	public static void putCurrency(Currencies currency, long readVersion) {
+		if (currency != null) {
+			put(currencies, currency.getCurrencyName(),
+					new Currencies(currency.getCurrencyName(), currency.getCap(), currency.getWeeklyCap()), readVersion);
+		}
+	}
+
+	public static void invalidateCurrency(Connection cxn, String currencyName) throws SQLException {
+		if (currencyName != null) {
+			invalidate(cxn, currencies, currencyName);
+		}
+	}
+
+	// Statistics
+
+	public static Statistics getStatistics(String statsName) {
+		Statistics stat = statsName == null ? null : statistics.get(statsName);
+		count(stat);
+		return stat == null ? null : new Statistics(stat.getStatsName(), stat.getDescription());
+	}
+
+	public static void putStatistics(Statistics stat, long readVersion) {
+		if (stat != null) {
+			put(statistics, stat.getStatsName(), new Statistics(stat.getStatsName(), stat.getDescription()), readVersion);
+		}
+	}
+
+	public static void invalidateStatistics(Connection cxn, String statsName) throws SQLException {
+		if (statsName != null) {
+			invalidate(cxn, statistics, statsName);
+		}
+	}
+
+	// Weapons
+
+	public static Weapons getWeapon(int itemID) {
+		Weapons weapon = weapons.get(itemID);
+		count(weapon);
+		return weapon == null ? null : copy(weapon);
+	}
+
+	public static void putWeapon(Weapons weapon, long readVersion) {
+		if (weapon != null) {
+			put(weapons, weapon.getItemID(), copy(weapon), readVersion);
+		}
+	}
+
+	public static void invalidateWeapon(Connection cxn, int itemID) throws SQLException {
+		invalidate(cxn, weapons, itemID);
+	}
+
+	private static Weapons copy(Weapons weapon) {
+		return new Weapons(
+				weapon.getItemID(),
+				weapon.getItemName(),
+				weapon.getLevel(),
+				weapon.getMaxStackSize(),
+				weapon.getPrice(),
+				weapon.getRequiredLevel(),
+				weapon.getWearableJob(),
+				weapon.getDamage());
+	}
+
+	/**
+	 * Cache value unless an invalidation happened since readVersion. The
+	 * version is checked again after the put: an invalidation that ran in
+	 * between bumped it before removing, so either it removed the value or
+	 * the check sees it and takes the value out again.
+	 */
+	private static <K, V> void put(Map<K, V> map, K key, V value, long readVersion) {
+		if (version.get() != readVersion) {
+			return;
+		}
+		map.put(key, value);
+		if (version.get() != readVersion) {
+			map.remove(key, value);
+		}
+	}
+
+	private static <K> void invalidate(Connection cxn, Map<K, ?> map, K key) throws SQLException {
+		version.incrementAndGet();
+		map.remove(key);
+		if (!canCache(cxn)) {
+			afterTransaction.get().add(() -> {
+				version.incrementAndGet();
+				map.remove(key);
+			});
+		}
+	}
+
+	private static void count(Object cached) {
+		if (cached != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+		}
+	}
+
+	// Metrics
+
+	public static long getHitCount() {
+		return hits.sum();
+	}
+
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	public static double getHitRate() {
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0.0 : (double) h / total;
+	}
+
+	public static int getSize() {
+		return clans.size() + currencies.size() + statistics.size() + weapons.size();
+	}
+
+	public static String describe() {
+		return String.format("CatalogCache[clans=%d, currencies=%d, statistics=%d, weapons=%d, hits=%d, misses=%d]",
+				clans.size(), currencies.size(), statistics.size(), weapons.size(), getHitCount(), getMissCount());
+	}
+}
@@ -0,0 +1,214 @@
+package game.dal;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import game.model.*;
+import game.sql.StoredProcedures;
+
+/**
+ * Loads a CharacterAggregate: a character with its inventory, equipped
+ * items, wealth and unlocked jobs.
+ *
+ * Normally this is one CALL to the GetCharacterAggregate procedure, which
+ * returns the five parts as consecutive result sets. If the procedure has
+ * not been created in this schema the same five SELECTs are run one after
+ * the other, and the CALL is tried again a minute later. Either way the
+ * number of queries does not depend on how much the character owns, and
+ * the character object is shared by every wealth and job row instead of
+ * being reloaded for each.
+ *
+ * SELECTS is the one copy of the five queries: StoredProcedures builds the
+ * procedure body from it, so the two ways of loading cannot drift apart.
+ */
+public class CharacterAggregateDao {
+
+    private static final String CALL_AGGREGATE = "{CALL " + StoredProcedures.CHARACTER_AGGREGATE + "(?)}";
+
+    // MySQL error 1305: PROCEDURE does not exist
+    private static final int ER_SP_DOES_NOT_EXIST = 1305;
+
+    // How long to load with separate queries after the CALL found no procedure
+    private static final long PROCEDURE_RECHECK_MILLIS = 60_000;
+
+    // Each takes the charID as its only parameter
+    public static final String SELECT_CHARACTER = CharactersDao.SELECT_CHARACTER_ROWS + "WHERE c.charID = ?;";
+    public static final String SELECT_INVENTORY =
+            "SELECT slotID, itemID, itemName, item_type, quantity, level " +
+            "FROM CharacterInventoryDetailsView WHERE charID = ? ORDER BY slotID;";
+    public static final String SELECT_EQUIPPED =
+            "SELECT charID, equipPosition, itemID FROM EquippedItems WHERE charID = ?;";
+    public static final String SELECT_WEALTH =
+            "SELECT cw.currencyName, cw.amount, cw.weeklyAcquired, cu.cap, cu.weeklyCap " +
+            "FROM CharacterWealth cw JOIN Currencies cu ON cw.currencyName = cu.currencyName " +
+            "WHERE cw.charID = ?;";
+    public static final String SELECT_JOBS =
+            "SELECT jobName, jobLevel, XP FROM CharacterUnlockedJob WHERE charID = ?;";
+
+    /** The five queries in the order the procedure returns their result sets */
+    public static final List<String> SELECTS =
+            List.of(SELECT_CHARACTER, SELECT_INVENTORY, SELECT_EQUIPPED, SELECT_WEALTH, SELECT_JOBS);
+
+    // System.currentTimeMillis() before which the CALL is skipped, set when the procedure was missing
+    private static volatile long procedureMissingUntil = 0;
+
+    private CharacterAggregateDao() {}
+
+    /**
+     * Load everything shown for a character, or null if there is no such character
+     */
+    public static CharacterAggregate getCharacterAggregate(Connection cxn, int charID) throws SQLException {
+        if (System.currentTimeMillis() >= procedureMissingUntil) {
+            try {
+                return loadWithProcedure(cxn, charID);
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ER_SP_DOES_NOT_EXIST) {
+                    throw e;
+                }
+                // Until the procedure is created; do not pay for a failed CALL on every load meanwhile
+                procedureMissingUntil = System.currentTimeMillis() + PROCEDURE_RECHECK_MILLIS;
+                System.err.println("⚠️ " + StoredProcedures.CHARACTER_AGGREGATE
+                        + " is missing; loading character details with separate queries");
+            }
+        }
+        return loadWithQueries(cxn, charID);
+    }
+
+    private static CharacterAggregate loadWithProcedure(Connection cxn, int charID) throws SQLException {
+        try (CallableStatement call = cxn.prepareCall(CALL_AGGREGATE)) {
+            call.setInt(1, charID);
+            if (!call.execute()) {
+                throw new SQLException(StoredProcedures.CHARACTER_AGGREGATE + " returned no result sets");
+            }
+
+            Characters character = mapCharacter(call.getResultSet());
+            if (character == null) {
+                return null;
+            }
+            // getMoreResults() closes the previous result set
+            List<InventoryItemDetail> inventory = mapInventory(nextResultSet(call));
+            List<EquippedItems> equipped = mapEquipped(nextResultSet(call));
+            List<CharacterWealth> wealth = mapWealth(nextResultSet(call), character);
+            List<CharacterUnlockedJob> jobs = mapJobs(nextResultSet(call), character);
+            return new CharacterAggregate(character, inventory, equipped, wealth, jobs);
+        }
+    }
+
+    private static ResultSet nextResultSet(CallableStatement call) throws SQLException {
+        if (!call.getMoreResults()) {
+            throw new SQLException(StoredProcedures.CHARACTER_AGGREGATE + " returned fewer result sets than expected");
+        }
+        return call.getResultSet();
+    }
+
+    private static CharacterAggregate loadWithQueries(Connection cxn, int charID) throws SQLException {
+        Characters character;
+        try (PreparedStatement stmt = cxn.prepareStatement(SELECT_CHARACTER)) {
+            stmt.setInt(1, charID);
+            character = mapCharacter(stmt.executeQuery());
+        }
+        if (character == null) {
+            return null;
+        }
+
+        List<InventoryItemDetail> inventory;
+        try (PreparedStatement stmt = cxn.prepareStatement(SELECT_INVENTORY)) {
+            stmt.setInt(1, charID);
+            inventory = mapInventory(stmt.executeQuery());
+        }
+
+        List<EquippedItems> equipped;
+        try (PreparedStatement stmt = cxn.prepareStatement(SELECT_EQUIPPED)) {
+            stmt.setInt(1, charID);
+            equipped = mapEquipped(stmt.executeQuery());
+        }
+
+        List<CharacterWealth> wealth;
+        try (PreparedStatement stmt = cxn.prepareStatement(SELECT_WEALTH)) {
+            stmt.setInt(1, charID);
+            wealth = mapWealth(stmt.executeQuery(), character);
+        }
+
+        List<CharacterUnlockedJob> jobs;
+        try (PreparedStatement stmt = cxn.prepareStatement(SELECT_JOBS)) {
+            stmt.setInt(1, charID);
+            jobs = mapJobs(stmt.executeQuery(), character);
+        }
+
+        return new CharacterAggregate(character, inventory, equipped, wealth, jobs);
+    }
+
+    // Each mapper reads and closes one result set
+
+    private static Characters mapCharacter(ResultSet rs) throws SQLException {
+        try (rs) {
+            return rs.next() ? new CharactersDao.CharacterRowMapper().map(rs) : null;
+        }
+    }
+
+    private static List<InventoryItemDetail> mapInventory(ResultSet rs) throws SQLException {
+        List<InventoryItemDetail> inventory = new ArrayList<>();
+        try (rs) {
+            while (rs.next()) {
+                inventory.add(new InventoryItemDetail(
+                    rs.getInt("slotID"),
+                    rs.getInt("itemID"),
+                    rs.getString("itemName"),
+                    rs.getString("item_type"),
+                    rs.getInt("quantity"),
+                    rs.getInt("level")
+                ));
+            }
+        }
+        return inventory;
+    }
+
+    private static List<EquippedItems> mapEquipped(ResultSet rs) throws SQLException {
+        List<EquippedItems> equipped = new ArrayList<>();
+        try (rs) {
+            while (rs.next()) {
+                equipped.add(new EquippedItems(
+                    rs.getInt("charID"),
+                    rs.getString("equipPosition"),
+                    rs.getInt("itemID")
+                ));
+            }
+        }
+        return equipped;
+    }
+
+    private static List<CharacterWealth> mapWealth(ResultSet rs, Characters character) throws SQLException {
+        List<CharacterWealth> wealth = new ArrayList<>();
+        try (rs) {
+            while (rs.next()) {
+                Currencies currency = new Currencies(
+                    rs.getString("currencyName"),
+                    rs.getBigDecimal("cap"),
+                    rs.getBigDecimal("weeklyCap")
+                );
+                wealth.add(new CharacterWealth(character, currency, rs.getBigDecimal("amount"), rs.getBigDecimal("weeklyAcquired")));
+            }
+        }
+        return wealth;
+    }
+
+    private static List<CharacterUnlockedJob> mapJobs(ResultSet rs, Characters character) throws SQLException {
+        List<CharacterUnlockedJob> jobs = new ArrayList<>();
+        try (rs) {
+            while (rs.next()) {
+                jobs.add(new CharacterUnlockedJob(
+                    character,
+                    rs.getString("jobName"),
+                    rs.getObject("jobLevel", Integer.class),
+                    rs.getObject("XP", Integer.class)
+                ));
+            }
+        }
+        return jobs;
+    }
+}
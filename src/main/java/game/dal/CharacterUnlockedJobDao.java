@@ -12,6 +12,14 @@ import game.model.*;
 
 public class CharacterUnlockedJobDao{
   protected CharacterUnlockedJobDao() {};
+
+  // The jobs of one character; public so that QueryPlanCheck explains it
+  public static final String SELECT_JOBS_BY_CHARACTER =
+       """
+       SELECT charID, jobName, jobLevel, XP
+       FROM CharacterUnlockedJob 
+       WHERE charID = ?;
+       """;
 	
   /**
    * Save the CharacterUnlockedJob instance by storing it in MySQL instance.
@@ -65,9 +73,34 @@ public class CharacterUnlockedJobDao{
   /**
    * Get the CharacterUnlockedJob record by fetching it from MySQL instance.
    * This runs a SELECT statement and returns a single CharacterUnlockedJob instance based on charID and jobName.
+   * The character is loaded only if the job exists.
+   */
+  public static CharacterUnlockedJob getCharacterUnlockedJobByID(
+	Connection cxn,
+    int charID,
+    String jobName
+  )  throws SQLException {
+     CharacterUnlockedJob job = getCharacterUnlockedJobByID(cxn, null, charID, jobName);
+     if (job != null) {
+    	 job.setCharacter(CharactersDao.getCharacterByCharID(cxn, charID));
+     }
+     return job;
+  }
+  
+  /**
+   * Same as above for a character that is already loaded, so this is a single query.
    */
   public static CharacterUnlockedJob getCharacterUnlockedJobByID(
 	Connection cxn,
+    Characters character,
+    String jobName
+  )  throws SQLException {
+	 return getCharacterUnlockedJobByID(cxn, character, character.getCharID(), jobName);
+  }
+  
+  private static CharacterUnlockedJob getCharacterUnlockedJobByID(
+	Connection cxn,
+    Characters character,
     int charID,
     String jobName
   )  throws SQLException {
@@ -82,59 +115,69 @@ public class CharacterUnlockedJobDao{
     	  selectStmt.setInt(1, charID);
     	  selectStmt.setString(2, jobName);
 
-     try (ResultSet results = selectStmt.executeQuery()) {
-        if (results.next()) {
-          Integer jobLevel = (Integer) results.getObject("jobLevel");
-          Integer xP = (Integer) results.getObject("XP");
-          return new CharacterUnlockedJob(
-            CharactersDao.getCharacterByCharID(cxn, results.getInt("charID")),
-            results.getString("jobName"),
-            jobLevel,
-            xP
-          );
-        } else {
-          return null;
+        try (ResultSet results = selectStmt.executeQuery()) {
+          return results.next() ? mapJob(results, character) : null;
         }
-      }
-    }
+     }
   }
   
   /**
    * Get the a list of CharacterUnlockedJob record by fetching it from MySQL instance.
    * This runs a SELECT statement and returns a list of CharacterUnlockedJob instance based on charID.
+   * The character is loaded once and shared by every job, and only if there are any jobs.
+   * Callers that already have the Characters should use getCharacterUnlockedJobsByCharacter.
    */
   public static List<CharacterUnlockedJob> getCharacterUnlockedJobByCharID(
 	Connection cxn,
     int charID
+  )  throws SQLException {
+	 List<CharacterUnlockedJob> unlockJobs = getCharacterUnlockedJobs(cxn, null, charID);
+	 if (!unlockJobs.isEmpty()) {
+		 Characters character = CharactersDao.getCharacterByCharID(cxn, charID);
+		 for (CharacterUnlockedJob job : unlockJobs) {
+			 job.setCharacter(character);
+		 }
+	 }
+	 return unlockJobs;
+  }
+  
+  /**
+   * Get the list of CharacterUnlockedJob of an already loaded character.
+   * This runs a single SELECT statement; every job refers to the given character.
+   */
+  public static List<CharacterUnlockedJob> getCharacterUnlockedJobsByCharacter(
+	Connection cxn,
+    Characters character
+  )  throws SQLException {
+	 return getCharacterUnlockedJobs(cxn, character, character.getCharID());
+  }
+  
+  private static List<CharacterUnlockedJob> getCharacterUnlockedJobs(
+	Connection cxn,
+    Characters character,
+    int charID
   )  throws SQLException {
 	 List<CharacterUnlockedJob> unlockJobs = new ArrayList<>();
-     final String selectCharacterUnlockedJobs =
-       """
-       SELECT charID, jobName, jobLevel, XP
-       FROM CharacterUnlockedJob 
-       WHERE charID = ?;
-       """;
 
-     try (PreparedStatement selectStmt = cxn.prepareStatement(selectCharacterUnlockedJobs)) {
+     try (PreparedStatement selectStmt = cxn.prepareStatement(SELECT_JOBS_BY_CHARACTER)) {
     	  selectStmt.setInt(1, charID);
 
 	     try (ResultSet results = selectStmt.executeQuery()) {
             while (results.next()) {
-            	Integer jobLevel = results.getObject("jobLevel", Integer.class);
-            	Integer xP = results.getObject("XP", Integer.class);
-            	
-                unlockJobs.add(
-                  new CharacterUnlockedJob(
-                    CharactersDao.getCharacterByCharID(cxn, charID),
-                    results.getString("jobName"),
-                    jobLevel,
-                    xP
-                  )
-                );
+                unlockJobs.add(mapJob(results, character));
             }
         }
     }
     return unlockJobs;
   }
   
-}
\ No newline at end of file
+  private static CharacterUnlockedJob mapJob(ResultSet results, Characters character) throws SQLException {
+	  return new CharacterUnlockedJob(
+			  character,
+			  results.getString("jobName"),
+			  results.getObject("jobLevel", Integer.class),
+			  results.getObject("XP", Integer.class)
+	  );
+  }
+  
+}
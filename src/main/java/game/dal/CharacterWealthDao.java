@@ -11,19 +11,28 @@ import java.util.List;
 import game.model.*;
 
 public class CharacterWealthDao {
+
+	// The per-character lookups; public so that QueryPlanCheck explains them
+	public static final String SELECT_WEALTH_BY_CHARACTER_AND_CURRENCY =
+			"SELECT amount, weeklyAcquired FROM characterWealth WHERE charID = ? AND currencyName = ?;";
+	public static final String SELECT_WEALTH_BY_CHARACTER =
+			"SELECT currencyName, amount, weeklyAcquired FROM characterWealth WHERE charID = ?;";
+	public static final String SELECT_WEALTH_IN_PERIOD =
+			"SELECT amount, IF(weeklyPeriod <=> ?, weeklyAcquired, 0) AS weeklyAcquired FROM characterWealth WHERE charID = ? AND currencyName = ?;";
 	
 	private CharacterWealthDao() {}
 	
 	// Create method
-	// inserts a new record in the character wealth table
+	// inserts a new record in the character wealth table; weeklyAcquired is counted in weeklyPeriod, the current week
 	public static CharacterWealth create(
 			Connection cxn, 
 			Characters character,
 			Currencies currency,
 			BigDecimal amount,
-			BigDecimal weeklyAcquired
+			BigDecimal weeklyAcquired,
+			String weeklyPeriod
 			) throws SQLException{
-		final String insertCharacterWealth = "INSERT INTO characterWealth (charID, currencyName, amount, weeklyAcquired) VALUES (?, ?, ?, ?);";
+		final String insertCharacterWealth = "INSERT INTO characterWealth (charID, currencyName, amount, weeklyAcquired, weeklyPeriod) VALUES (?, ?, ?, ?, ?);";
 
 		try (PreparedStatement insertStmt = cxn.prepareStatement(insertCharacterWealth)){
 
@@ -31,6 +40,7 @@ public class CharacterWealthDao {
 			insertStmt.setString(2,  currency.getCurrencyName()); 
 			insertStmt.setBigDecimal(3, amount); 
 			insertStmt.setBigDecimal(4, weeklyAcquired);
+			insertStmt.setString(5, weeklyPeriod);
 			insertStmt.executeUpdate();
 
 			return new CharacterWealth(character,currency,amount,weeklyAcquired);
@@ -52,9 +62,7 @@ public class CharacterWealthDao {
 			Characters character,
 			Currencies currency
 			) throws SQLException{
-		final String getCharacterWealth = "SELECT amount, weeklyAcquired FROM characterWealth WHERE charID = ? AND currencyName = ?;";
-		
-		try(PreparedStatement getStmt = cxn.prepareStatement(getCharacterWealth)){
+		try(PreparedStatement getStmt = cxn.prepareStatement(SELECT_WEALTH_BY_CHARACTER_AND_CURRENCY)){
 			getStmt.setInt(1, character.getCharID());
 			getStmt.setString(2, currency.getCurrencyName());
 			
@@ -69,6 +77,31 @@ public class CharacterWealthDao {
 	}
 	
 	
+	// getCharacterWealthByCharacterAndCurrency
+	// as above, with weeklyAcquired as counted in weeklyPeriod, the current week: a total recorded in an
+	// earlier week is 0, as in addToAmount
+	public static CharacterWealth getCharacterWealthByCharacterAndCurrency(
+			Connection cxn,
+			Characters character,
+			Currencies currency,
+			String weeklyPeriod
+			) throws SQLException{
+		try(PreparedStatement getStmt = cxn.prepareStatement(SELECT_WEALTH_IN_PERIOD)){
+			getStmt.setString(1, weeklyPeriod);
+			getStmt.setInt(2, character.getCharID());
+			getStmt.setString(3, currency.getCurrencyName());
+			
+			try(ResultSet rs = getStmt.executeQuery()){		
+				if(rs.next()) {
+					return new CharacterWealth(character, currency, rs.getBigDecimal("amount"), rs.getBigDecimal("weeklyAcquired"));			
+				}else {
+					return null;
+				}
+			}
+		}
+	}
+	
+	
 	// getCharacterWealthByCharacter
 	// returns a list of characterWealth a character has, given character
 	
@@ -77,11 +110,9 @@ public class CharacterWealthDao {
 			Characters character
 			) throws SQLException{
 		
-        final String query = "SELECT currencyName, amount, weeklyAcquired FROM characterWealth WHERE charID = ?;";
-
         List<CharacterWealth> characterWealthList = new ArrayList<>();
         
-        try (PreparedStatement stmt = cxn.prepareStatement(query)) {
+        try (PreparedStatement stmt = cxn.prepareStatement(SELECT_WEALTH_BY_CHARACTER)) {
             stmt.setInt(1, character.getCharID());
 
             try (ResultSet rs = stmt.executeQuery()) {
@@ -94,4 +125,177 @@ public class CharacterWealthDao {
         }
 		return characterWealthList;
 	}
+
+	
+	// addToAmount
+	// adds delta to the amount, and weeklyAddition to weeklyAcquired, in one conditional UPDATE that only
+	// applies while the new amount stays between 0 and the currency's cap and the weekly total within its weekly cap.
+	// weeklyPeriod is the current week: a weekly total recorded in an earlier week counts as 0, even where
+	// WeeklyCapResetJob has not reset the row yet, and a weekly addition stamps the row with this week.
+	// returns the new amount, or null if the character has no row for the currency or a limit would be broken
+	public static BigDecimal addToAmount(
+			Connection cxn,
+			Characters character,
+			Currencies currency,
+			BigDecimal delta,
+			BigDecimal weeklyAddition,
+			String weeklyPeriod
+			) throws SQLException{
+		// A single-table UPDATE assigns left to right, so weeklyAcquired still sees the old weeklyPeriod;
+		// the caps are read with EXISTS instead of a join for that reason.
+		final String updateAmount = """
+				UPDATE CharacterWealth w
+				SET w.amount = w.amount + ?,
+				  w.weeklyAcquired = IF(? = 0, w.weeklyAcquired,
+				      IF(w.weeklyPeriod <=> ?, COALESCE(w.weeklyAcquired, 0), 0) + ?),
+				  w.weeklyPeriod = IF(? = 0, w.weeklyPeriod, ?)
+				WHERE w.charID = ? AND w.currencyName = ?
+				  AND w.amount + ? >= 0
+				  AND EXISTS (SELECT 1 FROM Currencies c WHERE c.currencyName = w.currencyName
+				      AND (c.cap IS NULL OR w.amount + ? <= c.cap)
+				      AND (? = 0 OR c.weeklyCap IS NULL
+				          OR IF(w.weeklyPeriod <=> ?, COALESCE(w.weeklyAcquired, 0), 0) + ? <= c.weeklyCap))
+				""";
+		// the UPDATE holds the row lock until commit, so this reads the amount it wrote
+		final String selectAmount = "SELECT amount FROM CharacterWealth WHERE charID = ? AND currencyName = ?;";
+		
+		try (PreparedStatement updateStmt = cxn.prepareStatement(updateAmount)){
+			updateStmt.setBigDecimal(1, delta);
+			updateStmt.setBigDecimal(2, weeklyAddition);
+			updateStmt.setString(3, weeklyPeriod);
+			updateStmt.setBigDecimal(4, weeklyAddition);
+			updateStmt.setBigDecimal(5, weeklyAddition);
+			updateStmt.setString(6, weeklyPeriod);
+			updateStmt.setInt(7, character.getCharID());
+			updateStmt.setString(8, currency.getCurrencyName());
+			updateStmt.setBigDecimal(9, delta);
+			updateStmt.setBigDecimal(10, delta);
+			updateStmt.setBigDecimal(11, weeklyAddition);
+			updateStmt.setString(12, weeklyPeriod);
+			updateStmt.setBigDecimal(13, weeklyAddition);
+			if (updateStmt.executeUpdate() == 0) {
+				return null;
+			}
+		}
+		
+		try (PreparedStatement selectStmt = cxn.prepareStatement(selectAmount)){
+			selectStmt.setInt(1, character.getCharID());
+			selectStmt.setString(2, currency.getCurrencyName());
+			
+			try (ResultSet rs = selectStmt.executeQuery()){
+				rs.next();
+				return rs.getBigDecimal("amount");
+			}
+		}
+	}
+	
+	
+	// lockRows
+	// locks the character wealth rows of the given characters in the given currencies, in primary key
+	// order, so that transactions wanting overlapping rows queue on the first one they share instead of
+	// each holding some. rows that do not exist yet are not locked
+	public static void lockRows(
+			Connection cxn,
+			List<Integer> charIDs,
+			List<String> currencyNames
+			) throws SQLException{
+		final String selectForUpdate = "SELECT charID FROM CharacterWealth WHERE charID IN (" + InClause.placeholders(charIDs.size())
+				+ ") AND currencyName IN (" + InClause.placeholders(currencyNames.size())
+				+ ") ORDER BY charID, currencyName FOR UPDATE;";
+
+		try (PreparedStatement selectStmt = cxn.prepareStatement(selectForUpdate)){
+			int index = InClause.bind(selectStmt, 1, charIDs);
+			InClause.bind(selectStmt, index, currencyNames);
+			selectStmt.executeQuery().close();
+		}
+	}
+	
+	
+	// insertWithinCaps
+	// inserts a new character wealth row, only if amount and weeklyAcquired are within the currency's caps.
+	// weeklyAcquired is counted in weeklyPeriod, the current week.
+	// returns false if a cap would be broken or the currency does not exist;
+	// throws SQLIntegrityConstraintViolationException if the row already exists
+	public static boolean insertWithinCaps(
+			Connection cxn,
+			Characters character,
+			Currencies currency,
+			BigDecimal amount,
+			BigDecimal weeklyAcquired,
+			String weeklyPeriod
+			) throws SQLException{
+		final String insertCharacterWealth = """
+				INSERT INTO CharacterWealth (charID, currencyName, amount, weeklyAcquired, weeklyPeriod)
+				SELECT ?, c.currencyName, ?, ?, ?
+				FROM Currencies c
+				WHERE c.currencyName = ?
+				  AND (c.cap IS NULL OR ? <= c.cap)
+				  AND (c.weeklyCap IS NULL OR ? <= c.weeklyCap)
+				""";
+		
+		try (PreparedStatement insertStmt = cxn.prepareStatement(insertCharacterWealth)){
+			insertStmt.setInt(1, character.getCharID());
+			insertStmt.setBigDecimal(2, amount);
+			insertStmt.setBigDecimal(3, weeklyAcquired);
+			insertStmt.setString(4, weeklyPeriod);
+			insertStmt.setString(5, currency.getCurrencyName());
+			insertStmt.setBigDecimal(6, amount);
+			insertStmt.setBigDecimal(7, weeklyAcquired);
+			return insertStmt.executeUpdate() == 1;
+		}
+	}
+	
+	
+	// getMaxCharID
+	// returns the highest charID with a character wealth row, 0 if there are none
+	public static int getMaxCharID(Connection cxn) throws SQLException{
+		try (PreparedStatement selectStmt = cxn.prepareStatement("SELECT COALESCE(MAX(charID), 0) FROM CharacterWealth;");
+				ResultSet rs = selectStmt.executeQuery()){
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+	
+	
+	// getChunkUpperBound
+	// returns the charID chunkSize rows past afterCharID in primary key order, so that
+	// (afterCharID, upper bound] covers about chunkSize rows; null if fewer rows are left
+	public static Integer getChunkUpperBound(
+			Connection cxn,
+			int afterCharID,
+			int chunkSize
+			) throws SQLException{
+		final String selectBound = "SELECT charID FROM CharacterWealth WHERE charID > ? ORDER BY charID, currencyName LIMIT 1 OFFSET ?;";
+
+		try (PreparedStatement selectStmt = cxn.prepareStatement(selectBound)){
+			selectStmt.setInt(1, afterCharID);
+			selectStmt.setInt(2, chunkSize - 1);
+
+			try (ResultSet rs = selectStmt.executeQuery()){
+				return rs.next() ? rs.getInt("charID") : null;
+			}
+		}
+	}
+	
+	
+	// resetWeeklyAcquired
+	// sets weeklyAcquired back to 0 for the characters in (afterCharID, upToCharID], a primary key range,
+	// where it was counted before weeklyPeriod. totals already counted in weeklyPeriod are kept.
+	// returns the number of rows changed
+	public static int resetWeeklyAcquired(
+			Connection cxn,
+			int afterCharID,
+			int upToCharID,
+			String weeklyPeriod
+			) throws SQLException{
+		final String updateWeekly = "UPDATE CharacterWealth SET weeklyAcquired = 0 WHERE charID > ? AND charID <= ? AND weeklyAcquired > 0"
+				+ " AND (weeklyPeriod IS NULL OR weeklyPeriod < ?);";
+
+		try (PreparedStatement updateStmt = cxn.prepareStatement(updateWeekly)){
+			updateStmt.setInt(1, afterCharID);
+			updateStmt.setInt(2, upToCharID);
+			updateStmt.setString(3, weeklyPeriod);
+			return updateStmt.executeUpdate();
+		}
+	}
 }
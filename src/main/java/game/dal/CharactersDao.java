@@ -5,16 +5,121 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.time.LocalDateTime;
+import java.util.Map;
 import java.sql.Timestamp;
 
 import game.model.*;
 
 public class CharactersDao{
   protected CharactersDao() {};
+
+  // Select list and FROM clause of SELECT_CHARACTER_ROWS, for queries that add a column
+  private static final String CHARACTER_COLUMNS =
+		  "c.charID, c.firstName, c.lastName, " +
+		  "p.playerID, p.firstName AS pFirstName, p.lastName AS pLastName, " +
+		  "p.emailAddress, p.lastActiveDateTime, " +
+		  "cl.clanName, cl.race, " +
+		  "w.itemID AS weaponID, i.itemName, i.level, i.maxStackSize, i.price, " +
+		  "e.requiredLevel, w.wearableJob, w.damage ";
+
+  private static final String CHARACTER_JOINS =
+		  "FROM Characters c " +
+		  "JOIN Players p ON c.playerID = p.playerID " +
+		  "JOIN Clans cl ON c.clan = cl.clanName " +
+		  "JOIN Weapons w ON c.weaponWeared = w.itemID " +
+		  "JOIN Equipments e ON w.itemID = e.itemID " +
+		  "JOIN Items i ON w.itemID = i.itemID ";
+
+  /**
+   * Joined SELECT used by the character listings. It returns every column
+   * needed to build a Characters together with its Players, Clans and
+   * Weapons, so a listing costs one query instead of 1 + 3N.
+   * Callers append their own WHERE / ORDER BY clauses.
+   */
+  static final String SELECT_CHARACTER_ROWS = "SELECT " + CHARACTER_COLUMNS + CHARACTER_JOINS;
+
+  /**
+   * Builds Characters from rows of SELECT_CHARACTER_ROWS.
+   * One mapper is used per result set; players, clans and weapons that
+   * appear on several rows are created once and shared. With a DalSession
+   * open, rows the session already knows are reused from it.
+   */
+  static class CharacterRowMapper {
+	  private final Map<Integer, Players> players = new HashMap<>();
+	  private final Map<String, Clans> clans = new HashMap<>();
+	  private final Map<Integer, Weapons> weapons = new HashMap<>();
+
+	  Characters map(ResultSet rs) throws SQLException {
+		  int charID = rs.getInt("charID");
+		  Characters known = DalSession.findCharacter(charID);
+		  if (known != null) {
+			  return known;
+		  }
+
+		  int playerID = rs.getInt("playerID");
+		  Players player = players.get(playerID);
+		  if (player == null) {
+			  player = DalSession.findPlayer(playerID);
+		  }
+		  if (player == null) {
+			  Timestamp ts = rs.getTimestamp("lastActiveDateTime");
+			  player = new Players(
+					  playerID,
+					  rs.getString("pFirstName"),
+					  rs.getString("pLastName"),
+					  rs.getString("emailAddress"),
+					  ts != null ? ts.toLocalDateTime() : null
+			  );
+			  player = DalSession.trackPlayer(player);
+			  players.put(playerID, player);
+		  }
+
+		  String clanName = rs.getString("clanName");
+		  Clans clan = clans.get(clanName);
+		  if (clan == null) {
+			  clan = DalSession.findClan(clanName);
+		  }
+		  if (clan == null) {
+			  clan = DalSession.trackClan(new Clans(clanName, Clans.Races.valueOf(rs.getString("race").toUpperCase())));
+			  clans.put(clanName, clan);
+		  }
+
+		  int weaponID = rs.getInt("weaponID");
+		  Weapons weapon = weapons.get(weaponID);
+		  if (weapon == null) {
+			  weapon = DalSession.findWeapon(weaponID);
+		  }
+		  if (weapon == null) {
+			  weapon = new Weapons(
+					  weaponID,
+					  rs.getString("itemName"),
+					  rs.getInt("level"),
+					  rs.getInt("maxStackSize"),
+					  rs.getBigDecimal("price"),
+					  rs.getInt("requiredLevel"),
+					  rs.getString("wearableJob"),
+					  rs.getInt("damage")
+			  );
+			  weapon = DalSession.trackWeapon(weapon);
+			  weapons.put(weaponID, weapon);
+		  }
+
+		  return DalSession.trackCharacter(new Characters(
+				  charID,
+				  player,
+				  rs.getString("firstName"),
+				  rs.getString("lastName"),
+				  clan,
+				  weapon
+		  ));
+	  }
+  }
 	
   /**
    * Save the Characters instance by storing it in MySQL instance.
@@ -43,6 +148,7 @@ public class CharactersDao{
         try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
           if (generatedKeys.next()) {
       	    int charID = generatedKeys.getInt(1);
+      	    NameSearchIndex.putCharacter(charID, player.getPlayerID(), firstName, lastName);
       	    return new Characters(charID, player, firstName, lastName, clan, weaponWeared);
       	  } else {
       	  throw new SQLException("Failed to retrieve generated charID.");
@@ -53,54 +159,25 @@ public class CharactersDao{
   
   /**
    * Get the Characters record by fetching it from MySQL instance.
-   * This runs a SELECT statement and returns a single Characters instance based on charID.
+   * This runs a single joined SELECT and returns a single Characters instance based on charID.
    */
   public static Characters getCharacterByCharID(
 		    Connection cxn,
 		    int charID
 		) throws SQLException {
-		    final String selectCharacter =
-		        """
-		        SELECT c.charID, c.playerID, c.firstName, c.lastName, c.clan, c.weaponWeared,
-		               p.firstName as pFirstName, p.lastName as pLastName, p.emailAddress, p.lastActiveDateTime
-		        FROM Characters c
-		        JOIN Players p ON c.playerID = p.playerID
-		        WHERE c.charID = ?;
-		        """;
+		    Characters known = DalSession.findCharacter(charID);
+		    if (known != null) {
+		        return known;
+		    }
+		    
+		    final String selectCharacter = SELECT_CHARACTER_ROWS + "WHERE c.charID = ?;";
 
 		    try (PreparedStatement selectStmt = cxn.prepareStatement(selectCharacter)) {
 		        selectStmt.setInt(1, charID);
 
 		        try (ResultSet results = selectStmt.executeQuery()) {
 		            if (results.next()) {
-		                // Handle lastActiveDateTime safely
-		                LocalDateTime lastActive = null;
-		                try {
-		                    Timestamp ts = results.getTimestamp("lastActiveDateTime");
-		                    if (ts != null) {
-		                        lastActive = ts.toLocalDateTime();
-		                    }
-		                } catch (SQLException e) {
-		                    lastActive = LocalDateTime.now();
-		                }
-		                
-		                // Create player with lastActiveDateTime
-		                Players player = new Players(
-		                    results.getInt("playerID"),
-		                    results.getString("pFirstName"),
-		                    results.getString("pLastName"),
-		                    results.getString("emailAddress"),
-		                    lastActive
-		                );
-		                
-		                return new Characters(
-		                    results.getInt("charID"),
-		                    player,
-		                    results.getString("firstName"),
-		                    results.getString("lastName"),
-		                    ClansDao.getClanRacebyClanName(cxn, results.getString("clan")),
-		                    WeaponsDao.getWeaponByItemID(cxn, results.getInt("weaponWeared"))
-		                );
+		                return new CharacterRowMapper().map(results);
 		            } else {
 		                return null;
 		            }
@@ -122,30 +199,14 @@ public class CharactersDao{
     
     String validatedSortAttribute = validateSortAttribute(sortBy);
     String validatedSortOrder = validateSortOrder(sortOrder);
-    String selectCharacters = "SELECT c.*, p.*, cl.*, w.* " + 
-    						  "FROM Characters c " +
-    						  "JOIN Players p ON c.playerID = p.playerID " +
-    						  "JOIN Clans cl ON c.clan = cl.clanName " +
-    						  "JOIN Weapons w ON c.weaponWeared = w.itemID " +
+    String selectCharacters = SELECT_CHARACTER_ROWS +
     						  "ORDER BY " + validatedSortAttribute + " " + validatedSortOrder;
 
     try (PreparedStatement selectStmt = cxn.prepareStatement(selectCharacters)) {
     	try (ResultSet rs = selectStmt.executeQuery()) {
+    		CharacterRowMapper mapper = new CharacterRowMapper();
     		while (rs.next()) {
-    			Players player = PlayersDao.getPlayerByPlayerID(cxn, rs.getInt("p.playerID"));
-    			Clans clan = ClansDao.getClanRacebyClanName(cxn, rs.getString("cl.clanName"));
-    			Weapons weapon = WeaponsDao.getWeaponByItemID(cxn, rs.getInt("w.itemID"));
-    			
-    			characters.add(
-    					new Characters(
-    						rs.getInt("charID"),
-    						player,
-    						rs.getString("firstName"),
-    						rs.getString("lastName"),
-    						clan,
-    						weapon
-    					)
-    			);
+    			characters.add(mapper.map(rs));
     		}
     	}
     }
@@ -168,43 +229,193 @@ public class CharactersDao{
 	  }
     List<Characters> characters = new ArrayList<>();
     
-    String validatedSortAttribute = validateSortAttribute(sortBy);
-    String validatedSortOrder = validateSortOrder(sortOrder);
-    // create the IN clause placeholder (?, ?, ..., ?)
-    String placeholders = String.join(",", Collections.nCopies(playerIDs.size(), "?"));
-    
-    String selectCharactersByPlayer = "SELECT c.*, p.*, cl.*, w.* " + 
-									  "FROM Characters c " +
-									  "JOIN Players p ON c.playerID = p.playerID " +
-									  "JOIN Clans cl ON c.clan = cl.clanName " +
-									  "JOIN Weapons w ON c.weaponWeared = w.itemID " +
-									  "WHERE p.playerID IN (" + placeholders + ") " +
-									  "ORDER BY " + validatedSortAttribute + " " + validatedSortOrder;
+    String selectCharactersByPlayer = getCharactersByPlayerIDsQuery(playerIDs.size(), sortBy, sortOrder);
 
     try (PreparedStatement pstmt = cxn.prepareStatement(selectCharactersByPlayer)) {
     	// set player id in the IN clause
-    	for (int i = 0; i < playerIDs.size(); i++) {
-    		pstmt.setInt(i + 1, playerIDs.get(i));
-    	}
+    	InClause.bind(pstmt, 1, playerIDs);
     	
     	try (ResultSet rs = pstmt.executeQuery()) {
+    		CharacterRowMapper mapper = new CharacterRowMapper();
     		while (rs.next()) {
-    			characters.add(
-    					new Characters(
-    						rs.getInt("c.charID"),
-    						PlayersDao.getPlayerByPlayerID(cxn, rs.getInt("p.playerID")),
-    						rs.getString("c.firstName"),
-    						rs.getString("c.lastName"),
-    						ClansDao.getClanRacebyClanName(cxn, rs.getString("cl.clanName")),
-    						WeaponsDao.getWeaponByItemID(cxn, rs.getInt("w.itemID"))
-    					)
-    			);
+    			characters.add(mapper.map(rs));
     		}
     	}
     }
     return characters;
   }
 
+  /**
+   * Get one page of all Characters using keyset (seek) pagination.
+   * Rows are ordered by the sort column and then charID, and a page starts
+   * right after (or before) the row encoded in the cursor, so the cost of a
+   * page does not depend on how far into the listing it is. Sorts by player
+   * name or weapon job use the copies kept on Characters (SchemaMigrations
+   * version 3), so each sort has a (column, charID) index.
+   * @param cursor an opaque cursor from a previous CharacterPage, or null for the first page
+   * @return a page of characters with cursors for the neighbouring pages
+   */
+  public static CharacterPage getCharactersPage(
+		    Connection cxn,
+		    String sortBy,
+		    String sortOrder,
+		    String cursor,
+		    int pageSize
+  ) throws SQLException {
+    String sortColumn = pageSortColumn(validateSortAttribute(sortBy));
+    boolean ascending = validateSortOrder(sortOrder).equals("ASC");
+    PageCursor seek = PageCursor.decode(cursor, sortColumn);
+    boolean backward = seek != null && seek.backward;
+    // walking backward means reading the listing in reverse order
+    boolean scanAscending = ascending != backward;
+
+    List<Characters> characters = new ArrayList<>();
+    List<String> sortValues = new ArrayList<>();
+    try (PreparedStatement pstmt = cxn.prepareStatement(selectCharactersPage(sortColumn, scanAscending, seek != null))) {
+    	int index = 1;
+    	if (seek != null) {
+    		pstmt.setString(index++, seek.sortValue);
+    		pstmt.setString(index++, seek.sortValue);
+    		pstmt.setInt(index++, seek.charID);
+    	}
+    	// one extra row tells us whether another page exists
+    	pstmt.setInt(index, pageSize + 1);
+
+    	try (ResultSet rs = pstmt.executeQuery()) {
+    		CharacterRowMapper mapper = new CharacterRowMapper();
+    		while (rs.next()) {
+    			characters.add(mapper.map(rs));
+    			sortValues.add(rs.getString("pageSortValue"));
+    		}
+    	}
+    }
+
+    boolean hasMore = characters.size() > pageSize;
+    if (hasMore) {
+    	characters.remove(pageSize);
+    	sortValues.remove(pageSize);
+    }
+    if (backward) {
+    	Collections.reverse(characters);
+    	Collections.reverse(sortValues);
+    }
+
+    String nextCursor = null;
+    String prevCursor = null;
+    if (!characters.isEmpty()) {
+    	int last = characters.size() - 1;
+    	// going forward there is a next page only if we saw the extra row;
+    	// going backward we came from the next page, so it always exists
+    	if (backward || hasMore) {
+    		nextCursor = PageCursor.encode(false, sortColumn, sortValues.get(last), characters.get(last).getCharID());
+    	}
+    	if (backward ? hasMore : seek != null) {
+    		prevCursor = PageCursor.encode(true, sortColumn, sortValues.get(0), characters.get(0).getCharID());
+    	}
+    }
+    return new CharacterPage(characters, nextCursor, prevCursor);
+  }
+
+  /**
+   * SELECT behind getCharactersByPlayerIDs, with InClause.bucketSize(playerCount)
+   * placeholders for the player IDs.
+   * Public so that QueryPlanCheck explains the query the lookup runs.
+   */
+  public static String getCharactersByPlayerIDsQuery(int playerCount, String sortBy, String sortOrder) {
+    // create the IN clause placeholder (?, ?, ..., ?), padded to a power of two
+    // so the number of distinct statements stays small
+    return SELECT_CHARACTER_ROWS +
+		   "WHERE p.playerID IN (" + InClause.placeholders(playerCount) + ") " +
+		   "ORDER BY " + validateSortAttribute(sortBy) + " " + validateSortOrder(sortOrder);
+  }
+
+  /**
+   * SELECT behind getCharactersPage, parameterized by the cursor's sort
+   * value (twice) and charID when seek is set, then by the row limit.
+   * Public so that QueryPlanCheck explains the query the listing runs.
+   * @param sortBy a sort attribute as accepted by validateSortAttribute
+   * @param ascending the direction the index is read in
+   */
+  public static String getCharactersPageQuery(String sortBy, boolean ascending, boolean seek) {
+	  return selectCharactersPage(pageSortColumn(validateSortAttribute(sortBy)), ascending, seek);
+  }
+
+  private static String selectCharactersPage(String sortColumn, boolean ascending, boolean seek) {
+    // the cursor holds the value the seek compares, so it is read from the
+    // sort column itself rather than from the joined column it copies
+    StringBuilder query = new StringBuilder("SELECT ").append(CHARACTER_COLUMNS)
+    	 .append(", ").append(sortColumn).append(" AS pageSortValue ")
+    	 .append(CHARACTER_JOINS);
+    if (seek) {
+    	String cmp = ascending ? ">" : "<";
+    	query.append("WHERE (").append(sortColumn).append(' ').append(cmp).append(" ? ")
+    		 .append("OR (").append(sortColumn).append(" = ? AND c.charID ").append(cmp).append(" ?)) ");
+    }
+    String direction = ascending ? "ASC" : "DESC";
+    query.append("ORDER BY ").append(sortColumn).append(' ').append(direction)
+    	 .append(", c.charID ").append(direction)
+    	 .append(" LIMIT ?");
+    return query.toString();
+  }
+
+  /**
+   * Maps a column returned by validateSortAttribute to the Characters
+   * column the listing pages on: joined columns are replaced by their
+   * copies on Characters, which are indexed together with charID.
+   */
+  private static String pageSortColumn(String sortColumn) {
+	  switch (sortColumn) {
+	  case "c.firstName": return "c.firstName";
+	  case "c.lastName": return "c.lastName";
+	  case "p.firstName": return "c.playerFirstName";
+	  case "p.lastName": return "c.playerLastName";
+	  case "cl.clanName": return "c.clan";
+	  case "w.wearablejob": return "c.wearableJob";
+	  default: throw new IllegalArgumentException("Unknown sort column: " + sortColumn);
+	  }
+  }
+
+  /**
+   * Position in the character listing: the sort value and charID of a
+   * boundary row. Encoded as URL-safe Base64 so it can travel in a link.
+   */
+  private static class PageCursor {
+	  private final boolean backward;
+	  private final String sortValue;
+	  private final int charID;
+
+	  private PageCursor(boolean backward, String sortValue, int charID) {
+		  this.backward = backward;
+		  this.sortValue = sortValue;
+		  this.charID = charID;
+	  }
+
+	  static String encode(boolean backward, String sortColumn, String sortValue, int charID) {
+		  String raw = (backward ? "p" : "n") + "\n" + sortColumn + "\n" + charID + "\n" + sortValue;
+		  return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	  }
+
+	  /**
+	   * Decode a cursor. Returns null (first page) for a missing or malformed
+	   * cursor, or one that was created for a different sort column.
+	   */
+	  static PageCursor decode(String cursor, String sortColumn) {
+		  if (cursor == null || cursor.isBlank()) {
+			  return null;
+		  }
+		  try {
+			  String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			  String[] parts = raw.split("\n", 4);
+			  if (parts.length != 4 || !parts[1].equals(sortColumn)) {
+				  return null;
+			  }
+			  return new PageCursor(parts[0].equals("p"), parts[3], Integer.parseInt(parts[2]));
+		  } catch (IllegalArgumentException e) {
+			  return null;
+		  }
+	  }
+  }
+
   /**
    * add in pm4
    * validates the sort order parameter in query
@@ -262,4 +473,111 @@ public class CharactersDao{
 	  
   }
   
+  /**
+   * What equipping a weapon has to check, read by lockForWeaponSwap.
+   */
+  public static class WeaponSwapState {
+	private final int currentWeaponID;
+	private final boolean weaponFound;
+	private final int requiredLevel;
+	private final String wearableJob;
+	private final int maxJobLevel;
+	private final boolean wearableJobUnlocked;
+	private final boolean weaponOwned;
+
+	WeaponSwapState(int currentWeaponID, boolean weaponFound, int requiredLevel, String wearableJob,
+		int maxJobLevel, boolean wearableJobUnlocked, boolean weaponOwned) {
+	  this.currentWeaponID = currentWeaponID;
+	  this.weaponFound = weaponFound;
+	  this.requiredLevel = requiredLevel;
+	  this.wearableJob = wearableJob;
+	  this.maxJobLevel = maxJobLevel;
+	  this.wearableJobUnlocked = wearableJobUnlocked;
+	  this.weaponOwned = weaponOwned;
+	}
+
+	public int getCurrentWeaponID() { return currentWeaponID; }
+	/** False when the itemID is not a weapon */
+	public boolean isWeaponFound() { return weaponFound; }
+	public int getRequiredLevel() { return requiredLevel; }
+	public String getWearableJob() { return wearableJob; }
+	/** Highest level over the character's unlocked jobs, 0 when it has none */
+	public int getMaxJobLevel() { return maxJobLevel; }
+	public boolean isWearableJobUnlocked() { return wearableJobUnlocked; }
+	public boolean isWeaponOwned() { return weaponOwned; }
+  }
+
+  /**
+   * Lock the character row, and the inventory row holding the weapon, and read
+   * everything a weapon swap validates in one statement: the equipped weapon,
+   * the new weapon's level and job, the character's job levels and whether the
+   * weapon is in its inventory.
+   * Must run inside a transaction; the locks are held until it ends.
+   * This returns null if the character does not exist.
+   */
+  public static WeaponSwapState lockForWeaponSwap(Connection cxn, int charID, int weaponID) throws SQLException {
+	final String selectForSwap = """
+		SELECT c.weaponWeared, w.itemID AS weaponID, w.wearableJob, e.requiredLevel,
+		  inv.slotID AS inventorySlot,
+		  (SELECT MAX(j.jobLevel) FROM CharacterUnlockedJob j
+		    WHERE j.charID = c.charID) AS maxJobLevel,
+		  EXISTS (SELECT 1 FROM CharacterUnlockedJob j
+		    WHERE j.charID = c.charID AND j.jobName = w.wearableJob) AS jobUnlocked
+		FROM Characters c
+		  LEFT JOIN Weapons w ON w.itemID = ?
+		  LEFT JOIN Equipments e ON e.itemID = w.itemID
+		  LEFT JOIN Inventory inv ON inv.charID = c.charID AND inv.`instance` = w.itemID
+		WHERE c.charID = ?
+		LIMIT 1
+		FOR UPDATE OF c, inv
+		""";
+
+	try (PreparedStatement selectStmt = cxn.prepareStatement(selectForSwap)) {
+	  selectStmt.setInt(1, weaponID);
+	  selectStmt.setInt(2, charID);
+
+	  try (ResultSet results = selectStmt.executeQuery()) {
+		if (!results.next()) {
+		  return null;
+		}
+		results.getInt("weaponID");
+		boolean weaponFound = !results.wasNull();
+		results.getInt("inventorySlot");
+		boolean weaponOwned = !results.wasNull();
+		return new WeaponSwapState(
+		  results.getInt("weaponWeared"),
+		  weaponFound,
+		  results.getInt("requiredLevel"),
+		  results.getString("wearableJob"),
+		  results.getInt("maxJobLevel"),
+		  results.getBoolean("jobUnlocked"),
+		  weaponOwned);
+	  }
+	}
+  }
+
+  /**
+   * Swap the equipped weapon, only if the character still wears expectedWeaponID
+   * and still has newWeaponID in its inventory.
+   * This returns false when either condition no longer holds and nothing was updated.
+   */
+  public static boolean updateWeaponWearedIfOwned(Connection cxn, int charID, int expectedWeaponID, int newWeaponID)
+	  throws SQLException {
+	final String updateWeapon = """
+		UPDATE Characters
+		SET weaponWeared = ?
+		WHERE charID = ? AND weaponWeared = ?
+		  AND EXISTS (SELECT 1 FROM Inventory i WHERE i.charID = ? AND i.`instance` = ?)
+		""";
+
+	try (PreparedStatement updateStmt = cxn.prepareStatement(updateWeapon)) {
+	  updateStmt.setInt(1, newWeaponID);
+	  updateStmt.setInt(2, charID);
+	  updateStmt.setInt(3, expectedWeaponID);
+	  updateStmt.setInt(4, charID);
+	  updateStmt.setInt(5, newWeaponID);
+	  return updateStmt.executeUpdate() == 1;
+	}
+  }
+  
 }
\ No newline at end of file
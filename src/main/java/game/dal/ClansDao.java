@@ -22,6 +22,7 @@ public class ClansDao {
 		}
 		
 		String insertDegree = "INSERT INTO Clans (clanName, race) VALUES (?, ?);";
+		long cacheVersion = CatalogCache.version();
 		
 		try (PreparedStatement pstmt = cxn.prepareStatement(insertDegree)) {
 			pstmt.setString(1,  clanName);
@@ -29,7 +30,11 @@ public class ClansDao {
 			
 			pstmt.executeUpdate();
 			
-			return new Clans(clanName, race);
+			Clans clan = new Clans(clanName, race);
+			if (CatalogCache.canCache(cxn)) {
+				CatalogCache.putClan(clan, cacheVersion);
+			}
+			return clan;
 		} catch (SQLException e) {
 			if (e.getMessage().contains("Duplicate entry")) {
 				// If duplicate, return the existing record
@@ -80,6 +85,16 @@ public class ClansDao {
 			Connection cxn,
 			String clanName
 	) throws SQLException {
+		Clans known = DalSession.findClan(clanName);
+		if (known != null) {
+			return known;
+		}
+		Clans cached = CatalogCache.getClan(clanName);
+		if (cached != null) {
+			return DalSession.trackClan(cached);
+		}
+		long cacheVersion = CatalogCache.version();
+		
 		String query_ClanName = """
 				SELECT *
 				FROM Clans
@@ -90,10 +105,14 @@ public class ClansDao {
 			
 			try (ResultSet rs = pstmt.executeQuery()) {
 				if (rs.next()) {
-					return new Clans(
+					Clans clan = new Clans(
 							clanName,
 							Clans.Races.valueOf(rs.getString("race").toUpperCase())
 							);
+					if (CatalogCache.canCache(cxn)) {
+						CatalogCache.putClan(clan, cacheVersion);
+					}
+					return DalSession.trackClan(clan);
 				} else {
 					return null;
 				}
@@ -127,6 +146,8 @@ public class ClansDao {
 			pstmt.setString(2, oldClan.getClanName());
 			
 			pstmt.executeUpdate();
+			CatalogCache.invalidateClan(cxn, oldClan.getClanName());
+			DalSession.evictClan(oldClan.getClanName());
 			
 			return new Clans(
 					newClanName,
@@ -148,6 +169,8 @@ public class ClansDao {
 		try (PreparedStatement pstmt = cxn.prepareStatement(deleteClan)) {
 			pstmt.setString(1, clan.getClanName());
 			pstmt.executeUpdate();
+			CatalogCache.invalidateClan(cxn, clan.getClanName());
+			DalSession.evictClan(clan.getClanName());
 		}
 	}
 	
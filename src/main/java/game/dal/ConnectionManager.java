@@ -31,14 +31,92 @@ public class ConnectionManager {
   // Default timezone for MySQL server.
   private static final String TIMEZONE = "UTC";
 
-  /** Get the connection to the database instance. */
+  // Connection pool settings. The pool is created on first use.
+  // Connections kept open even when the application is idle.
+  private static final int POOL_MIN_IDLE = 2;
+  // Upper bound on open connections to the database server.
+  private static final int POOL_MAX_SIZE = 20;
+  // How long a request waits for a free connection before failing.
+  private static final long POOL_MAX_WAIT_MILLIS = 10_000;
+  // Idle connections above the minimum are closed after this long.
+  private static final long POOL_IDLE_TIMEOUT_MILLIS = 5 * 60_000;
+  // Connections held longer than this are reported as possible leaks.
+  private static final long POOL_LEAK_THRESHOLD_MILLIS = 60_000;
+  // Seconds to wait for Connection.isValid() when validating on borrow.
+  private static final int POOL_VALIDATION_TIMEOUT_SECONDS = 2;
+  // Prepared statements kept open per pooled connection (see ConnectionPool).
+  private static final int POOL_STATEMENT_CACHE_SIZE = 100;
+
+  private static volatile ConnectionPool pool;
+
+  /**
+   * Get a connection to the database instance.
+   *
+   * The connection is borrowed from a shared pool; closing it returns it
+   * to the pool, so callers should keep using try-with-resources.
+   * While QueryStats is enabled the connection is wrapped so each query's
+   * latency and rows are recorded (see InstrumentedConnection).
+   */
   public static Connection getConnection() throws SQLException {
+    Connection connection = getPool().borrow();
+    return QueryStats.isEnabled() ? InstrumentedConnection.wrap(connection) : connection;
+  }
+
+  /** Get the shared connection pool, creating it on first use. */
+  public static ConnectionPool getPool() {
+    ConnectionPool current = pool;
+    if (current == null) {
+      synchronized (ConnectionManager.class) {
+        current = pool;
+        if (current == null) {
+          current = new ConnectionPool(
+            ConnectionManager::openConnection,
+            POOL_MIN_IDLE,
+            POOL_MAX_SIZE,
+            POOL_MAX_WAIT_MILLIS,
+            POOL_IDLE_TIMEOUT_MILLIS,
+            POOL_LEAK_THRESHOLD_MILLIS,
+            POOL_VALIDATION_TIMEOUT_SECONDS,
+            POOL_STATEMENT_CACHE_SIZE
+          );
+          pool = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /** The shared connection pool, or null if no connection was requested yet. */
+  public static ConnectionPool getPoolIfStarted() {
+    return pool;
+  }
+
+  /** Close all pooled connections. Called when the web application stops. */
+  public static void shutdown() {
+    synchronized (ConnectionManager.class) {
+      if (pool != null) {
+        pool.shutdown();
+        pool = null;
+      }
+    }
+  }
+
+  /** Open a new physical connection to the database instance. */
+  private static Connection openConnection() throws SQLException {
     Connection connection = null;
     try {
       Properties connectionProperties = new Properties();
       connectionProperties.put("user", USER);
       connectionProperties.put("password", PASSWORD);
       connectionProperties.put("serverTimezone", TIMEZONE);
+      // Send each JDBC batch as one multi-row INSERT (see game.etl.BatchWriter)
+      connectionProperties.put("rewriteBatchedStatements", "true");
+      // Prepare statements on the server, so a cached statement is parsed and
+      // planned once, and let the driver cache them as well
+      connectionProperties.put("useServerPrepStmts", "true");
+      connectionProperties.put("cachePrepStmts", "true");
+      connectionProperties.put("prepStmtCacheSize", "250");
+      connectionProperties.put("prepStmtCacheSqlLimit", "2048");
       // Ensure the JDBC driver is loaded by retrieving the runtime
       // Class descriptor.
       try {
@@ -63,6 +141,30 @@ public class ConnectionManager {
     return connection;
   }
 
+  /**
+   * Open a dedicated (not pooled) connection that may use
+   * LOAD DATA LOCAL INFILE. Used by bulk loaders such as
+   * game.etl.SyntheticDataGenerator; the caller must close it.
+   * The server also needs local_infile=ON.
+   */
+  public static Connection getBulkLoadConnection() throws SQLException {
+    Properties connectionProperties = new Properties();
+    connectionProperties.put("user", USER);
+    connectionProperties.put("password", PASSWORD);
+    connectionProperties.put("serverTimezone", TIMEZONE);
+    connectionProperties.put("rewriteBatchedStatements", "true");
+    connectionProperties.put("allowLoadLocalInfile", "true");
+    return DriverManager.getConnection(
+      String.format(
+        "jdbc:mysql://%s:%d/%s?useSSL=false&allowPublicKeyRetrieval=true",
+        HOSTNAME,
+        PORT,
+        SCHEMA
+        ),
+      connectionProperties
+    );
+  }
+
   /**
    * Open and return a connection to the database server that is not
    * associated with a particular schema.
@@ -0,0 +1,655 @@
+package game.dal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small bounded JDBC connection pool.
+ *
+ * Connections handed out by {@link #borrow()} are proxies: calling close()
+ * returns the physical connection to the pool instead of closing it, so DAO
+ * code written as try-with-resources keeps working unchanged. The physical
+ * connection is never handed out, neither by unwrap() nor by a statement's
+ * getConnection(), and autocommit, isolation level and read-only are reset
+ * before the next borrower gets it. When a transaction on it ends, the
+ * catalog invalidations made inside it are repeated (see CatalogCache).
+ *
+ * The pool validates connections on borrow, keeps at least minIdle
+ * connections warm, evicts connections that sat idle longer than the idle
+ * timeout and reports connections held longer than the leak threshold
+ * together with the stack trace of the code that borrowed them.
+ *
+ * Each physical connection also keeps an LRU cache of prepared statements
+ * keyed by SQL text. prepareStatement() takes a matching statement from the
+ * cache when there is one, and closing the statement puts it back with its
+ * parameters cleared, so DAO methods that prepare the same SQL on every
+ * call only pay for it once per connection.
+ */
+public class ConnectionPool {
+
+  /** Opens a new physical connection to the database. */
+  @FunctionalInterface
+  public interface ConnectionFactory {
+    Connection open() throws SQLException;
+  }
+
+  private final ConnectionFactory factory;
+  private final int minIdle;
+  private final int maxSize;
+  private final long maxWaitMillis;
+  private final long idleTimeoutMillis;
+  private final long leakThresholdMillis;
+  private final int validationTimeoutSeconds;
+  private final int statementCacheSize;
+
+  // Idle connections, most recently returned first.
+  private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+  private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+  // One permit per connection that may be borrowed at the same time.
+  private final Semaphore permits;
+  private final AtomicInteger totalConnections = new AtomicInteger();
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final ScheduledExecutorService housekeeper;
+
+  // Metrics
+  private final LongAdder borrowCount = new LongAdder();
+  private final LongAdder totalWaitNanos = new LongAdder();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private final LongAdder timeoutCount = new LongAdder();
+  private final LongAdder createdCount = new LongAdder();
+  private final LongAdder evictedCount = new LongAdder();
+  private final LongAdder validationFailureCount = new LongAdder();
+  private final LongAdder leakCount = new LongAdder();
+  private final LongAdder statementCacheHits = new LongAdder();
+  private final LongAdder statementCacheMisses = new LongAdder();
+  private final LongAdder statementCacheEvictions = new LongAdder();
+
+  public ConnectionPool(
+      ConnectionFactory factory,
+      int minIdle,
+      int maxSize,
+      long maxWaitMillis,
+      long idleTimeoutMillis,
+      long leakThresholdMillis,
+      int validationTimeoutSeconds
+  ) {
+    this(factory, minIdle, maxSize, maxWaitMillis, idleTimeoutMillis, leakThresholdMillis,
+      validationTimeoutSeconds, 0);
+  }
+
+  /**
+   * @param statementCacheSize prepared statements cached per connection; 0 disables the cache
+   */
+  public ConnectionPool(
+      ConnectionFactory factory,
+      int minIdle,
+      int maxSize,
+      long maxWaitMillis,
+      long idleTimeoutMillis,
+      long leakThresholdMillis,
+      int validationTimeoutSeconds,
+      int statementCacheSize
+  ) {
+    if (maxSize <= 0 || minIdle < 0 || minIdle > maxSize) {
+      throw new IllegalArgumentException(
+        "Invalid pool bounds: minIdle=" + minIdle + ", maxSize=" + maxSize);
+    }
+    this.factory = factory;
+    this.minIdle = minIdle;
+    this.maxSize = maxSize;
+    this.maxWaitMillis = maxWaitMillis;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    this.leakThresholdMillis = leakThresholdMillis;
+    this.validationTimeoutSeconds = validationTimeoutSeconds;
+    this.statementCacheSize = Math.max(0, statementCacheSize);
+    this.permits = new Semaphore(maxSize, true);
+
+    this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "connection-pool-housekeeper");
+      t.setDaemon(true);
+      return t;
+    });
+    this.housekeeper.scheduleWithFixedDelay(this::housekeep, 5, 5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Borrow a connection from the pool, opening a new one if no idle
+   * connection is available. Blocks up to maxWaitMillis when the pool is
+   * exhausted.
+   */
+  public Connection borrow() throws SQLException {
+    if (closed.get()) {
+      throw new SQLException("Connection pool has been shut down");
+    }
+
+    long start = System.nanoTime();
+    try {
+      if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+        timeoutCount.increment();
+        throw new SQLException(String.format(
+          "Timed out after %d ms waiting for a database connection (active=%d, idle=%d, max=%d)",
+          maxWaitMillis, getActiveCount(), getIdleCount(), maxSize));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a database connection", e);
+    }
+
+    try {
+      PooledConnection pooled = takeValidIdleConnection();
+      if (pooled == null) {
+        pooled = openPhysicalConnection();
+      }
+      pooled.markBorrowed(leakThresholdMillis > 0
+        ? new Exception("Connection borrowed by thread " + Thread.currentThread().getName())
+        : null);
+      borrowed.add(pooled);
+      recordWait(System.nanoTime() - start);
+      return pooled.proxy;
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  private PooledConnection takeValidIdleConnection() {
+    PooledConnection pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      try {
+        if (pooled.physical.isValid(validationTimeoutSeconds)) {
+          return pooled;
+        }
+      } catch (SQLException e) {
+        // fall through and discard
+      }
+      validationFailureCount.increment();
+      discard(pooled);
+    }
+    return null;
+  }
+
+  private PooledConnection openPhysicalConnection() throws SQLException {
+    Connection physical = factory.open();
+    totalConnections.incrementAndGet();
+    createdCount.increment();
+    return new PooledConnection(physical);
+  }
+
+  private void recordWait(long waitNanos) {
+    borrowCount.increment();
+    totalWaitNanos.add(waitNanos);
+    maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+  }
+
+  /** Called when a borrower closes its proxy. */
+  private void giveBack(PooledConnection pooled) {
+    borrowed.remove(pooled);
+    // Closing a connection closes its statements; cached ones go back to the cache
+    pooled.closeCheckedOutStatements();
+    try {
+      if (closed.get() || pooled.physical.isClosed()) {
+        discard(pooled);
+        return;
+      }
+      // Leave the connection the way the next borrower expects it.
+      if (!pooled.physical.getAutoCommit()) {
+        pooled.physical.rollback();
+        pooled.physical.setAutoCommit(true);
+      }
+      if (pooled.sessionModified) {
+        pooled.physical.setTransactionIsolation(pooled.defaultIsolation);
+        pooled.physical.setReadOnly(pooled.defaultReadOnly);
+        pooled.sessionModified = false;
+      }
+      pooled.physical.clearWarnings();
+      pooled.lastUsedAt = System.currentTimeMillis();
+      idle.offerFirst(pooled);
+    } catch (SQLException e) {
+      discard(pooled);
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void discard(PooledConnection pooled) {
+    totalConnections.decrementAndGet();
+    try {
+      pooled.physical.close();
+    } catch (SQLException e) {
+      // already broken, nothing else to do
+    }
+  }
+
+  /** Periodic maintenance: idle eviction, min-idle top up and leak detection. */
+  private void housekeep() {
+    if (closed.get()) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+
+    // Evict the oldest idle connections first, never going below minIdle.
+    Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+    while (oldestFirst.hasNext() && idle.size() > minIdle) {
+      PooledConnection pooled = oldestFirst.next();
+      if (now - pooled.lastUsedAt > idleTimeoutMillis && idle.remove(pooled)) {
+        evictedCount.increment();
+        discard(pooled);
+      }
+    }
+
+    // Open connections under a permit, like a borrower, so together they never exceed maxSize.
+    while (idle.size() < minIdle && totalConnections.get() < maxSize && permits.tryAcquire()) {
+      try {
+        idle.offerLast(openPhysicalConnection());
+      } catch (SQLException e) {
+        System.err.println("Connection pool could not open an idle connection: " + e.getMessage());
+        break;
+      } finally {
+        permits.release();
+      }
+    }
+
+    if (leakThresholdMillis > 0) {
+      for (PooledConnection pooled : borrowed) {
+        if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+          pooled.leakReported = true;
+          leakCount.increment();
+          System.err.println("⚠️ Possible connection leak: connection held for "
+            + (now - pooled.borrowedAt) + " ms");
+          if (pooled.borrowStack != null) {
+            pooled.borrowStack.printStackTrace();
+          }
+        }
+      }
+    }
+  }
+
+  /** Close every idle connection and stop the housekeeping thread. */
+  public void shutdown() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    housekeeper.shutdownNow();
+    PooledConnection pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      discard(pooled);
+    }
+    // Borrowed connections are closed when their borrowers give them back.
+  }
+
+  public int getActiveCount() { return borrowed.size(); }
+  public int getIdleCount() { return idle.size(); }
+  public int getTotalCount() { return totalConnections.get(); }
+  public int getMaxSize() { return maxSize; }
+  public int getPendingCount() { return permits.getQueueLength(); }
+  public long getBorrowCount() { return borrowCount.sum(); }
+  public long getTimeoutCount() { return timeoutCount.sum(); }
+  public long getCreatedCount() { return createdCount.sum(); }
+  public long getEvictedCount() { return evictedCount.sum(); }
+  public long getValidationFailureCount() { return validationFailureCount.sum(); }
+  public long getLeakCount() { return leakCount.sum(); }
+  public int getStatementCacheSize() { return statementCacheSize; }
+  public long getStatementCacheHitCount() { return statementCacheHits.sum(); }
+  public long getStatementCacheMissCount() { return statementCacheMisses.sum(); }
+  public long getStatementCacheEvictionCount() { return statementCacheEvictions.sum(); }
+
+  public double getStatementCacheHitRate() {
+    long hits = statementCacheHits.sum();
+    long total = hits + statementCacheMisses.sum();
+    return total == 0 ? 0.0 : (double) hits / total;
+  }
+
+  public double getAverageWaitMillis() {
+    long borrows = borrowCount.sum();
+    return borrows == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / borrows;
+  }
+
+  public double getMaxWaitMillis() {
+    return maxWaitNanos.get() / 1_000_000.0;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+      "ConnectionPool [active=%d, idle=%d, total=%d, max=%d, pending=%d, borrows=%d, avgWaitMs=%.3f, maxWaitMs=%.3f, leaks=%d, stmtCacheHitRate=%.3f]",
+      getActiveCount(), getIdleCount(), getTotalCount(), maxSize, getPendingCount(),
+      getBorrowCount(), getAverageWaitMillis(), getMaxWaitMillis(), getLeakCount(),
+      getStatementCacheHitRate());
+  }
+
+  /**
+   * A physical connection plus the bookkeeping the pool needs. Each borrow
+   * gets a fresh proxy so a stale reference cannot use a connection after it
+   * has been handed to somebody else.
+   */
+  private final class PooledConnection {
+    private final Connection physical;
+    // Session settings the connection was opened with, restored when a borrower changed them
+    private final int defaultIsolation;
+    private final boolean defaultReadOnly;
+    private volatile boolean sessionModified;
+    private volatile Connection proxy;
+    private volatile long lastUsedAt = System.currentTimeMillis();
+    private volatile long borrowedAt;
+    private volatile Exception borrowStack;
+    private volatile boolean leakReported;
+
+    // Idle prepared statements, least recently used first. Statements in
+    // use are taken out, so two callers never share one.
+    private final LinkedHashMap<String, PreparedStatement> statementCache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<CachedStatementHandler> checkedOut = ConcurrentHashMap.newKeySet();
+
+    private PooledConnection(Connection physical) throws SQLException {
+      this.physical = physical;
+      this.defaultIsolation = physical.getTransactionIsolation();
+      this.defaultReadOnly = physical.isReadOnly();
+    }
+
+    private PreparedStatement prepareCached(Connection connectionProxy, String sql, Integer autoGeneratedKeys)
+        throws SQLException {
+      String key = autoGeneratedKeys == null ? sql : autoGeneratedKeys + "|" + sql;
+      PreparedStatement statement;
+      synchronized (statementCache) {
+        statement = statementCache.remove(key);
+      }
+      if (statement != null) {
+        statementCacheHits.increment();
+      } else {
+        statementCacheMisses.increment();
+        statement = autoGeneratedKeys == null
+          ? physical.prepareStatement(sql)
+          : physical.prepareStatement(sql, autoGeneratedKeys);
+      }
+
+      CachedStatementHandler handler = new CachedStatementHandler(this, connectionProxy, key, statement);
+      checkedOut.add(handler);
+      return (PreparedStatement) Proxy.newProxyInstance(
+        PreparedStatement.class.getClassLoader(),
+        new Class<?>[] { PreparedStatement.class },
+        handler);
+    }
+
+    /** Put a statement back in the cache, closing the least recently used one if it is full. */
+    private void checkIn(String key, PreparedStatement statement) {
+      PreparedStatement evicted = null;
+      PreparedStatement duplicate = null;
+      synchronized (statementCache) {
+        if (statementCache.containsKey(key)) {
+          // The same SQL was prepared twice at once; keep one copy
+          duplicate = statement;
+        } else {
+          statementCache.put(key, statement);
+          if (statementCache.size() > statementCacheSize) {
+            Iterator<Map.Entry<String, PreparedStatement>> eldest = statementCache.entrySet().iterator();
+            evicted = eldest.next().getValue();
+            eldest.remove();
+          }
+        }
+      }
+      if (evicted != null) {
+        statementCacheEvictions.increment();
+      }
+      closeQuietly(evicted);
+      closeQuietly(duplicate);
+    }
+
+    private void closeCheckedOutStatements() {
+      for (CachedStatementHandler handler : new ArrayList<>(checkedOut)) {
+        handler.release();
+      }
+    }
+
+    private void markBorrowed(Exception stack) {
+      this.borrowedAt = System.currentTimeMillis();
+      this.borrowStack = stack;
+      this.leakReported = false;
+      this.proxy = (Connection) Proxy.newProxyInstance(
+        Connection.class.getClassLoader(),
+        new Class<?>[] { Connection.class },
+        new ProxyHandler(this));
+    }
+  }
+
+  private final class ProxyHandler implements InvocationHandler {
+    private final PooledConnection pooled;
+    private final AtomicBoolean logicallyClosed = new AtomicBoolean(false);
+
+    private ProxyHandler(PooledConnection pooled) {
+      this.pooled = pooled;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          if (logicallyClosed.compareAndSet(false, true)) {
+            giveBack(pooled);
+            // giveBack rolled back whatever transaction was left open
+            CatalogCache.transactionEnded();
+          }
+          return null;
+        case "isClosed":
+          return logicallyClosed.get() || pooled.physical.isClosed();
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "Pooled" + pooled.physical;
+        default:
+          break;
+      }
+      if (logicallyClosed.get()) {
+        throw new SQLException("Connection has already been returned to the pool");
+      }
+      switch (method.getName()) {
+        // Never hand out the physical connection: it could be closed or kept after it is returned
+        case "unwrap":
+          if (((Class<?>) args[0]).isInstance(proxy)) {
+            return proxy;
+          }
+          throw new SQLException("A pooled connection cannot be unwrapped to " + ((Class<?>) args[0]).getName());
+        case "isWrapperFor":
+          return ((Class<?>) args[0]).isInstance(proxy);
+        case "setTransactionIsolation":
+        case "setReadOnly":
+          pooled.sessionModified = true;
+          break;
+        default:
+          break;
+      }
+      if (statementCacheSize > 0 && method.getName().equals("prepareStatement")) {
+        Class<?>[] params = method.getParameterTypes();
+        if (params.length == 1) {
+          return pooled.prepareCached((Connection) proxy, (String) args[0], null);
+        }
+        if (params.length == 2 && params[1] == int.class) {
+          return pooled.prepareCached((Connection) proxy, (String) args[0], (Integer) args[1]);
+        }
+      }
+      Object result;
+      try {
+        result = method.invoke(pooled.physical, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+      // A transaction ended: repeat the catalog invalidations made inside it
+      if (method.getName().equals("commit") || method.getName().equals("rollback")
+          || (method.getName().equals("setAutoCommit") && Boolean.TRUE.equals(args[0]))) {
+        CatalogCache.transactionEnded();
+      }
+      if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+        // Uncached statements, so that getConnection() returns this proxy as well
+        return Proxy.newProxyInstance(
+          Statement.class.getClassLoader(),
+          new Class<?>[] { method.getReturnType() },
+          new StatementHandler((Statement) result, (Connection) proxy));
+      }
+      return result;
+    }
+  }
+
+  /** A statement that is not cached, passed through except for getConnection(). */
+  private static final class StatementHandler implements InvocationHandler {
+    private final Statement statement;
+    private final Connection connectionProxy;
+
+    private StatementHandler(Statement statement, Connection connectionProxy) {
+      this.statement = statement;
+      this.connectionProxy = connectionProxy;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "getConnection":
+          return connectionProxy;
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "Pooled" + statement;
+        default:
+          break;
+      }
+      try {
+        return method.invoke(statement, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+  }
+
+  /**
+   * A borrowed cached statement. close() returns the physical statement to
+   * its connection's cache instead of closing it.
+   */
+  private final class CachedStatementHandler implements InvocationHandler {
+    private final PooledConnection pooled;
+    private final Connection connectionProxy;
+    private final String key;
+    private final PreparedStatement statement;
+    private final AtomicBoolean logicallyClosed = new AtomicBoolean(false);
+    private final List<ResultSet> openResults = new ArrayList<>();
+    // Set when the caller changes statement settings the next user would not expect
+    private volatile boolean modified;
+
+    private CachedStatementHandler(PooledConnection pooled, Connection connectionProxy,
+                                   String key, PreparedStatement statement) {
+      this.pooled = pooled;
+      this.connectionProxy = connectionProxy;
+      this.key = key;
+      this.statement = statement;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          release();
+          return null;
+        case "isClosed":
+          return logicallyClosed.get() || statement.isClosed();
+        case "getConnection":
+          return connectionProxy;
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "Cached" + statement;
+        case "setFetchSize":
+        case "setFetchDirection":
+        case "setMaxRows":
+        case "setLargeMaxRows":
+        case "setMaxFieldSize":
+        case "setQueryTimeout":
+        case "setEscapeProcessing":
+        case "setCursorName":
+        case "setPoolable":
+        case "closeOnCompletion":
+          modified = true;
+          break;
+        default:
+          break;
+      }
+      if (logicallyClosed.get()) {
+        throw new SQLException("Statement has already been closed");
+      }
+      try {
+        Object result = method.invoke(statement, args);
+        if (result instanceof ResultSet) {
+          synchronized (openResults) {
+            openResults.add((ResultSet) result);
+          }
+        }
+        return result;
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+
+    private void release() {
+      if (!logicallyClosed.compareAndSet(false, true)) {
+        return;
+      }
+      pooled.checkedOut.remove(this);
+      synchronized (openResults) {
+        for (ResultSet rs : openResults) {
+          try {
+            rs.close();
+          } catch (SQLException e) {
+            // the statement is reset below either way
+          }
+        }
+        openResults.clear();
+      }
+      try {
+        if (modified || closed.get() || statement.isClosed()) {
+          closeQuietly(statement);
+          return;
+        }
+        statement.clearParameters();
+        statement.clearBatch();
+        statement.clearWarnings();
+        pooled.checkIn(key, statement);
+      } catch (SQLException e) {
+        closeQuietly(statement);
+      }
+    }
+  }
+
+  private static void closeQuietly(PreparedStatement statement) {
+    if (statement != null) {
+      try {
+        statement.close();
+      } catch (SQLException e) {
+        // nothing else to do
+      }
+    }
+  }
+}
@@ -5,6 +5,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import game.model.*;
 
@@ -21,6 +23,7 @@ public class CurrenciesDao {
 			BigDecimal weeklyCap
 			) throws SQLException{
 		final String insertCurrencies = "INSERT INTO currencies (currencyName, cap, weeklyCap) VALUES (?, ?, ?);";
+		long cacheVersion = CatalogCache.version();
 
 		try (PreparedStatement insertStmt = cxn.prepareStatement(insertCurrencies)){
 
@@ -29,7 +32,11 @@ public class CurrenciesDao {
 			insertStmt.setBigDecimal(3, weeklyCap); 
 			insertStmt.executeUpdate();
 
-			return new Currencies(currencyName,cap,weeklyCap);
+			Currencies currency = new Currencies(currencyName,cap,weeklyCap);
+			if (CatalogCache.canCache(cxn)) {
+				CatalogCache.putCurrency(currency, cacheVersion);
+			}
+			return currency;
 		} catch (SQLException e) {
 			if (e.getMessage().contains("Duplicate entry")) {
 				// If duplicate, return the existing record
@@ -47,7 +54,13 @@ public class CurrenciesDao {
 			Connection cxn,
 			String currencyName
 			) throws SQLException{
+		Currencies cached = CatalogCache.getCurrency(currencyName);
+		if (cached != null) {
+			return cached;
+		}
+
 		final String getCurrency = "SELECT currencyName, cap, weeklyCap FROM currencies WHERE currencyName = ?;";
+		long cacheVersion = CatalogCache.version();
 
 		try(PreparedStatement getStmt = cxn.prepareStatement(getCurrency)){
 
@@ -55,7 +68,11 @@ public class CurrenciesDao {
 
 			try(ResultSet rs = getStmt.executeQuery()){		
 				if(rs.next()) {
-					return new Currencies(currencyName,rs.getBigDecimal("cap"),rs.getBigDecimal("weeklyCap"));			
+					Currencies currency = new Currencies(currencyName,rs.getBigDecimal("cap"),rs.getBigDecimal("weeklyCap"));
+					if (CatalogCache.canCache(cxn)) {
+						CatalogCache.putCurrency(currency, cacheVersion);
+					}
+					return currency;
 				}else {
 					return null;
 				}
@@ -76,6 +93,7 @@ public class CurrenciesDao {
 	        updateStmt.setString(2, currency.getCurrencyName());
 
 	        int rowsAffected = updateStmt.executeUpdate();
+	        CatalogCache.invalidateCurrency(cxn, currency.getCurrencyName());
 	        if (rowsAffected > 0) {
 	            return new Currencies(currency.getCurrencyName(), newCap, currency.getWeeklyCap());
 	        } else {
@@ -83,4 +101,19 @@ public class CurrenciesDao {
 	        }
 	    }
 	}
+
+	// retrieve all currencies
+	public static List<Currencies> getAllCurrencies(Connection cxn) throws SQLException {
+		final String getAll = "SELECT currencyName, cap, weeklyCap FROM currencies ORDER BY currencyName;";
+
+		List<Currencies> currencies = new ArrayList<>();
+
+		try (PreparedStatement getStmt = cxn.prepareStatement(getAll);
+				ResultSet rs = getStmt.executeQuery()) {
+			while (rs.next()) {
+				currencies.add(new Currencies(rs.getString("currencyName"), rs.getBigDecimal("cap"), rs.getBigDecimal("weeklyCap")));
+			}
+		}
+		return currencies;
+	}
 }
@@ -0,0 +1,176 @@
+package game.dal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import game.model.*;
+
+/**
+ * Optional request-scoped identity map for the DAL.
+ *
+ * While a session is open on the current thread (DalSessionFilter opens
+ * one per HTTP request), the DAOs look up Players, Clans, Weapons and
+ * Characters here before querying and register what they map, so a row
+ * read twice in one request is queried and allocated once, and every
+ * reference to it is the same object. Writes are not deferred: they run
+ * when the DAO is called, before the view renders.
+ *
+ * Without an open session every static helper is a no-op, so the ETL and
+ * the command-line tools behave exactly as before.
+ */
+public class DalSession implements AutoCloseable {
+
+	private static final ThreadLocal<DalSession> CURRENT = new ThreadLocal<>();
+
+	private final Map<Integer, Players> players = new HashMap<>();
+	private final Map<String, Clans> clans = new HashMap<>();
+	private final Map<Integer, Weapons> weapons = new HashMap<>();
+	private final Map<Integer, Characters> characters = new HashMap<>();
+
+	private int hits = 0;
+	private int misses = 0;
+
+	private DalSession() {}
+
+	/**
+	 * Open a session on the current thread
+	 */
+	public static DalSession open() {
+		if (CURRENT.get() != null) {
+			throw new IllegalStateException("A DalSession is already open on this thread");
+		}
+		DalSession session = new DalSession();
+		CURRENT.set(session);
+		return session;
+	}
+
+	/**
+	 * The session open on the current thread, or null
+	 */
+	public static DalSession current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Close the session, dropping the identity map
+	 */
+	@Override
+	public void close() {
+		if (CURRENT.get() == this) {
+			CURRENT.remove();
+		}
+	}
+
+	// Identity map. find* returns null on a miss or when no session is open;
+	// track* returns the instance already known for that key, or registers
+	// the given one.
+
+	static Players findPlayer(int playerID) {
+		DalSession session = CURRENT.get();
+		return session == null ? null : session.count(session.players.get(playerID));
+	}
+
+	static Players trackPlayer(Players player) {
+		DalSession session = CURRENT.get();
+		if (session == null || player == null) {
+			return player;
+		}
+		return session.players.computeIfAbsent(player.getPlayerID(), id -> player);
+	}
+
+	static Clans findClan(String clanName) {
+		DalSession session = CURRENT.get();
+		return session == null || clanName == null ? null : session.count(session.clans.get(clanName));
+	}
+
+	static Clans trackClan(Clans clan) {
+		DalSession session = CURRENT.get();
+		if (session == null || clan == null) {
+			return clan;
+		}
+		return session.clans.computeIfAbsent(clan.getClanName(), name -> clan);
+	}
+
+	static Weapons findWeapon(int itemID) {
+		DalSession session = CURRENT.get();
+		return session == null ? null : session.count(session.weapons.get(itemID));
+	}
+
+	static Weapons trackWeapon(Weapons weapon) {
+		DalSession session = CURRENT.get();
+		if (session == null || weapon == null) {
+			return weapon;
+		}
+		return session.weapons.computeIfAbsent(weapon.getItemID(), id -> weapon);
+	}
+
+	static Characters findCharacter(int charID) {
+		DalSession session = CURRENT.get();
+		return session == null ? null : session.count(session.characters.get(charID));
+	}
+
+	static Characters trackCharacter(Characters character) {
+		DalSession session = CURRENT.get();
+		if (session == null || character == null) {
+			return character;
+		}
+		return session.characters.computeIfAbsent(character.getCharID(), id -> character);
+	}
+
+	/**
+	 * Forget a deleted or renamed row
+	 */
+	static void evictPlayer(int playerID) {
+		DalSession session = CURRENT.get();
+		if (session != null) {
+			session.players.remove(playerID);
+			// Their characters are deleted by the foreign key cascade
+			session.characters.values().removeIf(c -> c.getPlayers().getPlayerID() == playerID);
+		}
+	}
+
+	static void evictClan(String clanName) {
+		DalSession session = CURRENT.get();
+		if (session != null && clanName != null) {
+			session.clans.remove(clanName);
+			session.characters.values().removeIf(c -> clanName.equals(c.getClan().getClanName()));
+		}
+	}
+
+	static void evictWeapon(int itemID) {
+		DalSession session = CURRENT.get();
+		if (session != null) {
+			session.weapons.remove(itemID);
+			session.characters.values().removeIf(c -> c.getWeaponWeared().getItemID() == itemID);
+		}
+	}
+
+	private <T> T count(T found) {
+		if (found != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return found;
+	}
+
+	// Metrics
+
+	public int getHitCount() {
+		return hits;
+	}
+
+	public int getMissCount() {
+		return misses;
+	}
+
+	public int getSize() {
+		return players.size() + clans.size() + weapons.size() + characters.size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("DalSession[players=%d, clans=%d, weapons=%d, characters=%d, hits=%d, misses=%d]",
+				players.size(), clans.size(), weapons.size(), characters.size(), hits, misses);
+	}
+}
@@ -0,0 +1,65 @@
+package game.dal;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Builds IN (...) lists whose length is rounded up to a power of two.
+ *
+ * A query with an IN list of n placeholders is a different SQL string for
+ * every n, so each size would be prepared (and cached) separately. With
+ * the sizes bucketed, lists of 1 to 1024 values need at most 11 distinct
+ * statements. The spare placeholders are bound to the last value again,
+ * which does not change the result of an IN.
+ *
+ * Usage:
+ *   String sql = "... WHERE id IN (" + InClause.placeholders(ids.size()) + ")";
+ *   InClause.bind(ps, 1, ids);
+ */
+public class InClause {
+
+	private InClause() {}
+
+	/**
+	 * Smallest power of two that is at least count
+	 */
+	public static int bucketSize(int count) {
+		if (count <= 1) {
+			return 1;
+		}
+		return Integer.highestOneBit(count - 1) << 1;
+	}
+
+	/**
+	 * "?,?,...,?" with bucketSize(count) placeholders
+	 */
+	public static String placeholders(int count) {
+		int size = bucketSize(count);
+		StringBuilder sb = new StringBuilder(size * 2);
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append('?');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Bind values to the placeholders starting at firstIndex, padding the
+	 * bucket with the last value
+	 * @return the index of the first parameter after the list
+	 */
+	public static int bind(PreparedStatement ps, int firstIndex, List<?> values) throws SQLException {
+		if (values.isEmpty()) {
+			throw new IllegalArgumentException("An IN list needs at least one value");
+		}
+		int size = bucketSize(values.size());
+		Object last = values.get(values.size() - 1);
+		for (int i = 0; i < size; i++) {
+			ps.setObject(firstIndex + i, i < values.size() ? values.get(i) : last);
+		}
+		return firstIndex + size;
+	}
+}
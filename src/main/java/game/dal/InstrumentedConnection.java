@@ -0,0 +1,202 @@
+package game.dal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Wraps a Connection so every statement it runs is timed and counted in
+ * QueryStats.
+ *
+ * Statements, prepared statements and callable statements created through
+ * the wrapper are proxies too. Each execute call is timed from the call to
+ * its return; with Connector/J's default (non-streaming) result sets that
+ * includes fetching the rows. Rows are counted as the caller reads them
+ * with ResultSet.next(), and update counts are added as rows affected.
+ * Everything else is passed straight to the wrapped objects.
+ */
+public class InstrumentedConnection {
+
+	// SQL recorded for plain Statement batches, which have no single statement text
+	private static final String STATEMENT_BATCH = "(statement batch)";
+
+	private InstrumentedConnection() {}
+
+	/**
+	 * Wrap a connection; closing the wrapper closes (or returns) the connection it wraps
+	 */
+	public static Connection wrap(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(
+			Connection.class.getClassLoader(),
+			new Class<?>[] { Connection.class },
+			new ConnectionHandler(connection));
+	}
+
+	private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static class ConnectionHandler implements InvocationHandler {
+		private final Connection connection;
+
+		ConnectionHandler(Connection connection) {
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Instrumented" + connection;
+				default:
+					break;
+			}
+
+			Object result = invokeTarget(connection, method, args);
+			switch (method.getName()) {
+				case "prepareStatement":
+					return wrapStatement(PreparedStatement.class, (Statement) result, (Connection) proxy, (String) args[0]);
+				case "prepareCall":
+					return wrapStatement(CallableStatement.class, (Statement) result, (Connection) proxy, (String) args[0]);
+				case "createStatement":
+					return wrapStatement(Statement.class, (Statement) result, (Connection) proxy, null);
+				default:
+					return result;
+			}
+		}
+	}
+
+	private static <T extends Statement> T wrapStatement(Class<T> type, Statement statement, Connection connection, String sql) {
+		return type.cast(Proxy.newProxyInstance(
+			type.getClassLoader(),
+			new Class<?>[] { type },
+			new StatementHandler(statement, connection, sql)));
+	}
+
+	private static class StatementHandler implements InvocationHandler {
+		private final Statement statement;
+		private final Connection connection;
+		// Looked up once for prepared statements; per call for plain statements
+		private final QueryStats.Fingerprint prepared;
+		private QueryStats.Fingerprint last;
+
+		StatementHandler(Statement statement, Connection connection, String sql) {
+			this.statement = statement;
+			this.connection = connection;
+			this.prepared = sql == null ? null : QueryStats.forSql(sql);
+			this.last = prepared;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			switch (name) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Instrumented" + statement;
+				case "getConnection":
+					return connection;
+				case "getResultSet":
+					ResultSet current = (ResultSet) invokeTarget(statement, method, args);
+					return current == null || last == null ? current : wrapResultSet(current, (Statement) proxy, last);
+				default:
+					break;
+			}
+			if (!name.startsWith("execute")) {
+				return invokeTarget(statement, method, args);
+			}
+
+			QueryStats.Fingerprint entry = prepared;
+			if (args != null && args.length > 0 && args[0] instanceof String sql) {
+				entry = QueryStats.forSql(sql);
+			} else if (entry == null) {
+				entry = QueryStats.forSql(STATEMENT_BATCH);
+			}
+			last = entry;
+
+			long start = System.nanoTime();
+			boolean failed = true;
+			try {
+				Object result = invokeTarget(statement, method, args);
+				failed = false;
+				if (result instanceof ResultSet rs) {
+					return wrapResultSet(rs, (Statement) proxy, entry);
+				}
+				if (result instanceof Integer count) {
+					entry.addRowsAffected(count);
+				} else if (result instanceof Long count) {
+					entry.addRowsAffected(count);
+				} else if (result instanceof int[] counts) {
+					for (int count : counts) {
+						entry.addRowsAffected(count);
+					}
+				} else if (result instanceof long[] counts) {
+					for (long count : counts) {
+						entry.addRowsAffected(count);
+					}
+				}
+				return result;
+			} finally {
+				QueryStats.recordExecution(entry, System.nanoTime() - start, failed);
+			}
+		}
+	}
+
+	private static ResultSet wrapResultSet(ResultSet rs, Statement statement, QueryStats.Fingerprint entry) {
+		return (ResultSet) Proxy.newProxyInstance(
+			ResultSet.class.getClassLoader(),
+			new Class<?>[] { ResultSet.class },
+			new ResultSetHandler(rs, statement, entry));
+	}
+
+	private static class ResultSetHandler implements InvocationHandler {
+		private final ResultSet rs;
+		private final Statement statement;
+		private final QueryStats.Fingerprint entry;
+
+		ResultSetHandler(ResultSet rs, Statement statement, QueryStats.Fingerprint entry) {
+			this.rs = rs;
+			this.statement = statement;
+			this.entry = entry;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "next":
+					boolean hasRow = rs.next();
+					if (hasRow) {
+						entry.addRowReturned();
+					}
+					return hasRow;
+				case "getStatement":
+					return statement;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Instrumented" + rs;
+				default:
+					return invokeTarget(rs, method, args);
+			}
+		}
+	}
+}
@@ -12,6 +12,18 @@ import game.model.*;
 
 public class InventoryDao {
 	
+	// The per-character lookups; public so that QueryPlanCheck explains them
+	public static final String SELECT_INVENTORY_BY_CHARACTER_AND_INSTANCE = """
+             SELECT charID, slotID, instance, quantity
+             FROM Inventory
+             WHERE charID = ? AND instance = ?;
+         """;
+	public static final String SELECT_INVENTORY_BY_CHARACTER = """
+	             SELECT charID, slotID, instance, quantity
+	             FROM Inventory
+	             WHERE charID = ?;
+	         """;
+	
 	private InventoryDao() { }
 
 	public static Inventory create( Connection cxn,
@@ -74,13 +86,7 @@ public class InventoryDao {
 	        int instance
 	         ) throws SQLException{
 		
-     String query = """
-             SELECT charID, slotID, instance, quantity
-             FROM Inventory
-             WHERE charID = ? AND instance = ?;
-         """;
-
-	    try (PreparedStatement selectStmt = cxn.prepareStatement(query)) {
+	    try (PreparedStatement selectStmt = cxn.prepareStatement(SELECT_INVENTORY_BY_CHARACTER_AND_INSTANCE)) {
 	    	
 	      selectStmt.setInt(1, character.getCharID()); 
 	      selectStmt.setInt(2, instance);  
@@ -106,15 +112,9 @@ public class InventoryDao {
 			Characters character
 	         ) throws SQLException{
 		
-	     String query = """
-	             SELECT charID, slotID, instance, quantity
-	             FROM Inventory
-	             WHERE charID = ?;
-	         """;
-
 	        List<Inventory> inventorys = new ArrayList<>();
 
-	        try (PreparedStatement ps = cxn.prepareStatement(query)) {
+	        try (PreparedStatement ps = cxn.prepareStatement(SELECT_INVENTORY_BY_CHARACTER)) {
 	            ps.setInt(1, character.getCharID()); 
 
 	            try (ResultSet rs = ps.executeQuery()) {
@@ -74,6 +74,9 @@ public class ItemsDao {
 	    try (PreparedStatement deleteStmt = cxn.prepareStatement(deleteItems)) {
 	      deleteStmt.setInt(1, item.getItemID());
 	      deleteStmt.executeUpdate();
+	      // Deleting the item cascades to its Weapons row
+	      CatalogCache.invalidateWeapon(cxn, item.getItemID());
+	      DalSession.evictWeapon(item.getItemID());
 	    }
 		
 	}
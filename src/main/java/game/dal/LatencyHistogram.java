@@ -0,0 +1,85 @@
+package game.dal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, lock-free latency histogram in the style of HdrHistogram.
+ *
+ * Values are counted in log-linear buckets: every power of two is split
+ * into 32 equal sub-buckets, so any recorded value is reported to within
+ * about 3% while the whole range from 1 ns to about 36 minutes needs only
+ * 1184 counters. Larger values are counted in the last bucket.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// Highest power of two that is tracked; values up to 2^41 ns, about 36 minutes
+	private static final int MAX_EXPONENT = 40;
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	/**
+	 * Count one value, in nanoseconds
+	 */
+	public void record(long nanos) {
+		counts.incrementAndGet(indexOf(Math.max(0, nanos)));
+	}
+
+	/**
+	 * Value at the given percentile (0-100), in nanoseconds.
+	 * Returns the upper bound of the bucket the percentile falls in, or 0 if nothing was recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = getTotalCount();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return highestValueIn(i);
+			}
+		}
+		return highestValueIn(BUCKETS - 1);
+	}
+
+	public long getTotalCount() {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += counts.get(i);
+		}
+		return total;
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+	}
+
+	private static int indexOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKETS - 1;
+		}
+		// The top SUB_BUCKET_BITS + 1 bits of the value, 32..63
+		int top = (int) (value >>> (exponent - SUB_BUCKET_BITS));
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+	}
+
+	private static long highestValueIn(int index) {
+		if (index < 2 * SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long top = index % SUB_BUCKETS + SUB_BUCKETS;
+		return ((top + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
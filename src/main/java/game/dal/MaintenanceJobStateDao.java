@@ -0,0 +1,137 @@
+package game.dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import game.model.*;
+
+/**
+ * Progress rows of the resumable maintenance jobs, one per job. The table
+ * is created by schema migration 4.
+ */
+public class MaintenanceJobStateDao {
+
+	private MaintenanceJobStateDao() {}
+
+	// getMaintenanceJobStateByJobName
+	// returns the job's progress, or null if it never ran
+	public static MaintenanceJobState getMaintenanceJobStateByJobName(
+			Connection cxn,
+			String jobName
+			) throws SQLException{
+		final String selectState = "SELECT period, highWaterMark, rowsProcessed, startedAt, completedAt FROM MaintenanceJobState WHERE jobName = ?;";
+
+		try (PreparedStatement selectStmt = cxn.prepareStatement(selectState)){
+			selectStmt.setString(1, jobName);
+
+			try (ResultSet rs = selectStmt.executeQuery()){
+				if (!rs.next()) {
+					return null;
+				}
+				Timestamp completedAt = rs.getTimestamp("completedAt");
+				return new MaintenanceJobState(jobName, rs.getString("period"), rs.getInt("highWaterMark"),
+						rs.getLong("rowsProcessed"), rs.getTimestamp("startedAt").toLocalDateTime(),
+						completedAt != null ? completedAt.toLocalDateTime() : null);
+			}
+		}
+	}
+
+
+	// startPeriod
+	// starts the job over from the first key for a period later than the recorded one.
+	// Periods compare as strings, so only moving forward happens once when several instances race
+	public static void startPeriod(
+			Connection cxn,
+			String jobName,
+			String period
+			) throws SQLException{
+		final String insertState = """
+				INSERT IGNORE INTO MaintenanceJobState (jobName, period, highWaterMark, rowsProcessed, startedAt, completedAt)
+				VALUES (?, ?, 0, 0, UTC_TIMESTAMP(), NULL);
+				""";
+		final String updateState = """
+				UPDATE MaintenanceJobState
+				SET period = ?, highWaterMark = 0, rowsProcessed = 0, startedAt = UTC_TIMESTAMP(), completedAt = NULL
+				WHERE jobName = ? AND period < ?;
+				""";
+
+		try (PreparedStatement insertStmt = cxn.prepareStatement(insertState)){
+			insertStmt.setString(1, jobName);
+			insertStmt.setString(2, period);
+			if (insertStmt.executeUpdate() == 1) {
+				return;
+			}
+		}
+		try (PreparedStatement updateStmt = cxn.prepareStatement(updateState)){
+			updateStmt.setString(1, period);
+			updateStmt.setString(2, jobName);
+			updateStmt.setString(3, period);
+			updateStmt.executeUpdate();
+		}
+	}
+
+
+	// advance
+	// moves the high-water mark from expectedMark to newMark, claiming the chunk in between.
+	// returns false if the mark is no longer expectedMark, i.e. another instance of the job got there first
+	public static boolean advance(
+			Connection cxn,
+			String jobName,
+			String period,
+			int expectedMark,
+			int newMark
+			) throws SQLException{
+		final String updateMark = """
+				UPDATE MaintenanceJobState
+				SET highWaterMark = ?
+				WHERE jobName = ? AND period = ? AND highWaterMark = ? AND completedAt IS NULL;
+				""";
+
+		try (PreparedStatement updateStmt = cxn.prepareStatement(updateMark)){
+			updateStmt.setInt(1, newMark);
+			updateStmt.setString(2, jobName);
+			updateStmt.setString(3, period);
+			updateStmt.setInt(4, expectedMark);
+			return updateStmt.executeUpdate() == 1;
+		}
+	}
+
+
+	// addRowsProcessed
+	// adds the rows a chunk changed to the job's count for the period
+	public static void addRowsProcessed(
+			Connection cxn,
+			String jobName,
+			String period,
+			long rows
+			) throws SQLException{
+		final String updateRows = "UPDATE MaintenanceJobState SET rowsProcessed = rowsProcessed + ? WHERE jobName = ? AND period = ?;";
+
+		try (PreparedStatement updateStmt = cxn.prepareStatement(updateRows)){
+			updateStmt.setLong(1, rows);
+			updateStmt.setString(2, jobName);
+			updateStmt.setString(3, period);
+			updateStmt.executeUpdate();
+		}
+	}
+
+
+	// markCompleted
+	// records that the job finished the period
+	public static void markCompleted(
+			Connection cxn,
+			String jobName,
+			String period
+			) throws SQLException{
+		final String updateCompleted = "UPDATE MaintenanceJobState SET completedAt = UTC_TIMESTAMP() WHERE jobName = ? AND period = ? AND completedAt IS NULL;";
+
+		try (PreparedStatement updateStmt = cxn.prepareStatement(updateCompleted)){
+			updateStmt.setString(1, jobName);
+			updateStmt.setString(2, period);
+			updateStmt.executeUpdate();
+		}
+	}
+}
@@ -0,0 +1,498 @@
+package game.dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search over player last names and character names.
+ *
+ * lastName LIKE '%name%' cannot seek a B-tree index, so each search read
+ * every player. Here every name is kept normalized the way MySQL's default
+ * collation compares it (lower case, accents removed) in two structures: a
+ * prefix trie, and postings listing for each two- and three-letter sequence
+ * the names that contain it. A search walks the trie for the names that
+ * start with the query, and checks the names in the shortest postings list
+ * among the query's sequences for the ones that contain it further in. Entries,
+ * trie nodes and postings are int arrays, so the index stays compact.
+ *
+ * Results are ranked exact match first, then names starting with the
+ * query, then names containing it; shorter names first within each, then
+ * in the order they were added. They are cut to a limit.
+ *
+ * build() loads the index at startup, and PlayersDao and CharactersDao keep
+ * it current on create, rename and delete. Until build() has run those
+ * updates are ignored and isReady() is false, so callers search with SQL.
+ * Names written outside the DAOs or by another process appear after the
+ * next build(), and an insert that is rolled back stays indexed, so callers
+ * read the rows for the returned playerIDs rather than assume they exist.
+ */
+public class NameSearchIndex {
+
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+	private static final int INITIAL_CAPACITY = 1024;
+	// Longer names rank as if this long
+	private static final int MAX_RANKED_LENGTH = 255;
+
+	private static final NameSearchIndex playerLastNames = new NameSearchIndex();
+	private static final NameSearchIndex characterNames = new NameSearchIndex();
+	private static volatile boolean ready = false;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Entries by slot. Slots are not reused: removing an entry clears its
+	// name, and compactIfSparse() drops cleared slots once they are half of them
+	private int size;
+	private int removed;
+	private int[] keys;
+	private int[] owners;
+	private String[] names;
+	private final Map<Integer, Integer> slotByKey = new HashMap<>();
+
+	// Prefix trie with one character per node, node 0 being the root.
+	// Child and sibling links are 0 for none, since the root is nobody's child.
+	// Slots are stored plus one, so 0 ends a list of slots too
+	private int nodeCount;
+	private char[] labels;
+	private int[] firstChild;
+	private int[] nextSibling;
+	private int[] firstSlotAtNode;
+	private int[] nextSlotAtNode;
+
+	// Bigram or trigram -> ascending slots of the names containing it
+	private final Map<Long, Postings> postings = new HashMap<>();
+
+	private NameSearchIndex() {
+		clear();
+	}
+
+	/**
+	 * Load every player and character name, replacing what is indexed
+	 */
+	public static void build(Connection cxn) throws SQLException {
+		ready = false;
+		playerLastNames.lock.writeLock().lock();
+		characterNames.lock.writeLock().lock();
+		try {
+			playerLastNames.clear();
+			characterNames.clear();
+			try (PreparedStatement selectStmt = cxn.prepareStatement("SELECT playerID, lastName FROM Players;");
+					ResultSet results = selectStmt.executeQuery()) {
+				while (results.next()) {
+					int playerID = results.getInt("playerID");
+					playerLastNames.add(playerID, playerID, results.getString("lastName"));
+				}
+			}
+			try (PreparedStatement selectStmt = cxn.prepareStatement("SELECT charID, playerID, firstName, lastName FROM Characters;");
+					ResultSet results = selectStmt.executeQuery()) {
+				while (results.next()) {
+					characterNames.add(results.getInt("charID"), results.getInt("playerID"),
+							characterName(results.getString("firstName"), results.getString("lastName")));
+				}
+			}
+			ready = true;
+		} finally {
+			characterNames.lock.writeLock().unlock();
+			playerLastNames.lock.writeLock().unlock();
+		}
+	}
+
+	public static boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Players whose last name contains the query, best matches first
+	 * @return at most limit playerIDs
+	 */
+	public static List<Integer> findPlayersByLastName(String query, int limit) {
+		return playerLastNames.search(query, limit);
+	}
+
+	/**
+	 * Players owning a character whose "firstName lastName" contains the query, best matches first
+	 * @return at most limit playerIDs
+	 */
+	public static List<Integer> findPlayersByCharacterName(String query, int limit) {
+		return characterNames.search(query, limit);
+	}
+
+	// Updates from the DAOs
+
+	public static void putPlayer(int playerID, String lastName) {
+		if (ready) {
+			playerLastNames.put(playerID, playerID, lastName);
+		}
+	}
+
+	/**
+	 * Remove the player and, as the database cascades, their characters
+	 */
+	public static void removePlayer(int playerID) {
+		if (ready) {
+			playerLastNames.remove(playerID);
+			characterNames.removeOwner(playerID);
+		}
+	}
+
+	public static void putCharacter(int charID, int playerID, String firstName, String lastName) {
+		if (ready) {
+			characterNames.put(charID, playerID, characterName(firstName, lastName));
+		}
+	}
+
+	public static String describe() {
+		return String.format("NameSearchIndex[ready=%b, playerLastNames=%d, characterNames=%d]",
+				ready, playerLastNames.count(), characterNames.count());
+	}
+
+	/**
+	 * Lower case without accents, as utf8mb4_0900_ai_ci compares
+	 */
+	static String normalize(String name) {
+		if (name == null) {
+			return "";
+		}
+		String decomposed = Normalizer.normalize(name.trim(), Normalizer.Form.NFD);
+		return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+	}
+
+	private static String characterName(String firstName, String lastName) {
+		return firstName + " " + lastName;
+	}
+
+	// One index
+
+	private void put(int key, int owner, String name) {
+		lock.writeLock().lock();
+		try {
+			add(key, owner, name);
+			compactIfSparse();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void remove(int key) {
+		lock.writeLock().lock();
+		try {
+			removeSlot(slotByKey.remove(key));
+			compactIfSparse();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void removeOwner(int owner) {
+		lock.writeLock().lock();
+		try {
+			for (int slot = 0; slot < size; slot++) {
+				if (names[slot] != null && owners[slot] == owner) {
+					slotByKey.remove(keys[slot]);
+					removeSlot(slot);
+				}
+			}
+			compactIfSparse();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private int count() {
+		lock.readLock().lock();
+		try {
+			return size - removed;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private List<Integer> search(String query, int limit) {
+		String q = normalize(query);
+		List<Integer> result = new ArrayList<>();
+		if (q.isEmpty() || limit <= 0) {
+			return result;
+		}
+		Set<Integer> seen = new HashSet<>();
+		lock.readLock().lock();
+		try {
+			// Names starting with the query, from the trie below it. Each level down is one
+			// character longer, so walking it level by level yields the shortest names first
+			int node = findNode(q);
+			if (node >= 0) {
+				int[] level = { node };
+				int levelSize = 1;
+				int[] slots = new int[16];
+				while (levelSize > 0 && result.size() < limit) {
+					int slotCount = 0;
+					int[] nextLevel = new int[Math.max(16, levelSize)];
+					int nextLevelSize = 0;
+					for (int i = 0; i < levelSize; i++) {
+						int current = level[i];
+						for (int slot = firstSlotAtNode[current] - 1; slot >= 0; slot = nextSlotAtNode[slot] - 1) {
+							if (names[slot] != null) {
+								slots = grow(slots, slotCount);
+								slots[slotCount++] = slot;
+							}
+						}
+						for (int child = firstChild[current]; child != 0; child = nextSibling[child]) {
+							nextLevel = grow(nextLevel, nextLevelSize);
+							nextLevel[nextLevelSize++] = child;
+						}
+					}
+					Arrays.sort(slots, 0, slotCount);
+					addOwners(slots, slotCount, limit, result, seen);
+					level = nextLevel;
+					levelSize = nextLevelSize;
+				}
+			}
+			if (result.size() < limit) {
+				addSubstringMatches(q, limit, result, seen);
+			}
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Names containing the query after their first character, shortest first
+	 */
+	private void addSubstringMatches(String q, int limit, List<Integer> result, Set<Integer> seen) {
+		int[] candidates = null;
+		int candidateCount = size;
+		if (q.length() >= 2) {
+			// Only names holding the query's rarest bigram or trigram can contain it
+			Postings rarest = rarestPostings(q);
+			if (rarest == null) {
+				return;
+			}
+			candidates = rarest.slots;
+			candidateCount = rarest.size;
+		}
+
+		int[] matches = new int[16];
+		int matchCount = 0;
+		int[] lengthCounts = new int[MAX_RANKED_LENGTH + 2];
+		for (int i = 0; i < candidateCount; i++) {
+			int slot = candidates != null ? candidates[i] : i;
+			String name = names[slot];
+			if (name != null && !name.startsWith(q) && name.contains(q)) {
+				matches = grow(matches, matchCount);
+				matches[matchCount++] = slot;
+				lengthCounts[rankedLength(name) + 1]++;
+			}
+		}
+
+		// Counting sort by length. Candidates come in slot order, which it keeps within a length
+		for (int length = 1; length < lengthCounts.length; length++) {
+			lengthCounts[length] += lengthCounts[length - 1];
+		}
+		int[] ordered = new int[matchCount];
+		for (int i = 0; i < matchCount; i++) {
+			ordered[lengthCounts[rankedLength(names[matches[i]])]++] = matches[i];
+		}
+		addOwners(ordered, matchCount, limit, result, seen);
+	}
+
+	private void addOwners(int[] slots, int slotCount, int limit, List<Integer> result, Set<Integer> seen) {
+		for (int i = 0; i < slotCount && result.size() < limit; i++) {
+			int owner = owners[slots[i]];
+			if (seen.add(owner)) {
+				result.add(owner);
+			}
+		}
+	}
+
+	private static int rankedLength(String name) {
+		return Math.min(name.length(), MAX_RANKED_LENGTH);
+	}
+
+	private Postings rarestPostings(String q) {
+		if (q.length() == 2) {
+			return postings.get(bigram(q, 0));
+		}
+		Postings rarest = null;
+		for (int i = 0; i + 3 <= q.length(); i++) {
+			Postings candidate = postings.get(trigram(q, i));
+			if (candidate == null) {
+				// Some trigram of the query occurs in no name
+				return null;
+			}
+			if (rarest == null || candidate.size < rarest.size) {
+				rarest = candidate;
+			}
+		}
+		return rarest;
+	}
+
+	private void clear() {
+		size = 0;
+		removed = 0;
+		keys = new int[INITIAL_CAPACITY];
+		owners = new int[INITIAL_CAPACITY];
+		names = new String[INITIAL_CAPACITY];
+		nextSlotAtNode = new int[INITIAL_CAPACITY];
+		slotByKey.clear();
+		nodeCount = 1;
+		labels = new char[INITIAL_CAPACITY];
+		firstChild = new int[INITIAL_CAPACITY];
+		nextSibling = new int[INITIAL_CAPACITY];
+		firstSlotAtNode = new int[INITIAL_CAPACITY];
+		postings.clear();
+	}
+
+	/**
+	 * Index the name under key, replacing what the key had; the caller holds the write lock
+	 */
+	private void add(int key, int owner, String name) {
+		Integer previous = slotByKey.remove(key);
+		if (previous != null) {
+			removeSlot(previous);
+		}
+		String normalized = normalize(name);
+		if (normalized.isEmpty()) {
+			return;
+		}
+
+		int slot = size++;
+		if (slot == keys.length) {
+			int capacity = keys.length * 2;
+			keys = Arrays.copyOf(keys, capacity);
+			owners = Arrays.copyOf(owners, capacity);
+			names = Arrays.copyOf(names, capacity);
+			nextSlotAtNode = Arrays.copyOf(nextSlotAtNode, capacity);
+		}
+		keys[slot] = key;
+		owners[slot] = owner;
+		names[slot] = normalized;
+		slotByKey.put(key, slot);
+
+		int node = 0;
+		for (int i = 0; i < normalized.length(); i++) {
+			node = childNode(node, normalized.charAt(i));
+		}
+		nextSlotAtNode[slot] = firstSlotAtNode[node];
+		firstSlotAtNode[node] = slot + 1;
+
+		for (int i = 0; i + 2 <= normalized.length(); i++) {
+			postings.computeIfAbsent(bigram(normalized, i), t -> new Postings()).add(slot);
+			if (i + 3 <= normalized.length()) {
+				postings.computeIfAbsent(trigram(normalized, i), t -> new Postings()).add(slot);
+			}
+		}
+	}
+
+	private void removeSlot(Integer slot) {
+		if (slot != null && names[slot] != null) {
+			names[slot] = null;
+			removed++;
+		}
+	}
+
+	/**
+	 * Re-add the remaining entries once removed slots are half of the index
+	 */
+	private void compactIfSparse() {
+		if (removed < INITIAL_CAPACITY || removed * 2 < size) {
+			return;
+		}
+		int liveCount = size - removed;
+		int[] liveKeys = new int[liveCount];
+		int[] liveOwners = new int[liveCount];
+		String[] liveNames = new String[liveCount];
+		int live = 0;
+		for (int slot = 0; slot < size; slot++) {
+			if (names[slot] != null) {
+				liveKeys[live] = keys[slot];
+				liveOwners[live] = owners[slot];
+				liveNames[live] = names[slot];
+				live++;
+			}
+		}
+		clear();
+		for (int i = 0; i < liveCount; i++) {
+			add(liveKeys[i], liveOwners[i], liveNames[i]);
+		}
+	}
+
+	private int findNode(String q) {
+		int node = 0;
+		for (int i = 0; i < q.length() && node >= 0; i++) {
+			char c = q.charAt(i);
+			int child = firstChild[node];
+			while (child != 0 && labels[child] != c) {
+				child = nextSibling[child];
+			}
+			node = child != 0 ? child : -1;
+		}
+		return node;
+	}
+
+	private int childNode(int node, char c) {
+		for (int child = firstChild[node]; child != 0; child = nextSibling[child]) {
+			if (labels[child] == c) {
+				return child;
+			}
+		}
+		int child = nodeCount++;
+		if (child == labels.length) {
+			int capacity = labels.length * 2;
+			labels = Arrays.copyOf(labels, capacity);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			nextSibling = Arrays.copyOf(nextSibling, capacity);
+			firstSlotAtNode = Arrays.copyOf(firstSlotAtNode, capacity);
+		}
+		labels[child] = c;
+		firstChild[child] = 0;
+		firstSlotAtNode[child] = 0;
+		nextSibling[child] = firstChild[node];
+		firstChild[node] = child;
+		return child;
+	}
+
+	private static long bigram(String s, int start) {
+		// Above every trigram key, so the two kinds share one map
+		return (1L << 48) | ((long) s.charAt(start) << 16) | s.charAt(start + 1);
+	}
+
+	private static long trigram(String s, int start) {
+		return ((long) s.charAt(start) << 32) | ((long) s.charAt(start + 1) << 16) | s.charAt(start + 2);
+	}
+
+	private static int[] grow(int[] array, int used) {
+		return used < array.length ? array : Arrays.copyOf(array, array.length * 2);
+	}
+
+	/**
+	 * Slots in ascending order. Slots are only ever appended, so adding keeps the order
+	 */
+	private static final class Postings {
+		private int[] slots = new int[4];
+		private int size;
+
+		void add(int slot) {
+			// A trigram repeated within one name lists the name once
+			if (size > 0 && slots[size - 1] == slot) {
+				return;
+			}
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+			slots[size++] = slot;
+		}
+	}
+}
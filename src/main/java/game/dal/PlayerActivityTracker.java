@@ -0,0 +1,162 @@
+package game.dal;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import game.model.Players;
+
+/**
+ * Write-behind for Players.lastActiveDateTime.
+ *
+ * touch() only records the time in a ConcurrentHashMap keyed by playerID,
+ * so repeated activity of one player between two flushes becomes a single
+ * write. A background thread writes the pending times with
+ * PlayersDao.updateLastActiveDateTimes, many players per UPDATE, every few
+ * seconds or as soon as the map holds flushThreshold players. stop()
+ * writes what is left, so database writes follow the number of distinct
+ * active players rather than the number of events.
+ *
+ * This is the DAL's only write-behind path; every other write runs when
+ * its DAO method is called. While the tracker is not started, PlayersDao
+ * writes each touch directly.
+ */
+public class PlayerActivityTracker {
+
+	public static final long DEFAULT_FLUSH_INTERVAL_SECONDS = 5;
+	public static final int DEFAULT_FLUSH_THRESHOLD = 1000;
+
+	// playerID -> latest activity, in epoch milliseconds
+	private static final Map<Integer, Long> pending = new ConcurrentHashMap<>();
+	private static final AtomicBoolean flushing = new AtomicBoolean(false);
+	// Set while a flush for reaching the threshold is queued, so touches queue only one
+	private static final AtomicBoolean flushRequested = new AtomicBoolean(false);
+	private static volatile int flushThreshold = DEFAULT_FLUSH_THRESHOLD;
+	private static volatile ScheduledExecutorService scheduler;
+
+	private static final LongAdder touches = new LongAdder();
+	private static final LongAdder flushes = new LongAdder();
+	private static final LongAdder rowsWritten = new LongAdder();
+	private static final LongAdder failures = new LongAdder();
+
+	private PlayerActivityTracker() {}
+
+	/**
+	 * Start flushing every flushIntervalSeconds, or once flushThreshold players are pending
+	 */
+	public static synchronized void start(long flushIntervalSeconds, int flushThreshold) {
+		if (scheduler != null) {
+			return;
+		}
+		PlayerActivityTracker.flushThreshold = flushThreshold;
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "player-activity-flush");
+			t.setDaemon(true);
+			return t;
+		});
+		scheduler.scheduleWithFixedDelay(PlayerActivityTracker::flush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stop the background flush and write what is still pending
+	 */
+	public static void stop() {
+		ScheduledExecutorService stopped;
+		synchronized (PlayerActivityTracker.class) {
+			stopped = scheduler;
+			scheduler = null;
+		}
+		if (stopped == null) {
+			return;
+		}
+		stopped.shutdown();
+		try {
+			stopped.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+	}
+
+	public static boolean isStarted() {
+		return scheduler != null;
+	}
+
+	/**
+	 * Record that the player is active now; the database is updated at the next flush
+	 */
+	public static void touch(Players player) {
+		long now = System.currentTimeMillis();
+		touch(player.getPlayerID(), now);
+		player.setLastActiveDateTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()));
+	}
+
+	public static void touch(int playerID, long epochMillis) {
+		touches.increment();
+		pending.merge(playerID, epochMillis, Math::max);
+		if (pending.size() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+			ScheduledExecutorService current = scheduler;
+			if (current == null) {
+				flushRequested.set(false);
+				return;
+			}
+			current.execute(() -> {
+				flushRequested.set(false);
+				flush();
+			});
+		}
+	}
+
+	/**
+	 * Write every pending time. Concurrent calls collapse into one; touches
+	 * that arrive during a flush wait for the next one.
+	 */
+	public static void flush() {
+		if (pending.isEmpty() || !flushing.compareAndSet(false, true)) {
+			return;
+		}
+		Map<Integer, LocalDateTime> batch = new HashMap<>();
+		try {
+			// remove() hands over the latest time; a touch after it starts a new entry
+			for (Integer playerID : pending.keySet()) {
+				Long millis = pending.remove(playerID);
+				if (millis != null) {
+					batch.put(playerID, LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+				}
+			}
+			if (batch.isEmpty()) {
+				return;
+			}
+			try (Connection cxn = ConnectionManager.getConnection()) {
+				rowsWritten.add(PlayersDao.updateLastActiveDateTimes(cxn, batch));
+				flushes.increment();
+			}
+		} catch (SQLException | RuntimeException e) {
+			failures.increment();
+			System.err.println("Player activity flush failed, keeping " + batch.size() + " players for the next one: " + e.getMessage());
+			// Put the times back, unless the player was touched again since
+			for (Map.Entry<Integer, LocalDateTime> entry : batch.entrySet()) {
+				long millis = entry.getValue().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+				pending.merge(entry.getKey(), millis, Math::max);
+			}
+		} finally {
+			flushing.set(false);
+		}
+	}
+
+	public static int getPendingCount() { return pending.size(); }
+	public static long getTouchCount() { return touches.sum(); }
+	public static long getFlushCount() { return flushes.sum(); }
+	public static long getRowsWritten() { return rowsWritten.sum(); }
+	public static long getFailureCount() { return failures.sum(); }
+}
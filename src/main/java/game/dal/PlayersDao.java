@@ -9,10 +9,24 @@ import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import game.model.*;
 
 public class PlayersDao{
+  // Most players written by one UPDATE in updateLastActiveDateTimes
+  private static final int BATCH_SIZE = 512;
+
+  // The name lookups; public so that QueryPlanCheck explains them
+  public static final String SELECT_PLAYERS_BY_FIRST_NAME = """
+		        SELECT playerID, firstName, lastName, emailAddress, lastActiveDateTime
+		        FROM Players 
+		        WHERE firstName = ?""";
+  public static final String SELECT_PLAYERS_BY_LAST_NAME = """
+		        SELECT playerID, firstName, lastName, emailAddress, lastActiveDateTime
+		        FROM Players 
+		        WHERE lastName LIKE ?; """;
+
   protected PlayersDao() {};
 	
   /**
@@ -38,6 +52,7 @@ public class PlayersDao{
 		        try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
 		            if (generatedKeys.next()) {
 		                int playersID = generatedKeys.getInt(1);
+		                NameSearchIndex.putPlayer(playersID, lastName);
 		                return new Players(playersID, firstName, lastName, emailAddress, LocalDateTime.now());
 		            } else {
 		                throw new SQLException("Failed to retrieve generated userID.");
@@ -46,6 +61,40 @@ public class PlayersDao{
 		    }
 		}
   
+  /**
+   * Save the User instance with a given last activity time, in the same INSERT,
+   * for players loaded with their activity history.
+   * This returns a Players.
+   */
+  public static Players create(
+		    Connection cxn,
+		    String firstName,
+		    String lastName,
+		    String emailAddress,
+		    LocalDateTime lastActiveDateTime
+		) throws SQLException {
+		    final String insertPlayers =
+		        "INSERT INTO Players (firstName, lastName, emailAddress, lastActiveDateTime) VALUES (?, ?, ?, ?);";
+
+		    try (PreparedStatement insertStmt = cxn.prepareStatement(insertPlayers, Statement.RETURN_GENERATED_KEYS)) {
+		        insertStmt.setString(1, firstName);
+		        insertStmt.setString(2, lastName);
+		        insertStmt.setString(3, emailAddress);
+		        insertStmt.setTimestamp(4, Timestamp.valueOf(lastActiveDateTime));
+		        insertStmt.executeUpdate();
+		        
+		        try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
+		            if (generatedKeys.next()) {
+		                int playersID = generatedKeys.getInt(1);
+		                NameSearchIndex.putPlayer(playersID, lastName);
+		                return new Players(playersID, firstName, lastName, emailAddress, lastActiveDateTime);
+		            } else {
+		                throw new SQLException("Failed to retrieve generated userID.");
+		            }
+		        } 
+		    }
+		}
+  
   /**
    * Get the Players record by fetching it from MySQL instance.
    * This runs a SELECT statement and returns a single Players instance based on playerID.
@@ -54,6 +103,11 @@ public class PlayersDao{
 		    Connection cxn,
 		    int playerID
 		) throws SQLException {
+		    Players known = DalSession.findPlayer(playerID);
+		    if (known != null) {
+		        return known;
+		    }
+		    
 		    final String selectPlayer =
 		        """
 		        SELECT playerID, firstName, lastName, emailAddress, lastActiveDateTime
@@ -66,13 +120,13 @@ public class PlayersDao{
 
 		        try (ResultSet results = selectStmt.executeQuery()) {
 		            if (results.next()) {
-		                return new Players(
+		                return DalSession.trackPlayer(new Players(
 		                    results.getInt("playerID"),
 		                    results.getString("firstName"),
 		                    results.getString("lastName"),
 		                    results.getString("emailAddress"),
 		                    results.getTimestamp("lastActiveDateTime").toLocalDateTime()
-		                );
+		                ));
 		            } else {
 		                return null;
 		            }
@@ -93,6 +147,8 @@ public class PlayersDao{
 	    try (PreparedStatement deleteStmt = cxn.prepareStatement(deletePlayer)) {
 	      deleteStmt.setInt(1, playerID);
 	      deleteStmt.executeUpdate();
+	      DalSession.evictPlayer(playerID);
+	      NameSearchIndex.removePlayer(playerID);
 	    }
 
 	}
@@ -106,12 +162,8 @@ public class PlayersDao{
 		    String firstName
 		) throws SQLException {
 		    List<Players> players = new ArrayList<>();
-		    String selectPlayers = """
-		        SELECT playerID, firstName, lastName, emailAddress, lastActiveDateTime
-		        FROM Players 
-		        WHERE firstName = ?""";
 
-		    try (PreparedStatement selectStmt = cxn.prepareStatement(selectPlayers)) {
+		    try (PreparedStatement selectStmt = cxn.prepareStatement(SELECT_PLAYERS_BY_FIRST_NAME)) {
 		        selectStmt.setString(1, firstName);
 		        try (ResultSet results = selectStmt.executeQuery()) {
 		            while (results.next()) {
@@ -151,12 +203,8 @@ public class PlayersDao{
 		    String lastName
 		) throws SQLException {
 		    List<Players> players = new ArrayList<>();
-		    String selectPlayers = """
-		        SELECT playerID, firstName, lastName, emailAddress, lastActiveDateTime
-		        FROM Players 
-		        WHERE lastName LIKE ?; """;
 
-		    try (PreparedStatement selectStmt = cxn.prepareStatement(selectPlayers)) {
+		    try (PreparedStatement selectStmt = cxn.prepareStatement(SELECT_PLAYERS_BY_LAST_NAME)) {
 		        selectStmt.setString(1, "%" + lastName + "%");
 		        try (ResultSet results = selectStmt.executeQuery()) {
 		            while (results.next()) {
@@ -279,6 +327,9 @@ public class PlayersDao{
 		        updateStmt.setInt(2, player.getPlayerID());
 		        int rowsAffected = updateStmt.executeUpdate();
 		        System.out.println("Rows affected by update: " + rowsAffected);
+		        if (rowsAffected > 0) {
+		            NameSearchIndex.putPlayer(player.getPlayerID(), newLastName);
+		        }
 		        
 		        player.setLastName(newLastName);
 		        player.setLastActiveDateTime(LocalDateTime.now());
@@ -288,6 +339,9 @@ public class PlayersDao{
   
   /**
    * to update last active time
+   * While PlayerActivityTracker runs (in the web application) the time is
+   * written behind by it, and cxn is not used; otherwise the UPDATE runs on
+   * cxn now.
    * @param cxn
    * @param player
    * @return
@@ -296,6 +350,20 @@ public class PlayersDao{
   public static Players updateLastActiveDateTime(
 		    Connection cxn,
 		    Players player
+		) throws SQLException {
+		    if (PlayerActivityTracker.isStarted()) {
+		        PlayerActivityTracker.touch(player);
+		        return player;
+		    }
+		    
+		    writeLastActiveDateTime(cxn, player.getPlayerID());
+		    player.setLastActiveDateTime(LocalDateTime.now());
+		    return player;
+		}
+  
+  private static void writeLastActiveDateTime(
+		    Connection cxn,
+		    int playerID
 		) throws SQLException {
 		    String updateLastActive = """
 		        UPDATE Players
@@ -303,12 +371,50 @@ public class PlayersDao{
 		        WHERE playerID = ?;""";
 
 		    try (PreparedStatement updateStmt = cxn.prepareStatement(updateLastActive)) {
-		        updateStmt.setInt(1, player.getPlayerID());
+		        updateStmt.setInt(1, playerID);
 		        updateStmt.executeUpdate();
+		    }
+		}
+  
+  /**
+   * Write many players' last activity times, up to BATCH_SIZE per UPDATE,
+   * as one CASE over playerID. A time older than the stored one is ignored.
+   * This returns the number of rows changed.
+   */
+  public static int updateLastActiveDateTimes(
+		    Connection cxn,
+		    Map<Integer, LocalDateTime> lastActiveByPlayerID
+		) throws SQLException {
+		    List<Map.Entry<Integer, LocalDateTime>> entries = new ArrayList<>(lastActiveByPlayerID.entrySet());
+		    int updated = 0;
+		    for (int from = 0; from < entries.size(); from += BATCH_SIZE) {
+		        List<Map.Entry<Integer, LocalDateTime>> chunk = entries.subList(from, Math.min(from + BATCH_SIZE, entries.size()));
+		        // Bucketed like InClause, padding with the last pair, so few distinct statements are prepared
+		        int size = InClause.bucketSize(chunk.size());
+		        StringBuilder cases = new StringBuilder();
+		        for (int i = 0; i < size; i++) {
+		            cases.append(" WHEN ? THEN ?");
+		        }
+		        String updateLastActive = "UPDATE Players SET lastActiveDateTime = GREATEST("
+		            + "COALESCE(lastActiveDateTime, '1000-01-01'), CASE playerID" + cases + " END) "
+		            + "WHERE playerID IN (" + InClause.placeholders(chunk.size()) + ");";
 		        
-		        player.setLastActiveDateTime(LocalDateTime.now());
-		        return player;
+		        try (PreparedStatement updateStmt = cxn.prepareStatement(updateLastActive)) {
+		            int index = 1;
+		            for (int i = 0; i < size; i++) {
+		                Map.Entry<Integer, LocalDateTime> entry = chunk.get(Math.min(i, chunk.size() - 1));
+		                updateStmt.setInt(index++, entry.getKey());
+		                updateStmt.setTimestamp(index++, Timestamp.valueOf(entry.getValue()));
+		            }
+		            List<Integer> playerIDs = new ArrayList<>(chunk.size());
+		            for (Map.Entry<Integer, LocalDateTime> entry : chunk) {
+		                playerIDs.add(entry.getKey());
+		            }
+		            InClause.bind(updateStmt, index, playerIDs);
+		            updated += updateStmt.executeUpdate();
+		        }
 		    }
+		    return updated;
 		}
   
 }
\ No newline at end of file
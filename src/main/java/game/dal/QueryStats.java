@@ -0,0 +1,383 @@
+package game.dal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Per-query statistics collected by InstrumentedConnection.
+ *
+ * Statements are grouped by fingerprint: the SQL with literals replaced by
+ * ?, whitespace collapsed and IN lists of any length folded into one, so
+ * every call of a DAO method lands in the same entry whatever it was
+ * called with. For each fingerprint the calls, errors, rows returned or
+ * affected and a latency histogram are kept.
+ *
+ * Between beginRequest() and endRequest() (QueryStatsFilter wraps every
+ * HTTP request) executions are also counted per request, and a fingerprint
+ * run more than the N+1 threshold times in one request is reported as a
+ * suspected N+1 query: a loop issuing one query per row where a join or an
+ * IN list would do.
+ */
+public class QueryStats {
+
+	/** Executions of one fingerprint in one request above which it is reported as N+1 */
+	public static final int DEFAULT_N_PLUS_ONE_THRESHOLD = 10;
+	// Distinct SQL strings whose fingerprint is remembered
+	private static final int FINGERPRINT_CACHE_SIZE = 5_000;
+	// Suspected N+1 requests kept for the admin page
+	private static final int RECENT_N_PLUS_ONE_SIZE = 50;
+
+	private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN ?\\( ?\\?(?: ?, ?\\?)* ?\\)");
+
+	private static volatile boolean enabled = true;
+	private static volatile int nPlusOneThreshold = DEFAULT_N_PLUS_ONE_THRESHOLD;
+
+	private static final Map<String, Fingerprint> stats = new ConcurrentHashMap<>();
+	private static final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+	private static final Deque<NPlusOne> recentNPlusOne = new ArrayDeque<>();
+	private static final ThreadLocal<RequestLog> REQUEST = new ThreadLocal<>();
+
+	private QueryStats() {}
+
+	/**
+	 * Statistics for one fingerprint
+	 */
+	public static class Fingerprint {
+		private final String fingerprint;
+		private final String sample;
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private final LongAdder rowsReturned = new LongAdder();
+		private final LongAdder rowsAffected = new LongAdder();
+		private final LongAdder suspectedNPlusOne = new LongAdder();
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		private Fingerprint(String fingerprint, String sample) {
+			this.fingerprint = fingerprint;
+			this.sample = sample;
+		}
+
+		void recordExecution(long nanos, boolean failed) {
+			calls.increment();
+			if (failed) {
+				errors.increment();
+			}
+			totalNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+			latency.record(nanos);
+		}
+
+		void addRowReturned() {
+			rowsReturned.increment();
+		}
+
+		void addRowsAffected(long rows) {
+			if (rows > 0) {
+				rowsAffected.add(rows);
+			}
+		}
+
+		public String getFingerprint() { return fingerprint; }
+		/** The first SQL seen with this fingerprint, with its literals */
+		public String getSample() { return sample; }
+		public long getCalls() { return calls.sum(); }
+		public long getErrors() { return errors.sum(); }
+		public long getRowsReturned() { return rowsReturned.sum(); }
+		public long getRowsAffected() { return rowsAffected.sum(); }
+		/** Requests in which this fingerprint ran more than the N+1 threshold times */
+		public long getSuspectedNPlusOneCount() { return suspectedNPlusOne.sum(); }
+		public LatencyHistogram getLatency() { return latency; }
+
+		public double getTotalMillis() {
+			return totalNanos.sum() / 1_000_000.0;
+		}
+
+		public double getMeanMillis() {
+			long n = calls.sum();
+			return n == 0 ? 0 : getTotalMillis() / n;
+		}
+
+		public double getMaxMillis() {
+			return maxNanos.get() / 1_000_000.0;
+		}
+
+		public double getPercentileMillis(double percentile) {
+			return latency.getValueAtPercentile(percentile) / 1_000_000.0;
+		}
+
+		public double getP50Millis() { return getPercentileMillis(50); }
+		public double getP95Millis() { return getPercentileMillis(95); }
+		public double getP99Millis() { return getPercentileMillis(99); }
+
+		public double getRowsPerCall() {
+			long n = calls.sum();
+			return n == 0 ? 0 : (double) (rowsReturned.sum() + rowsAffected.sum()) / n;
+		}
+	}
+
+	/**
+	 * One request in which a fingerprint ran more than the N+1 threshold times
+	 */
+	public static class NPlusOne {
+		private final String request;
+		private final String fingerprint;
+		private final int executions;
+		private final long detectedAtMillis;
+
+		NPlusOne(String request, String fingerprint, int executions) {
+			this.request = request;
+			this.fingerprint = fingerprint;
+			this.executions = executions;
+			this.detectedAtMillis = System.currentTimeMillis();
+		}
+
+		public String getRequest() { return request; }
+		public String getFingerprint() { return fingerprint; }
+		public int getExecutions() { return executions; }
+		public long getDetectedAtMillis() { return detectedAtMillis; }
+		public Date getDetectedAt() { return new Date(detectedAtMillis); }
+	}
+
+	/**
+	 * Executions per fingerprint during one request
+	 */
+	private static class RequestLog {
+		private final String label;
+		private final Map<Fingerprint, int[]> executions = new HashMap<>();
+
+		RequestLog(String label) {
+			this.label = label;
+		}
+	}
+
+	// Recording, called by InstrumentedConnection
+
+	/**
+	 * Entry for the fingerprint of sql, created on first use
+	 */
+	static Fingerprint forSql(String sql) {
+		String fingerprint = fingerprint(sql);
+		return stats.computeIfAbsent(fingerprint, fp -> new Fingerprint(fp, sql));
+	}
+
+	static void recordExecution(Fingerprint entry, long nanos, boolean failed) {
+		entry.recordExecution(nanos, failed);
+
+		RequestLog log = REQUEST.get();
+		if (log != null) {
+			int[] count = log.executions.computeIfAbsent(entry, e -> new int[1]);
+			if (++count[0] == nPlusOneThreshold + 1) {
+				entry.suspectedNPlusOne.increment();
+			}
+		}
+	}
+
+	// Request scope
+
+	/**
+	 * Start counting executions for a request on the current thread
+	 * @return false if a request is already being counted on this thread
+	 */
+	public static boolean beginRequest(String label) {
+		if (REQUEST.get() != null) {
+			return false;
+		}
+		REQUEST.set(new RequestLog(label));
+		return true;
+	}
+
+	/**
+	 * Stop counting for the current thread's request and report its N+1 queries
+	 */
+	public static void endRequest() {
+		RequestLog log = REQUEST.get();
+		REQUEST.remove();
+		if (log == null) {
+			return;
+		}
+		int threshold = nPlusOneThreshold;
+		for (Map.Entry<Fingerprint, int[]> e : log.executions.entrySet()) {
+			int executions = e.getValue()[0];
+			if (executions > threshold) {
+				String fingerprint = e.getKey().getFingerprint();
+				System.err.println("⚠️ Possible N+1 query in " + log.label + ": " + executions + "x " + fingerprint);
+				synchronized (recentNPlusOne) {
+					recentNPlusOne.addFirst(new NPlusOne(log.label, fingerprint, executions));
+					if (recentNPlusOne.size() > RECENT_N_PLUS_ONE_SIZE) {
+						recentNPlusOne.removeLast();
+					}
+				}
+			}
+		}
+	}
+
+	// Fingerprints
+
+	/**
+	 * The SQL with string and numeric literals replaced by ?, whitespace
+	 * collapsed and IN (?, ?, ...) lists of any length written as IN (?+)
+	 */
+	public static String fingerprint(String sql) {
+		String known = fingerprints.get(sql);
+		if (known != null) {
+			return known;
+		}
+
+		StringBuilder sb = new StringBuilder(sql.length());
+		int n = sql.length();
+		int i = 0;
+		while (i < n) {
+			char c = sql.charAt(i);
+			if (c == '\'' || c == '"') {
+				// Quoted string; a doubled quote or a backslash escapes the next character
+				i++;
+				while (i < n) {
+					char d = sql.charAt(i);
+					if (d == '\\') {
+						i += 2;
+					} else if (d == c && i + 1 < n && sql.charAt(i + 1) == c) {
+						i += 2;
+					} else if (d == c) {
+						i++;
+						break;
+					} else {
+						i++;
+					}
+				}
+				sb.append('?');
+			} else if (Character.isDigit(c) && (sb.length() == 0 || !isIdentifierPart(sb.charAt(sb.length() - 1)))) {
+				while (i < n && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+					i++;
+				}
+				sb.append('?');
+			} else if (Character.isWhitespace(c)) {
+				while (i < n && Character.isWhitespace(sql.charAt(i))) {
+					i++;
+				}
+				if (sb.length() > 0) {
+					sb.append(' ');
+				}
+			} else {
+				sb.append(c);
+				i++;
+			}
+		}
+
+		String fingerprint = sb.toString().trim();
+		while (fingerprint.endsWith(";")) {
+			fingerprint = fingerprint.substring(0, fingerprint.length() - 1).trim();
+		}
+		fingerprint = IN_LIST.matcher(fingerprint).replaceAll("IN (?+)");
+
+		if (fingerprints.size() < FINGERPRINT_CACHE_SIZE) {
+			fingerprints.put(sql, fingerprint);
+		}
+		return fingerprint;
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '`';
+	}
+
+	// Reporting
+
+	public static List<Fingerprint> getTopByTotalTime(int limit) {
+		return top(Comparator.comparingDouble(Fingerprint::getTotalMillis), limit);
+	}
+
+	public static List<Fingerprint> getTopByP99(int limit) {
+		return top(Comparator.comparingDouble(Fingerprint::getP99Millis), limit);
+	}
+
+	public static List<Fingerprint> getTopByCalls(int limit) {
+		return top(Comparator.comparingLong(Fingerprint::getCalls), limit);
+	}
+
+	/**
+	 * Fingerprints that were suspected N+1 in at least one request, most often first
+	 */
+	public static List<Fingerprint> getTopNPlusOne(int limit) {
+		List<Fingerprint> result = new ArrayList<>();
+		for (Fingerprint f : top(Comparator.comparingLong(Fingerprint::getSuspectedNPlusOneCount), limit)) {
+			if (f.getSuspectedNPlusOneCount() > 0) {
+				result.add(f);
+			}
+		}
+		return result;
+	}
+
+	public static List<NPlusOne> getRecentNPlusOne() {
+		synchronized (recentNPlusOne) {
+			return new ArrayList<>(recentNPlusOne);
+		}
+	}
+
+	private static List<Fingerprint> top(Comparator<Fingerprint> order, int limit) {
+		List<Fingerprint> all = new ArrayList<>(stats.values());
+		all.sort(order.reversed());
+		return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+	}
+
+	public static List<Fingerprint> getAll() {
+		return new ArrayList<>(stats.values());
+	}
+
+	public static long getTotalCalls() {
+		long total = 0;
+		for (Fingerprint f : stats.values()) {
+			total += f.getCalls();
+		}
+		return total;
+	}
+
+	public static int getFingerprintCount() {
+		return stats.size();
+	}
+
+	/**
+	 * Drop all statistics collected so far
+	 */
+	public static void reset() {
+		stats.clear();
+		synchronized (recentNPlusOne) {
+			recentNPlusOne.clear();
+		}
+	}
+
+	// Settings
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Whether ConnectionManager hands out instrumented connections.
+	 * Connections already borrowed keep their current setting.
+	 */
+	public static void setEnabled(boolean enabled) {
+		QueryStats.enabled = enabled;
+	}
+
+	public static int getNPlusOneThreshold() {
+		return nPlusOneThreshold;
+	}
+
+	public static void setNPlusOneThreshold(int threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException("The N+1 threshold must be at least 1");
+		}
+		nPlusOneThreshold = threshold;
+	}
+}
@@ -4,6 +4,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import game.model.*;
 
@@ -18,6 +20,7 @@ public class StatisticsDao {
 			String description
 			) throws SQLException{
 		final String insertStat = "INSERT INTO statistics (statsName, description) VALUES (?, ?);";
+		long cacheVersion = CatalogCache.version();
 
 		try (PreparedStatement insertStmt = cxn.prepareStatement(insertStat)){
 
@@ -25,7 +28,11 @@ public class StatisticsDao {
 			insertStmt.setString(2,  description); 
 			insertStmt.executeUpdate();
 
-			return new Statistics(statsName, description);
+			Statistics stat = new Statistics(statsName, description);
+			if (CatalogCache.canCache(cxn)) {
+				CatalogCache.putStatistics(stat, cacheVersion);
+			}
+			return stat;
 		} catch (SQLException e) {
 			if (e.getMessage().contains("Duplicate entry")) {
 				// If duplicate, return the existing record
@@ -42,7 +49,13 @@ public class StatisticsDao {
 			Connection cxn,
 			String statsName
 			) throws SQLException{
+		Statistics cached = CatalogCache.getStatistics(statsName);
+		if (cached != null) {
+			return cached;
+		}
+
 		final String getStatistics = "SELECT statsName, description FROM statistics WHERE statsName = ?;";
+		long cacheVersion = CatalogCache.version();
 
 		try(PreparedStatement getStmt = cxn.prepareStatement(getStatistics)){
 
@@ -50,11 +63,30 @@ public class StatisticsDao {
 
 			try(ResultSet rs = getStmt.executeQuery()){		
 				if(rs.next()) {
-					return new Statistics(statsName,rs.getString("description"));			
+					Statistics stat = new Statistics(statsName,rs.getString("description"));
+					if (CatalogCache.canCache(cxn)) {
+						CatalogCache.putStatistics(stat, cacheVersion);
+					}
+					return stat;
 				}else {
 					return null;
 				}
 			}
 		} 		
 	}
+
+	// retrieve all statistics
+	public static List<Statistics> getAllStatistics(Connection cxn) throws SQLException {
+		final String getAll = "SELECT statsName, description FROM statistics ORDER BY statsName;";
+
+		List<Statistics> stats = new ArrayList<>();
+
+		try (PreparedStatement getStmt = cxn.prepareStatement(getAll);
+				ResultSet rs = getStmt.executeQuery()) {
+			while (rs.next()) {
+				stats.add(new Statistics(rs.getString("statsName"), rs.getString("description")));
+			}
+		}
+		return stats;
+	}
 }
@@ -15,6 +15,17 @@ import game.model.Analytics.*;
  */
 public class ViewsDao {
     
+    // What DailyActivePlayersView computes, run when the view is missing; public so that QueryPlanCheck explains it
+    public static final String SELECT_DAILY_ACTIVE_PLAYERS = """
+                    SELECT 
+                        DATE(lastActiveDateTime) as activity_date,
+                        COUNT(*) as active_count
+                    FROM Players 
+                    WHERE lastActiveDateTime >= DATE_SUB(CURDATE(), INTERVAL 30 DAY)
+                    GROUP BY DATE(lastActiveDateTime)
+                    ORDER BY activity_date
+                """;
+    
     private ViewsDao() {}
     
     /**
@@ -39,26 +50,14 @@ public class ViewsDao {
             System.err.println("DailyActivePlayersView failed, using fallback: " + e.getMessage());
             
             // Check if lastActiveDateTime column exists
-            try {
-                String fallbackQuery = """
-                    SELECT 
-                        DATE(lastActiveDateTime) as activity_date,
-                        COUNT(*) as active_count
-                    FROM Players 
-                    WHERE lastActiveDateTime >= DATE_SUB(CURDATE(), INTERVAL 30 DAY)
-                    GROUP BY DATE(lastActiveDateTime)
-                    ORDER BY activity_date
-                """;
+            try (PreparedStatement stmt2 = cxn.prepareStatement(SELECT_DAILY_ACTIVE_PLAYERS);
+                 ResultSet rs2 = stmt2.executeQuery()) {
                 
-                try (PreparedStatement stmt2 = cxn.prepareStatement(fallbackQuery);
-                     ResultSet rs2 = stmt2.executeQuery()) {
-                    
-                    while (rs2.next()) {
-                        dailyStats.add(new DailyActivePlayer(
-                            rs2.getString("activity_date"),
-                            rs2.getInt("active_count")
-                        ));
-                    }
+                while (rs2.next()) {
+                    dailyStats.add(new DailyActivePlayer(
+                        rs2.getString("activity_date"),
+                        rs2.getInt("active_count")
+                    ));
                 }
             } catch (SQLException e2) {
                 System.err.println("lastActiveDateTime column doesn't exist, creating sample data");
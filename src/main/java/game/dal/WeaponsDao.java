@@ -28,6 +28,7 @@ public class WeaponsDao {
 				VALUES (?,?,?);
 				""";
 		
+		long cacheVersion = CatalogCache.version();
 		try (PreparedStatement insertStmt = cxn.prepareStatement(insertWeapons)) {
 			int itemID = EquipmentsDao.create(cxn,itemName,level,maxStackSize,price,requiredLevel);
 			insertStmt.setInt(1, itemID);
@@ -35,7 +36,7 @@ public class WeaponsDao {
 			insertStmt.setInt(3, damage);
 			insertStmt.executeUpdate();
 			
-			return new Weapons(
+			Weapons weapon = new Weapons(
 					itemID,
 					itemName,
 					level,
@@ -44,10 +45,24 @@ public class WeaponsDao {
 					requiredLevel,
 					job,
 					damage);
+			if (CatalogCache.canCache(cxn)) {
+				CatalogCache.putWeapon(weapon, cacheVersion);
+			}
+			return weapon;
 		}
 	}
 	
 	public static Weapons getWeaponByItemID(Connection cxn, int itemID) throws SQLException {
+	    Weapons known = DalSession.findWeapon(itemID);
+	    if (known != null) {
+	        return known;
+	    }
+	    Weapons cached = CatalogCache.getWeapon(itemID);
+	    if (cached != null) {
+	        return DalSession.trackWeapon(cached);
+	    }
+	    long cacheVersion = CatalogCache.version();
+	    
 	    String selectWeapon = """
 	            SELECT I.itemID,
 	                   I.itemName,
@@ -68,7 +83,7 @@ public class WeaponsDao {
 	        
 	        try (ResultSet result = selectStmt.executeQuery()) {
 	            if (result.next()) {
-	                return new Weapons(
+	                Weapons weapon = new Weapons(
 	                        result.getInt("itemID"),
 	                        result.getString("itemName"),
 	                        result.getInt("level"),
@@ -77,6 +92,10 @@ public class WeaponsDao {
 	                        result.getInt("requiredLevel"),
 	                        result.getString("wearableJob"),
 	                        result.getInt("damage"));
+	                if (CatalogCache.canCache(cxn)) {
+	                	CatalogCache.putWeapon(weapon, cacheVersion);
+	                }
+	                return DalSession.trackWeapon(weapon);
 	            } else {
 	                return null;
 	            }
@@ -0,0 +1,340 @@
+package game.etl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent, rate-limited fetcher for Battle.net API endpoints.
+ *
+ * Requests go out with HttpClient.sendAsync, at most maxConcurrent at a
+ * time and no faster than the token bucket allows. 429 and 5xx responses
+ * (and I/O errors) are retried with exponential backoff and full jitter,
+ * honouring Retry-After when the server sends one.
+ *
+ * fetchEach() hands each parsed response to a handler on the calling
+ * thread as soon as it arrives, so database inserts for earlier responses
+ * run while later ones are still downloading.
+ *
+ * Responses go through the client's ApiResponseCache: fresh entries never
+ * reach the network and stale ones are revalidated with a conditional GET.
+ *
+ * Close the fetcher when done with it, to stop the threads still waiting
+ * for a permit. game.bench.MockBattleNetCheck runs it against a stub
+ * server.
+ */
+public class ApiFetcher implements AutoCloseable {
+
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 20;
+    public static final int DEFAULT_MAX_CONCURRENT = 8;
+    public static final int DEFAULT_MAX_RETRIES = 4;
+    public static final long DEFAULT_BASE_BACKOFF_MILLIS = 250;
+    private static final long MAX_BACKOFF_MILLIS = 10_000;
+
+    /**
+     * Parses a response body
+     */
+    @FunctionalInterface
+    public interface BodyParser<T> {
+        T parse(InputStream body) throws IOException;
+    }
+
+    /**
+     * Consumes a parsed response on the calling thread.
+     * Returns false to stop; responses still in flight are then discarded.
+     */
+    @FunctionalInterface
+    public interface ResultHandler<T> {
+        boolean handle(T value) throws SQLException;
+    }
+
+    private final WoWApiClient client;
+    private final TokenBucket rateLimiter;
+    private final Semaphore concurrency;
+    private final int maxRetries;
+    private final long baseBackoffMillis;
+
+    // Waiting for a permit blocks, which is cheap on a virtual thread
+    private final ExecutorService waiters = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public ApiFetcher(WoWApiClient client) {
+        this(client, DEFAULT_REQUESTS_PER_SECOND, DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_RETRIES, DEFAULT_BASE_BACKOFF_MILLIS);
+    }
+
+    public ApiFetcher(WoWApiClient client, double requestsPerSecond, int maxConcurrent,
+                      int maxRetries, long baseBackoffMillis) {
+        this.client = client;
+        this.rateLimiter = new TokenBucket(requestsPerSecond, Math.max(1, maxConcurrent));
+        this.concurrency = new Semaphore(maxConcurrent);
+        this.maxRetries = maxRetries;
+        this.baseBackoffMillis = baseBackoffMillis;
+    }
+
+    /**
+     * Fetch one endpoint, retrying on 429/5xx. Completes with the body of
+     * the 200 response, or exceptionally once the retries are used up.
+     */
+    public CompletableFuture<byte[]> fetch(String endpoint, String namespace) {
+        ApiResponseCache cache = client.getResponseCache();
+        ApiResponseCache.Entry cached = null;
+        if (cache != null) {
+            cached = cache.get(endpoint, namespace, WoWApiClient.LOCALE);
+            if (cached != null && cache.isFresh(cached, namespace)) {
+                try {
+                    byte[] body = cache.readBody(cached);
+                    cache.recordHit();
+                    return CompletableFuture.completedFuture(body);
+                } catch (IOException e) {
+                    // Unreadable entry; fetch it again
+                    cached = null;
+                }
+            }
+        }
+
+        URI uri = URI.create(client.buildUrl(endpoint, namespace));
+        ApiResponseCache.Entry validators = cached;
+        return attempt(uri, cached, 0).thenApply(resp -> {
+            try {
+                if (resp.statusCode() == 304) {
+                    cache.recordRevalidated();
+                    cache.renew(validators);
+                    return cache.readBody(validators);
+                }
+                if (cache != null) {
+                    cache.recordMiss();
+                    cache.put(endpoint, namespace, WoWApiClient.LOCALE, resp, resp.body());
+                }
+                return resp.body();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Completes with a 200 response, or a 304 if cached was given
+     */
+    private CompletableFuture<HttpResponse<byte[]>> attempt(URI uri, ApiResponseCache.Entry cached, int attemptNo) {
+        CompletableFuture<HttpResponse<byte[]>> response = CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        concurrency.acquire();
+                    } catch (InterruptedException e) {
+                        throw new CompletionException(e);
+                    }
+                    try {
+                        rateLimiter.acquire();
+                        return buildRequest(uri, cached);
+                    } catch (IOException | InterruptedException e) {
+                        concurrency.release();
+                        throw new CompletionException(e);
+                    }
+                }, waiters)
+                .thenCompose(request -> {
+                    requests.incrementAndGet();
+                    return client.getHttpClient()
+                            .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                            .whenComplete((r, e) -> concurrency.release());
+                });
+
+        return response.handle((resp, error) -> {
+            if (error == null && (resp.statusCode() == 200 || (resp.statusCode() == 304 && cached != null))) {
+                return CompletableFuture.completedFuture(resp);
+            }
+
+            boolean retryable = error != null
+                    ? unwrap(error) instanceof IOException
+                    : resp.statusCode() == 429 || resp.statusCode() >= 500;
+            if (!retryable || attemptNo >= maxRetries) {
+                failures.incrementAndGet();
+                Throwable cause = error != null ? unwrap(error)
+                        : new IOException("API request " + uri + " failed with status " + resp.statusCode());
+                return CompletableFuture.<HttpResponse<byte[]>>failedFuture(cause);
+            }
+
+            retries.incrementAndGet();
+            long delay = backoffMillis(attemptNo, error == null ? resp : null);
+            return CompletableFuture
+                    .runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(v -> attempt(uri, cached, attemptNo + 1));
+        }).thenCompose(f -> f);
+    }
+
+    private HttpRequest buildRequest(URI uri, ApiResponseCache.Entry cached) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(uri)
+                .header("Authorization", "Bearer " + client.getAccessToken())
+                .timeout(Duration.ofMillis(30000))
+                .GET();
+        ApiResponseCache cache = client.getResponseCache();
+        if (cache != null) {
+            cache.addValidators(request, cached);
+        }
+        return request.build();
+    }
+
+    /**
+     * Exponential backoff with full jitter, or the server's Retry-After if longer
+     */
+    private long backoffMillis(int attemptNo, HttpResponse<?> response) {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, baseBackoffMillis << Math.min(attemptNo, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+
+        if (response != null) {
+            String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+            if (retryAfter != null) {
+                try {
+                    delay = Math.max(delay, Long.parseLong(retryAfter.trim()) * 1000);
+                } catch (NumberFormatException e) {
+                    // HTTP-date form; keep the computed backoff
+                }
+            }
+        }
+        return delay;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Fetch all endpoints concurrently and pass each parsed body to handler
+     * on the calling thread, in the order the responses arrive. Endpoints
+     * that fail after retrying, or whose body does not parse, are logged
+     * and skipped.
+     * @return number of values passed to the handler
+     */
+    public <T> int fetchEach(List<String> endpoints, String namespace, BodyParser<T> parser,
+                             ResultHandler<T> handler) throws SQLException, InterruptedException {
+        // Each finished request drops exactly one entry here: a value or a failure
+        BlockingQueue<Object> completed = new LinkedBlockingQueue<>();
+        Object failed = new Object();
+
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            inFlight.add(fetch(endpoint, namespace).whenComplete((body, error) -> {
+                if (error != null) {
+                    System.err.println("⚠️ Fetch failed for " + endpoint + ": " + unwrap(error).getMessage());
+                    completed.add(failed);
+                    return;
+                }
+                try {
+                    T value = parser.parse(new ByteArrayInputStream(body));
+                    completed.add(value == null ? failed : value);
+                } catch (IOException e) {
+                    System.err.println("⚠️ Could not parse " + endpoint + ": " + e.getMessage());
+                    completed.add(failed);
+                }
+            }));
+        }
+
+        int handled = 0;
+        try {
+            for (int remaining = endpoints.size(); remaining > 0; remaining--) {
+                Object next = completed.take();
+                if (next == failed) {
+                    continue;
+                }
+                @SuppressWarnings("unchecked")
+                T value = (T) next;
+                handled++;
+                if (!handler.handle(value)) {
+                    break;
+                }
+            }
+        } finally {
+            for (CompletableFuture<?> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+        return handled;
+    }
+
+    /**
+     * Stops the threads waiting for a permit; their requests fail
+     */
+    @Override
+    public void close() {
+        waiters.shutdownNow();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ApiFetcher[requests=%d, retries=%d, failures=%d]",
+                getRequestCount(), getRetryCount(), getFailureCount());
+    }
+
+    /**
+     * Token bucket: refills at ratePerSecond up to capacity tokens, and
+     * acquire() waits until a token is available
+     */
+    static class TokenBucket {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double ratePerSecond, double capacity) {
+            if (ratePerSecond <= 0) {
+                throw new IllegalArgumentException("ratePerSecond must be positive");
+            }
+            this.ratePerNano = ratePerSecond / 1_000_000_000.0;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        void acquire() throws InterruptedException {
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    long now = System.nanoTime();
+                    tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+                    lastRefill = now;
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        return;
+                    }
+                    waitNanos = (long) Math.ceil((1 - tokens) / ratePerNano);
+                }
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package game.etl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent cache of API responses, so repeated ETL runs read static data
+ * from local disk instead of the network.
+ *
+ * Entries are keyed by endpoint, namespace and locale. Each is stored as a
+ * gzipped body plus a small properties file with the ETag, Last-Modified
+ * and the time it was stored. Within the namespace's TTL an entry is used
+ * without asking the server; after that it is revalidated with
+ * If-None-Match / If-Modified-Since, and a 304 renews it without
+ * downloading the body again.
+ *
+ * The directory defaults to ~/.wowdatahub/api-cache and can be changed
+ * with -Dwow.api.cacheDir=...
+ */
+public class ApiResponseCache {
+
+    public static final String CACHE_DIR_PROPERTY = "wow.api.cacheDir";
+
+    private static volatile ApiResponseCache shared;
+
+    private final Path directory;
+
+    // TTL by namespace prefix, e.g. "static" matches "static-us"
+    private final Map<String, Duration> ttlByNamespace = new ConcurrentHashMap<>();
+    private volatile Duration defaultTtl = Duration.ZERO;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * A cached response's metadata; the body is read on demand
+     */
+    public static class Entry {
+        private final String key;
+        private final Path bodyFile;
+        public final String etag;
+        public final String lastModified;
+        public final long storedAtMillis;
+
+        Entry(String key, Path bodyFile, String etag, String lastModified, long storedAtMillis) {
+            this.key = key;
+            this.bodyFile = bodyFile;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.storedAtMillis = storedAtMillis;
+        }
+
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    public ApiResponseCache() {
+        this(defaultDirectory());
+    }
+
+    public ApiResponseCache(Path directory) {
+        this.directory = directory;
+        // Static game data does not change between patches; dynamic data goes stale quickly
+        ttlByNamespace.put("static", Duration.ofDays(7));
+        ttlByNamespace.put("dynamic", Duration.ofMinutes(5));
+        ttlByNamespace.put("profile", Duration.ZERO);
+    }
+
+    /**
+     * The cache in the default directory, shared by every WoWApiClient
+     * unless it is given another one, so its counters cover all of them
+     */
+    public static ApiResponseCache getShared() {
+        ApiResponseCache current = shared;
+        if (current == null) {
+            synchronized (ApiResponseCache.class) {
+                current = shared;
+                if (current == null) {
+                    current = new ApiResponseCache();
+                    shared = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * The shared cache if one was created, without creating it
+     */
+    public static ApiResponseCache getSharedIfCreated() {
+        return shared;
+    }
+
+    private static Path defaultDirectory() {
+        String configured = System.getProperty(CACHE_DIR_PROPERTY);
+        if (configured != null && !configured.isBlank()) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("user.home"), ".wowdatahub", "api-cache");
+    }
+
+    /**
+     * Set how long entries of namespaces starting with namespacePrefix are
+     * used without revalidating. Zero means always revalidate.
+     */
+    public void setTtl(String namespacePrefix, Duration ttl) {
+        ttlByNamespace.put(namespacePrefix, ttl);
+    }
+
+    public void setDefaultTtl(Duration ttl) {
+        this.defaultTtl = ttl;
+    }
+
+    public Duration ttlFor(String namespace) {
+        Duration best = null;
+        int bestLength = -1;
+        for (Map.Entry<String, Duration> e : ttlByNamespace.entrySet()) {
+            if (namespace.startsWith(e.getKey()) && e.getKey().length() > bestLength) {
+                best = e.getValue();
+                bestLength = e.getKey().length();
+            }
+        }
+        return best != null ? best : defaultTtl;
+    }
+
+    /**
+     * Look up an entry, or null if nothing is cached
+     */
+    public Entry get(String endpoint, String namespace, String locale) {
+        String key = key(endpoint, namespace, locale);
+        Path bodyFile = directory.resolve(key + ".json.gz");
+        Path metaFile = directory.resolve(key + ".properties");
+        if (!Files.exists(bodyFile) || !Files.exists(metaFile)) {
+            return null;
+        }
+
+        Properties meta = new Properties();
+        try (Reader reader = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+            meta.load(reader);
+            return new Entry(key, bodyFile,
+                    meta.getProperty("etag"),
+                    meta.getProperty("lastModified"),
+                    Long.parseLong(meta.getProperty("storedAt", "0")));
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Ignoring unreadable cache entry " + metaFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether an entry can be used without asking the server
+     */
+    public boolean isFresh(Entry entry, String namespace) {
+        Duration ttl = ttlFor(namespace);
+        return !ttl.isZero() && System.currentTimeMillis() - entry.storedAtMillis < ttl.toMillis();
+    }
+
+    /**
+     * Stream a cached body, decompressing as it is read
+     */
+    public InputStream openBody(Entry entry) throws IOException {
+        return new GZIPInputStream(Files.newInputStream(entry.bodyFile), 1 << 16);
+    }
+
+    public byte[] readBody(Entry entry) throws IOException {
+        try (InputStream in = openBody(entry)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Add conditional headers so the server can answer 304 if unchanged
+     */
+    public void addValidators(HttpRequest.Builder request, Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        if (entry.etag != null) {
+            request.header("If-None-Match", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            request.header("If-Modified-Since", entry.lastModified);
+        }
+    }
+
+    /**
+     * Store a 200 response
+     */
+    public void put(String endpoint, String namespace, String locale, HttpResponse<?> response, byte[] body) {
+        String key = key(endpoint, namespace, locale);
+        try {
+            Files.createDirectories(directory);
+
+            Path bodyTmp = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(bodyTmp))) {
+                out.write(body);
+            }
+            moveIntoPlace(bodyTmp, directory.resolve(key + ".json.gz"));
+
+            Properties meta = new Properties();
+            meta.setProperty("url", response.uri().toString());
+            response.headers().firstValue("ETag").ifPresent(v -> meta.setProperty("etag", v));
+            response.headers().firstValue("Last-Modified").ifPresent(v -> meta.setProperty("lastModified", v));
+            meta.setProperty("storedAt", Long.toString(System.currentTimeMillis()));
+            writeMeta(key, meta);
+        } catch (IOException e) {
+            // A cache that cannot be written only costs a refetch next time
+            System.err.println("Could not cache " + endpoint + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Record that the server confirmed an entry is unchanged (304)
+     */
+    public void renew(Entry entry) {
+        Properties meta = new Properties();
+        if (entry.etag != null) meta.setProperty("etag", entry.etag);
+        if (entry.lastModified != null) meta.setProperty("lastModified", entry.lastModified);
+        meta.setProperty("storedAt", Long.toString(System.currentTimeMillis()));
+        try {
+            writeMeta(entry.key, meta);
+        } catch (IOException e) {
+            System.err.println("Could not renew cache entry " + entry.key + ": " + e.getMessage());
+        }
+    }
+
+    private void writeMeta(String key, Properties meta) throws IOException {
+        Path metaTmp = Files.createTempFile(directory, key, ".tmp");
+        try (Writer writer = Files.newBufferedWriter(metaTmp, StandardCharsets.UTF_8)) {
+            meta.store(writer, null);
+        }
+        moveIntoPlace(metaTmp, directory.resolve(key + ".properties"));
+    }
+
+    private static void moveIntoPlace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String key(String endpoint, String namespace, String locale) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((endpoint + "|" + namespace + "|" + locale).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Counters, updated by the callers that decide how an entry was used
+
+    void recordHit() { hits.incrementAndGet(); }
+    void recordRevalidated() { revalidated.incrementAndGet(); }
+    void recordMiss() { misses.incrementAndGet(); }
+
+    public long getHitCount() { return hits.get(); }
+    public long getRevalidatedCount() { return revalidated.get(); }
+    public long getMissCount() { return misses.get(); }
+
+    @Override
+    public String toString() {
+        return String.format("ApiResponseCache[%s, hits=%d, revalidated=%d, misses=%d]",
+                directory, getHitCount(), getRevalidatedCount(), getMissCount());
+    }
+}
@@ -0,0 +1,247 @@
+package game.etl;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Batched INSERT writer for bulk loads.
+ *
+ * Rows are added with a key; a key already added is dropped on the client
+ * instead of being sent and rejected with "Duplicate entry". Rows are sent
+ * batchSize at a time with addBatch/executeBatch (the connection URL sets
+ * rewriteBatchedStatements so each batch becomes one multi-row INSERT),
+ * and committed every transactionSize rows.
+ *
+ * If a batch is rejected, its rows are retried one at a time so a single
+ * bad row (a trigger SIGNAL or a row already in the table) only costs
+ * itself. Each batch is a single statement, so a rejected batch has not
+ * written anything and the earlier batches of the transaction are kept.
+ *
+ * Usage:
+ *   try (BatchWriter writer = new BatchWriter(cxn, "Inventory", sql)) {
+ *       writer.add(key, ps -> { ps.setInt(1, ...); ... });
+ *   }
+ */
+public class BatchWriter implements AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_TRANSACTION_SIZE = 10000;
+
+    /**
+     * Sets the parameters of one row on the insert statement
+     */
+    @FunctionalInterface
+    public interface RowBinder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    private final Connection cxn;
+    private final String table;
+    private final PreparedStatement insertStmt;
+    private final int batchSize;
+    private final int transactionSize;
+    private final boolean previousAutoCommit;
+
+    private final Set<Object> seenKeys = new HashSet<>();
+    private final List<RowBinder> pending = new ArrayList<>();
+
+    private int uncommitted = 0;
+    private long rowsWritten = 0;
+    private long rowsRejected = 0;
+    private long duplicatesSkipped = 0;
+    private long batchesSent = 0;
+    private long startNanos = 0;
+    private long elapsedNanos = 0;
+    private boolean closed = false;
+
+    public BatchWriter(Connection cxn, String table, String insertSql) throws SQLException {
+        this(cxn, table, insertSql, DEFAULT_BATCH_SIZE, DEFAULT_TRANSACTION_SIZE);
+    }
+
+    public BatchWriter(Connection cxn, String table, String insertSql, int batchSize, int transactionSize) throws SQLException {
+        if (batchSize <= 0 || transactionSize < batchSize) {
+            throw new IllegalArgumentException("batchSize must be positive and no larger than transactionSize");
+        }
+        this.cxn = cxn;
+        this.table = table;
+        this.batchSize = batchSize;
+        this.transactionSize = transactionSize;
+        this.previousAutoCommit = cxn.getAutoCommit();
+        cxn.setAutoCommit(false);
+        this.insertStmt = cxn.prepareStatement(insertSql);
+    }
+
+    /**
+     * Queue a row, unless a row with the same key was already queued.
+     * A null key skips the duplicate check, for callers whose rows are
+     * unique by construction.
+     * @return true if the row was queued, false if its key is a duplicate
+     */
+    public boolean add(Object key, RowBinder binder) throws SQLException {
+        if (key != null && !seenKeys.add(key)) {
+            duplicatesSkipped++;
+            return false;
+        }
+        if (startNanos == 0) {
+            startNanos = System.nanoTime();
+        }
+
+        pending.add(binder);
+        if (pending.size() >= batchSize) {
+            sendBatch();
+        }
+        return true;
+    }
+
+    /**
+     * Whether a row with this key has already been queued
+     */
+    public boolean contains(Object key) {
+        return seenKeys.contains(key);
+    }
+
+    /**
+     * Number of distinct keys queued so far
+     */
+    public int size() {
+        return seenKeys.size();
+    }
+
+    /**
+     * Send queued rows and commit
+     */
+    public void flush() throws SQLException {
+        sendBatch();
+        if (uncommitted > 0) {
+            cxn.commit();
+            uncommitted = 0;
+        }
+    }
+
+    private void sendBatch() throws SQLException {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        for (RowBinder binder : pending) {
+            binder.bind(insertStmt);
+            insertStmt.addBatch();
+        }
+
+        try {
+            insertStmt.executeBatch();
+            rowsWritten += pending.size();
+        } catch (BatchUpdateException e) {
+            insertStmt.clearBatch();
+            retryRowByRow(e.getUpdateCounts());
+        }
+
+        batchesSent++;
+        uncommitted += pending.size();
+        pending.clear();
+
+        if (uncommitted >= transactionSize) {
+            cxn.commit();
+            uncommitted = 0;
+        }
+    }
+
+    /**
+     * Re-send the rows of a rejected batch one by one, skipping the ones the
+     * database refuses for data reasons
+     */
+    private void retryRowByRow(int[] updateCounts) throws SQLException {
+        // If the driver reports per-row results, rows that went in are not resent
+        boolean perRow = updateCounts != null && updateCounts.length == pending.size();
+
+        for (int i = 0; i < pending.size(); i++) {
+            if (perRow && (updateCounts[i] >= 0 || updateCounts[i] == Statement.SUCCESS_NO_INFO)) {
+                rowsWritten++;
+                continue;
+            }
+            try {
+                pending.get(i).bind(insertStmt);
+                insertStmt.executeUpdate();
+                rowsWritten++;
+            } catch (SQLException e) {
+                if (isRowRejection(e)) {
+                    rowsRejected++;
+                } else {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Errors caused by the row itself rather than by the connection
+     */
+    private static boolean isRowRejection(SQLException e) {
+        String state = e.getSQLState();
+        String message = e.getMessage() == null ? "" : e.getMessage();
+        return "45000".equals(state)                  // business rule trigger
+                || message.contains("Duplicate entry")  // row already in the table
+                || (state != null && state.startsWith("23")); // constraint violation
+    }
+
+    /**
+     * Flush remaining rows, commit and restore the connection's auto-commit mode
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } catch (SQLException e) {
+            cxn.rollback();
+            throw e;
+        } finally {
+            if (startNanos != 0) {
+                elapsedNanos = System.nanoTime() - startNanos;
+            }
+            insertStmt.close();
+            cxn.setAutoCommit(previousAutoCommit);
+        }
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped;
+    }
+
+    public long getBatchesSent() {
+        return batchesSent;
+    }
+
+    /**
+     * Rows written per second, from the first add() until close()
+     * (or until now while still open)
+     */
+    public double getRowsPerSecond() {
+        long nanos = closed ? elapsedNanos : (startNanos == 0 ? 0 : System.nanoTime() - startNanos);
+        return nanos == 0 ? 0.0 : rowsWritten * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows in %d batches (%.0f rows/sec), %d duplicate keys skipped, %d rows rejected",
+                table, rowsWritten, batchesSent, getRowsPerSecond(), duplicatesSkipped, rowsRejected);
+    }
+}
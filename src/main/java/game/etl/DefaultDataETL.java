@@ -245,37 +245,42 @@ public class DefaultDataETL {
     }
     
     /**
-     * Create real weapons from API
+     * Create real weapons from API.
+     * Items are fetched concurrently (rate limited by ApiFetcher) and each is
+     * inserted as soon as its response arrives.
      */
     private int createRealWeapons(Connection cxn) throws SQLException {
-        int successCount = 0;
-        
+        List<String> endpoints = new ArrayList<>();
         for (int itemId : KNOWN_WEAPON_IDS) {
-            if (successCount >= 50) break;
-            
-            try {
-                String itemJson = apiClient.testWorkingEndpoint("/data/wow/item/" + itemId, "static-us");
-                WoWApiClient.ItemInfo item = apiClient.parseItem(itemJson);
-                
+            endpoints.add("/data/wow/item/" + itemId);
+        }
+        
+        int[] successCount = {0};
+        
+        try (ApiFetcher fetcher = new ApiFetcher(apiClient)) {
+            fetcher.fetchEach(endpoints, "static-us", apiClient::parseItem, item -> {
                 if (item.name != null && !item.name.isEmpty()) {
                     String job = determineJobFromItemName(item.name);
                     int damage = calculateDamageFromLevel(item.level);
                     BigDecimal price = BigDecimal.valueOf(Math.max(item.sellPrice / 100.0, 50.0));
                     
-                    Weapons weapon = WeaponsDao.create(cxn, item.name, item.level, 1, 
-                        price, Math.max(item.level - 5, 1), job, damage);
-                    createdWeapons.add(weapon);
-                    successCount++;
+                    try {
+                        Weapons weapon = WeaponsDao.create(cxn, item.name, item.level, 1, 
+                            price, Math.max(item.level - 5, 1), job, damage);
+                        createdWeapons.add(weapon);
+                        successCount[0]++;
+                    } catch (SQLException e) {
+                        // Continue with next item
+                    }
                 }
-                
-                Thread.sleep(150); // Rate limiting
-                
-            } catch (Exception e) {
-                // Continue with next item
-            }
+                return successCount[0] < 50;
+            });
+            System.out.println("🌐 " + fetcher);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
         
-        return successCount;
+        return successCount[0];
     }
     
     /**
@@ -0,0 +1,555 @@
+package game.etl;
+
+import game.dal.*;
+import game.model.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+
+/**
+ * Generates players, characters and their relationship rows at any scale
+ * for load testing, e.g.
+ *
+ *   java game.etl.SyntheticDataGenerator --players=1000000 --characters=5000000 --seed=42
+ *
+ * Everything is derived from the seed and the row's ID, so the same seed
+ * produces the same data, and each table can be generated in its own pass
+ * without keeping characters in memory. Rows satisfy the business rules by
+ * construction (unique names and keys, amounts within currency caps, a
+ * starting job and weapon for every character, gear a character's job can
+ * wear), so nothing is rejected and retried.
+ *
+ * Rows are streamed to MySQL with LOAD DATA LOCAL INFILE, which needs
+ * local_infile=ON on the server. If the server refuses it, the generator
+ * falls back to batched inserts (see BatchWriter).
+ *
+ * Requires the default data from DefaultDataETL.
+ */
+public class SyntheticDataGenerator {
+
+    private static final String[] JOBS = {"Warrior", "Paladin", "Hunter", "Rogue", "Priest", "Death Knight",
+                                           "Shaman", "Mage", "Warlock", "Monk", "Druid", "Demon Hunter"};
+
+    private static final String[] EQUIP_POSITIONS = {"HEAD", "BODY", "HANDS", "LEGS", "FEET",
+                                                     "WRIST", "RING", "NECKLACE", "EARRING"};
+
+    private static final String[] PLAYER_FIRST_NAMES = {"Arthas", "Jaina", "Thrall", "Sylvanas", "Anduin", "Varian",
+                                                        "Tyrande", "Malfurion", "Illidan", "Uther", "Cairne", "Vol'jin"};
+    private static final String[] PLAYER_LAST_NAMES = {"Stormwind", "Ironforge", "Darnassus", "Orgrimmar", "Thunderbluff",
+                                                       "Undercity", "Silvermoon", "Shattrath", "Dalaran", "Boralus"};
+
+    private static final String[] CHARACTER_FIRST_NAMES = {"Aelindra", "Brenon", "Celaena", "Draven", "Elara", "Fenris",
+                                                           "Gwendolyn", "Haldor", "Iona", "Jaxon", "Kira", "Lyanna"};
+    private static final String[] CHARACTER_LAST_NAMES = {"Lightbringer", "Shadowbane", "Stormcaller", "Ironhart", "Goldleaf",
+                                                          "Dragonslayer", "Moonwhisper", "Flamestrike", "Frostborn", "Earthshaker"};
+
+    // Rows per LOAD DATA statement, which is also one transaction
+    private static final int CHUNK_SIZE = 100_000;
+
+    // Salts so each table draws its own random stream for the same character
+    private static final long SALT_PLAYER = 1;
+    private static final long SALT_CHARACTER = 2;
+    private static final long SALT_JOBS = 3;
+    private static final long SALT_STATS = 4;
+    private static final long SALT_WEALTH = 5;
+    private static final long SALT_INVENTORY = 6;
+    private static final long SALT_EQUIPPED = 7;
+
+    private final long seed;
+    private final int playerCount;
+    private final int characterCount;
+    private final LocalDateTime now = LocalDateTime.now();
+    // The week the generated weekly totals are counted in
+    private final String weeklyPeriod = game.service.WeeklyCapResetJob.currentPeriod();
+
+    // Catalog data, loaded once
+    private List<String> clans;
+    private List<Weapons> weapons;
+    private List<String> statistics;
+    private List<Currencies> currencies;
+    private List<Items> items;
+    private Map<String, List<Integer>> gearsByJob;
+
+    // First IDs of this run, after whatever is already in the tables
+    private int firstPlayerID;
+    private int firstCharID;
+
+    private boolean useLoadData = true;
+    private long totalRows = 0;
+
+    public SyntheticDataGenerator(long seed, int playerCount, int characterCount) {
+        if (playerCount <= 0 || characterCount < 0) {
+            throw new IllegalArgumentException("Need at least one player and a non-negative number of characters");
+        }
+        this.seed = seed;
+        this.playerCount = playerCount;
+        this.characterCount = characterCount;
+    }
+
+    public static void main(String[] args) {
+        long seed = 42;
+        int players = 10_000;
+        int characters = 50_000;
+
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                System.err.println("Ignoring argument " + arg + " (expected --name=value)");
+                continue;
+            }
+            switch (parts[0]) {
+                case "--seed" -> seed = Long.parseLong(parts[1]);
+                case "--players" -> players = Integer.parseInt(parts[1]);
+                case "--characters" -> characters = Integer.parseInt(parts[1]);
+                default -> System.err.println("Ignoring unknown option " + parts[0]);
+            }
+        }
+
+        try {
+            new SyntheticDataGenerator(seed, players, characters).run();
+        } catch (SQLException e) {
+            System.err.println("❌ Synthetic data generation failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Generate and load all tables
+     */
+    public void run() throws SQLException {
+        System.out.println("🧪 Generating " + playerCount + " players and " + characterCount
+                + " characters (seed " + seed + ")...");
+        long start = System.nanoTime();
+
+        try (Connection cxn = ConnectionManager.getBulkLoadConnection()) {
+            if (!AllDataDao.hasDefaultData(cxn)) {
+                System.err.println("❌ No default data found! Please run DefaultDataETL first.");
+                return;
+            }
+            loadCatalog(cxn);
+
+            firstPlayerID = nextID(cxn, "Players", "playerID");
+            firstCharID = nextID(cxn, "Characters", "charID");
+
+            // The generator guarantees keys and references, so skip re-checking them per row
+            try (Statement stmt = cxn.createStatement()) {
+                stmt.execute("SET unique_checks = 0");
+                stmt.execute("SET foreign_key_checks = 0");
+            }
+            try {
+                load(cxn, "Players", "playerID, firstName, lastName, emailAddress, lastActiveDateTime",
+                        playerCount, this::playerRows);
+                load(cxn, "Characters", "charID, playerID, firstName, lastName, clan, weaponWeared",
+                        characterCount, this::characterRows);
+                load(cxn, "CharacterUnlockedJob", "charID, jobName, jobLevel, XP",
+                        characterCount, this::jobRows);
+                load(cxn, "CharacterStatistics", "charID, statistics, value",
+                        characterCount, this::statisticsRows);
+                load(cxn, "CharacterWealth", "charID, currencyName, amount, weeklyAcquired, weeklyPeriod",
+                        characterCount, this::wealthRows);
+                load(cxn, "Inventory", "charID, slotID, instance, quantity",
+                        characterCount, this::inventoryRows);
+                load(cxn, "EquippedItems", "charID, equipPosition, itemID",
+                        characterCount, this::equippedRows);
+            } finally {
+                try (Statement stmt = cxn.createStatement()) {
+                    stmt.execute("SET unique_checks = 1");
+                    stmt.execute("SET foreign_key_checks = 1");
+                }
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.println(String.format("🎉 Loaded %d rows in %.1fs (%.0f rows/sec)",
+                totalRows, seconds, totalRows / Math.max(seconds, 0.001)));
+    }
+
+    private void loadCatalog(Connection cxn) throws SQLException {
+        clans = new ArrayList<>();
+        for (Clans clan : ClansDao.getAllClans(cxn)) {
+            clans.add(clan.getClanName());
+        }
+        weapons = WeaponsDao.getAllWeapons(cxn);
+        statistics = new ArrayList<>();
+        for (Statistics stat : AllDataDao.getAllStatistics(cxn)) {
+            statistics.add(stat.getStatsName());
+        }
+        currencies = AllDataDao.getAllCurrencies(cxn);
+
+        items = new ArrayList<>(weapons);
+        items.addAll(AllDataDao.getAllGears(cxn));
+        items.addAll(AllDataDao.getAllConsumables(cxn));
+
+        gearsByJob = new HashMap<>();
+        try (PreparedStatement stmt = cxn.prepareStatement("SELECT gear, jobName FROM JobsForGear ORDER BY gear, jobName;");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                gearsByJob.computeIfAbsent(rs.getString("jobName"), j -> new ArrayList<>()).add(rs.getInt("gear"));
+            }
+        }
+
+        if (clans.isEmpty() || weapons.isEmpty()) {
+            throw new SQLException("Clans and weapons are required to generate characters");
+        }
+    }
+
+    private static int nextID(Connection cxn, String table, String column) throws SQLException {
+        try (Statement stmt = cxn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(" + column + "), 0) + 1 FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    // Row generators. Each is called with a range of ordinals [from, to)
+    // and must produce the same rows for the same ordinal every time.
+
+    private void playerRows(int from, int to, RowSink out) throws IOException, SQLException {
+        for (int i = from; i < to; i++) {
+            int playerID = firstPlayerID + i;
+            SplittableRandom rng = random(playerID, SALT_PLAYER);
+            out.row(playerID,
+                    PLAYER_FIRST_NAMES[rng.nextInt(PLAYER_FIRST_NAMES.length)],
+                    PLAYER_LAST_NAMES[rng.nextInt(PLAYER_LAST_NAMES.length)],
+                    "player" + playerID + "@synthetic.realm",
+                    Timestamp.valueOf(now.minusMinutes(rng.nextInt(30 * 24 * 60))));
+        }
+    }
+
+    private void characterRows(int from, int to, RowSink out) throws IOException, SQLException {
+        for (int i = from; i < to; i++) {
+            int charID = firstCharID + i;
+            SplittableRandom rng = random(charID, SALT_CHARACTER);
+            out.row(charID,
+                    firstPlayerID + (i % playerCount),
+                    characterFirstName(charID),
+                    characterLastName(charID),
+                    clans.get(rng.nextInt(clans.size())),
+                    startingWeapon(charID).getItemID());
+        }
+    }
+
+    /**
+     * The starting job (the weapon's job, level 1) plus up to three more
+     */
+    private void jobRows(int from, int to, RowSink out) throws IOException, SQLException {
+        for (int i = from; i < to; i++) {
+            int charID = firstCharID + i;
+            String startingJob = startingWeapon(charID).getWearableJob();
+            out.row(charID, startingJob, 1, 0);
+
+            SplittableRandom rng = random(charID, SALT_JOBS);
+            int extra = rng.nextInt(4);
+            int offset = rng.nextInt(JOBS.length);
+            for (int k = 0, added = 0; k < JOBS.length && added < extra; k++) {
+                String job = JOBS[(offset + k) % JOBS.length];
+                if (job.equals(startingJob)) {
+                    continue;
+                }
+                int level = 1 + rng.nextInt(100);
+                int xp = (level - 1) * 1000 + rng.nextInt(1000 + 5000);
+                out.row(charID, job, level, xp);
+                added++;
+            }
+        }
+    }
+
+    private void statisticsRows(int from, int to, RowSink out) throws IOException, SQLException {
+        if (statistics.isEmpty()) {
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            int charID = firstCharID + i;
+            SplittableRandom rng = random(charID, SALT_STATS);
+            int count = Math.min(statistics.size(), 1 + rng.nextInt(4));
+            int offset = rng.nextInt(statistics.size());
+            for (int k = 0; k < count; k++) {
+                out.row(charID, statistics.get((offset + k) % statistics.size()), 10 + rng.nextInt(90));
+            }
+        }
+    }
+
+    /**
+     * One to three currencies per character, within cap and weekly cap,
+     * with the weekly totals counted in the current week
+     */
+    private void wealthRows(int from, int to, RowSink out) throws IOException, SQLException {
+        if (currencies.isEmpty()) {
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            int charID = firstCharID + i;
+            SplittableRandom rng = random(charID, SALT_WEALTH);
+            int count = Math.min(currencies.size(), 1 + rng.nextInt(3));
+            int offset = rng.nextInt(currencies.size());
+            for (int k = 0; k < count; k++) {
+                Currencies currency = currencies.get((offset + k) % currencies.size());
+
+                BigDecimal amount;
+                if (currency.getCap() != null) {
+                    // 10% to 90% of the cap
+                    double cap = currency.getCap().doubleValue();
+                    amount = BigDecimal.valueOf(cap * (0.1 + 0.8 * rng.nextDouble()));
+                } else {
+                    amount = BigDecimal.valueOf(1000 + rng.nextInt(50000));
+                }
+                amount = amount.setScale(2, RoundingMode.DOWN);
+
+                BigDecimal weekly = null;
+                if (currency.getWeeklyCap() != null && rng.nextBoolean()) {
+                    // Up to 80% of the weekly cap
+                    weekly = BigDecimal.valueOf(currency.getWeeklyCap().doubleValue() * 0.8 * rng.nextDouble())
+                            .setScale(2, RoundingMode.DOWN);
+                }
+                out.row(charID, currency.getCurrencyName(), amount, weekly, weeklyPeriod);
+            }
+        }
+    }
+
+    /**
+     * The starting weapon in slot 1, then up to eight more items
+     */
+    private void inventoryRows(int from, int to, RowSink out) throws IOException, SQLException {
+        for (int i = from; i < to; i++) {
+            int charID = firstCharID + i;
+            out.row(charID, 1, startingWeapon(charID).getItemID(), 1);
+
+            SplittableRandom rng = random(charID, SALT_INVENTORY);
+            int extra = rng.nextInt(9);
+            for (int slot = 2; slot < 2 + extra; slot++) {
+                Items item = items.get(rng.nextInt(items.size()));
+                int quantity = 1 + rng.nextInt(Math.max(1, item.getMaxStackSize()));
+                out.row(charID, slot, item.getItemID(), quantity);
+            }
+        }
+    }
+
+    /**
+     * Gear the starting job can wear, in distinct non-weapon slots
+     */
+    private void equippedRows(int from, int to, RowSink out) throws IOException, SQLException {
+        for (int i = from; i < to; i++) {
+            int charID = firstCharID + i;
+            List<Integer> wearable = gearsByJob.get(startingWeapon(charID).getWearableJob());
+            if (wearable == null || wearable.isEmpty()) {
+                continue;
+            }
+
+            SplittableRandom rng = random(charID, SALT_EQUIPPED);
+            int count = rng.nextInt(4);
+            int offset = rng.nextInt(EQUIP_POSITIONS.length);
+            for (int k = 0; k < count; k++) {
+                out.row(charID,
+                        EQUIP_POSITIONS[(offset + k) % EQUIP_POSITIONS.length],
+                        wearable.get(rng.nextInt(wearable.size())));
+            }
+        }
+    }
+
+    private Weapons startingWeapon(int charID) {
+        SplittableRandom rng = random(charID, SALT_CHARACTER);
+        rng.nextInt(clans.size()); // same draw order as characterRows
+        return weapons.get(rng.nextInt(weapons.size()));
+    }
+
+    /**
+     * (first name, last name) is a bijection of charID, so names are unique
+     * without checking. The "-code" suffix keeps them apart from the names
+     * WoWDataETL creates.
+     */
+    private static String characterFirstName(int charID) {
+        return CHARACTER_FIRST_NAMES[charID % CHARACTER_FIRST_NAMES.length];
+    }
+
+    private static String characterLastName(int charID) {
+        int rest = charID / CHARACTER_FIRST_NAMES.length;
+        return CHARACTER_LAST_NAMES[rest % CHARACTER_LAST_NAMES.length]
+                + "-" + Integer.toString(rest / CHARACTER_LAST_NAMES.length, 36);
+    }
+
+    private SplittableRandom random(int id, long salt) {
+        // SplitMix64 finaliser, so neighbouring IDs get unrelated streams
+        long z = seed * 0x9E3779B97F4A7C15L + id * 0xBF58476D1CE4E5B9L + salt * 0x94D049BB133111EBL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    // Loading
+
+    /**
+     * Receives generated rows
+     */
+    @FunctionalInterface
+    private interface RowSink {
+        void row(Object... values) throws IOException, SQLException;
+    }
+
+    /**
+     * Produces the rows for ordinals [from, to)
+     */
+    @FunctionalInterface
+    private interface RowGenerator {
+        void generate(int from, int to, RowSink out) throws IOException, SQLException;
+    }
+
+    private void load(Connection cxn, String table, String columns, int ordinals, RowGenerator generator) throws SQLException {
+        long start = System.nanoTime();
+        long rows = 0;
+
+        for (int from = 0; from < ordinals; from += CHUNK_SIZE) {
+            int to = Math.min(ordinals, from + CHUNK_SIZE);
+            if (useLoadData) {
+                try {
+                    rows += loadData(cxn, table, columns, from, to, generator);
+                    continue;
+                } catch (SQLException e) {
+                    if (!isLocalInfileRefused(e)) {
+                        throw e;
+                    }
+                    System.out.println("⚠️ LOAD DATA LOCAL INFILE is not allowed (" + e.getMessage()
+                            + "), falling back to batched inserts");
+                    useLoadData = false;
+                }
+            }
+            rows += batchInsert(cxn, table, columns, from, to, generator);
+        }
+
+        totalRows += rows;
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.println(String.format("✅ %s: %d rows in %.1fs (%.0f rows/sec)",
+                table, rows, seconds, rows / Math.max(seconds, 0.001)));
+    }
+
+    /**
+     * Stream one chunk through LOAD DATA LOCAL INFILE. The rows are written
+     * into a pipe by a producer thread while the driver reads from it, so
+     * nothing is buffered in a file or in memory.
+     */
+    private long loadData(Connection cxn, String table, String columns, int from, int to,
+                          RowGenerator generator) throws SQLException {
+        PipedInputStream in = new PipedInputStream(1 << 16);
+        PipedOutputStream pipe;
+        try {
+            pipe = new PipedOutputStream(in);
+        } catch (IOException e) {
+            throw new SQLException("Could not open row pipe for " + table, e);
+        }
+
+        Exception[] producerError = new Exception[1];
+        Thread producer = Thread.ofVirtual().name("synthetic-" + table).start(() -> {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(pipe, StandardCharsets.UTF_8), 1 << 16)) {
+                generator.generate(from, to, values -> writeLine(writer, values));
+            } catch (IOException | SQLException e) {
+                producerError[0] = e;
+            }
+        });
+
+        String sql = "LOAD DATA LOCAL INFILE 'synthetic' INTO TABLE " + table
+                + " CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\'"
+                + " LINES TERMINATED BY '\\n'"
+                + " (" + columns + ")";
+
+        try (Statement stmt = cxn.createStatement()) {
+            stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(in);
+            return stmt.executeLargeUpdate(sql);
+        } finally {
+            closeQuietly(in); // unblocks the producer if the statement failed early
+            try {
+                producer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (producerError[0] != null && !(producerError[0] instanceof IOException)) {
+                throw new SQLException("Row generation failed for " + table, producerError[0]);
+            }
+        }
+    }
+
+    private static void writeLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            Object value = values[i];
+            if (value == null) {
+                writer.write("\\N");
+            } else {
+                String text = value.toString();
+                for (int c = 0; c < text.length(); c++) {
+                    char ch = text.charAt(c);
+                    switch (ch) {
+                        case '\\' -> writer.write("\\\\");
+                        case '\t' -> writer.write("\\t");
+                        case '\n' -> writer.write("\\n");
+                        default -> writer.write(ch);
+                    }
+                }
+            }
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Fallback when the server does not accept LOAD DATA LOCAL INFILE
+     */
+    private long batchInsert(Connection cxn, String table, String columns, int from, int to,
+                             RowGenerator generator) throws SQLException {
+        int columnCount = columns.split(",").length;
+        String sql = "INSERT INTO " + table + " (" + columns + ") VALUES ("
+                + "?, ".repeat(columnCount - 1) + "?)";
+
+        BatchWriter writer = new BatchWriter(cxn, table, sql);
+        try (writer) {
+            // Rows are unique by construction, so no key tracking
+            generator.generate(from, to, values -> writer.add(null, ps -> {
+                for (int i = 0; i < values.length; i++) {
+                    ps.setObject(i + 1, values[i]);
+                }
+            }));
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+        // Read after close, which writes the last batch
+        return writer.getRowsWritten();
+    }
+
+    private static boolean isLocalInfileRefused(SQLException e) {
+        String message = e.getMessage() == null ? "" : e.getMessage();
+        return message.contains("Loading local data is disabled")
+                || message.contains("not allowed")
+                || e.getErrorCode() == 1148   // ER_NOT_ALLOWED_COMMAND
+                || e.getErrorCode() == 3948;  // ER_CLIENT_LOCAL_FILES_DISABLED
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // Nothing to do
+        }
+    }
+}
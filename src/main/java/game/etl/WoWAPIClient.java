@@ -2,7 +2,13 @@ package game.etl;
 
 import game.config.WoWApiConfig;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -23,11 +29,30 @@ import java.util.List;
  */
 public class WoWApiClient {
     
+    // Thread-safe and expensive to build, so shared by all parsers
+    private static final JsonFactory JSON = new JsonFactory();
+    
+    // Battle.net endpoints; a mock server can be passed to the constructor instead
+    public static final String DEFAULT_API_BASE_URL = "https://us.api.blizzard.com";
+    public static final String DEFAULT_OAUTH_URL = "https://oauth.battle.net/token";
+    public static final String LOCALE = "en_US";
+    
     private final HttpClient httpClient;
-    private String accessToken;
-    private long tokenExpiresAt;
+    private final String apiBaseUrl;
+    private final String oauthUrl;
+    private volatile String accessToken;
+    private volatile long tokenExpiresAt;
+    
+    // On-disk cache of GET responses; null disables it
+    private volatile ApiResponseCache responseCache = ApiResponseCache.getShared();
     
     public WoWApiClient() {
+        this(DEFAULT_API_BASE_URL, DEFAULT_OAUTH_URL);
+    }
+    
+    public WoWApiClient(String apiBaseUrl, String oauthUrl) {
+        this.apiBaseUrl = apiBaseUrl;
+        this.oauthUrl = oauthUrl;
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofMillis(30000))
                 .build();
@@ -36,14 +61,14 @@ public class WoWApiClient {
     /**
      * Authenticate using OAuth client credentials flow (from official docs)
      */
-    public void authenticate() throws IOException, InterruptedException {
+    public synchronized void authenticate() throws IOException, InterruptedException {
         String credentials = WoWApiConfig.CLIENT_ID + ":" + WoWApiConfig.CLIENT_SECRET;
         String encodedCredentials = Base64.getEncoder().encodeToString(credentials.getBytes());
         
         String requestBody = "grant_type=client_credentials";
         
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://oauth.battle.net/token"))
+                .uri(URI.create(oauthUrl))
                 .header("Authorization", "Basic " + encodedCredentials)
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
@@ -52,11 +77,22 @@ public class WoWApiClient {
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
         
         if (response.statusCode() == 200) {
-            String responseBody = response.body();
-            this.accessToken = extractJsonValue(responseBody, "access_token");
-            String expiresInStr = extractJsonValue(responseBody, "expires_in");
-            if (this.accessToken != null && expiresInStr != null) {
-                int expiresIn = Integer.parseInt(expiresInStr);
+            String token = null;
+            long expiresIn = -1;
+            try (JsonParser parser = JSON.createParser(response.body())) {
+                expectStartObject(parser);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "access_token" -> token = parser.getValueAsString();
+                        case "expires_in" -> expiresIn = parser.getValueAsLong(-1);
+                        default -> parser.skipChildren();
+                    }
+                }
+            }
+            if (token != null && expiresIn >= 0) {
+                this.accessToken = token;
                 this.tokenExpiresAt = System.currentTimeMillis() + (expiresIn * 1000L);
                 System.out.println("✅ Successfully authenticated with Battle.net API");
             } else {
@@ -75,7 +111,7 @@ public class WoWApiClient {
             authenticate();
         }
         
-        String url = "https://us.api.blizzard.com/data/wow/token/?namespace=dynamic-us";
+        String url = apiBaseUrl + "/data/wow/token/?namespace=dynamic-us";
         
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
@@ -97,26 +133,123 @@ public class WoWApiClient {
      * Test working endpoints from the documentation
      */
     public String testWorkingEndpoint(String endpoint, String namespace) throws IOException, InterruptedException {
-        if (!isTokenValid()) {
-            authenticate();
+        try (InputStream body = fetchStream(endpoint, namespace)) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    /**
+     * GET an endpoint and return the body as a stream. The caller must close
+     * the stream.
+     *
+     * With the response cache enabled, an entry within its namespace's TTL
+     * is read from disk without contacting the server, and a stale entry is
+     * revalidated with If-None-Match / If-Modified-Since. Without the cache
+     * the body is parsed while it downloads.
+     */
+    public InputStream fetchStream(String endpoint, String namespace) throws IOException, InterruptedException {
+        ApiResponseCache cache = responseCache;
+        ApiResponseCache.Entry cached = null;
+        if (cache != null) {
+            cached = cache.get(endpoint, namespace, LOCALE);
+            if (cached != null && cache.isFresh(cached, namespace)) {
+                cache.recordHit();
+                return cache.openBody(cached);
+            }
         }
         
-        String url = "https://us.api.blizzard.com" + endpoint + "?namespace=" + namespace + "&locale=en_US";
-        
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Authorization", "Bearer " + accessToken)
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create(buildUrl(endpoint, namespace)))
+                .header("Authorization", "Bearer " + getAccessToken())
                 .timeout(Duration.ofMillis(30000))
-                .GET()
-                .build();
+                .GET();
         
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (cache == null) {
+            HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() == 200) {
+                return response.body();
+            }
+            try (InputStream body = response.body()) {
+                String error = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                throw new IOException("API request failed with status " + response.statusCode() + ": " + error);
+            }
+        }
         
-        if (response.statusCode() == 200) {
-            return response.body();
+        cache.addValidators(request, cached);
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        
+        if (response.statusCode() == 304 && cached != null) {
+            cache.recordRevalidated();
+            cache.renew(cached);
+            return cache.openBody(cached);
+        } else if (response.statusCode() == 200) {
+            cache.recordMiss();
+            cache.put(endpoint, namespace, LOCALE, response, response.body());
+            return new ByteArrayInputStream(response.body());
         } else {
-            throw new IOException("API request failed with status " + response.statusCode() + ": " + response.body());
+            String error = new String(response.body(), StandardCharsets.UTF_8);
+            throw new IOException("API request failed with status " + response.statusCode() + ": " + error);
+        }
+    }
+    
+    /**
+     * Fetch and parse the realm index, stopping after limit realms
+     */
+    public List<RealmInfo> getRealms(int limit) throws IOException, InterruptedException {
+        try (InputStream body = fetchStream("/data/wow/realm/index", "dynamic-us")) {
+            return parseRealms(body, limit);
+        }
+    }
+    
+    /**
+     * Fetch and parse a single item
+     */
+    public ItemInfo getItem(int itemId) throws IOException, InterruptedException {
+        try (InputStream body = fetchStream("/data/wow/item/" + itemId, "static-us")) {
+            return parseItem(body);
+        }
+    }
+    
+    /**
+     * Full URL of an API endpoint
+     */
+    public String buildUrl(String endpoint, String namespace) {
+        return apiBaseUrl + endpoint + "?namespace=" + namespace + "&locale=" + LOCALE;
+    }
+    
+    /**
+     * The response cache, or null if caching is disabled
+     */
+    public ApiResponseCache getResponseCache() {
+        return responseCache;
+    }
+    
+    /**
+     * Replace the response cache; null disables caching
+     */
+    public void setResponseCache(ApiResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+    
+    /**
+     * A valid access token, authenticating first if needed
+     */
+    public String getAccessToken() throws IOException, InterruptedException {
+        if (!isTokenValid()) {
+            synchronized (this) {
+                if (!isTokenValid()) {
+                    authenticate();
+                }
+            }
         }
+        return accessToken;
+    }
+    
+    /**
+     * The HTTP client, shared with ApiFetcher so both use one connection pool
+     */
+    public HttpClient getHttpClient() {
+        return httpClient;
     }
     
     /**
@@ -127,7 +260,8 @@ public class WoWApiClient {
     }
     
     /**
-     * Extract a JSON value using regex
+     * Extract a JSON value using regex.
+     * Scans the whole body on every call; prefer the streaming parsers below.
      */
     public String extractJsonValue(String json, String key) {
         // Try string values first
@@ -148,7 +282,8 @@ public class WoWApiClient {
     }
     
     /**
-     * Extract array items from JSON
+     * Extract array items from JSON.
+     * Copies every object into its own string; prefer the streaming parsers below.
      */
     public List<String> extractJsonArray(String json, String arrayKey) {
         List<String> items = new ArrayList<>();
@@ -223,6 +358,18 @@ public class WoWApiClient {
         }
     }
     
+    public static class RealmInfo {
+        public final String name;
+        public final String slug;
+        public final String id;
+        
+        public RealmInfo(String name, String slug, String id) {
+            this.name = name;
+            this.slug = slug;
+            this.id = id;
+        }
+    }
+    
     public static class ItemInfo {
         public final String name;
         public final int level;
@@ -245,43 +392,233 @@ public class WoWApiClient {
      * Parse item info from JSON response
      */
     public ItemInfo parseItem(String itemJson) {
-        String name = extractJsonValue(itemJson, "name");
-        String levelStr = extractJsonValue(itemJson, "level");
-        String sellPriceStr = extractJsonValue(itemJson, "sell_price");
-        String idStr = extractJsonValue(itemJson, "id");
-        
-        int level = levelStr != null ? Integer.parseInt(levelStr) : 1;
-        long sellPrice = sellPriceStr != null ? Long.parseLong(sellPriceStr) : 10000;
+        try (JsonParser parser = JSON.createParser(itemJson)) {
+            return parseItem(parser);
+        } catch (IOException e) {
+            System.err.println("Error parsing item JSON: " + e.getMessage());
+            return new ItemInfo(null, 1, 10000, "Miscellaneous", 50, null);
+        }
+    }
+    
+    /**
+     * Parse item info straight from a response stream
+     */
+    public ItemInfo parseItem(InputStream itemJson) throws IOException {
+        try (JsonParser parser = JSON.createParser(itemJson)) {
+            return parseItem(parser);
+        }
+    }
+    
+    private ItemInfo parseItem(JsonParser parser) throws IOException {
+        String name = null;
+        String id = null;
+        int level = 1;
+        long sellPrice = 10000;
         int damage = 50; // default
-        
-        // Try to extract item class
         String itemClass = "Miscellaneous";
-        if (itemJson.contains("\"item_class\"")) {
-            String itemClassSection = itemJson.substring(itemJson.indexOf("\"item_class\""));
-            String itemClassName = extractJsonValue(itemClassSection, "name");
-            if (itemClassName != null) {
-                itemClass = itemClassName;
+        
+        expectStartObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "name" -> name = textOrNull(parser, value);
+                case "id" -> id = parser.getValueAsString();
+                case "level" -> level = parser.getValueAsInt(level);
+                case "sell_price" -> sellPrice = parser.getValueAsLong(sellPrice);
+                case "item_class" -> {
+                    String className = readNameField(parser, value);
+                    if (className != null) {
+                        itemClass = className;
+                    }
+                }
+                default -> parser.skipChildren();
             }
         }
         
-        return new ItemInfo(name, level, sellPrice, itemClass, damage, idStr);
+        return new ItemInfo(name, level, sellPrice, itemClass, damage, id);
     }
     
     /**
      * Parse races from JSON response
      */
     public List<RaceInfo> parseRaces(String racesJson) {
+        try (JsonParser parser = JSON.createParser(racesJson)) {
+            return parseRaces(parser);
+        } catch (IOException e) {
+            System.err.println("Error parsing races JSON: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Parse races straight from a response stream
+     */
+    public List<RaceInfo> parseRaces(InputStream racesJson) throws IOException {
+        try (JsonParser parser = JSON.createParser(racesJson)) {
+            return parseRaces(parser);
+        }
+    }
+    
+    private List<RaceInfo> parseRaces(JsonParser parser) throws IOException {
         List<RaceInfo> races = new ArrayList<>();
-        List<String> raceObjects = extractJsonArray(racesJson, "playable_races");
         
-        for (String raceObject : raceObjects) {
-            String name = extractJsonValue(raceObject, "name");
-            String id = extractJsonValue(raceObject, "id");
-            if (name != null) {
-                races.add(new RaceInfo(name, id));
+        forEachInArray(parser, "playable_races", Integer.MAX_VALUE, () -> {
+            String[] nameAndId = readNameAndId(parser);
+            if (nameAndId[0] != null) {
+                races.add(new RaceInfo(nameAndId[0], nameAndId[1]));
             }
-        }
+            return true;
+        });
         
         return races;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Parse the realm index, stopping after limit realms
+     */
+    public List<RealmInfo> parseRealms(String realmsJson, int limit) {
+        try (JsonParser parser = JSON.createParser(realmsJson)) {
+            return parseRealms(parser, limit);
+        } catch (IOException e) {
+            System.err.println("Error parsing realms JSON: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Parse the realm index straight from a response stream
+     */
+    public List<RealmInfo> parseRealms(InputStream realmsJson, int limit) throws IOException {
+        try (JsonParser parser = JSON.createParser(realmsJson)) {
+            return parseRealms(parser, limit);
+        }
+    }
+    
+    private List<RealmInfo> parseRealms(JsonParser parser, int limit) throws IOException {
+        List<RealmInfo> realms = new ArrayList<>();
+        
+        forEachInArray(parser, "realms", limit, () -> {
+            String name = null;
+            String slug = null;
+            String id = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "name" -> name = textOrNull(parser, value);
+                    case "slug" -> slug = textOrNull(parser, value);
+                    case "id" -> id = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+            if (name != null) {
+                realms.add(new RealmInfo(name, slug, id));
+            }
+            return realms.size() < limit;
+        });
+        
+        return realms;
+    }
+    
+    // Streaming helpers. Each works on the parser's current position and
+    // reads only the tokens it needs, skipping everything else unparsed.
+    
+    /**
+     * Called with the parser on the START_OBJECT of each array element;
+     * must consume the object. Returns false to stop early.
+     */
+    @FunctionalInterface
+    private interface ElementHandler {
+        boolean handle() throws IOException;
+    }
+    
+    private static void expectStartObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object");
+        }
+    }
+    
+    /**
+     * Find the top-level array field arrayKey and call handler for each
+     * object in it
+     */
+    private static void forEachInArray(JsonParser parser, String arrayKey, int limit,
+                                       ElementHandler handler) throws IOException {
+        if (limit <= 0) {
+            return;
+        }
+        expectStartObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!arrayKey.equals(field) || value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            JsonToken element;
+            while ((element = parser.nextToken()) != JsonToken.END_ARRAY && element != null) {
+                if (element != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (!handler.handle()) {
+                    return; // The rest of the body is never read
+                }
+            }
+            return;
+        }
+    }
+    
+    /**
+     * Read "name" and "id" of the current object, skipping its other fields
+     */
+    private static String[] readNameAndId(JsonParser parser) throws IOException {
+        String[] nameAndId = new String[2];
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "name" -> nameAndId[0] = textOrNull(parser, value);
+                case "id" -> nameAndId[1] = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+        return nameAndId;
+    }
+    
+    /**
+     * Read the "name" field of the object the parser is on (e.g. item_class)
+     */
+    private static String readNameField(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        return readNameAndId(parser)[0];
+    }
+    
+    /**
+     * A string value; for localized objects ({"en_US": "..."}) the en_US entry
+     */
+    private static String textOrNull(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (value == JsonToken.START_OBJECT) {
+            String text = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String locale = parser.currentName();
+                parser.nextToken();
+                if ("en_US".equals(locale)) {
+                    text = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return text;
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
@@ -7,6 +7,7 @@ import game.model.*;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -19,9 +20,13 @@ import java.util.Random;
 public class WoWDataETL {
     
     private final WoWApiClient apiClient = new WoWApiClient();
-    private int recordsProcessed = 0;
+    private long recordsProcessed = 0;
     private final Random random = new Random();
     
+    // Give up on a relationship table after this many random picks per requested row,
+    // so a target larger than the number of distinct keys cannot loop forever
+    private static final int MAX_ATTEMPTS_PER_ROW = 10;
+    
     // Storage for created dynamic objects
     private List<Players> createdPlayers = new ArrayList<>();
     private List<Characters> createdCharacters = new ArrayList<>();
@@ -97,10 +102,6 @@ public class WoWDataETL {
     private void fetchRealRealmsAndAddPlayers(Connection cxn) throws Exception {
         System.out.println("👥 Adding players from real WoW realms...");
         
-        // Get real realms
-        String realmsJson = apiClient.testWorkingEndpoint("/data/wow/realm/index", "dynamic-us");
-        List<String> realmObjects = apiClient.extractJsonArray(realmsJson, "realms");
-        
         String[] firstNames = {"Arthas", "Jaina", "Thrall", "Sylvanas", "Anduin", "Varian",
                               "Tyrande", "Malfurion", "Illidan", "Uther", "Cairne", "Vol'jin",
                               "Aelynn", "Baine", "Calia", "Darius", "Elaria", "Falstad"};
@@ -111,11 +112,14 @@ public class WoWDataETL {
         int targetCount = 50;
         Random random = new Random();
         
-        for (String realmObject : realmObjects) {
+        // Get real realms; parsing stops once there are enough, with headroom for duplicates
+        List<WoWApiClient.RealmInfo> realms = apiClient.getRealms(targetCount * 2);
+        
+        for (WoWApiClient.RealmInfo realm : realms) {
             if (count >= targetCount) break;
             
-            String realmName = apiClient.extractJsonValue(realmObject, "name");
-            String realmSlug = apiClient.extractJsonValue(realmObject, "slug");
+            String realmName = realm.name;
+            String realmSlug = realm.slug;
             
             if (realmName != null) {
                 String firstName = firstNames[random.nextInt(firstNames.length)];
@@ -125,21 +129,10 @@ public class WoWDataETL {
                               (realmSlug != null ? realmSlug : realmName.toLowerCase().replaceAll("\\s+", "")) + ".realm";
                 
                 try {
-                    Players newPlayer = PlayersDao.create(cxn, firstName, lastName, email);
-                    
-                    // Set random activity date
+                    // Random activity date, written by the same INSERT
                     int daysAgo = random.nextInt(30);
-                    try {
-                        var updateStmt = cxn.prepareStatement(
-                            "UPDATE Players SET lastActiveDateTime = DATE_SUB(NOW(), INTERVAL ? DAY) WHERE playerID = ?"
-                        );
-                        updateStmt.setInt(1, daysAgo);
-                        updateStmt.setInt(2, newPlayer.getPlayerID());
-                        updateStmt.executeUpdate();
-                        updateStmt.close();
-                    } catch (SQLException e) {
-                        // Column might not exist, ignore
-                    }
+                    Players newPlayer = PlayersDao.create(cxn, firstName, lastName, email,
+                        LocalDateTime.now().minusDays(daysAgo));
                     
                     createdPlayers.add(newPlayer);
                     recordsProcessed++;
@@ -154,8 +147,6 @@ public class WoWDataETL {
                     }
                 }
             }
-            
-            Thread.sleep(50);
         }
         
         System.out.println("🎯 Added " + count + " players from real realms");
@@ -183,22 +174,10 @@ public class WoWDataETL {
                           System.currentTimeMillis() + random.nextInt(1000) + "@sample.realm";
             
             try {
-                // Use the create method which should now include lastActiveDateTime
-                Players newPlayer = PlayersDao.create(cxn, firstName, lastName, email);
-                
-                // Update with a random recent activity date
+                // Random recent activity date, written by the same INSERT
                 int daysAgo = random.nextInt(30);
-                try {
-                    var updateStmt = cxn.prepareStatement(
-                        "UPDATE Players SET lastActiveDateTime = DATE_SUB(NOW(), INTERVAL ? DAY) WHERE playerID = ?"
-                    );
-                    updateStmt.setInt(1, daysAgo);
-                    updateStmt.setInt(2, newPlayer.getPlayerID());
-                    updateStmt.executeUpdate();
-                    updateStmt.close();
-                } catch (SQLException e) {
-                    // Column might not exist, ignore
-                }
+                Players newPlayer = PlayersDao.create(cxn, firstName, lastName, email,
+                    LocalDateTime.now().minusDays(daysAgo));
                 
                 createdPlayers.add(newPlayer);
                 recordsProcessed++;
@@ -304,25 +283,23 @@ public class WoWDataETL {
     private int addCharacterStatistics(Connection cxn, List<Statistics> statistics, int targetCount) throws SQLException {
         if (createdCharacters.isEmpty() || statistics.isEmpty()) return 0;
         
-        int count = 0;
-        while (count < targetCount) {
-            Characters character = createdCharacters.get(random.nextInt(createdCharacters.size()));
-            Statistics statistic = statistics.get(random.nextInt(statistics.size()));
-            int value = 10 + random.nextInt(90);
-            
-            try {
-                CharacterStatisticsDao.create(cxn, character, statistic, value);
-                recordsProcessed++;
-                count++;
-            } catch (SQLException e) {
-                if (e.getMessage().contains("Duplicate entry")) {
-                    continue;
-                } else {
-                    throw e;
-                }
+        String insertSql = "INSERT INTO CharacterStatistics (charID, statistics, value) VALUES (?, ?, ?);";
+        
+        try (BatchWriter writer = new BatchWriter(cxn, "CharacterStatistics", insertSql)) {
+            int attempts = 0;
+            while (writer.size() < targetCount && attempts++ < targetCount * MAX_ATTEMPTS_PER_ROW) {
+                Characters character = createdCharacters.get(random.nextInt(createdCharacters.size()));
+                Statistics statistic = statistics.get(random.nextInt(statistics.size()));
+                int value = 10 + random.nextInt(90);
+                
+                writer.add(character.getCharID() + "|" + statistic.getStatsName(), ps -> {
+                    ps.setInt(1, character.getCharID());
+                    ps.setString(2, statistic.getStatsName());
+                    ps.setInt(3, value);
+                });
             }
+            return finish(writer);
         }
-        return count;
     }
     
     /**
@@ -372,59 +349,67 @@ public class WoWDataETL {
     private int addCharacterWealth(Connection cxn, List<Currencies> currencies, int targetCount) throws SQLException {
         if (createdCharacters.isEmpty() || currencies.isEmpty()) return 0;
         
-        int count = 0;
-        while (count < targetCount) {
-            Characters character = createdCharacters.get(random.nextInt(createdCharacters.size()));
-            Currencies currency = currencies.get(random.nextInt(currencies.size()));
-            
-            // Generate amounts that respect currency caps
-            BigDecimal amount;
-            BigDecimal weeklyAcquired = null;
-            
-            if (currency.getCap() != null) {
-                // Generate amount within cap (10% to 90% of cap)
-                double capValue = currency.getCap().doubleValue();
-                double minAmount = Math.max(capValue * 0.1, 100);
-                double maxAmount = capValue * 0.9;
-                amount = new BigDecimal(minAmount + random.nextDouble() * (maxAmount - minAmount));
-                amount = amount.setScale(2, BigDecimal.ROUND_HALF_UP);
-            } else {
-                // No cap, use reasonable amounts
-                amount = new BigDecimal(random.nextInt(50000) + 1000);
-            }
-            
-            if (currency.getWeeklyCap() != null && random.nextBoolean()) {
-                // Generate weekly acquired within weekly cap (10% to 80% of weekly cap)
-                double weeklyCap = currency.getWeeklyCap().doubleValue();
-                double minWeekly = Math.max(weeklyCap * 0.1, 10);
-                double maxWeekly = weeklyCap * 0.8;
-                weeklyAcquired = new BigDecimal(minWeekly + random.nextDouble() * (maxWeekly - minWeekly));
-                weeklyAcquired = weeklyAcquired.setScale(2, BigDecimal.ROUND_HALF_UP);
-            }
-            
-            try {
-                // Validate before creating
-                game.service.BusinessRulesService.validateCurrencyTransaction(cxn, character, currency, amount, weeklyAcquired);
+        String insertSql = "INSERT INTO CharacterWealth (charID, currencyName, amount, weeklyAcquired, weeklyPeriod) VALUES (?, ?, ?, ?, ?);";
+        // The generated weekly totals count in the current week
+        String weeklyPeriod = game.service.WeeklyCapResetJob.currentPeriod();
+        
+        try (BatchWriter writer = new BatchWriter(cxn, "CharacterWealth", insertSql)) {
+            int attempts = 0;
+            while (writer.size() < targetCount && attempts++ < targetCount * MAX_ATTEMPTS_PER_ROW) {
+                Characters character = createdCharacters.get(random.nextInt(createdCharacters.size()));
+                Currencies currency = currencies.get(random.nextInt(currencies.size()));
+                String key = character.getCharID() + "|" + currency.getCurrencyName();
+                if (writer.contains(key)) {
+                    continue;
+                }
                 
-                CharacterWealthDao.create(cxn, character, currency, amount, weeklyAcquired);
-                recordsProcessed++;
-                count++;
-            } catch (game.service.BusinessRulesService.BusinessRuleException e) {
-                // Skip this entry and continue - validation failed
-                System.out.println("⚠️ Skipped currency " + currency.getCurrencyName() + " for character " + character.getFirstName() + ": " + e.getMessage());
-            } catch (SQLException e) {
-                if (e.getMessage().contains("Duplicate entry")) {
+                // Generate amounts that respect currency caps
+                BigDecimal amount;
+                BigDecimal weeklyAcquired = null;
+                
+                if (currency.getCap() != null) {
+                    // Generate amount within cap (10% to 90% of cap)
+                    double capValue = currency.getCap().doubleValue();
+                    double minAmount = Math.max(capValue * 0.1, 100);
+                    double maxAmount = capValue * 0.9;
+                    amount = new BigDecimal(minAmount + random.nextDouble() * (maxAmount - minAmount));
+                    amount = amount.setScale(2, BigDecimal.ROUND_HALF_UP);
+                } else {
+                    // No cap, use reasonable amounts
+                    amount = new BigDecimal(random.nextInt(50000) + 1000);
+                }
+                
+                if (currency.getWeeklyCap() != null && random.nextBoolean()) {
+                    // Generate weekly acquired within weekly cap (10% to 80% of weekly cap)
+                    double weeklyCap = currency.getWeeklyCap().doubleValue();
+                    double minWeekly = Math.max(weeklyCap * 0.1, 10);
+                    double maxWeekly = weeklyCap * 0.8;
+                    weeklyAcquired = new BigDecimal(minWeekly + random.nextDouble() * (maxWeekly - minWeekly));
+                    weeklyAcquired = weeklyAcquired.setScale(2, BigDecimal.ROUND_HALF_UP);
+                }
+                
+                // The characters are new, so there is no earlier weekly total to add to;
+                // checking the caps here saves validateCurrencyTransaction's lookup per row
+                if (currency.getCap() != null && amount.compareTo(currency.getCap()) > 0) {
                     continue;
-                } else if (e.getMessage().contains("exceeds currency cap") || e.getMessage().contains("exceeds cap")) {
-                    // Skip entries that violate currency caps
-                    System.out.println("⚠️ Skipped currency entry due to cap violation: " + e.getMessage());
+                }
+                if (currency.getWeeklyCap() != null && weeklyAcquired != null
+                        && weeklyAcquired.compareTo(currency.getWeeklyCap()) > 0) {
                     continue;
-                } else {
-                    throw e;
                 }
+                
+                BigDecimal rowAmount = amount;
+                BigDecimal rowWeekly = weeklyAcquired;
+                writer.add(key, ps -> {
+                    ps.setInt(1, character.getCharID());
+                    ps.setString(2, currency.getCurrencyName());
+                    ps.setBigDecimal(3, rowAmount);
+                    ps.setBigDecimal(4, rowWeekly);
+                    ps.setString(5, weeklyPeriod);
+                });
             }
+            return finish(writer);
         }
-        return count;
     }
     
     /**
@@ -434,72 +419,57 @@ public class WoWDataETL {
                                       List<Consumables> consumables, int targetCount) throws SQLException {
         if (createdCharacters.isEmpty()) return 0;
         
-        int count = 0;
+        String insertSql = "INSERT INTO Inventory (charID, slotID, instance, quantity) VALUES (?, ?, ?, ?);";
         
-        // First, ensure every character has additional weapons in their inventory
-        for (Characters character : createdCharacters) {
-            if (count >= targetCount) break;
-            
-            // Add 1-2 additional weapons to each character's inventory
-            int weaponsToAdd = 1 + random.nextInt(2);
+        try (BatchWriter writer = new BatchWriter(cxn, "Inventory", insertSql)) {
             
-            for (int i = 0; i < weaponsToAdd && count < targetCount; i++) {
-                if (!weapons.isEmpty()) {
+            // First, ensure every character has additional weapons in their inventory
+            for (Characters character : createdCharacters) {
+                if (writer.size() >= targetCount || weapons.isEmpty()) break;
+                
+                // Add 1-2 additional weapons to each character's inventory
+                int weaponsToAdd = 1 + random.nextInt(2);
+                
+                for (int i = 0; i < weaponsToAdd && writer.size() < targetCount; i++) {
                     Weapons weapon = weapons.get(random.nextInt(weapons.size()));
                     int slotID = 10 + i; // Start from slot 10 to avoid conflict with equipped weapon
-                    int quantity = 1;
-                    
-                    try {
-                        InventoryDao.create(cxn, character, slotID, weapon, quantity);
-                        recordsProcessed++;
-                        count++;
-                    } catch (SQLException e) {
-                        if (e.getMessage().contains("Duplicate entry")) {
-                            continue;
-                        } else {
-                            throw e;
-                        }
-                    }
+                    addInventoryRow(writer, character, slotID, weapon, 1);
                 }
             }
-        }
-        
-        // Fill remaining slots with other items
-        while (count < targetCount) {
-            if (createdCharacters.isEmpty()) break;
-            
-            Characters character = createdCharacters.get(random.nextInt(createdCharacters.size()));
-            int slotID = 20 + random.nextInt(50); // Slots 20-70 for other items
             
-            // Choose random item from weapons, gears, or consumables
-            Items item = null;
-            int itemType = random.nextInt(3);
-            if (itemType == 0 && !weapons.isEmpty()) {
-                item = weapons.get(random.nextInt(weapons.size()));
-            } else if (itemType == 1 && !gears.isEmpty()) {
-                item = gears.get(random.nextInt(gears.size()));
-            } else if (!consumables.isEmpty()) {
-                item = consumables.get(random.nextInt(consumables.size()));
-            }
-            
-            if (item != null) {
-                int quantity = item instanceof Consumables ? 1 + random.nextInt(20) : 1;
+            // Fill remaining slots with other items
+            int attempts = 0;
+            while (writer.size() < targetCount && attempts++ < targetCount * MAX_ATTEMPTS_PER_ROW) {
+                Characters character = createdCharacters.get(random.nextInt(createdCharacters.size()));
+                int slotID = 20 + random.nextInt(50); // Slots 20-70 for other items
                 
-                try {
-                    InventoryDao.create(cxn, character, slotID, item, quantity);
-                    recordsProcessed++;
-                    count++;
-                } catch (SQLException e) {
-                    if (e.getMessage().contains("Duplicate entry")) {
-                        continue;
-                    } else {
-                        throw e;
-                    }
+                // Choose random item from weapons, gears, or consumables
+                Items item = null;
+                int itemType = random.nextInt(3);
+                if (itemType == 0 && !weapons.isEmpty()) {
+                    item = weapons.get(random.nextInt(weapons.size()));
+                } else if (itemType == 1 && !gears.isEmpty()) {
+                    item = gears.get(random.nextInt(gears.size()));
+                } else if (!consumables.isEmpty()) {
+                    item = consumables.get(random.nextInt(consumables.size()));
+                }
+                
+                if (item != null) {
+                    int quantity = item instanceof Consumables ? 1 + random.nextInt(20) : 1;
+                    addInventoryRow(writer, character, slotID, item, quantity);
                 }
             }
+            return finish(writer);
         }
-        
-        return count;
+    }
+    
+    private void addInventoryRow(BatchWriter writer, Characters character, int slotID, Items item, int quantity) throws SQLException {
+        writer.add(character.getCharID() + "|" + slotID, ps -> {
+            ps.setInt(1, character.getCharID());
+            ps.setInt(2, slotID);
+            ps.setInt(3, item.getItemID());
+            ps.setInt(4, quantity);
+        });
     }
     
     /**
@@ -511,25 +481,35 @@ public class WoWDataETL {
         String[] equipPositions = {"HEAD", "BODY", "HANDS", "LEGS", "FEET", 
                                  "WRIST", "RING", "NECKLACE", "EARRING"}; // Exclude MAIN_HAND (handled by weapon)
         
-        int count = 0;
-        while (count < targetCount) {
-            Characters character = createdCharacters.get(random.nextInt(createdCharacters.size()));
-            String equipPosition = equipPositions[random.nextInt(equipPositions.length)];
-            Gears gear = gears.get(random.nextInt(gears.size()));
-            
-            try {
-                EquippedItemsDao.create(cxn, character, equipPosition, gear);
-                recordsProcessed++;
-                count++;
-            } catch (SQLException e) {
-                if (e.getMessage().contains("Duplicate entry")) {
-                    continue;
-                } else {
-                    throw e;
-                }
+        // Gears are never weapons and MAIN_HAND is excluded, so the slot rules
+        // EquippedItemsDao checks per row always hold (the trigger still enforces them)
+        String insertSql = "INSERT INTO EquippedItems (charID, equipPosition, itemID) VALUES (?, ?, ?);";
+        
+        try (BatchWriter writer = new BatchWriter(cxn, "EquippedItems", insertSql)) {
+            int attempts = 0;
+            while (writer.size() < targetCount && attempts++ < targetCount * MAX_ATTEMPTS_PER_ROW) {
+                Characters character = createdCharacters.get(random.nextInt(createdCharacters.size()));
+                String equipPosition = equipPositions[random.nextInt(equipPositions.length)];
+                Gears gear = gears.get(random.nextInt(gears.size()));
+                
+                writer.add(character.getCharID() + "|" + equipPosition, ps -> {
+                    ps.setInt(1, character.getCharID());
+                    ps.setString(2, equipPosition);
+                    ps.setInt(3, gear.getItemID());
+                });
             }
+            return finish(writer);
         }
-        return count;
+    }
+    
+    /**
+     * Flush a writer, count its rows and report its throughput
+     */
+    private int finish(BatchWriter writer) throws SQLException {
+        writer.close();
+        recordsProcessed += writer.getRowsWritten();
+        System.out.println("⚡ " + writer);
+        return (int) writer.getRowsWritten();
     }
     
     // Helper methods to get existing data - now use the proper DAOs
@@ -1,6 +1,8 @@
 package game.model;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Analytics model classes for dashboard views
@@ -194,4 +196,40 @@ public class Analytics {
         public int getCurrencyTypes() { return currencyTypes; }
         public void setCurrencyTypes(int currencyTypes) { this.currencyTypes = currencyTypes; }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Everything shown on the dashboard, loaded together.
+     * Sections that failed to load hold empty defaults and are listed in failedSections.
+     */
+    public static class Dashboard {
+        private OverallStats overallStats = new OverallStats(0, 0, 0, 0, 0, 0);
+        private List<DailyActivePlayer> dailyActivePlayers = List.of();
+        private List<TopPlayer> topPlayersByLevel = List.of();
+        private List<TopPlayerWealth> topPlayersByWealth = List.of();
+        private List<JobDistribution> jobDistribution = List.of();
+        private List<ClanDistribution> clanDistribution = List.of();
+        private List<CurrencyStats> currencyStats = List.of();
+        private List<ItemTypeStats> itemTypeStats = List.of();
+        private final List<String> failedSections = new ArrayList<>();
+        
+        public OverallStats getOverallStats() { return overallStats; }
+        public void setOverallStats(OverallStats overallStats) { this.overallStats = overallStats; }
+        public List<DailyActivePlayer> getDailyActivePlayers() { return dailyActivePlayers; }
+        public void setDailyActivePlayers(List<DailyActivePlayer> dailyActivePlayers) { this.dailyActivePlayers = dailyActivePlayers; }
+        public List<TopPlayer> getTopPlayersByLevel() { return topPlayersByLevel; }
+        public void setTopPlayersByLevel(List<TopPlayer> topPlayersByLevel) { this.topPlayersByLevel = topPlayersByLevel; }
+        public List<TopPlayerWealth> getTopPlayersByWealth() { return topPlayersByWealth; }
+        public void setTopPlayersByWealth(List<TopPlayerWealth> topPlayersByWealth) { this.topPlayersByWealth = topPlayersByWealth; }
+        public List<JobDistribution> getJobDistribution() { return jobDistribution; }
+        public void setJobDistribution(List<JobDistribution> jobDistribution) { this.jobDistribution = jobDistribution; }
+        public List<ClanDistribution> getClanDistribution() { return clanDistribution; }
+        public void setClanDistribution(List<ClanDistribution> clanDistribution) { this.clanDistribution = clanDistribution; }
+        public List<CurrencyStats> getCurrencyStats() { return currencyStats; }
+        public void setCurrencyStats(List<CurrencyStats> currencyStats) { this.currencyStats = currencyStats; }
+        public List<ItemTypeStats> getItemTypeStats() { return itemTypeStats; }
+        public void setItemTypeStats(List<ItemTypeStats> itemTypeStats) { this.itemTypeStats = itemTypeStats; }
+        public List<String> getFailedSections() { return failedSections; }
+        public void addFailedSection(String section) { failedSections.add(section); }
+        public boolean isComplete() { return failedSections.isEmpty(); }
+    }
+}
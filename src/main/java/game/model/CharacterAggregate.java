@@ -0,0 +1,52 @@
+package game.model;
+
+import java.util.List;
+
+/**
+ * A character together with everything shown on its detail page,
+ * loaded in one round trip by CharacterAggregateDao
+ */
+public class CharacterAggregate {
+	private final Characters character;
+	private final List<InventoryItemDetail> inventoryDetails;
+	private final List<EquippedItems> equippedItems;
+	private final List<CharacterWealth> wealth;
+	private final List<CharacterUnlockedJob> unlockedJobs;
+
+	public CharacterAggregate(Characters character, List<InventoryItemDetail> inventoryDetails,
+			List<EquippedItems> equippedItems, List<CharacterWealth> wealth,
+			List<CharacterUnlockedJob> unlockedJobs) {
+		this.character = character;
+		this.inventoryDetails = inventoryDetails;
+		this.equippedItems = equippedItems;
+		this.wealth = wealth;
+		this.unlockedJobs = unlockedJobs;
+	}
+
+	public Characters getCharacter() {
+		return character;
+	}
+
+	public List<InventoryItemDetail> getInventoryDetails() {
+		return inventoryDetails;
+	}
+
+	public List<EquippedItems> getEquippedItems() {
+		return equippedItems;
+	}
+
+	public List<CharacterWealth> getWealth() {
+		return wealth;
+	}
+
+	public List<CharacterUnlockedJob> getUnlockedJobs() {
+		return unlockedJobs;
+	}
+
+	@Override
+	public String toString() {
+		return "CharacterAggregate [character=" + character + ", inventory=" + inventoryDetails.size()
+				+ ", equipped=" + equippedItems.size() + ", wealth=" + wealth.size()
+				+ ", unlockedJobs=" + unlockedJobs.size() + "]";
+	}
+}
@@ -0,0 +1,45 @@
+package game.model;
+
+import java.util.List;
+
+/**
+ * One page of the character listing plus opaque cursors for the pages
+ * before and after it. A null cursor means there is no page in that direction.
+ */
+public class CharacterPage {
+	private final List<Characters> characters;
+	private final String nextCursor;
+	private final String prevCursor;
+
+	public CharacterPage(List<Characters> characters, String nextCursor, String prevCursor) {
+		this.characters = characters;
+		this.nextCursor = nextCursor;
+		this.prevCursor = prevCursor;
+	}
+
+	public List<Characters> getCharacters() {
+		return characters;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public String getPrevCursor() {
+		return prevCursor;
+	}
+
+	public boolean isHasNext() {
+		return nextCursor != null;
+	}
+
+	public boolean isHasPrev() {
+		return prevCursor != null;
+	}
+
+	@Override
+	public String toString() {
+		return "CharacterPage [size=" + characters.size() + ", hasNext=" + isHasNext()
+				+ ", hasPrev=" + isHasPrev() + "]";
+	}
+}
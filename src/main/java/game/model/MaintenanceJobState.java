@@ -0,0 +1,85 @@
+package game.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a resumable maintenance job through one period.
+ * highWaterMark is the last key the job has finished; it starts again from
+ * 0 when a new period begins.
+ */
+public class MaintenanceJobState {
+	private String jobName;
+	private String period;
+	private int highWaterMark;
+	private long rowsProcessed;
+	private LocalDateTime startedAt;
+	private LocalDateTime completedAt;
+
+	public MaintenanceJobState(String jobName, String period, int highWaterMark, long rowsProcessed,
+			LocalDateTime startedAt, LocalDateTime completedAt) {
+		this.jobName = jobName;
+		this.period = period;
+		this.highWaterMark = highWaterMark;
+		this.rowsProcessed = rowsProcessed;
+		this.startedAt = startedAt;
+		this.completedAt = completedAt;
+	}
+
+	public String getJobName() {
+		return jobName;
+	}
+
+	public void setJobName(String jobName) {
+		this.jobName = jobName;
+	}
+
+	public String getPeriod() {
+		return period;
+	}
+
+	public void setPeriod(String period) {
+		this.period = period;
+	}
+
+	public int getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	public void setHighWaterMark(int highWaterMark) {
+		this.highWaterMark = highWaterMark;
+	}
+
+	public long getRowsProcessed() {
+		return rowsProcessed;
+	}
+
+	public void setRowsProcessed(long rowsProcessed) {
+		this.rowsProcessed = rowsProcessed;
+	}
+
+	public LocalDateTime getStartedAt() {
+		return startedAt;
+	}
+
+	public void setStartedAt(LocalDateTime startedAt) {
+		this.startedAt = startedAt;
+	}
+
+	public LocalDateTime getCompletedAt() {
+		return completedAt;
+	}
+
+	public void setCompletedAt(LocalDateTime completedAt) {
+		this.completedAt = completedAt;
+	}
+
+	public boolean isCompleted() {
+		return completedAt != null;
+	}
+
+	@Override
+	public String toString() {
+		return "MaintenanceJobState [ jobName=" + jobName + ", period=" + period + ", highWaterMark=" + highWaterMark
+				+ ", rowsProcessed=" + rowsProcessed + ", completedAt=" + completedAt + "]";
+	}
+}
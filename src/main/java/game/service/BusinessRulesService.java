@@ -6,7 +6,10 @@ import game.model.*;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Centralized business rules validation service
@@ -26,28 +29,137 @@ public class BusinessRulesService {
         }
     }
     
+    // A swap that loses a deadlock is rolled back by MySQL and run again, up to this many times in all
+    private static final int MAX_EQUIP_ATTEMPTS = 4;
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final LongAdder equipRetries = new LongAdder();
+    
     /**
-     * Validates and equips a weapon, ensuring all business rules
+     * Validates and equips a weapon, ensuring all business rules.
+     * 
+     * Runs as one transaction: the character row and the inventory row holding
+     * the weapon are locked by the same query that reads what the level, job and
+     * ownership checks need, so a concurrent swap or inventory delete cannot slip
+     * in between the checks and the update. The update itself is conditional on
+     * the weapon still being owned. Deadlocks are retried. The transaction is
+     * committed here, so cxn must not be inside one of the caller's.
      */
     public static void equipWeapon(Connection cxn, Characters character, Weapons weapon) 
             throws SQLException, BusinessRuleException {
         
-        // 1. Check level requirement
-        validateLevelRequirement(cxn, character, weapon);
-        
-        // 2. Check job compatibility
-        validateJobCompatibility(cxn, character, weapon);
-        
-        // 3. Check if character owns this weapon in inventory
-        validateWeaponOwnership(cxn, character, weapon);
-        
-        // 4. Update character's equipped weapon
-        CharactersDao.updateWeaponWeared(cxn, character, weapon);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                equipWeaponInTransaction(cxn, character, weapon);
+                break;
+            } catch (SQLException e) {
+                if (!isDeadlock(e) || attempt >= MAX_EQUIP_ATTEMPTS) {
+                    throw e;
+                }
+                equipRetries.increment();
+                System.err.println("⚠️ Deadlock equipping " + weapon.getItemName() + " for "
+                    + character.getFirstName() + ", retrying (attempt " + (attempt + 1) + ")");
+                backOff(attempt);
+            }
+        }
+        character.setWeaponWeared(weapon);
         
         System.out.println("✅ Successfully equipped " + weapon.getItemName() + " for " + character.getFirstName());
         System.out.println("🎮 " + character.getFirstName() + " is now playing as " + weapon.getWearableJob());
     }
     
+    private static void equipWeaponInTransaction(Connection cxn, Characters character, Weapons weapon) 
+            throws SQLException, BusinessRuleException {
+        
+        requireAutoCommit(cxn);
+        cxn.setAutoCommit(false);
+        try {
+            // 1. Lock the character and read everything the checks need
+            CharactersDao.WeaponSwapState state = 
+                CharactersDao.lockForWeaponSwap(cxn, character.getCharID(), weapon.getItemID());
+            if (state == null) {
+                throw new BusinessRuleException(
+                    String.format("Character %s no longer exists", character.getFirstName()));
+            }
+            if (!state.isWeaponFound()) {
+                throw new BusinessRuleException(
+                    String.format("%s is not a weapon", weapon.getItemName()));
+            }
+            
+            // 2. Check level requirement; a character without jobs counts as level 1, as above
+            int maxLevel = Math.max(1, state.getMaxJobLevel());
+            if (maxLevel < state.getRequiredLevel()) {
+                throw new BusinessRuleException(
+                    String.format("Character level %d is too low to equip %s (requires level %d)", 
+                        maxLevel, weapon.getItemName(), state.getRequiredLevel())
+                );
+            }
+            
+            // 3. Check job compatibility
+            if (!state.isWearableJobUnlocked()) {
+                throw new BusinessRuleException(
+                    String.format("Character must have %s job unlocked to equip %s", 
+                        state.getWearableJob(), weapon.getItemName())
+                );
+            }
+            
+            // 4. Check the character owns this weapon in inventory
+            if (!state.isWeaponOwned()) {
+                throw new BusinessRuleException(
+                    String.format("Character %s does not own weapon %s in their inventory", 
+                        character.getFirstName(), weapon.getItemName())
+                );
+            }
+            
+            // 5. Update character's equipped weapon, unless it is already equipped
+            if (state.getCurrentWeaponID() != weapon.getItemID()
+                    && !CharactersDao.updateWeaponWearedIfOwned(cxn, character.getCharID(), 
+                        state.getCurrentWeaponID(), weapon.getItemID())) {
+                throw new BusinessRuleException(
+                    String.format("Weapon %s was removed from %s's inventory while being equipped", 
+                        weapon.getItemName(), character.getFirstName())
+                );
+            }
+            cxn.commit();
+        } catch (SQLException | BusinessRuleException e) {
+            cxn.rollback();
+            throw e;
+        } finally {
+            cxn.setAutoCommit(true);
+        }
+    }
+    
+    /**
+     * Refuse to start a transaction on a connection that is already in one:
+     * committing, rolling back or retrying would end the caller's transaction
+     * along with ours
+     */
+    static void requireAutoCommit(Connection cxn) throws SQLException {
+        if (!cxn.getAutoCommit()) {
+            throw new IllegalStateException("Connection is already in a transaction; call this with auto-commit on");
+        }
+    }
+    
+    static boolean isDeadlock(SQLException e) {
+        return e.getErrorCode() == ER_LOCK_DEADLOCK || e instanceof SQLTransactionRollbackException;
+    }
+    
+    // Randomized so the transactions that deadlocked do not collide again in step
+    static void backOff(int attempt) throws SQLException {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(5L << attempt, 10L << attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while retrying after a deadlock", e);
+        }
+    }
+    
+    /**
+     * Weapon swaps retried after a deadlock since startup
+     */
+    public static long getEquipRetryCount() {
+        return equipRetries.sum();
+    }
+    
     /**
      * Validates character owns the weapon in their inventory
      */
@@ -70,9 +182,16 @@ public class BusinessRulesService {
     public static void validateLevelRequirement(Connection cxn, Characters character, Equipments equipment) 
             throws SQLException, BusinessRuleException {
         
-        // Get character's highest job level
-        List<CharacterUnlockedJob> jobs = CharacterUnlockedJobDao.getCharacterUnlockedJobByCharID(cxn, character.getCharID());
+        validateLevelRequirement(CharacterUnlockedJobDao.getCharacterUnlockedJobsByCharacter(cxn, character), equipment);
+    }
+    
+    /**
+     * Validates the character's already loaded jobs meet the level requirement for equipment
+     */
+    public static void validateLevelRequirement(List<CharacterUnlockedJob> jobs, Equipments equipment) 
+            throws BusinessRuleException {
         
+        // Get character's highest job level
         int maxLevel = 1;
         for (CharacterUnlockedJob job : jobs) {
             if (job.getJobLevel() != null && job.getJobLevel() > maxLevel) {
@@ -94,9 +213,16 @@ public class BusinessRulesService {
     public static void validateJobCompatibility(Connection cxn, Characters character, Weapons weapon) 
             throws SQLException, BusinessRuleException {
         
-        // Check if character has the required job unlocked
-        List<CharacterUnlockedJob> unlockedJobs = CharacterUnlockedJobDao.getCharacterUnlockedJobByCharID(cxn, character.getCharID());
+        validateJobCompatibility(CharacterUnlockedJobDao.getCharacterUnlockedJobsByCharacter(cxn, character), weapon);
+    }
+    
+    /**
+     * Validates job compatibility for weapons against the character's already loaded jobs
+     */
+    public static void validateJobCompatibility(List<CharacterUnlockedJob> unlockedJobs, Weapons weapon) 
+            throws BusinessRuleException {
         
+        // Check if character has the required job unlocked
         boolean hasRequiredJob = false;
         for (CharacterUnlockedJob job : unlockedJobs) {
             if (weapon.getWearableJob().equals(job.getJob())) {
@@ -114,7 +240,8 @@ public class BusinessRulesService {
     }
     
     /**
-     * Validates currency transaction respects caps
+     * Validates currency transaction respects caps.
+     * This only checks; CurrencyLedger applies a change with the same checks atomically.
      */
     public static void validateCurrencyTransaction(Connection cxn, Characters character, 
             Currencies currency, BigDecimal newAmount, BigDecimal weeklyAddition) 
@@ -130,7 +257,9 @@ public class BusinessRulesService {
         
         // Check weekly cap
         if (currency.getWeeklyCap() != null && weeklyAddition != null) {
-            CharacterWealth currentWealth = CharacterWealthDao.getCharacterWealthByCharacterAndCurrency(cxn, character, currency);
+            // A total from an earlier week counts as 0, as when the change is applied
+            CharacterWealth currentWealth = CharacterWealthDao.getCharacterWealthByCharacterAndCurrency(
+                cxn, character, currency, WeeklyCapResetJob.currentPeriod());
             BigDecimal currentWeekly = currentWealth != null ? 
                 (currentWealth.getWeeklyAcquired() != null ? currentWealth.getWeeklyAcquired() : BigDecimal.ZERO) : 
                 BigDecimal.ZERO;
@@ -152,7 +281,7 @@ public class BusinessRulesService {
     public static void validateJobUnlocks(Connection cxn, Characters character) 
             throws SQLException, BusinessRuleException {
         
-        List<CharacterUnlockedJob> jobs = CharacterUnlockedJobDao.getCharacterUnlockedJobByCharID(cxn, character.getCharID());
+        List<CharacterUnlockedJob> jobs = CharacterUnlockedJobDao.getCharacterUnlockedJobsByCharacter(cxn, character);
         
         if (jobs.isEmpty()) {
             throw new BusinessRuleException("Character must have at least one job unlocked");
@@ -313,7 +442,7 @@ public class BusinessRulesService {
             throws SQLException, BusinessRuleException {
         
         // Get character's unlocked jobs
-        List<CharacterUnlockedJob> unlockedJobs = CharacterUnlockedJobDao.getCharacterUnlockedJobByCharID(cxn, character.getCharID());
+        List<CharacterUnlockedJob> unlockedJobs = CharacterUnlockedJobDao.getCharacterUnlockedJobsByCharacter(cxn, character);
         
         // Get jobs that can use this gear
         // Note: This would require a query to JobsForGear table
@@ -330,8 +459,12 @@ public class BusinessRulesService {
     public static void validateAllBusinessRules(Connection cxn, Characters character) 
             throws SQLException, BusinessRuleException {
         
+        List<CharacterUnlockedJob> jobs = CharacterUnlockedJobDao.getCharacterUnlockedJobsByCharacter(cxn, character);
+        
         // 1. Character must have at least one job unlocked
-        validateJobUnlocks(cxn, character);
+        if (jobs.isEmpty()) {
+            throw new BusinessRuleException("Character must have at least one job unlocked");
+        }
         
         // 2. Character must have a weapon equipped
         if (character.getWeaponWeared() == null) {
@@ -339,6 +472,6 @@ public class BusinessRulesService {
         }
         
         // 3. Character's equipped weapon must be compatible with an unlocked job
-        validateJobCompatibility(cxn, character, character.getWeaponWeared());
+        validateJobCompatibility(jobs, character.getWeaponWeared());
     }
 }
\ No newline at end of file
@@ -0,0 +1,298 @@
+package game.service;
+
+import game.dal.CharacterWealthDao;
+import game.model.*;
+import game.service.BusinessRulesService.BusinessRuleException;
+import game.sql.SummaryTables;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Credits, debits and transfers of character currencies.
+ *
+ * The cap, weekly cap and non-negative balance checks are part of the
+ * UPDATE that changes the balance (see CharacterWealthDao.addToAmount), so
+ * two concurrent grants cannot both pass a check that only one of them fits.
+ * The new balance is read back from the row the UPDATE has locked.
+ * Only a rejected change reads the row, to say which limit it broke.
+ *
+ * Each transaction first locks every wealth row it changes, in primary key
+ * order, and only then applies the changes, in CurrencySummary slot order.
+ * The summary triggers lock one slot row per change, so ledger
+ * transactions take both kinds of lock in the same order. What can still
+ * deadlock, such as two first credits creating rows next to each other,
+ * is retried. Every method commits its own transaction, so the connection
+ * must be in auto-commit mode when it is called.
+ */
+public class CurrencyLedger {
+
+    // A transaction that loses a deadlock is rolled back by MySQL and run again, up to this many times in all
+    private static final int MAX_ATTEMPTS = 4;
+    private static final LongAdder retries = new LongAdder();
+
+    private CurrencyLedger() {}
+
+    /**
+     * A credit of amount to a character's currency, for creditAll
+     */
+    public static class Grant {
+        private final Characters character;
+        private final Currencies currency;
+        private final BigDecimal amount;
+
+        public Grant(Characters character, Currencies currency, BigDecimal amount) {
+            this.character = character;
+            this.currency = currency;
+            this.amount = amount;
+        }
+
+        public Characters getCharacter() { return character; }
+        public Currencies getCurrency() { return currency; }
+        public BigDecimal getAmount() { return amount; }
+    }
+
+    /**
+     * Balances of both characters after a transfer
+     */
+    public static class TransferResult {
+        private final BigDecimal fromBalance;
+        private final BigDecimal toBalance;
+
+        TransferResult(BigDecimal fromBalance, BigDecimal toBalance) {
+            this.fromBalance = fromBalance;
+            this.toBalance = toBalance;
+        }
+
+        public BigDecimal getFromBalance() { return fromBalance; }
+        public BigDecimal getToBalance() { return toBalance; }
+    }
+
+    /**
+     * One balance change within a ledger transaction
+     */
+    private static class Change {
+        private final Characters character;
+        private final Currencies currency;
+        private final BigDecimal delta;
+        private final BigDecimal weeklyAddition;
+
+        Change(Characters character, Currencies currency, BigDecimal delta, BigDecimal weeklyAddition) {
+            this.character = character;
+            this.currency = currency;
+            this.delta = delta;
+            this.weeklyAddition = weeklyAddition;
+        }
+    }
+
+    /**
+     * Adds amount to the character's currency and to its weekly acquisition.
+     * Returns the new balance.
+     */
+    public static BigDecimal credit(Connection cxn, Characters character, Currencies currency, BigDecimal amount)
+            throws SQLException, BusinessRuleException {
+
+        BigDecimal cents = validAmount(amount);
+        return applyAll(cxn, List.of(new Change(character, currency, cents, cents))).get(0);
+    }
+
+    /**
+     * Credits every grant in one transaction: either all of them apply or,
+     * if any breaks a limit, none do.
+     * Returns the new balance after each grant, in order.
+     */
+    public static List<BigDecimal> creditAll(Connection cxn, List<Grant> grants)
+            throws SQLException, BusinessRuleException {
+
+        if (grants.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Change> changes = new ArrayList<>(grants.size());
+        for (Grant grant : grants) {
+            BigDecimal cents = validAmount(grant.getAmount());
+            changes.add(new Change(grant.getCharacter(), grant.getCurrency(), cents, cents));
+        }
+        return applyAll(cxn, changes);
+    }
+
+    /**
+     * Takes amount from the character's currency, refusing to go below zero.
+     * Returns the new balance.
+     */
+    public static BigDecimal debit(Connection cxn, Characters character, Currencies currency, BigDecimal amount)
+            throws SQLException, BusinessRuleException {
+
+        BigDecimal cents = validAmount(amount);
+        return applyAll(cxn, List.of(new Change(character, currency, cents.negate(), BigDecimal.ZERO))).get(0);
+    }
+
+    /**
+     * Moves amount of a currency from one character to another in one transaction.
+     * What the receiver gets does not count towards its weekly cap.
+     */
+    public static TransferResult transfer(Connection cxn, Characters from, Characters to,
+            Currencies currency, BigDecimal amount) throws SQLException, BusinessRuleException {
+
+        BigDecimal cents = validAmount(amount);
+        if (from.getCharID() == to.getCharID()) {
+            throw new BusinessRuleException("Cannot transfer currency to the same character");
+        }
+        List<BigDecimal> balances = applyAll(cxn, List.of(
+            new Change(from, currency, cents.negate(), BigDecimal.ZERO),
+            new Change(to, currency, cents, BigDecimal.ZERO)));
+        return new TransferResult(balances.get(0), balances.get(1));
+    }
+
+    /**
+     * Currency ledger transactions retried after a deadlock since startup
+     */
+    public static long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Applies the changes in one transaction, retrying it after a deadlock.
+     * Returns the new balance after each change, in order.
+     */
+    private static List<BigDecimal> applyAll(Connection cxn, List<Change> changes)
+            throws SQLException, BusinessRuleException {
+
+        TreeSet<Integer> charIDs = new TreeSet<>();
+        TreeSet<String> currencyNames = new TreeSet<>();
+        List<Integer> order = new ArrayList<>(changes.size());
+        for (int i = 0; i < changes.size(); i++) {
+            charIDs.add(changes.get(i).character.getCharID());
+            currencyNames.add(changes.get(i).currency.getCurrencyName());
+            order.add(i);
+        }
+        // The slot row each change's trigger updates, see SummaryTables
+        order.sort(Comparator.comparingInt((Integer i) -> changes.get(i).character.getCharID() % SummaryTables.SLOTS)
+            .thenComparing(i -> changes.get(i).currency.getCurrencyName())
+            .thenComparingInt(i -> changes.get(i).character.getCharID()));
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return inTransaction(cxn, () -> {
+                    CharacterWealthDao.lockRows(cxn, new ArrayList<>(charIDs), new ArrayList<>(currencyNames));
+                    // Weekly totals from an earlier week count as 0, whether or not the reset reached them yet
+                    String weeklyPeriod = WeeklyCapResetJob.currentPeriod();
+                    BigDecimal[] balances = new BigDecimal[changes.size()];
+                    for (int i : order) {
+                        Change change = changes.get(i);
+                        balances[i] = apply(cxn, change.character, change.currency, change.delta, change.weeklyAddition,
+                            weeklyPeriod);
+                    }
+                    return Arrays.asList(balances);
+                });
+            } catch (SQLException e) {
+                if (!BusinessRulesService.isDeadlock(e) || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                retries.increment();
+                System.err.println("⚠️ Deadlock applying " + changes.size() + " currency change(s), retrying (attempt "
+                    + (attempt + 1) + ")");
+                BusinessRulesService.backOff(attempt);
+            }
+        }
+    }
+
+    private static BigDecimal apply(Connection cxn, Characters character, Currencies currency,
+            BigDecimal delta, BigDecimal weeklyAddition, String weeklyPeriod) throws SQLException, BusinessRuleException {
+
+        BigDecimal balance = CharacterWealthDao.addToAmount(cxn, character, currency, delta, weeklyAddition, weeklyPeriod);
+        if (balance != null) {
+            return balance;
+        }
+        if (delta.signum() > 0) {
+            // No row yet for this currency: create it, within the same caps
+            try {
+                if (CharacterWealthDao.insertWithinCaps(cxn, character, currency, delta, weeklyAddition, weeklyPeriod)) {
+                    return delta;
+                }
+            } catch (SQLIntegrityConstraintViolationException e) {
+                // Created by a concurrent credit since the update; add to that row instead
+                balance = CharacterWealthDao.addToAmount(cxn, character, currency, delta, weeklyAddition, weeklyPeriod);
+                if (balance != null) {
+                    return balance;
+                }
+            }
+        }
+        throw rejection(cxn, character, currency, delta, weeklyAddition, weeklyPeriod);
+    }
+
+    /**
+     * Explains why a change was not applied, from the row as it is now
+     */
+    private static BusinessRuleException rejection(Connection cxn, Characters character, Currencies currency,
+            BigDecimal delta, BigDecimal weeklyAddition, String weeklyPeriod) throws SQLException {
+
+        // The weekly total as the UPDATE counted it: 0 if it is from an earlier week
+        CharacterWealth wealth = CharacterWealthDao.getCharacterWealthByCharacterAndCurrency(cxn, character, currency, weeklyPeriod);
+        BigDecimal amount = wealth != null ? wealth.getAmount() : BigDecimal.ZERO;
+        BigDecimal weekly = wealth != null && wealth.getWeeklyAcquired() != null ? wealth.getWeeklyAcquired() : BigDecimal.ZERO;
+        BigDecimal newAmount = amount.add(delta);
+
+        if (newAmount.signum() < 0) {
+            return new BusinessRuleException(
+                String.format("Insufficient %s for %s: balance %s, cannot debit %s",
+                    currency.getCurrencyName(), character.getFirstName(), amount, delta.negate()));
+        }
+        if (currency.getCap() != null && newAmount.compareTo(currency.getCap()) > 0) {
+            return new BusinessRuleException(
+                String.format("Amount %s exceeds currency cap of %s for %s",
+                    newAmount, currency.getCap(), currency.getCurrencyName()));
+        }
+        if (currency.getWeeklyCap() != null && weeklyAddition.signum() > 0
+                && weekly.add(weeklyAddition).compareTo(currency.getWeeklyCap()) > 0) {
+            return new BusinessRuleException(
+                String.format("Weekly acquisition %s would exceed weekly cap of %s for %s",
+                    weekly.add(weeklyAddition), currency.getWeeklyCap(), currency.getCurrencyName()));
+        }
+        return new BusinessRuleException(
+            String.format("Could not apply %s %s to %s", delta, currency.getCurrencyName(), character.getFirstName()));
+    }
+
+    /**
+     * Amounts are positive, in the two decimal places CharacterWealth stores
+     */
+    private static BigDecimal validAmount(BigDecimal amount) throws BusinessRuleException {
+        if (amount == null || amount.signum() <= 0) {
+            throw new BusinessRuleException("Amount must be positive");
+        }
+        try {
+            return amount.setScale(2, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new BusinessRuleException("Amount " + amount + " has more than 2 decimal places", e);
+        }
+    }
+
+    private interface LedgerWork<T> {
+        T run() throws SQLException, BusinessRuleException;
+    }
+
+    private static <T> T inTransaction(Connection cxn, LedgerWork<T> work)
+            throws SQLException, BusinessRuleException {
+
+        BusinessRulesService.requireAutoCommit(cxn);
+        cxn.setAutoCommit(false);
+        try {
+            T result = work.run();
+            cxn.commit();
+            return result;
+        } catch (SQLException | BusinessRuleException e) {
+            cxn.rollback();
+            throw e;
+        } finally {
+            cxn.setAutoCommit(true);
+        }
+    }
+}
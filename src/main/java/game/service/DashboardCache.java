@@ -0,0 +1,161 @@
+package game.service;
+
+import game.model.Analytics.Dashboard;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process snapshot of the dashboard.
+ *
+ * Requests read the latest snapshot instead of querying the views. A
+ * background scheduler reloads it on a fixed interval; if a request finds
+ * the snapshot older than the interval it is still served (stale while
+ * revalidate) and a reload is started in the background. Only the very
+ * first request, before any snapshot exists, waits for the database.
+ *
+ * invalidate() bumps a generation counter. A snapshot loaded before the
+ * latest invalidation is stale, and a refresh that was already running
+ * when it arrived loads once more, so the change is never lost.
+ */
+public class DashboardCache {
+
+    // Default refresh interval if start() is not given one
+    public static final long DEFAULT_REFRESH_SECONDS = 30;
+
+    /**
+     * A loaded dashboard and when it was loaded
+     */
+    public static class Snapshot {
+        private final Dashboard dashboard;
+        private final long loadedAtMillis;
+        private final long generation;
+
+        Snapshot(Dashboard dashboard, long loadedAtMillis, long generation) {
+            this.dashboard = dashboard;
+            this.loadedAtMillis = loadedAtMillis;
+            this.generation = generation;
+        }
+
+        public Dashboard getDashboard() { return dashboard; }
+        public long getLoadedAtMillis() { return loadedAtMillis; }
+        public long getAgeMillis() { return System.currentTimeMillis() - loadedAtMillis; }
+        /** Whether the data changed since this snapshot started loading */
+        public boolean isStale() { return generation != generation(); }
+    }
+
+    private static volatile Snapshot current;
+    private static volatile long refreshMillis = TimeUnit.SECONDS.toMillis(DEFAULT_REFRESH_SECONDS);
+    private static final AtomicBoolean refreshing = new AtomicBoolean(false);
+    // Number of invalidations so far
+    private static final AtomicLong invalidations = new AtomicLong();
+    private static ScheduledExecutorService scheduler;
+
+    private DashboardCache() {}
+
+    /**
+     * Start refreshing the snapshot in the background every refreshSeconds
+     */
+    public static synchronized void start(long refreshSeconds) {
+        if (refreshSeconds <= 0) {
+            throw new IllegalArgumentException("Dashboard refresh interval must be positive: " + refreshSeconds);
+        }
+        if (scheduler != null) {
+            return;
+        }
+        refreshMillis = TimeUnit.SECONDS.toMillis(refreshSeconds);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dashboard-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(DashboardCache::refresh, 0, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the background refresh
+     */
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Get the current snapshot, loading it if none exists yet
+     */
+    public static Snapshot get() {
+        Snapshot snapshot = current;
+        if (snapshot == null) {
+            synchronized (DashboardCache.class) {
+                if (current == null) {
+                    long generation = generation();
+                    current = new Snapshot(DashboardLoader.load(), System.currentTimeMillis(), generation);
+                }
+                return current;
+            }
+        }
+        if (snapshot.isStale() || snapshot.getAgeMillis() > refreshMillis) {
+            refreshAsync();
+        }
+        return snapshot;
+    }
+
+    /**
+     * The current snapshot, or null if none was loaded yet; never loads one
+     */
+    public static Snapshot peek() {
+        return current;
+    }
+    
+    /**
+     * Mark the snapshot out of date and reload it in the background.
+     * Requests keep getting the old snapshot until the new one is ready.
+     */
+    public static void invalidate() {
+        invalidations.incrementAndGet();
+        refreshAsync();
+    }
+
+    private static long generation() {
+        return invalidations.get();
+    }
+
+    private static void refreshAsync() {
+        if (!refreshing.get()) {
+            Thread.ofVirtual().name("dashboard-revalidate").start(DashboardCache::refresh);
+        }
+    }
+
+    /**
+     * Reload the snapshot. Concurrent calls collapse into one load; a call
+     * that arrives after an invalidation makes the running one load again.
+     */
+    private static void refresh() {
+        while (refreshing.compareAndSet(false, true)) {
+            long generation = generation();
+            try {
+                Dashboard dashboard = DashboardLoader.load();
+                // Keep serving the previous snapshot rather than replacing it with a partial one
+                if (dashboard.isComplete() || current == null) {
+                    current = new Snapshot(dashboard, System.currentTimeMillis(), generation);
+                } else {
+                    System.err.println("Dashboard refresh incomplete, keeping previous snapshot. Failed: "
+                            + dashboard.getFailedSections());
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Dashboard refresh failed: " + e.getMessage());
+            } finally {
+                refreshing.set(false);
+            }
+            // Checked after releasing the flag: an invalidation that found the flag set is seen here
+            if (generation() == generation) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package game.service;
+
+import game.dal.ConnectionManager;
+import game.dal.ViewsDao;
+import game.model.Analytics.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Loads all dashboard sections concurrently.
+ *
+ * Each view query runs on its own virtual thread with its own pooled
+ * connection, so the dashboard takes about as long as its slowest query
+ * instead of the sum of all of them. A section that fails or does not
+ * finish within the timeout is left at its empty default and reported in
+ * Dashboard.getFailedSections(); the other sections are still shown.
+ *
+ * Interrupting a thread does not stop a JDBC query, so every statement a
+ * section creates gets a query timeout of what is left of the budget. The
+ * driver then cancels the query on the server and the section's pooled
+ * connection is returned instead of staying busy after the dashboard gave
+ * up on it.
+ */
+public class DashboardLoader {
+
+    // Number of sections on the dashboard
+    public static final int SECTION_COUNT = 8;
+
+    // How long any single dashboard query may take
+    private static final long QUERY_TIMEOUT_MILLIS = 5000;
+
+    // Virtual threads are cheap, so one per query with no pool sizing to tune
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private DashboardLoader() {}
+
+    /**
+     * A single dashboard query
+     */
+    @FunctionalInterface
+    private interface SectionQuery<T> {
+        T load(Connection cxn) throws SQLException;
+    }
+
+    /**
+     * A dashboard query that has been started, and where to put its result
+     */
+    private static class PendingSection<T> {
+        private final String name;
+        private final Future<T> future;
+        private final Consumer<T> target;
+
+        PendingSection(String name, Future<T> future, Consumer<T> target) {
+            this.name = name;
+            this.future = future;
+            this.target = target;
+        }
+    }
+
+    /**
+     * Run every dashboard query in parallel and collect the results
+     */
+    public static Dashboard load() {
+        Dashboard dashboard = new Dashboard();
+
+        // All queries start together, so one shared deadline is a per-query timeout
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(QUERY_TIMEOUT_MILLIS);
+        PendingSection<?>[] sections = {
+            start("Overall stats", ViewsDao::getOverallStats, dashboard::setOverallStats, deadline),
+            start("Daily active players", ViewsDao::getDailyActivePlayers, dashboard::setDailyActivePlayers, deadline),
+            start("Top players by level", ViewsDao::getTopPlayersByLevel, dashboard::setTopPlayersByLevel, deadline),
+            start("Top players by wealth", ViewsDao::getTopPlayersByWealth, dashboard::setTopPlayersByWealth, deadline),
+            start("Job distribution", ViewsDao::getJobDistribution, dashboard::setJobDistribution, deadline),
+            start("Clan distribution", ViewsDao::getClanDistribution, dashboard::setClanDistribution, deadline),
+            start("Currency stats", ViewsDao::getCurrencyStats, dashboard::setCurrencyStats, deadline),
+            start("Item type stats", ViewsDao::getItemTypeStats, dashboard::setItemTypeStats, deadline)
+        };
+
+        for (PendingSection<?> section : sections) {
+            collect(section, deadline, dashboard);
+        }
+
+        return dashboard;
+    }
+
+    private static <T> PendingSection<T> start(String name, SectionQuery<T> query, Consumer<T> target,
+                                               long deadline) {
+        Future<T> future = EXECUTOR.submit(() -> {
+            try (Connection cxn = ConnectionManager.getConnection()) {
+                return query.load(withDeadline(cxn, deadline));
+            }
+        });
+        return new PendingSection<>(name, future, target);
+    }
+
+    /**
+     * Wraps a connection so that each statement it creates times out at the deadline
+     */
+    private static Connection withDeadline(Connection cxn, long deadline) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new DeadlineHandler(cxn, deadline));
+    }
+
+    private static class DeadlineHandler implements InvocationHandler {
+        private final Connection cxn;
+        private final long deadline;
+
+        DeadlineHandler(Connection cxn, long deadline) {
+            this.cxn = cxn;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(cxn, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                Statement stmt = (Statement) result;
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    stmt.close();
+                    throw new SQLTimeoutException("Dashboard query budget is used up");
+                }
+                // Whole seconds only, rounded up so a query is never cut before the deadline
+                stmt.setQueryTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + 999_999_999L)));
+            }
+            return result;
+        }
+    }
+
+    private static <T> void collect(PendingSection<T> section, long deadline, Dashboard dashboard) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            section.target.accept(section.future.get(remaining, TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            section.future.cancel(true);
+            System.err.println("Dashboard section timed out: " + section.name);
+            dashboard.addFailedSection(section.name);
+        } catch (ExecutionException e) {
+            System.err.println("Dashboard section failed: " + section.name + " - " + e.getCause().getMessage());
+            dashboard.addFailedSection(section.name);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            section.future.cancel(true);
+            dashboard.addFailedSection(section.name);
+        }
+    }
+}
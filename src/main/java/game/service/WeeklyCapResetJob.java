@@ -0,0 +1,256 @@
+package game.service;
+
+import game.dal.CharacterWealthDao;
+import game.dal.ConnectionManager;
+import game.dal.MaintenanceJobStateDao;
+import game.model.MaintenanceJobState;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resets CharacterWealth.weeklyAcquired when a new week begins, so the
+ * weekly caps in Currencies apply per week.
+ *
+ * One UPDATE over the whole table would hold its row locks until it ends.
+ * Instead the job walks the table in charID ranges of about chunkSize rows.
+ * Each range is reset in its own short transaction, together with the job's
+ * high-water mark in MaintenanceJobState, and the job pauses between
+ * chunks. After a restart it carries on from the mark. The mark only moves
+ * by compare-and-set, before the chunk's rows are touched, so several
+ * application instances can run the job without repeating a chunk.
+ *
+ * Each row records the week its weeklyAcquired was counted in, and credits
+ * treat a total from an earlier week as 0 (see CharacterWealthDao.addToAmount).
+ * So the caps start over at the week boundary even for rows the job has
+ * not reached yet, and the job only clears totals left from earlier weeks.
+ * MaintenanceJobState and the week column are created by SchemaMigrations.
+ */
+public class WeeklyCapResetJob {
+
+    public static final String JOB_NAME = "weeklyCapReset";
+    // Weeks start at the weekly reset, Tuesday 15:00 UTC
+    public static final DayOfWeek RESET_DAY = DayOfWeek.TUESDAY;
+    public static final LocalTime RESET_TIME = LocalTime.of(15, 0);
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    public static final long DEFAULT_PAUSE_MILLIS = 100;
+    // How often the scheduler checks for a new week or an unfinished reset
+    private static final long CHECK_INTERVAL_SECONDS = 300;
+    private static final DateTimeFormatter PERIOD_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm'Z'");
+
+    private static volatile int chunkSize = DEFAULT_CHUNK_SIZE;
+    private static volatile long pauseMillis = DEFAULT_PAUSE_MILLIS;
+    private static final AtomicBoolean inProgress = new AtomicBoolean(false);
+    private static ScheduledExecutorService scheduler;
+
+    // Progress, published on /metrics
+    private static volatile boolean running = false;
+    private static volatile String period;
+    private static volatile int highWaterMark;
+    private static volatile int lastCharID;
+    private static volatile long lastChunkMillis;
+    private static volatile long lastCompletedAtMillis;
+    private static final LongAdder rowsReset = new LongAdder();
+    private static final LongAdder chunks = new LongAdder();
+    private static final LongAdder conflicts = new LongAdder();
+    private static final LongAdder failures = new LongAdder();
+
+    private WeeklyCapResetJob() {}
+
+    /**
+     * Check for a reset to do now and then every few minutes, resetting
+     * chunkSize rows per transaction and pausing at least pauseMillis between them
+     */
+    public static synchronized void start(int chunkSize, long pauseMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        WeeklyCapResetJob.chunkSize = chunkSize;
+        WeeklyCapResetJob.pauseMillis = pauseMillis;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "weekly-cap-reset");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(WeeklyCapResetJob::runOnce, 0, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the scheduler; a reset in progress stops after its current chunk
+     * and resumes from the high-water mark on the next start
+     */
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Start of the week that contains the given time
+     */
+    public static ZonedDateTime periodStart(ZonedDateTime time) {
+        ZonedDateTime utc = time.withZoneSameInstant(ZoneOffset.UTC);
+        ZonedDateTime start = utc.with(TemporalAdjusters.previousOrSame(RESET_DAY)).with(RESET_TIME);
+        return start.isAfter(utc) ? start.minusWeeks(1) : start;
+    }
+
+    /**
+     * The week that contains now, as its start in UTC; also what
+     * CharacterWealth.weeklyPeriod holds. Later weeks compare greater as strings.
+     */
+    public static String currentPeriod() {
+        return PERIOD_FORMAT.format(periodStart(ZonedDateTime.now(ZoneOffset.UTC)));
+    }
+
+    /**
+     * The week to record on weekly totals that were written without one:
+     * the week the reset last finished, the week before a reset that is
+     * still running, or this week if the reset never ran
+     */
+    public static String periodOfUnstampedTotals(Connection cxn) throws SQLException {
+        MaintenanceJobState state = MaintenanceJobStateDao.getMaintenanceJobStateByJobName(cxn, JOB_NAME);
+        if (state == null) {
+            return currentPeriod();
+        }
+        if (state.isCompleted()) {
+            return state.getPeriod();
+        }
+        // Rows the running reset has not reached yet still hold the previous week's totals
+        ZonedDateTime start = LocalDateTime.parse(state.getPeriod(), PERIOD_FORMAT).atZone(ZoneOffset.UTC);
+        return PERIOD_FORMAT.format(start.minusWeeks(1));
+    }
+
+    /**
+     * Bring the reset up to date: start it if a new week began since the
+     * last one, or finish a reset that was interrupted. Does nothing if a
+     * reset is already running in this JVM.
+     */
+    public static void runOnce() {
+        if (!inProgress.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            resetCurrentPeriod();
+        } catch (SQLException e) {
+            failures.increment();
+            System.err.println("Weekly cap reset failed, retrying at the next check: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+            inProgress.set(false);
+        }
+    }
+
+    private static void resetCurrentPeriod() throws SQLException, InterruptedException {
+        String currentPeriod = currentPeriod();
+        MaintenanceJobState state;
+        try (Connection cxn = ConnectionManager.getConnection()) {
+            state = MaintenanceJobStateDao.getMaintenanceJobStateByJobName(cxn, JOB_NAME);
+            if (state == null || state.getPeriod().compareTo(currentPeriod) < 0) {
+                MaintenanceJobStateDao.startPeriod(cxn, JOB_NAME, currentPeriod);
+                state = MaintenanceJobStateDao.getMaintenanceJobStateByJobName(cxn, JOB_NAME);
+            }
+            period = state.getPeriod();
+            highWaterMark = state.getHighWaterMark();
+            if (state.isCompleted()) {
+                return;
+            }
+            lastCharID = CharacterWealthDao.getMaxCharID(cxn);
+        }
+
+        running = true;
+        System.out.println("🔄 Weekly cap reset for the week of " + period + " from charID " + highWaterMark);
+        int mark = state.getHighWaterMark();
+        while (mark != Integer.MAX_VALUE) {
+            long start = System.nanoTime();
+            try (Connection cxn = ConnectionManager.getConnection()) {
+                Integer bound = CharacterWealthDao.getChunkUpperBound(cxn, mark, chunkSize);
+                // The last chunk takes everything after the mark, including rows added meanwhile
+                int upTo = bound != null ? bound : Integer.MAX_VALUE;
+
+                boolean previousAutoCommit = cxn.getAutoCommit();
+                cxn.setAutoCommit(false);
+                try {
+                    // Claim the chunk first, so an instance that lost the race locks no wealth rows
+                    if (MaintenanceJobStateDao.advance(cxn, JOB_NAME, period, mark, upTo)) {
+                        int rows = CharacterWealthDao.resetWeeklyAcquired(cxn, mark, upTo, period);
+                        if (rows > 0) {
+                            MaintenanceJobStateDao.addRowsProcessed(cxn, JOB_NAME, period, rows);
+                        }
+                        if (bound == null) {
+                            MaintenanceJobStateDao.markCompleted(cxn, JOB_NAME, period);
+                        }
+                        cxn.commit();
+                        rowsReset.add(rows);
+                        chunks.increment();
+                        mark = upTo;
+                    } else {
+                        // Another instance moved the mark, or a newer week started: continue from where it is
+                        cxn.rollback();
+                        conflicts.increment();
+                        state = MaintenanceJobStateDao.getMaintenanceJobStateByJobName(cxn, JOB_NAME);
+                        if (state == null || !period.equals(state.getPeriod()) || state.isCompleted()) {
+                            return;
+                        }
+                        mark = state.getHighWaterMark();
+                    }
+                } catch (SQLException e) {
+                    cxn.rollback();
+                    throw e;
+                } finally {
+                    cxn.setAutoCommit(previousAutoCommit);
+                }
+            }
+            highWaterMark = mark;
+            lastChunkMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            if (mark != Integer.MAX_VALUE) {
+                // Leave the table to other transactions for at least as long as the chunk held it
+                Thread.sleep(Math.max(pauseMillis, lastChunkMillis));
+            }
+        }
+        lastCompletedAtMillis = System.currentTimeMillis();
+        System.out.println("✅ Weekly cap reset for the week of " + period + " completed");
+    }
+
+    public static boolean isRunning() { return running; }
+
+    /**
+     * Week the job is working on or last finished, as its start in UTC; null before the first check
+     */
+    public static String getPeriod() { return period; }
+
+    /**
+     * Share of the table reset so far this week, 0 to 1, estimated from the high-water mark
+     */
+    public static double getProgress() {
+        if (highWaterMark == Integer.MAX_VALUE) {
+            return 1;
+        }
+        return lastCharID <= 0 ? 0 : Math.min(1, (double) highWaterMark / lastCharID);
+    }
+
+    public static int getHighWaterMark() { return highWaterMark; }
+    public static long getRowsReset() { return rowsReset.sum(); }
+    public static long getChunkCount() { return chunks.sum(); }
+    /** Chunks another instance had already done */
+    public static long getConflictCount() { return conflicts.sum(); }
+    public static long getFailureCount() { return failures.sum(); }
+    public static long getLastChunkMillis() { return lastChunkMillis; }
+    /** When this JVM last finished a reset, 0 if it has not */
+    public static long getLastCompletedAtMillis() { return lastCompletedAtMillis; }
+}
@@ -0,0 +1,103 @@
+package game.servlet;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import game.dal.CatalogCache;
+import game.dal.ConnectionManager;
+import game.dal.NameSearchIndex;
+import game.dal.PlayerActivityTracker;
+import game.service.DashboardCache;
+import game.service.WeeklyCapResetJob;
+import game.sql.SchemaMigrations;
+import game.sql.StoredProcedures;
+
+/**
+ * Starts and stops application-wide resources together with the web application.
+ */
+@WebListener
+public class AppLifecycleListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        // Open the pool eagerly so the first request does not pay for it
+        System.out.println("DEBUG: Connection pool ready - " + ConnectionManager.getPool());
+        
+        // Apply the schema migrations this build adds before anything reads the tables
+        try (Connection cxn = ConnectionManager.getConnection()) {
+            SchemaMigrations.migrate(cxn);
+            System.out.println("DEBUG: Schema at version " + SchemaMigrations.getCurrentVersion(cxn));
+        } catch (SQLException e) {
+            // Schema may not exist yet; Driver.resetSchema migrates it when it creates it
+            System.err.println("Schema migration failed: " + e.getMessage());
+        }
+        
+        // Recreate the procedures from this build's queries; without them the DAOs run the queries one by one
+        try (Connection cxn = ConnectionManager.getConnection()) {
+            StoredProcedures.createAll(cxn);
+        } catch (SQLException e) {
+            System.err.println("Stored procedure creation failed: " + e.getMessage());
+        }
+        
+        // Load the catalog tables so lookups in request loops skip the database
+        try (Connection cxn = ConnectionManager.getConnection()) {
+            CatalogCache.warm(cxn);
+            System.out.println("DEBUG: " + CatalogCache.describe());
+        } catch (SQLException e) {
+            // Schema may not exist yet; the cache fills on demand instead
+            System.err.println("Catalog cache warm-up failed: " + e.getMessage());
+        }
+        
+        // Index player and character names for the search; until then it runs in SQL
+        try (Connection cxn = ConnectionManager.getConnection()) {
+            NameSearchIndex.build(cxn);
+            System.out.println("DEBUG: " + NameSearchIndex.describe());
+        } catch (SQLException e) {
+            System.err.println("Name search index build failed, searching with SQL: " + e.getMessage());
+        }
+        
+        // Refresh interval for the dashboard snapshot, see web.xml
+        long refreshSeconds = longParameter(sce, "dashboardRefreshSeconds", DashboardCache.DEFAULT_REFRESH_SECONDS);
+        DashboardCache.start(refreshSeconds);
+        System.out.println("DEBUG: Dashboard snapshot refreshes every " + refreshSeconds + "s");
+        
+        // Chunk size and pause of the weekly cap reset, see web.xml
+        int chunkSize = (int) longParameter(sce, "weeklyResetChunkSize", WeeklyCapResetJob.DEFAULT_CHUNK_SIZE);
+        long pauseMillis = longParameter(sce, "weeklyResetPauseMillis", WeeklyCapResetJob.DEFAULT_PAUSE_MILLIS);
+        WeeklyCapResetJob.start(chunkSize, pauseMillis);
+        System.out.println("DEBUG: Weekly cap reset resets " + chunkSize + " rows per chunk, pausing " + pauseMillis + "ms");
+        
+        // Player activity is written behind, see web.xml
+        long flushSeconds = longParameter(sce, "activityFlushSeconds", PlayerActivityTracker.DEFAULT_FLUSH_INTERVAL_SECONDS);
+        int flushThreshold = (int) longParameter(sce, "activityFlushThreshold", PlayerActivityTracker.DEFAULT_FLUSH_THRESHOLD);
+        PlayerActivityTracker.start(flushSeconds, flushThreshold);
+        System.out.println("DEBUG: Player activity flushes every " + flushSeconds + "s or at " + flushThreshold + " players");
+    }
+    
+    private static long longParameter(ServletContextEvent sce, String name, long defaultValue) {
+        String configured = sce.getServletContext().getInitParameter(name);
+        if (configured == null || configured.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(configured.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + name + " '" + configured + "', using default");
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        WeeklyCapResetJob.stop();
+        DashboardCache.stop();
+        // Write the pending activity while the pool is still open
+        PlayerActivityTracker.stop();
+        ConnectionManager.shutdown();
+        System.out.println("DEBUG: Connection pool shut down");
+    }
+}
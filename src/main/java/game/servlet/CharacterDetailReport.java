@@ -9,9 +9,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import game.dal.*;
@@ -35,29 +33,17 @@ public class CharacterDetailReport extends HttpServlet {
                 int charID = Integer.parseInt(charIDStr);
                 
                 try (Connection connection = ConnectionManager.getConnection()) {
-                    // Get character details
-                    Characters character = CharactersDao.getCharacterByCharID(connection, charID);
-                    if (character == null) {
+                    // Character, inventory, equipped items, wealth and jobs in one round trip
+                    CharacterAggregate aggregate = CharacterAggregateDao.getCharacterAggregate(connection, charID);
+                    if (aggregate == null) {
                         messages.put("success", "No character found with ID " + charID);
                     } else {
                         messages.put("success", "Displaying details for character ID " + charID);
-                        req.setAttribute("character", character);
-                        
-                        // Get character's inventory
-                        List<InventoryItemDetail> inventoryDetails = ViewsDao.getCharacterInventoryDetails(connection, charID);
-                        req.setAttribute("inventoryDetails", inventoryDetails);
-                        
-                        // Get character's equipped items
-                        List<EquippedItems> equippedItems = EquippedItemsDao.getEquippedItemsOnlyByCharacters(connection, character);
-                        req.setAttribute("equippedItems", equippedItems);
-                        
-                        // Get character's wealth
-                        List<CharacterWealth> wealth = CharacterWealthDao.getCharacterWealthByCharacter(connection, character);
-                        req.setAttribute("wealth", wealth);
-                        
-                        // Get character's unlocked jobs
-                        List<CharacterUnlockedJob> unlockedJobs = CharacterUnlockedJobDao.getCharacterUnlockedJobByCharID(connection, charID);
-                        req.setAttribute("unlockedJobs", unlockedJobs);
+                        req.setAttribute("character", aggregate.getCharacter());
+                        req.setAttribute("inventoryDetails", aggregate.getInventoryDetails());
+                        req.setAttribute("equippedItems", aggregate.getEquippedItems());
+                        req.setAttribute("wealth", aggregate.getWealth());
+                        req.setAttribute("unlockedJobs", aggregate.getUnlockedJobs());
                     }
                 } catch (SQLException e) {
                     e.printStackTrace();
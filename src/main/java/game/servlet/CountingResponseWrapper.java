@@ -0,0 +1,160 @@
+package game.servlet;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Response wrapper that counts the body bytes written through it.
+ *
+ * Output stream writes are counted as they are. Writer output is counted
+ * as encoded: exactly for UTF-8, which every page of this application
+ * uses, and one byte per character for other encodings. The writer still
+ * writes to the container's own writer, so buffering and encoding are
+ * unchanged.
+ */
+class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final LongAdder bytes = new LongAdder();
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CountingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    long getByteCount() {
+        return bytes.sum();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CountingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            boolean utf8 = StandardCharsets.UTF_8.name().equalsIgnoreCase(getCharacterEncoding());
+            writer = new PrintWriter(new CountingWriter(super.getWriter(), utf8));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    private class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream out;
+
+        CountingOutputStream(ServletOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes.increment();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes.add(len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            out.setWriteListener(listener);
+        }
+    }
+
+    private class CountingWriter extends Writer {
+        private final Writer out;
+        private final boolean utf8;
+
+        CountingWriter(Writer out, boolean utf8) {
+            this.out = out;
+            this.utf8 = utf8;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            if (!utf8) {
+                bytes.add(len);
+                return;
+            }
+            long encoded = 0;
+            for (int i = off; i < off + len; i++) {
+                encoded += utf8Length(cbuf[i]);
+            }
+            bytes.add(encoded);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            if (!utf8) {
+                bytes.add(len);
+                return;
+            }
+            long encoded = 0;
+            for (int i = off; i < off + len; i++) {
+                encoded += utf8Length(str.charAt(i));
+            }
+            bytes.add(encoded);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    // A surrogate pair encodes to 4 bytes, so each half counts 2
+    private static int utf8Length(char c) {
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800 || Character.isSurrogate(c)) {
+            return 2;
+        }
+        return 3;
+    }
+}
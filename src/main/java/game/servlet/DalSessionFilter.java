@@ -0,0 +1,37 @@
+package game.servlet;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+
+import java.io.IOException;
+
+import game.dal.DalSession;
+
+/**
+ * Opens a DalSession for each request, so rows read more than once during
+ * the request are loaded once.
+ */
+@WebFilter("/*")
+public class DalSessionFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse resp, FilterChain chain)
+            throws IOException, ServletException {
+        // Forwards and includes run on the same thread inside the outer session
+        if (DalSession.current() != null) {
+            chain.doFilter(req, resp);
+            return;
+        }
+
+        DalSession session = DalSession.open();
+        try {
+            chain.doFilter(req, resp);
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -16,6 +16,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import game.dal.ConnectionManager;
 import game.etl.WoWDataETL;
+import game.service.DashboardCache;
 
 @WebServlet("/etl")
 public class ETLController extends HttpServlet {
@@ -70,6 +71,8 @@ public class ETLController extends HttpServlet {
                             e.printStackTrace();
                         } finally {
                             isETLRunning.set(false);
+                            // New players and characters change every dashboard number
+                            DashboardCache.invalidate();
                         }
                     });
                     
@@ -23,6 +23,10 @@ public class FindCharacter extends HttpServlet {
 	private static final long serialVersionUID = 1L;
 	// Message label for response messages
 	private static final String RESPONSE_MESSAGE = "response";
+	// Number of characters shown per page of the full listing
+	private static final int PAGE_SIZE = 50;
+	// Most players whose characters a last name search shows, best matches first
+	private static final int SEARCH_LIMIT = 500;
 
 	@Override
 	public void doGet(
@@ -100,9 +104,12 @@ public class FindCharacter extends HttpServlet {
 					messages.put(RESPONSE_MESSAGE, "No search term provided. PLease enter a player's last name.");
 				}
 			} else {
-				// initial page - show all characters
+				// initial page - show all characters, one page at a time
 				// debugInfo += "Initial page load |";
-				characters = CharactersDao.getAllCharacters(cxn, sortBy, sortOrder);
+				CharacterPage page = CharactersDao.getCharactersPage(
+						cxn, sortBy, sortOrder, req.getParameter("cursor"), PAGE_SIZE);
+				characters = page.getCharacters();
+				req.setAttribute("page", page);
 				messages.put(RESPONSE_MESSAGE, "Displaying all characters: ");
 			}
 			
@@ -119,7 +126,9 @@ public class FindCharacter extends HttpServlet {
 	
 	/**
 	 * add in pm4
-	 * Get all Characters records by similar Player's lastName
+	 * Get all Characters records by similar Player's lastName.
+	 * The players come from the in-memory NameSearchIndex once it is built,
+	 * and from a LIKE query on Players until then.
 	 * @return a list of all characters
 	 */
 
@@ -129,11 +138,17 @@ public class FindCharacter extends HttpServlet {
 			final String sortBy,
 		    final String sortOrder
 	) throws SQLException {
-		  List<Players> players = PlayersDao.getPlayersFromLastName(cxn, playerLastName);
-		  
-		  List<Integer> playerIDs = players.stream()
-				  .map(Players::getPlayerID)
-				  .collect(Collectors.toList());
+		  List<Integer> playerIDs;
+		  if (NameSearchIndex.isReady()) {
+			  playerIDs = NameSearchIndex.findPlayersByLastName(playerLastName, SEARCH_LIMIT);
+		  } else {
+			  List<Players> players = PlayersDao.getPlayersFromLastName(cxn, playerLastName);
+			  
+			  playerIDs = players.stream()
+					  .map(Players::getPlayerID)
+					  .limit(SEARCH_LIMIT)
+					  .collect(Collectors.toList());
+		  }
 		  
 		  return CharactersDao.getCharactersByPlayerIDs(cxn, playerIDs, sortBy, sortOrder);
 	  }  	
@@ -7,15 +7,13 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import game.dal.ConnectionManager;
-import game.dal.ViewsDao;
 import game.model.Analytics.*;
+import game.service.DashboardCache;
+import game.service.DashboardLoader;
 
 @WebServlet("/home")
 public class HomeController extends HttpServlet {
@@ -26,52 +24,56 @@ public class HomeController extends HttpServlet {
         Map<String, String> messages = new HashMap<>();
         req.setAttribute("messages", messages);
         
-        try (Connection connection = ConnectionManager.getConnection()) {
-            
-            // Get all data from views
-            OverallStats overallStats = ViewsDao.getOverallStats(connection);
-            req.setAttribute("overallStats", overallStats);
-            System.out.println("DEBUG: Overall stats loaded - Players: " + overallStats.getTotalPlayers());
-            
-            List<DailyActivePlayer> dailyActivePlayers = ViewsDao.getDailyActivePlayers(connection);
-            req.setAttribute("dailyActiveUsers", dailyActivePlayers);
-            System.out.println("DEBUG: Daily active players count: " + dailyActivePlayers.size());
-            for (DailyActivePlayer dap : dailyActivePlayers) {
-                System.out.println("  - Date: " + dap.getActivityDate() + ", Count: " + dap.getActiveCount());
-            }
-            
-            List<TopPlayer> topPlayersByLevel = ViewsDao.getTopPlayersByLevel(connection);
-            req.setAttribute("topPlayersByLevel", topPlayersByLevel);
-            System.out.println("DEBUG: Top players by level count: " + topPlayersByLevel.size());
-            
-            List<TopPlayerWealth> topPlayersByWealth = ViewsDao.getTopPlayersByWealth(connection);
-            req.setAttribute("topPlayersByWealth", topPlayersByWealth);
-            System.out.println("DEBUG: Top players by wealth count: " + topPlayersByWealth.size());
-            
-            List<JobDistribution> jobDistribution = ViewsDao.getJobDistribution(connection);
-            req.setAttribute("jobDistribution", jobDistribution);
-            System.out.println("DEBUG: Job distribution count: " + jobDistribution.size());
-            for (JobDistribution job : jobDistribution) {
-                System.out.println("  - Job: " + job.getJobName() + ", Count: " + job.getCharacterCount());
-            }
-            
-            List<ClanDistribution> clanDistribution = ViewsDao.getClanDistribution(connection);
-            req.setAttribute("clanDistribution", clanDistribution);
-            System.out.println("DEBUG: Clan distribution count: " + clanDistribution.size());
-            
-            List<CurrencyStats> currencyStats = ViewsDao.getCurrencyStats(connection);
-            req.setAttribute("currencyStats", currencyStats);
-            System.out.println("DEBUG: Currency stats count: " + currencyStats.size());
-            
-            List<ItemTypeStats> itemStats = ViewsDao.getItemTypeStats(connection);
-            req.setAttribute("itemStats", itemStats);
-            System.out.println("DEBUG: Item stats count: " + itemStats.size());
-            
-            messages.put("success", "Dashboard data loaded successfully from database views");
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            messages.put("error", "Failed to load dashboard data: " + e.getMessage());
+        // Served from the in-process snapshot; it is refreshed in the background
+        DashboardCache.Snapshot snapshot = DashboardCache.get();
+        Dashboard dashboard = snapshot.getDashboard();
+        
+        OverallStats overallStats = dashboard.getOverallStats();
+        req.setAttribute("overallStats", overallStats);
+        System.out.println("DEBUG: Overall stats loaded - Players: " + overallStats.getTotalPlayers());
+        
+        List<DailyActivePlayer> dailyActivePlayers = dashboard.getDailyActivePlayers();
+        req.setAttribute("dailyActiveUsers", dailyActivePlayers);
+        System.out.println("DEBUG: Daily active players count: " + dailyActivePlayers.size());
+        for (DailyActivePlayer dap : dailyActivePlayers) {
+            System.out.println("  - Date: " + dap.getActivityDate() + ", Count: " + dap.getActiveCount());
+        }
+        
+        List<TopPlayer> topPlayersByLevel = dashboard.getTopPlayersByLevel();
+        req.setAttribute("topPlayersByLevel", topPlayersByLevel);
+        System.out.println("DEBUG: Top players by level count: " + topPlayersByLevel.size());
+        
+        List<TopPlayerWealth> topPlayersByWealth = dashboard.getTopPlayersByWealth();
+        req.setAttribute("topPlayersByWealth", topPlayersByWealth);
+        System.out.println("DEBUG: Top players by wealth count: " + topPlayersByWealth.size());
+        
+        List<JobDistribution> jobDistribution = dashboard.getJobDistribution();
+        req.setAttribute("jobDistribution", jobDistribution);
+        System.out.println("DEBUG: Job distribution count: " + jobDistribution.size());
+        for (JobDistribution job : jobDistribution) {
+            System.out.println("  - Job: " + job.getJobName() + ", Count: " + job.getCharacterCount());
+        }
+        
+        List<ClanDistribution> clanDistribution = dashboard.getClanDistribution();
+        req.setAttribute("clanDistribution", clanDistribution);
+        System.out.println("DEBUG: Clan distribution count: " + clanDistribution.size());
+        
+        List<CurrencyStats> currencyStats = dashboard.getCurrencyStats();
+        req.setAttribute("currencyStats", currencyStats);
+        System.out.println("DEBUG: Currency stats count: " + currencyStats.size());
+        
+        List<ItemTypeStats> itemStats = dashboard.getItemTypeStats();
+        req.setAttribute("itemStats", itemStats);
+        System.out.println("DEBUG: Item stats count: " + itemStats.size());
+        
+        if (dashboard.isComplete()) {
+            messages.put("success", "Dashboard data loaded successfully from database views ("
+                    + (snapshot.getAgeMillis() / 1000) + "s ago)");
+        } else if (dashboard.getFailedSections().size() == DashboardLoader.SECTION_COUNT) {
+            messages.put("error", "Failed to load dashboard data");
+        } else {
+            messages.put("warning", "Some dashboard sections could not be loaded: "
+                    + String.join(", ", dashboard.getFailedSections()));
         }
         
         req.getRequestDispatcher("/Home.jsp").forward(req, resp);
@@ -0,0 +1,243 @@
+package game.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+
+import game.dal.CatalogCache;
+import game.dal.ConnectionManager;
+import game.dal.ConnectionPool;
+import game.dal.PlayerActivityTracker;
+import game.dal.QueryStats;
+import game.etl.ApiResponseCache;
+import game.service.BusinessRulesService;
+import game.service.CurrencyLedger;
+import game.service.DashboardCache;
+import game.service.WeeklyCapResetJob;
+
+/**
+ * Publishes request, connection pool, cache and JVM metrics in the
+ * Prometheus text exposition format (version 0.0.4), for scraping.
+ *
+ * Nothing is created on the way: the pool and the API cache are only
+ * reported once the application has started them.
+ */
+@WebServlet("/metrics")
+public class MetricsController extends HttpServlet {
+
+    private static final String PREFIX = "wowdatahub_";
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        StringBuilder out = new StringBuilder(8192);
+        writeRequestMetrics(out);
+        writePoolMetrics(out);
+        writeCacheMetrics(out);
+        writeQueryMetrics(out);
+        writeMaintenanceMetrics(out);
+        writeJvmMetrics(out);
+
+        resp.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(out.toString());
+    }
+
+    private static void writeRequestMetrics(StringBuilder out) {
+        header(out, "http_requests_total", "counter", "HTTP requests by servlet path and status");
+        for (RequestMetrics.PathMetrics path : RequestMetrics.getAll()) {
+            for (Map.Entry<Integer, Long> e : path.getCountByStatus().entrySet()) {
+                sample(out, "http_requests_total", labels("path", path.getPath(), "status", e.getKey().toString()), e.getValue());
+            }
+        }
+
+        header(out, "http_request_duration_seconds", "histogram", "HTTP request latency by servlet path");
+        for (RequestMetrics.PathMetrics path : RequestMetrics.getAll()) {
+            long[] cumulative = path.getCumulativeBucketCounts();
+            long count = path.getCount();
+            for (int i = 0; i < cumulative.length; i++) {
+                sample(out, "http_request_duration_seconds_bucket",
+                    labels("path", path.getPath(), "le", formatDouble(RequestMetrics.LATENCY_BUCKETS_SECONDS[i])),
+                    // Read separately from count, so keep the buckets from exceeding it
+                    Math.min(cumulative[i], count));
+            }
+            sample(out, "http_request_duration_seconds_bucket", labels("path", path.getPath(), "le", "+Inf"), count);
+            sample(out, "http_request_duration_seconds_sum", labels("path", path.getPath()), path.getTotalSeconds());
+            sample(out, "http_request_duration_seconds_count", labels("path", path.getPath()), count);
+        }
+
+        header(out, "http_response_bytes_total", "counter", "Response body bytes by servlet path");
+        for (RequestMetrics.PathMetrics path : RequestMetrics.getAll()) {
+            sample(out, "http_response_bytes_total", labels("path", path.getPath()), path.getResponseBytes());
+        }
+
+        header(out, "http_requests_in_flight", "gauge", "Requests being handled");
+        sample(out, "http_requests_in_flight", "", RequestMetrics.getInFlight());
+    }
+
+    private static void writePoolMetrics(StringBuilder out) {
+        ConnectionPool pool = ConnectionManager.getPoolIfStarted();
+        if (pool == null) {
+            return;
+        }
+        gauge(out, "db_pool_connections_active", "Connections borrowed from the pool", pool.getActiveCount());
+        gauge(out, "db_pool_connections_idle", "Idle connections in the pool", pool.getIdleCount());
+        gauge(out, "db_pool_connections_max", "Upper bound on pooled connections", pool.getMaxSize());
+        gauge(out, "db_pool_pending_borrows", "Threads waiting for a connection", pool.getPendingCount());
+        counter(out, "db_pool_borrows_total", "Connections borrowed", pool.getBorrowCount());
+        counter(out, "db_pool_borrow_timeouts_total", "Borrows that timed out waiting", pool.getTimeoutCount());
+        counter(out, "db_pool_connections_created_total", "Physical connections opened", pool.getCreatedCount());
+        counter(out, "db_pool_connections_evicted_total", "Idle connections closed", pool.getEvictedCount());
+        counter(out, "db_pool_validation_failures_total", "Connections that failed validation on borrow", pool.getValidationFailureCount());
+        counter(out, "db_pool_leaks_total", "Connections held longer than the leak threshold", pool.getLeakCount());
+        gauge(out, "db_pool_wait_seconds_max", "Longest wait for a connection", pool.getMaxWaitMillis() / 1000.0);
+        counter(out, "db_statement_cache_hits_total", "Prepared statements reused from the cache", pool.getStatementCacheHitCount());
+        counter(out, "db_statement_cache_misses_total", "Prepared statements that had to be prepared", pool.getStatementCacheMissCount());
+        counter(out, "db_statement_cache_evictions_total", "Prepared statements evicted from the cache", pool.getStatementCacheEvictionCount());
+    }
+
+    private static void writeCacheMetrics(StringBuilder out) {
+        counter(out, "catalog_cache_hits_total", "Catalog cache lookups answered from memory", CatalogCache.getHitCount());
+        counter(out, "catalog_cache_misses_total", "Catalog cache lookups that went to the database", CatalogCache.getMissCount());
+        gauge(out, "catalog_cache_entries", "Rows held by the catalog cache", CatalogCache.getSize());
+
+        ApiResponseCache apiCache = ApiResponseCache.getSharedIfCreated();
+        if (apiCache != null) {
+            header(out, "api_cache_requests_total", "counter", "Battle.net API requests by how the response cache served them");
+            sample(out, "api_cache_requests_total", labels("result", "hit"), apiCache.getHitCount());
+            sample(out, "api_cache_requests_total", labels("result", "revalidated"), apiCache.getRevalidatedCount());
+            sample(out, "api_cache_requests_total", labels("result", "miss"), apiCache.getMissCount());
+        }
+
+        DashboardCache.Snapshot snapshot = DashboardCache.peek();
+        if (snapshot != null) {
+            gauge(out, "dashboard_snapshot_age_seconds", "Age of the cached dashboard", snapshot.getAgeMillis() / 1000.0);
+        }
+    }
+
+    private static void writeQueryMetrics(StringBuilder out) {
+        counter(out, "db_queries_total", "Statements run through instrumented connections", QueryStats.getTotalCalls());
+        gauge(out, "db_query_fingerprints", "Distinct statements recorded by QueryStats", QueryStats.getFingerprintCount());
+        counter(out, "weapon_swap_deadlock_retries_total", "Weapon swaps retried after losing a deadlock", BusinessRulesService.getEquipRetryCount());
+        counter(out, "currency_ledger_deadlock_retries_total", "Currency ledger transactions retried after losing a deadlock", CurrencyLedger.getRetryCount());
+    }
+
+    private static void writeMaintenanceMetrics(StringBuilder out) {
+        counter(out, "player_activity_touches_total", "Player activity events recorded", PlayerActivityTracker.getTouchCount());
+        gauge(out, "player_activity_pending", "Players with activity not yet written", PlayerActivityTracker.getPendingCount());
+        counter(out, "player_activity_flushes_total", "Batched writes of player activity", PlayerActivityTracker.getFlushCount());
+        counter(out, "player_activity_rows_written_total", "Players rows updated by activity flushes", PlayerActivityTracker.getRowsWritten());
+        counter(out, "player_activity_flush_failures_total", "Activity flushes that failed and were kept for the next", PlayerActivityTracker.getFailureCount());
+
+        gauge(out, "weekly_reset_running", "1 while the weekly cap reset is resetting rows", WeeklyCapResetJob.isRunning() ? 1 : 0);
+        gauge(out, "weekly_reset_progress_ratio", "Share of CharacterWealth reset for the current week", WeeklyCapResetJob.getProgress());
+        counter(out, "weekly_reset_rows_total", "weeklyAcquired values reset to 0", WeeklyCapResetJob.getRowsReset());
+        counter(out, "weekly_reset_chunks_total", "Chunks reset, one transaction each", WeeklyCapResetJob.getChunkCount());
+        counter(out, "weekly_reset_conflicts_total", "Chunks already done by another instance", WeeklyCapResetJob.getConflictCount());
+        counter(out, "weekly_reset_failures_total", "Reset runs that stopped on a database error", WeeklyCapResetJob.getFailureCount());
+        gauge(out, "weekly_reset_last_chunk_seconds", "Time the last chunk took", WeeklyCapResetJob.getLastChunkMillis() / 1000.0);
+        if (WeeklyCapResetJob.getLastCompletedAtMillis() > 0) {
+            gauge(out, "weekly_reset_last_completed_timestamp_seconds", "When this instance last finished a weekly reset",
+                WeeklyCapResetJob.getLastCompletedAtMillis() / 1000.0);
+        }
+    }
+
+    private static void writeJvmMetrics(StringBuilder out) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        header(out, "jvm_memory_used_bytes", "gauge", "Memory in use");
+        sample(out, "jvm_memory_used_bytes", labels("area", "heap"), heap.getUsed());
+        sample(out, "jvm_memory_used_bytes", labels("area", "nonheap"), nonHeap.getUsed());
+        header(out, "jvm_memory_committed_bytes", "gauge", "Memory committed by the JVM");
+        sample(out, "jvm_memory_committed_bytes", labels("area", "heap"), heap.getCommitted());
+        sample(out, "jvm_memory_committed_bytes", labels("area", "nonheap"), nonHeap.getCommitted());
+        gauge(out, "jvm_memory_heap_max_bytes", "Maximum heap size", heap.getMax());
+
+        header(out, "jvm_gc_collections_total", "counter", "Garbage collections by collector");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collections_total", labels("gc", gc.getName()), Math.max(0, gc.getCollectionCount()));
+        }
+        header(out, "jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collection by collector");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collection_seconds_total", labels("gc", gc.getName()), Math.max(0, gc.getCollectionTime()) / 1000.0);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        gauge(out, "jvm_threads_live", "Live platform threads", threads.getThreadCount());
+        gauge(out, "jvm_threads_daemon", "Live daemon threads", threads.getDaemonThreadCount());
+        gauge(out, "jvm_threads_peak", "Most live threads since start", threads.getPeakThreadCount());
+
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        gauge(out, "jvm_available_processors", "Processors available to the JVM", os.getAvailableProcessors());
+        if (os.getSystemLoadAverage() >= 0) {
+            gauge(out, "system_load_average_1m", "System load average over the last minute", os.getSystemLoadAverage());
+        }
+        if (os instanceof com.sun.management.OperatingSystemMXBean hotspot && hotspot.getProcessCpuTime() >= 0) {
+            counter(out, "process_cpu_seconds_total", "CPU time used by the process", hotspot.getProcessCpuTime() / 1_000_000_000.0);
+        }
+        gauge(out, "process_uptime_seconds", "Time since the JVM started", ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+
+    // Text format helpers
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        header(out, name, "gauge", help);
+        sample(out, name, "", value);
+    }
+
+    private static void counter(StringBuilder out, String name, String help, double value) {
+        header(out, name, "counter", help);
+        sample(out, name, "", value);
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(PREFIX).append(name).append(labels).append(' ').append(formatDouble(value)).append('\n');
+    }
+
+    /**
+     * {k1="v1",k2="v2"} with values escaped as the format requires
+     */
+    private static String labels(String... namesAndValues) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(namesAndValues[i]).append("=\"");
+            String value = namesAndValues[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                switch (c) {
+                    case '\\' -> sb.append("\\\\");
+                    case '"' -> sb.append("\\\"");
+                    case '\n' -> sb.append("\\n");
+                    default -> sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String formatDouble(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
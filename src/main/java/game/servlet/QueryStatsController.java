@@ -0,0 +1,74 @@
+package game.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.dal.QueryStats;
+
+/**
+ * Admin page listing the slowest and most repeated queries recorded by
+ * QueryStats, and the requests that looked like N+1 queries.
+ */
+@WebServlet("/querystats")
+public class QueryStatsController extends HttpServlet {
+
+    // Rows shown in each table
+    private static final int TOP_LIMIT = 20;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        Map<String, String> messages = new HashMap<>();
+        req.setAttribute("messages", messages);
+        if (!QueryStats.isEnabled()) {
+            messages.put("warning", "Query statistics are disabled; new connections are not instrumented.");
+        }
+
+        req.setAttribute("enabled", QueryStats.isEnabled());
+        req.setAttribute("nPlusOneThreshold", QueryStats.getNPlusOneThreshold());
+        req.setAttribute("fingerprintCount", QueryStats.getFingerprintCount());
+        req.setAttribute("totalCalls", QueryStats.getTotalCalls());
+
+        // One table per ranking, in this order
+        Map<String, List<QueryStats.Fingerprint>> rankings = new LinkedHashMap<>();
+        rankings.put("Most total time", QueryStats.getTopByTotalTime(TOP_LIMIT));
+        rankings.put("Slowest p99", QueryStats.getTopByP99(TOP_LIMIT));
+        rankings.put("Most executed", QueryStats.getTopByCalls(TOP_LIMIT));
+        req.setAttribute("rankings", rankings);
+        req.setAttribute("topNPlusOne", QueryStats.getTopNPlusOne(TOP_LIMIT));
+        req.setAttribute("recentNPlusOne", QueryStats.getRecentNPlusOne());
+
+        req.getRequestDispatcher("/QueryStats.jsp").forward(req, resp);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        String action = req.getParameter("action");
+        if ("reset".equals(action)) {
+            QueryStats.reset();
+        } else if ("enable".equals(action)) {
+            QueryStats.setEnabled(true);
+        } else if ("disable".equals(action)) {
+            QueryStats.setEnabled(false);
+        } else if ("threshold".equals(action)) {
+            try {
+                QueryStats.setNPlusOneThreshold(Integer.parseInt(req.getParameter("threshold")));
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException included; keep the current threshold
+                System.err.println("Ignoring invalid N+1 threshold: " + req.getParameter("threshold"));
+            }
+        }
+        // Post/redirect/get, so reloading the page does not repeat the action
+        resp.sendRedirect(req.getContextPath() + "/querystats");
+    }
+}
@@ -0,0 +1,44 @@
+package game.servlet;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+
+import game.dal.QueryStats;
+
+/**
+ * Counts the queries each request runs, so QueryStats can report the same
+ * query executed many times in one request as a possible N+1 query.
+ */
+@WebFilter("/*")
+public class QueryStatsFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse resp, FilterChain chain)
+            throws IOException, ServletException {
+        // Forwards and includes are counted as part of the outer request
+        if (!QueryStats.beginRequest(describe(req))) {
+            chain.doFilter(req, resp);
+            return;
+        }
+
+        try {
+            chain.doFilter(req, resp);
+        } finally {
+            QueryStats.endRequest();
+        }
+    }
+
+    private static String describe(ServletRequest req) {
+        if (req instanceof HttpServletRequest http) {
+            return http.getMethod() + " " + http.getRequestURI();
+        }
+        return req.getServletContext().getContextPath();
+    }
+}
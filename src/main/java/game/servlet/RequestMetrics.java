@@ -0,0 +1,132 @@
+package game.servlet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP request metrics by servlet path, recorded by RequestMetricsFilter
+ * and published by MetricsController.
+ *
+ * All counters are LongAdders, which spread concurrent increments over
+ * striped cells instead of contending on one value, so recording never
+ * blocks a request. Latency is counted in fixed buckets, the layout a
+ * Prometheus histogram needs.
+ */
+public class RequestMetrics {
+
+	/** Upper bounds of the latency buckets, in seconds */
+	public static final double[] LATENCY_BUCKETS_SECONDS = {
+		0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+	};
+	// Paths tracked separately; later ones are counted under OTHER_PATH
+	private static final int MAX_PATHS = 64;
+	static final String OTHER_PATH = "other";
+
+	private static final long[] BUCKET_NANOS = new long[LATENCY_BUCKETS_SECONDS.length];
+	static {
+		for (int i = 0; i < BUCKET_NANOS.length; i++) {
+			BUCKET_NANOS[i] = (long) (LATENCY_BUCKETS_SECONDS[i] * 1_000_000_000L);
+		}
+	}
+
+	private static final Map<String, PathMetrics> paths = new ConcurrentHashMap<>();
+	private static final LongAdder inFlight = new LongAdder();
+
+	private RequestMetrics() {}
+
+	/**
+	 * Metrics for one servlet path
+	 */
+	public static class PathMetrics {
+		private final String path;
+		private final Map<Integer, LongAdder> byStatus = new ConcurrentHashMap<>();
+		// Requests per latency bucket, not cumulative; the last cell counts slower requests
+		private final LongAdder[] buckets = new LongAdder[BUCKET_NANOS.length + 1];
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAdder responseBytes = new LongAdder();
+
+		PathMetrics(String path) {
+			this.path = path;
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		void record(int status, long nanos, long bytes) {
+			byStatus.computeIfAbsent(status, s -> new LongAdder()).increment();
+			int bucket = 0;
+			while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+				bucket++;
+			}
+			buckets[bucket].increment();
+			count.increment();
+			totalNanos.add(nanos);
+			responseBytes.add(bytes);
+		}
+
+		public String getPath() { return path; }
+		public long getCount() { return count.sum(); }
+		public double getTotalSeconds() { return totalNanos.sum() / 1_000_000_000.0; }
+		public long getResponseBytes() { return responseBytes.sum(); }
+
+		/**
+		 * Requests by status code, in status order
+		 */
+		public Map<Integer, Long> getCountByStatus() {
+			Map<Integer, Long> counts = new TreeMap<>();
+			byStatus.forEach((status, adder) -> counts.put(status, adder.sum()));
+			return counts;
+		}
+
+		/**
+		 * Requests that took at most each of LATENCY_BUCKETS_SECONDS, cumulative
+		 */
+		public long[] getCumulativeBucketCounts() {
+			long[] cumulative = new long[BUCKET_NANOS.length];
+			long running = 0;
+			for (int i = 0; i < BUCKET_NANOS.length; i++) {
+				running += buckets[i].sum();
+				cumulative[i] = running;
+			}
+			return cumulative;
+		}
+	}
+
+	static void requestStarted() {
+		inFlight.increment();
+	}
+
+	static void requestFinished(String path, int status, long nanos, long bytes) {
+		inFlight.decrement();
+		PathMetrics metrics = paths.get(path);
+		if (metrics == null) {
+			if (paths.size() >= MAX_PATHS) {
+				path = OTHER_PATH;
+			}
+			metrics = paths.computeIfAbsent(path, PathMetrics::new);
+		}
+		metrics.record(status, nanos, bytes);
+	}
+
+	public static long getInFlight() {
+		return inFlight.sum();
+	}
+
+	/**
+	 * Metrics of every path seen so far, ordered by path
+	 */
+	public static List<PathMetrics> getAll() {
+		List<PathMetrics> all = new ArrayList<>(paths.values());
+		all.sort((a, b) -> a.getPath().compareTo(b.getPath()));
+		return all;
+	}
+
+	public static void reset() {
+		paths.clear();
+	}
+}
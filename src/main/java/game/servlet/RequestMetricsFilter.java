@@ -0,0 +1,48 @@
+package game.servlet;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Records latency, status and response size of every request in
+ * RequestMetrics, by servlet path (/home, /findcharacter, ...).
+ */
+@WebFilter("/*")
+public class RequestMetricsFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse resp, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(req instanceof HttpServletRequest) || !(resp instanceof HttpServletResponse)) {
+            chain.doFilter(req, resp);
+            return;
+        }
+
+        HttpServletRequest httpReq = (HttpServletRequest) req;
+        CountingResponseWrapper counting = new CountingResponseWrapper((HttpServletResponse) resp);
+        RequestMetrics.requestStarted();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(req, counting);
+            failed = false;
+        } finally {
+            // An exception escaping the chain is turned into a 500 by the container
+            int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : counting.getStatus();
+            RequestMetrics.requestFinished(pathOf(httpReq), status, System.nanoTime() - start, counting.getByteCount());
+        }
+    }
+
+    private static String pathOf(HttpServletRequest req) {
+        String path = req.getServletPath();
+        return path == null || path.isEmpty() ? "/" : path;
+    }
+}
@@ -0,0 +1,184 @@
+package game.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import game.dal.CharacterAggregateDao;
+import game.dal.CharacterUnlockedJobDao;
+import game.dal.CharacterWealthDao;
+import game.dal.CharactersDao;
+import game.dal.ConnectionManager;
+import game.dal.InClause;
+import game.dal.InventoryDao;
+import game.dal.PlayersDao;
+import game.dal.ViewsDao;
+
+/**
+ * Checks with EXPLAIN that the hot DAO queries use an index.
+ *
+ * Each registered query is the SQL constant or query builder its DAO runs,
+ * explained with sample parameters. The check fails if any table in its
+ * plan is read with a full table scan (type ALL). A full scan of an index
+ * (type index) is reported as a warning: it beats reading the table, and
+ * is what a '%name%' search can do at best, but it still reads every row.
+ * A query registered as ordered also fails when MySQL sorts its rows
+ * (Using filesort) instead of reading them in index order. Run it against
+ * a database with data loaded, since on nearly empty tables MySQL scans no
+ * matter the indexes:
+ *
+ *   java game.sql.QueryPlanCheck
+ *
+ * It exits with status 1 when a query scans a table. Register a query here
+ * together with the migration that adds its index.
+ */
+public class QueryPlanCheck {
+
+    private static final List<HotQuery> HOT_QUERIES = List.of(
+        new HotQuery("PlayersDao.getPlayersFromLastName",
+            PlayersDao.SELECT_PLAYERS_BY_LAST_NAME,
+            "%son%"),
+        new HotQuery("PlayersDao.getPlayersFromFirstName",
+            PlayersDao.SELECT_PLAYERS_BY_FIRST_NAME,
+            "Anna"),
+        new HotQuery("ViewsDao.getDailyActivePlayers",
+            ViewsDao.SELECT_DAILY_ACTIVE_PLAYERS),
+        new HotQuery("CharacterWealthDao.getCharacterWealthByCharacterAndCurrency",
+            CharacterWealthDao.SELECT_WEALTH_BY_CHARACTER_AND_CURRENCY,
+            1, "Gold"),
+        new HotQuery("CharacterWealthDao.getCharacterWealthByCharacter",
+            CharacterWealthDao.SELECT_WEALTH_BY_CHARACTER,
+            1),
+        new HotQuery("InventoryDao.getInventoryByCharactersAndInstance",
+            InventoryDao.SELECT_INVENTORY_BY_CHARACTER_AND_INSTANCE,
+            1, 1),
+        new HotQuery("InventoryDao.getInventoryOnlyByCharacters",
+            InventoryDao.SELECT_INVENTORY_BY_CHARACTER,
+            1),
+        new HotQuery("CharacterUnlockedJobDao.getCharacterUnlockedJobsByCharacter",
+            CharacterUnlockedJobDao.SELECT_JOBS_BY_CHARACTER,
+            1),
+        new HotQuery("CharactersDao.getCharactersByPlayerIDs",
+            CharactersDao.getCharactersByPlayerIDsQuery(5, "clan", "asc"),
+            playerIDs(5)),
+        new HotQuery("CharactersDao.getCharactersPage, first page",
+            CharactersDao.getCharactersPageQuery(null, true, false),
+            26).ordered(),
+        new HotQuery("CharactersDao.getCharactersPage, next page",
+            CharactersDao.getCharactersPageQuery(null, true, true),
+            "Smith", "Smith", 1, 26).ordered(),
+        new HotQuery("CharactersDao.getCharactersPage by clan, previous page",
+            CharactersDao.getCharactersPageQuery("clan", false, true),
+            "Stormwind", "Stormwind", 1, 26).ordered(),
+        // The five result sets of GetCharacterAggregate, also run one by one when it is missing
+        new HotQuery("CharacterAggregateDao character",
+            CharacterAggregateDao.SELECT_CHARACTER,
+            1),
+        new HotQuery("CharacterAggregateDao inventory",
+            CharacterAggregateDao.SELECT_INVENTORY,
+            1),
+        new HotQuery("CharacterAggregateDao equipped items",
+            CharacterAggregateDao.SELECT_EQUIPPED,
+            1),
+        new HotQuery("CharacterAggregateDao wealth",
+            CharacterAggregateDao.SELECT_WEALTH,
+            1),
+        new HotQuery("CharacterAggregateDao jobs",
+            CharacterAggregateDao.SELECT_JOBS,
+            1)
+    );
+
+    private QueryPlanCheck() {}
+
+    public static void main(String[] args) {
+        try (Connection cxn = ConnectionManager.getConnection()) {
+            List<String> warnings = new ArrayList<>();
+            List<String> failures = check(cxn, warnings);
+            if (!warnings.isEmpty()) {
+                System.out.println("⚠️ " + warnings.size() + " table read(s) scan a whole index:");
+                for (String warning : warnings) {
+                    System.out.println("   " + warning);
+                }
+            }
+            if (!failures.isEmpty()) {
+                System.err.println("❌ " + failures.size() + " of " + HOT_QUERIES.size() + " hot queries scan a table:");
+                for (String failure : failures) {
+                    System.err.println("   " + failure);
+                }
+                System.exit(1);
+            }
+            System.out.println("✅ All " + HOT_QUERIES.size() + " hot queries use an index");
+        } catch (SQLException e) {
+            System.err.println("❌ Query plan check failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Explains every registered query
+     * @param warnings receives one message per table that a query reads with a full index scan
+     * @return one message per table that a query reads with a full table scan, empty if none
+     */
+    public static List<String> check(Connection cxn, List<String> warnings) throws SQLException {
+        List<String> failures = new ArrayList<>();
+        for (HotQuery query : HOT_QUERIES) {
+            try (PreparedStatement stmt = cxn.prepareStatement("EXPLAIN " + query.sql)) {
+                for (int i = 0; i < query.params.length; i++) {
+                    stmt.setObject(i + 1, query.params[i]);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String table = rs.getString("table");
+                        String type = rs.getString("type");
+                        String extra = rs.getString("Extra");
+                        if ("ALL".equals(type)) {
+                            failures.add(query.name + ": full scan of " + table + " (about " + rs.getLong("rows") + " rows)");
+                        } else if (query.ordered && extra != null && extra.contains("Using filesort")) {
+                            failures.add(query.name + ": sorts the rows of " + table + " instead of reading an index in order");
+                        } else if ("index".equals(type)) {
+                            warnings.add(query.name + ": full scan of index " + rs.getString("key") + " on " + table
+                                + " (about " + rs.getLong("rows") + " rows)");
+                        } else if (table != null) {
+                            System.out.println("   " + query.name + ": " + table + " via " + rs.getString("key") + " (" + type + ")");
+                        }
+                    }
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Sample player IDs for an IN list of count values, padded as InClause pads it
+     */
+    private static Object[] playerIDs(int count) {
+        Object[] ids = new Object[InClause.bucketSize(count)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = Math.min(i, count - 1) + 1;
+        }
+        return ids;
+    }
+
+    private static class HotQuery {
+        private final String name;
+        private final String sql;
+        private final Object[] params;
+        private boolean ordered;
+
+        HotQuery(String name, String sql, Object... params) {
+            this.name = name;
+            this.sql = sql;
+            this.params = params;
+        }
+
+        /** Also fail if the rows are sorted rather than read in index order */
+        HotQuery ordered() {
+            this.ordered = true;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package game.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Versioned changes to an existing WoWDataHub schema.
+ *
+ * Driver.resetSchema only creates the tables; everything added afterwards
+ * is a numbered migration here, so a running database is brought up to
+ * date in place instead of being dropped and recreated. migrate() applies
+ * the migrations that are not yet in the SchemaVersion table, in order,
+ * and records each one. It runs from resetSchema and at web application
+ * startup; a migration that was applied is never applied again.
+ *
+ * Indexes are created and dropped with ALGORITHM=INPLACE, LOCK=NONE so
+ * reads and writes continue meanwhile. An index that already exists counts
+ * as created, one that is gone as dropped and a column that exists as
+ * added, so a schema built before this table existed is adopted as is. A
+ * named lock keeps two application instances from migrating at the same
+ * time.
+ *
+ * Add a migration by appending it to MIGRATIONS with the next version;
+ * never change one that has been released. QueryPlanCheck lists the
+ * queries the indexes are for.
+ */
+public class SchemaMigrations {
+
+    private static final String LOCK_NAME = "WoWDataHub.schemaMigrations";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+    // ER_DUP_KEYNAME: an index with that name already exists
+    private static final int DUPLICATE_KEY_NAME = 1061;
+    // ER_CANT_DROP_FIELD_OR_KEY: the index to drop is already gone
+    private static final int NO_SUCH_KEY = 1091;
+    // ER_DUP_FIELDNAME: the column to add already exists
+    private static final int DUPLICATE_FIELD_NAME = 1060;
+    // Rows a backfill updates per statement, so no statement locks the whole table
+    private static final int BACKFILL_CHUNK_SIZE = 1000;
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Indexes for keyset pagination of the character listing",
+            // InnoDB appends the primary key, so the Characters indexes act as (column, charID).
+            // The Players and Weapons ones end in playerID / itemID and cannot order the
+            // listing by charID; migration 3 moves those sort keys onto Characters and
+            // migration 5 drops them
+            "CREATE INDEX idx_characters_firstName ON Characters (firstName)",
+            "CREATE INDEX idx_characters_lastName ON Characters (lastName)",
+            "CREATE INDEX idx_players_firstName ON Players (firstName)",
+            "CREATE INDEX idx_players_lastName ON Players (lastName)",
+            "CREATE INDEX idx_weapons_wearableJob ON Weapons (wearableJob)"),
+
+        new Migration(2, "Covering indexes for the DAO lookups",
+            // PlayersDao.getPlayersFromLastName matches '%name%', which no index can seek;
+            // holding every selected column lets it scan this index instead of the table.
+            // It also serves every lookup the plain lastName index did
+            "CREATE INDEX idx_players_lastName_covering ON Players (lastName, firstName, emailAddress, lastActiveDateTime)",
+            "DROP INDEX idx_players_lastName ON Players",
+            // Daily active players: range over the last 30 days
+            "CREATE INDEX idx_players_lastActiveDateTime ON Players (lastActiveDateTime)",
+            // Characters per weapon and per clan, for the summary triggers and the distribution
+            // fallbacks. They take over from the indexes MySQL added for the foreign keys
+            "CREATE INDEX idx_characters_weaponWeared ON Characters (weaponWeared)",
+            "DROP INDEX fk_Char_weapon ON Characters",
+            "CREATE INDEX idx_characters_clan ON Characters (clan)",
+            "DROP INDEX fk_Char_clan ON Characters",
+            // Per-currency totals and maximums read amount and weeklyAcquired from the index alone
+            "CREATE INDEX idx_characterWealth_currency_covering ON CharacterWealth (currencyName, amount, weeklyAcquired)",
+            "DROP INDEX idx_characterWealth_currency_amount ON CharacterWealth",
+            "DROP INDEX fk_characterWealth_currency ON CharacterWealth",
+            // InventoryDao.getInventoryByCharactersAndInstance and the weapon ownership check
+            "CREATE INDEX idx_inventory_charID_instance ON Inventory (charID, `instance`, quantity)"),
+
+        new Migration(3, "Sort keys of the character listing on Characters",
+            // The listing sorts by player name and weapon job, which live on joined tables, so
+            // every page sorted the whole join. Copies on Characters with a (column, charID)
+            // index let a page read just its rows in order. The clan is already c.clan.
+            "ALTER TABLE Characters ADD COLUMN playerFirstName VARCHAR(255), "
+                + "ADD COLUMN playerLastName VARCHAR(255), ADD COLUMN wearableJob VARCHAR(255), ALGORITHM=INSTANT",
+            // Triggers before the backfill, so rows written meanwhile are covered either way.
+            // backfillSortKeys copies the existing values once the statements have run
+            "DROP TRIGGER IF EXISTS sortkeys_characters_insert",
+            """
+            CREATE TRIGGER sortkeys_characters_insert
+            BEFORE INSERT ON Characters
+            FOR EACH ROW
+            BEGIN
+                SET NEW.playerFirstName = (SELECT firstName FROM Players WHERE playerID = NEW.playerID);
+                SET NEW.playerLastName = (SELECT lastName FROM Players WHERE playerID = NEW.playerID);
+                SET NEW.wearableJob = (SELECT wearableJob FROM Weapons WHERE itemID = NEW.weaponWeared);
+            END
+            """,
+            "DROP TRIGGER IF EXISTS sortkeys_characters_update",
+            """
+            CREATE TRIGGER sortkeys_characters_update
+            BEFORE UPDATE ON Characters
+            FOR EACH ROW
+            BEGIN
+                IF NOT (OLD.playerID <=> NEW.playerID) THEN
+                    SET NEW.playerFirstName = (SELECT firstName FROM Players WHERE playerID = NEW.playerID);
+                    SET NEW.playerLastName = (SELECT lastName FROM Players WHERE playerID = NEW.playerID);
+                END IF;
+                IF NOT (OLD.weaponWeared <=> NEW.weaponWeared) THEN
+                    SET NEW.wearableJob = (SELECT wearableJob FROM Weapons WHERE itemID = NEW.weaponWeared);
+                END IF;
+            END
+            """,
+            "DROP TRIGGER IF EXISTS sortkeys_players_update",
+            """
+            CREATE TRIGGER sortkeys_players_update
+            AFTER UPDATE ON Players
+            FOR EACH ROW
+            BEGIN
+                IF NOT (OLD.firstName <=> NEW.firstName AND OLD.lastName <=> NEW.lastName) THEN
+                    UPDATE Characters SET playerFirstName = NEW.firstName, playerLastName = NEW.lastName
+                    WHERE playerID = NEW.playerID;
+                END IF;
+            END
+            """,
+            "DROP TRIGGER IF EXISTS sortkeys_weapons_update",
+            """
+            CREATE TRIGGER sortkeys_weapons_update
+            AFTER UPDATE ON Weapons
+            FOR EACH ROW
+            BEGIN
+                IF NOT (OLD.wearableJob <=> NEW.wearableJob) THEN
+                    UPDATE Characters SET wearableJob = NEW.wearableJob WHERE weaponWeared = NEW.itemID;
+                END IF;
+            END
+            """,
+            "CREATE INDEX idx_characters_playerLastName ON Characters (playerLastName, charID)",
+            "CREATE INDEX idx_characters_playerFirstName ON Characters (playerFirstName, charID)",
+            "CREATE INDEX idx_characters_wearableJob ON Characters (wearableJob, charID)")
+            .then(SchemaMigrations::backfillSortKeys),
+
+        new Migration(4, "Week of the weekly totals and the maintenance job state",
+            // Progress rows of WeeklyCapResetJob; an instance that created it on demand keeps its rows
+            """
+            CREATE TABLE IF NOT EXISTS MaintenanceJobState (
+                jobName VARCHAR(64),
+                period VARCHAR(32) NOT NULL,
+                highWaterMark INT NOT NULL DEFAULT 0,
+                rowsProcessed BIGINT NOT NULL DEFAULT 0,
+                startedAt DATETIME NOT NULL,
+                completedAt DATETIME,
+                CONSTRAINT pk_MaintenanceJobState PRIMARY KEY (jobName)
+            )
+            """,
+            // The week weeklyAcquired was counted in. Credits treat a total from an earlier week
+            // as 0, so a row the reset has not reached yet does not count against the new week
+            // Migration 7 records the week on the existing totals
+            "ALTER TABLE CharacterWealth ADD COLUMN weeklyPeriod VARCHAR(32), ALGORITHM=INSTANT"),
+
+        new Migration(5, "Drop the Players and Weapons sort indexes",
+            // Migration 3 moved those sort keys onto Characters; nothing seeks on these since
+            "DROP INDEX idx_players_firstName ON Players",
+            "DROP INDEX idx_weapons_wearableJob ON Weapons"),
+
+        new Migration(6, "Summary slot of the wealth rows",
+            // The CurrencySummary slot a balance counts in. When the largest balance of a slot
+            // shrinks, the summary triggers read the new largest from the end of this index
+            // instead of scanning and locking every balance of the currency. VIRTUAL is added
+            // without copying the table; the index stores the values
+            "ALTER TABLE CharacterWealth ADD COLUMN slot TINYINT AS (MOD(charID, " + SummaryTables.SLOTS + ")) VIRTUAL, "
+                + "ALGORITHM=INSTANT",
+            "CREATE INDEX idx_characterWealth_currency_slot_amount ON CharacterWealth (currencyName, slot, amount)"),
+
+        new Migration(7, "Week of the weekly totals written without one")
+            // Rows inserted before every insert recorded the week. Left empty, a total counts as 0
+            // and a row could take the weekly cap a second time in the week it was created
+            .then(SchemaMigrations::stampWeeklyPeriods)
+    );
+
+    private SchemaMigrations() {}
+
+    /**
+     * Applies every migration that has not been applied yet
+     * @return the number of migrations applied
+     */
+    public static int migrate(Connection cxn) throws SQLException {
+        createVersionTable(cxn);
+        acquireLock(cxn);
+        try {
+            // Read after taking the lock, so migrations another instance just applied are skipped
+            Set<Integer> applied = getAppliedVersions(cxn);
+            int count = 0;
+            for (Migration migration : MIGRATIONS) {
+                if (applied.contains(migration.version)) {
+                    continue;
+                }
+                apply(cxn, migration);
+                count++;
+            }
+            if (count > 0) {
+                System.out.println("✅ Schema at version " + getCurrentVersion(cxn) + ", " + count + " migration(s) applied");
+            }
+            return count;
+        } finally {
+            releaseLock(cxn);
+        }
+    }
+
+    /**
+     * Highest applied version, 0 if none
+     */
+    public static int getCurrentVersion(Connection cxn) throws SQLException {
+        try (Statement stmt = cxn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM SchemaVersion;")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Version of the last migration in this build
+     */
+    public static int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    private static void createVersionTable(Connection cxn) throws SQLException {
+        try (Statement stmt = cxn.createStatement()) {
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS SchemaVersion (
+                    version INT,
+                    description VARCHAR(255) NOT NULL,
+                    appliedAt DATETIME NOT NULL,
+                    durationMillis BIGINT NOT NULL,
+                    CONSTRAINT pk_SchemaVersion PRIMARY KEY (version)
+                );
+            """);
+        }
+    }
+
+    private static Set<Integer> getAppliedVersions(Connection cxn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = cxn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM SchemaVersion;")) {
+            while (rs.next()) {
+                versions.add(rs.getInt("version"));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Runs the statements and then the steps of one migration and records it. MySQL commits
+     * each DDL statement on its own, so a migration that fails halfway is
+     * not recorded and is run again from the start; its statements must be
+     * safe to repeat.
+     */
+    private static void apply(Connection cxn, Migration migration) throws SQLException {
+        System.out.println("📋 Schema migration " + migration.version + ": " + migration.description);
+        long start = System.currentTimeMillis();
+        try (Statement stmt = cxn.createStatement()) {
+            for (String sql : migration.statements) {
+                execute(stmt, sql);
+            }
+        }
+        for (Step step : migration.steps) {
+            step.run(cxn);
+        }
+        try (PreparedStatement insertStmt = cxn.prepareStatement(
+                "INSERT INTO SchemaVersion (version, description, appliedAt, durationMillis) VALUES (?, ?, UTC_TIMESTAMP(), ?);")) {
+            insertStmt.setInt(1, migration.version);
+            insertStmt.setString(2, migration.description);
+            insertStmt.setLong(3, System.currentTimeMillis() - start);
+            insertStmt.executeUpdate();
+        }
+    }
+
+    private static void execute(Statement stmt, String sql) throws SQLException {
+        if (sql.startsWith("CREATE INDEX") || sql.startsWith("DROP INDEX")) {
+            // Change the index online instead of blocking writes to the table
+            sql += " ALGORITHM=INPLACE LOCK=NONE";
+        }
+        try {
+            stmt.executeUpdate(sql);
+        } catch (SQLException e) {
+            if (e.getErrorCode() != DUPLICATE_KEY_NAME && e.getErrorCode() != NO_SUCH_KEY
+                    && e.getErrorCode() != DUPLICATE_FIELD_NAME) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Take the named lock that serializes schema changes between application
+     * instances; StoredProcedures changes the schema under it as well
+     */
+    static void acquireLock(Connection cxn) throws SQLException {
+        try (PreparedStatement stmt = cxn.prepareStatement("SELECT GET_LOCK(?, ?);")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another instance to finish migrating the schema");
+                }
+            }
+        }
+    }
+
+    static void releaseLock(Connection cxn) throws SQLException {
+        try (PreparedStatement stmt = cxn.prepareStatement("SELECT RELEASE_LOCK(?);")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        }
+    }
+
+    /**
+     * Copies the player names and weapon job onto the existing Characters rows
+     */
+    private static void backfillSortKeys(Connection cxn) throws SQLException {
+        updateInChunks(cxn, "Characters", """
+            UPDATE Characters c
+            JOIN Players p ON c.playerID = p.playerID
+            JOIN Weapons w ON c.weaponWeared = w.itemID
+            SET c.playerFirstName = p.firstName, c.playerLastName = p.lastName, c.wearableJob = w.wearableJob
+            WHERE c.charID > ? AND c.charID <= ?;
+        """);
+    }
+
+    /**
+     * Records on the weekly totals that have no week the one they were
+     * counted in, as far as the weekly reset's progress tells
+     */
+    private static void stampWeeklyPeriods(Connection cxn) throws SQLException {
+        String period = game.service.WeeklyCapResetJob.periodOfUnstampedTotals(cxn);
+        updateInChunks(cxn, "CharacterWealth",
+            "UPDATE CharacterWealth SET weeklyPeriod = ? WHERE weeklyPeriod IS NULL AND charID > ? AND charID <= ?;",
+            period);
+    }
+
+    /**
+     * Runs update over the table one charID range of about BACKFILL_CHUNK_SIZE
+     * rows at a time. The range bounds are the last two parameters of update,
+     * after params. Each range commits on its own, so writers wait for one
+     * chunk at most instead of for the whole table.
+     */
+    private static void updateInChunks(Connection cxn, String table, String update, String... params) throws SQLException {
+        try (PreparedStatement boundStmt = cxn.prepareStatement(
+                "SELECT charID FROM " + table + " WHERE charID > ? ORDER BY charID LIMIT 1 OFFSET ?;");
+             PreparedStatement updateStmt = cxn.prepareStatement(update)) {
+            for (int i = 0; i < params.length; i++) {
+                updateStmt.setString(i + 1, params[i]);
+            }
+            int afterCharID = 0;
+            while (true) {
+                boundStmt.setInt(1, afterCharID);
+                boundStmt.setInt(2, BACKFILL_CHUNK_SIZE - 1);
+                Integer upToCharID;
+                try (ResultSet rs = boundStmt.executeQuery()) {
+                    upToCharID = rs.next() ? rs.getInt("charID") : null;
+                }
+                updateStmt.setInt(params.length + 1, afterCharID);
+                // fewer than a chunk left: the last range is open-ended
+                updateStmt.setInt(params.length + 2, upToCharID != null ? upToCharID : Integer.MAX_VALUE);
+                updateStmt.executeUpdate();
+                if (upToCharID == null) {
+                    return;
+                }
+                afterCharID = upToCharID;
+            }
+        }
+    }
+
+    /**
+     * Part of a migration that is not a single SQL statement, such as a
+     * backfill that runs in chunks. Like the statements, it must be safe to
+     * run again after a failure.
+     */
+    @FunctionalInterface
+    private interface Step {
+        void run(Connection cxn) throws SQLException;
+    }
+
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final String[] statements;
+        private final List<Step> steps = new ArrayList<>();
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+
+        /**
+         * Adds a step that runs after the statements
+         */
+        Migration then(Step step) {
+            steps.add(step);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package game.sql;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HexFormat;
+
+import game.dal.CharacterAggregateDao;
+
+/**
+ * Creates the stored procedures used by the DAL.
+ *
+ * GetCharacterAggregate returns everything the character detail page shows
+ * as five result sets from a single CALL: the character (joined with its
+ * player, clan and weapon), its inventory, equipped items, wealth (joined
+ * with the currency) and unlocked jobs. Its body is built from
+ * CharacterAggregateDao.SELECTS, the queries the DAO runs when the
+ * procedure is missing, so it is checked at web application startup to
+ * pick up changes to them. See CharacterAggregateDao.
+ *
+ * Each procedure carries a hash of its body in its COMMENT, and is only
+ * dropped and created again when this build's body hashes differently.
+ * Otherwise every instance of a rolling restart would drop the procedure
+ * that the running ones are calling. The check runs under the schema
+ * migration lock, so two instances starting together do not both create it.
+ */
+public class StoredProcedures {
+
+    public static final String CHARACTER_AGGREGATE = "GetCharacterAggregate";
+
+    private StoredProcedures() {}
+
+    /**
+     * Creates all stored procedures, replacing those whose body changed
+     */
+    public static void createAll(Connection cxn) throws SQLException {
+        System.out.println("📋 Checking stored procedures...");
+
+        SchemaMigrations.acquireLock(cxn);
+        try {
+            createOrReplace(cxn, CHARACTER_AGGREGATE, "(IN p_charID INT) READS SQL DATA", characterAggregateBody());
+        } finally {
+            SchemaMigrations.releaseLock(cxn);
+        }
+    }
+
+    /**
+     * Creates the procedure from its parameter list and characteristics and
+     * its body, unless it exists with the same ones
+     */
+    private static void createOrReplace(Connection cxn, String name, String signature, String body) throws SQLException {
+        String comment = "body " + hash(signature + "\n" + body);
+        try (PreparedStatement selectStmt = cxn.prepareStatement("""
+                SELECT ROUTINE_COMMENT FROM information_schema.ROUTINES
+                WHERE ROUTINE_SCHEMA = DATABASE() AND ROUTINE_NAME = ? AND ROUTINE_TYPE = 'PROCEDURE';
+            """)) {
+            selectStmt.setString(1, name);
+            try (ResultSet rs = selectStmt.executeQuery()) {
+                if (rs.next() && comment.equals(rs.getString("ROUTINE_COMMENT"))) {
+                    System.out.println("✅ Stored procedure " + name + " is up to date");
+                    return;
+                }
+            }
+        }
+
+        try (Statement stmt = cxn.createStatement()) {
+            stmt.executeUpdate("DROP PROCEDURE IF EXISTS " + name);
+            stmt.executeUpdate("CREATE PROCEDURE " + name + signature + " COMMENT '" + comment + "'\n" + body);
+        }
+        System.out.println("✅ Created stored procedure " + name);
+    }
+
+    /**
+     * Body of GetCharacterAggregate: CharacterAggregateDao.SELECTS in order,
+     * with the procedure parameter in place of each query's charID placeholder
+     */
+    private static String characterAggregateBody() {
+        StringBuilder body = new StringBuilder()
+            .append("BEGIN\n");
+        for (String select : CharacterAggregateDao.SELECTS) {
+            body.append("    ").append(select.replace("?", "p_charID")).append('\n');
+        }
+        return body.append("END").toString();
+    }
+
+    private static String hash(String body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform provides SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
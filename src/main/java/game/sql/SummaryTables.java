@@ -0,0 +1,534 @@
+package game.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Creates the summary tables behind the dashboard views and the triggers
+ * that keep them current.
+ *
+ * The views used to GROUP BY over every character and every wealth row on
+ * each read. Instead each insert, update and delete adjusts a counter row
+ * here, so the views read one row per job, clan or currency.
+ *
+ * Counters that every write touches are split over SLOTS rows, picked by
+ * the row's ID, and summed when read: the player and character counts,
+ * the characters per job and the currency totals. Every change locks its
+ * summary row until commit, so with one row per counter all writes to it
+ * would queue behind each other. A change that moves a count between two
+ * rows, such as a character switching jobs, locks them in name order so
+ * two opposite moves cannot deadlock.
+ *
+ * MySQL does not fire triggers for foreign key cascades, so deleting a
+ * player or clan first deletes its characters explicitly, and deleting a
+ * character first deletes its wealth rows, so that those triggers run.
+ */
+public class SummaryTables {
+
+    /**
+     * Summary rows per counter; a character or wealth row counts in slot
+     * charID % SLOTS, a player in slot playerID % SLOTS
+     */
+    public static final int SLOTS = 16;
+
+    private static final String[] TRIGGER_NAMES = {
+        "summary_players_insert",
+        "summary_players_before_delete",
+        "summary_players_delete",
+        "summary_clans_insert",
+        "summary_clans_before_delete",
+        "summary_clans_delete",
+        "summary_currencies_insert",
+        "summary_weapons_update",
+        "summary_characters_insert",
+        "summary_characters_update",
+        "summary_characters_before_delete",
+        "summary_characters_delete",
+        "summary_wealth_insert",
+        "summary_wealth_update",
+        "summary_wealth_delete"
+    };
+
+    private SummaryTables() {}
+
+    /**
+     * Creates the summary tables and triggers and fills the tables from the
+     * current data. Safe to run against an existing schema.
+     */
+    public static void createAll(Connection cxn) throws SQLException {
+        System.out.println("📋 Creating summary tables...");
+
+        createTables(cxn);
+        dropAllTriggers(cxn);
+        createEntityCountTriggers(cxn);
+        createCharacterTriggers(cxn);
+        createWealthTriggers(cxn);
+        rebuild(cxn);
+
+        System.out.println("✅ Summary tables created and populated");
+    }
+
+    /**
+     * Creates the summary tables if they do not exist yet
+     */
+    private static void createTables(Connection cxn) throws SQLException {
+        try (Statement stmt = cxn.createStatement()) {
+            // Earlier schemas kept one row per counter; the tables only hold derived
+            // data, so they are dropped and refilled by rebuild()
+            dropIfUnslotted(stmt, "EntityCount");
+            dropIfUnslotted(stmt, "JobSummary");
+            dropIfUnslotted(stmt, "CurrencySummary");
+
+            // Row counts of the tables shown in the overall stats, per slot
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS EntityCount (
+                    entity VARCHAR(64),
+                    slot TINYINT NOT NULL DEFAULT 0,
+                    total INT NOT NULL DEFAULT 0,
+                    CONSTRAINT pk_EntityCount PRIMARY KEY (entity, slot)
+                );
+            """);
+
+            // Characters per job of the equipped weapon, per slot
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS JobSummary (
+                    jobName VARCHAR(255),
+                    slot TINYINT NOT NULL DEFAULT 0,
+                    characterCount INT NOT NULL DEFAULT 0,
+                    CONSTRAINT pk_JobSummary PRIMARY KEY (jobName, slot)
+                );
+            """);
+
+            // Characters per clan; follows clan renames and deletes
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS ClanSummary (
+                    clanName VARCHAR(255),
+                    characterCount INT NOT NULL DEFAULT 0,
+                    CONSTRAINT pk_ClanSummary PRIMARY KEY (clanName),
+                    CONSTRAINT fk_ClanSummary_clan FOREIGN KEY (clanName)
+                        REFERENCES Clans(clanName)
+                        ON UPDATE CASCADE
+                        ON DELETE CASCADE
+                );
+            """);
+
+            // Holders, total and largest balance per currency and slot
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS CurrencySummary (
+                    currencyName VARCHAR(255),
+                    slot TINYINT NOT NULL DEFAULT 0,
+                    holderCount INT NOT NULL DEFAULT 0,
+                    totalAmount DECIMAL(20,2) NOT NULL DEFAULT 0,
+                    maxAmount DECIMAL(10,2) NOT NULL DEFAULT 0,
+                    CONSTRAINT pk_CurrencySummary PRIMARY KEY (currencyName, slot),
+                    CONSTRAINT fk_CurrencySummary_currency FOREIGN KEY (currencyName)
+                        REFERENCES Currencies(currencyName)
+                        ON UPDATE CASCADE
+                        ON DELETE CASCADE
+                );
+            """);
+        }
+    }
+
+    /**
+     * Drops the table if it exists without a slot column
+     */
+    private static void dropIfUnslotted(Statement stmt, String table) throws SQLException {
+        boolean unslotted;
+        try (ResultSet rs = stmt.executeQuery("""
+                SELECT COUNT(*) > 0 AND SUM(COLUMN_NAME = 'slot') = 0
+                FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = '%s'
+            """.formatted(table))) {
+            unslotted = rs.next() && rs.getBoolean(1);
+        }
+        if (unslotted) {
+            stmt.executeUpdate("DROP TABLE " + table);
+        }
+    }
+
+    /**
+     * Creates triggers that count players and clans, and seed a summary row
+     * for every new clan and currency
+     */
+    private static void createEntityCountTriggers(Connection cxn) throws SQLException {
+
+        String playersInsert = """
+            CREATE TRIGGER summary_players_insert
+            AFTER INSERT ON Players
+            FOR EACH ROW
+            BEGIN
+                INSERT INTO EntityCount (entity, slot, total) VALUES ('Players', MOD(NEW.playerID, %1$d), 1)
+                    ON DUPLICATE KEY UPDATE total = total + 1;
+            END
+        """.formatted(SLOTS);
+
+        // Delete characters here so their triggers run (cascades skip them)
+        String playersBeforeDelete = """
+            CREATE TRIGGER summary_players_before_delete
+            BEFORE DELETE ON Players
+            FOR EACH ROW
+            BEGIN
+                DELETE FROM Characters WHERE playerID = OLD.playerID;
+            END
+        """;
+
+        String playersDelete = """
+            CREATE TRIGGER summary_players_delete
+            AFTER DELETE ON Players
+            FOR EACH ROW
+            BEGIN
+                UPDATE EntityCount SET total = total - 1
+                WHERE entity = 'Players' AND slot = MOD(OLD.playerID, %1$d);
+            END
+        """.formatted(SLOTS);
+
+        String clansInsert = """
+            CREATE TRIGGER summary_clans_insert
+            AFTER INSERT ON Clans
+            FOR EACH ROW
+            BEGIN
+                -- Clans are created by hand, one slot is enough
+                INSERT INTO EntityCount (entity, slot, total) VALUES ('Clans', 0, 1)
+                    ON DUPLICATE KEY UPDATE total = total + 1;
+                INSERT IGNORE INTO ClanSummary (clanName, characterCount) VALUES (NEW.clanName, 0);
+            END
+        """;
+
+        String clansBeforeDelete = """
+            CREATE TRIGGER summary_clans_before_delete
+            BEFORE DELETE ON Clans
+            FOR EACH ROW
+            BEGIN
+                DELETE FROM Characters WHERE clan = OLD.clanName;
+            END
+        """;
+
+        String clansDelete = """
+            CREATE TRIGGER summary_clans_delete
+            AFTER DELETE ON Clans
+            FOR EACH ROW
+            BEGIN
+                UPDATE EntityCount SET total = total - 1 WHERE entity = 'Clans' AND slot = 0;
+            END
+        """;
+
+        String currenciesInsert = """
+            CREATE TRIGGER summary_currencies_insert
+            AFTER INSERT ON Currencies
+            FOR EACH ROW
+            BEGIN
+                INSERT IGNORE INTO CurrencySummary (currencyName) VALUES (NEW.currencyName);
+            END
+        """;
+
+        try (Statement stmt = cxn.createStatement()) {
+            stmt.executeUpdate(playersInsert);
+            stmt.executeUpdate(playersBeforeDelete);
+            stmt.executeUpdate(playersDelete);
+            stmt.executeUpdate(clansInsert);
+            stmt.executeUpdate(clansBeforeDelete);
+            stmt.executeUpdate(clansDelete);
+            stmt.executeUpdate(currenciesInsert);
+            System.out.println("✅ Entity count triggers created");
+        }
+    }
+
+    /**
+     * Creates triggers that keep the job, clan and character counts current
+     */
+    private static void createCharacterTriggers(Connection cxn) throws SQLException {
+
+        String charactersInsert = """
+            CREATE TRIGGER summary_characters_insert
+            AFTER INSERT ON Characters
+            FOR EACH ROW
+            BEGIN
+                DECLARE job VARCHAR(255);
+
+                SELECT wearableJob INTO job FROM Weapons WHERE itemID = NEW.weaponWeared;
+
+                INSERT INTO JobSummary (jobName, slot, characterCount) VALUES (job, MOD(NEW.charID, %1$d), 1)
+                    ON DUPLICATE KEY UPDATE characterCount = characterCount + 1;
+                INSERT INTO ClanSummary (clanName, characterCount) VALUES (NEW.clan, 1)
+                    ON DUPLICATE KEY UPDATE characterCount = characterCount + 1;
+                INSERT INTO EntityCount (entity, slot, total) VALUES ('Characters', MOD(NEW.charID, %1$d), 1)
+                    ON DUPLICATE KEY UPDATE total = total + 1;
+            END
+        """.formatted(SLOTS);
+
+        String charactersUpdate = """
+            CREATE TRIGGER summary_characters_update
+            AFTER UPDATE ON Characters
+            FOR EACH ROW
+            BEGIN
+                DECLARE old_job VARCHAR(255);
+                DECLARE new_job VARCHAR(255);
+
+                IF OLD.weaponWeared <> NEW.weaponWeared THEN
+                    SELECT wearableJob INTO old_job FROM Weapons WHERE itemID = OLD.weaponWeared;
+                    SELECT wearableJob INTO new_job FROM Weapons WHERE itemID = NEW.weaponWeared;
+
+                    -- Lock the two job rows in name order, so a move the other way cannot deadlock
+                    IF NOT (old_job <=> new_job) THEN
+                        IF old_job < new_job THEN
+                            UPDATE JobSummary SET characterCount = characterCount - 1
+                            WHERE jobName = old_job AND slot = MOD(OLD.charID, %1$d);
+                        END IF;
+                        INSERT INTO JobSummary (jobName, slot, characterCount) VALUES (new_job, MOD(NEW.charID, %1$d), 1)
+                            ON DUPLICATE KEY UPDATE characterCount = characterCount + 1;
+                        IF NOT (old_job < new_job) THEN
+                            UPDATE JobSummary SET characterCount = characterCount - 1
+                            WHERE jobName = old_job AND slot = MOD(OLD.charID, %1$d);
+                        END IF;
+                    END IF;
+                END IF;
+
+                IF OLD.clan <> NEW.clan THEN
+                    IF OLD.clan < NEW.clan THEN
+                        UPDATE ClanSummary SET characterCount = characterCount - 1 WHERE clanName = OLD.clan;
+                    END IF;
+                    INSERT INTO ClanSummary (clanName, characterCount) VALUES (NEW.clan, 1)
+                        ON DUPLICATE KEY UPDATE characterCount = characterCount + 1;
+                    IF NOT (OLD.clan < NEW.clan) THEN
+                        UPDATE ClanSummary SET characterCount = characterCount - 1 WHERE clanName = OLD.clan;
+                    END IF;
+                END IF;
+            END
+        """.formatted(SLOTS);
+
+        // Delete wealth here so its triggers run (cascades skip them)
+        String charactersBeforeDelete = """
+            CREATE TRIGGER summary_characters_before_delete
+            BEFORE DELETE ON Characters
+            FOR EACH ROW
+            BEGIN
+                DELETE FROM CharacterWealth WHERE charID = OLD.charID;
+            END
+        """;
+
+        String charactersDelete = """
+            CREATE TRIGGER summary_characters_delete
+            AFTER DELETE ON Characters
+            FOR EACH ROW
+            BEGIN
+                DECLARE job VARCHAR(255);
+
+                SELECT wearableJob INTO job FROM Weapons WHERE itemID = OLD.weaponWeared;
+
+                UPDATE JobSummary SET characterCount = characterCount - 1
+                WHERE jobName = job AND slot = MOD(OLD.charID, %1$d);
+                UPDATE ClanSummary SET characterCount = characterCount - 1 WHERE clanName = OLD.clan;
+                UPDATE EntityCount SET total = total - 1
+                WHERE entity = 'Characters' AND slot = MOD(OLD.charID, %1$d);
+            END
+        """.formatted(SLOTS);
+
+        // Re-classifying a weapon moves everyone wielding it to the new job
+        String weaponsUpdate = """
+            CREATE TRIGGER summary_weapons_update
+            AFTER UPDATE ON Weapons
+            FOR EACH ROW
+            BEGIN
+                IF OLD.wearableJob <> NEW.wearableJob THEN
+                    UPDATE JobSummary js
+                    JOIN (SELECT MOD(charID, %1$d) AS slot, COUNT(*) AS moved
+                          FROM Characters WHERE weaponWeared = NEW.itemID
+                          GROUP BY MOD(charID, %1$d)) m ON js.slot = m.slot
+                    SET js.characterCount = js.characterCount - m.moved
+                    WHERE js.jobName = OLD.wearableJob;
+
+                    INSERT INTO JobSummary (jobName, slot, characterCount)
+                    SELECT * FROM (SELECT NEW.wearableJob AS jobName, MOD(charID, %1$d) AS slot, COUNT(*) AS moved
+                                   FROM Characters WHERE weaponWeared = NEW.itemID
+                                   GROUP BY MOD(charID, %1$d)) m
+                    ON DUPLICATE KEY UPDATE characterCount = characterCount + moved;
+                END IF;
+            END
+        """.formatted(SLOTS);
+
+        try (Statement stmt = cxn.createStatement()) {
+            stmt.executeUpdate(charactersInsert);
+            stmt.executeUpdate(charactersUpdate);
+            stmt.executeUpdate(charactersBeforeDelete);
+            stmt.executeUpdate(charactersDelete);
+            stmt.executeUpdate(weaponsUpdate);
+            System.out.println("✅ Character summary triggers created");
+        }
+    }
+
+    /**
+     * Creates triggers that keep holder count, total and maximum per currency
+     * and slot current. Every change is applied relative to the summary row inside
+     * the UPDATE that locks it, never read first and written back. The
+     * maximum only needs a lookup when the largest balance shrinks or goes
+     * away, and that lookup runs once the row is locked. It reads the last
+     * entry of the (currencyName, slot, amount) index on CharacterWealth, so
+     * it neither scans nor locks the other balances of the currency.
+     */
+    private static void createWealthTriggers(Connection cxn) throws SQLException {
+
+        // %1$d is SLOTS; CharacterWealth.slot holds MOD(charID, SLOTS), see SchemaMigrations
+        String wealthInsert = """
+            CREATE TRIGGER summary_wealth_insert
+            AFTER INSERT ON CharacterWealth
+            FOR EACH ROW
+            BEGIN
+                INSERT INTO CurrencySummary (currencyName, slot, holderCount, totalAmount, maxAmount)
+                VALUES (NEW.currencyName, MOD(NEW.charID, %1$d), 1, NEW.amount, NEW.amount)
+                ON DUPLICATE KEY UPDATE
+                    holderCount = holderCount + 1,
+                    totalAmount = totalAmount + NEW.amount,
+                    maxAmount = GREATEST(maxAmount, NEW.amount);
+            END
+        """.formatted(SLOTS);
+
+        String wealthUpdate = """
+            CREATE TRIGGER summary_wealth_update
+            AFTER UPDATE ON CharacterWealth
+            FOR EACH ROW
+            BEGIN
+                IF OLD.currencyName <> NEW.currencyName OR OLD.charID <> NEW.charID THEN
+                    -- Moved to another currency or slot: remove from the old one, add to the new one
+                    UPDATE CurrencySummary
+                    SET holderCount = holderCount - 1,
+                        totalAmount = totalAmount - OLD.amount
+                    WHERE currencyName = OLD.currencyName AND slot = MOD(OLD.charID, %1$d);
+
+                    UPDATE CurrencySummary
+                    SET maxAmount = (SELECT COALESCE(MAX(cw.amount), 0) FROM CharacterWealth cw
+                                     WHERE cw.currencyName = OLD.currencyName
+                                       AND cw.slot = MOD(OLD.charID, %1$d))
+                    WHERE currencyName = OLD.currencyName AND slot = MOD(OLD.charID, %1$d)
+                      AND maxAmount <= OLD.amount;
+
+                    INSERT INTO CurrencySummary (currencyName, slot, holderCount, totalAmount, maxAmount)
+                    VALUES (NEW.currencyName, MOD(NEW.charID, %1$d), 1, NEW.amount, NEW.amount)
+                    ON DUPLICATE KEY UPDATE
+                        holderCount = holderCount + 1,
+                        totalAmount = totalAmount + NEW.amount,
+                        maxAmount = GREATEST(maxAmount, NEW.amount);
+
+                ELSEIF OLD.amount <> NEW.amount THEN
+                    -- Relative to the locked row, so concurrent raises cannot overwrite each other
+                    UPDATE CurrencySummary
+                    SET totalAmount = totalAmount + NEW.amount - OLD.amount,
+                        maxAmount = GREATEST(maxAmount, NEW.amount)
+                    WHERE currencyName = NEW.currencyName AND slot = MOD(NEW.charID, %1$d);
+
+                    -- The row lock is held now; if the largest balance shrank, look up the new largest
+                    IF NEW.amount < OLD.amount THEN
+                        UPDATE CurrencySummary
+                        SET maxAmount = (SELECT COALESCE(MAX(cw.amount), 0) FROM CharacterWealth cw
+                                         WHERE cw.currencyName = NEW.currencyName
+                                           AND cw.slot = MOD(NEW.charID, %1$d))
+                        WHERE currencyName = NEW.currencyName AND slot = MOD(NEW.charID, %1$d)
+                          AND maxAmount <= OLD.amount;
+                    END IF;
+                END IF;
+            END
+        """.formatted(SLOTS);
+
+        String wealthDelete = """
+            CREATE TRIGGER summary_wealth_delete
+            AFTER DELETE ON CharacterWealth
+            FOR EACH ROW
+            BEGIN
+                UPDATE CurrencySummary
+                SET holderCount = holderCount - 1,
+                    totalAmount = totalAmount - OLD.amount
+                WHERE currencyName = OLD.currencyName AND slot = MOD(OLD.charID, %1$d);
+
+                -- Only the largest balance going away changes the maximum
+                UPDATE CurrencySummary
+                SET maxAmount = (SELECT COALESCE(MAX(cw.amount), 0) FROM CharacterWealth cw
+                                 WHERE cw.currencyName = OLD.currencyName
+                                   AND cw.slot = MOD(OLD.charID, %1$d))
+                WHERE currencyName = OLD.currencyName AND slot = MOD(OLD.charID, %1$d)
+                  AND maxAmount <= OLD.amount;
+            END
+        """.formatted(SLOTS);
+
+        try (Statement stmt = cxn.createStatement()) {
+            stmt.executeUpdate(wealthInsert);
+            stmt.executeUpdate(wealthUpdate);
+            stmt.executeUpdate(wealthDelete);
+            System.out.println("✅ Currency summary triggers created");
+        }
+    }
+
+    /**
+     * Recomputes every summary table from the base tables.
+     *
+     * Used to backfill after the tables are created and to repair them if
+     * they ever drift. Writes made while this runs may be counted twice or
+     * not at all, so run it while the data is quiet.
+     */
+    public static void rebuild(Connection cxn) throws SQLException {
+        boolean autoCommit = cxn.getAutoCommit();
+        cxn.setAutoCommit(false);
+
+        try (Statement stmt = cxn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM EntityCount");
+            stmt.executeUpdate("""
+                INSERT INTO EntityCount (entity, slot, total)
+                SELECT 'Players', MOD(playerID, %1$d), COUNT(*) FROM Players GROUP BY MOD(playerID, %1$d)
+                UNION ALL
+                SELECT 'Characters', MOD(charID, %1$d), COUNT(*) FROM Characters GROUP BY MOD(charID, %1$d)
+                UNION ALL
+                SELECT 'Clans', 0, COUNT(*) FROM Clans
+            """.formatted(SLOTS));
+
+            stmt.executeUpdate("DELETE FROM JobSummary");
+            stmt.executeUpdate("""
+                INSERT INTO JobSummary (jobName, slot, characterCount)
+                SELECT w.wearableJob, MOD(c.charID, %1$d) AS slot, COUNT(*)
+                FROM Characters c
+                JOIN Weapons w ON c.weaponWeared = w.itemID
+                GROUP BY w.wearableJob, MOD(c.charID, %1$d)
+            """.formatted(SLOTS));
+
+            stmt.executeUpdate("DELETE FROM ClanSummary");
+            stmt.executeUpdate("""
+                INSERT INTO ClanSummary (clanName, characterCount)
+                SELECT cl.clanName, COUNT(c.charID)
+                FROM Clans cl
+                LEFT JOIN Characters c ON cl.clanName = c.clan
+                GROUP BY cl.clanName
+            """);
+
+            stmt.executeUpdate("DELETE FROM CurrencySummary");
+            stmt.executeUpdate("""
+                INSERT INTO CurrencySummary (currencyName, slot, holderCount, totalAmount, maxAmount)
+                SELECT curr.currencyName,
+                       COALESCE(MOD(cw.charID, %1$d), 0) AS slot,
+                       COUNT(cw.charID),
+                       COALESCE(SUM(cw.amount), 0),
+                       COALESCE(MAX(cw.amount), 0)
+                FROM Currencies curr
+                LEFT JOIN CharacterWealth cw ON curr.currencyName = cw.currencyName
+                GROUP BY curr.currencyName, MOD(cw.charID, %1$d)
+            """.formatted(SLOTS));
+
+            cxn.commit();
+        } catch (SQLException e) {
+            cxn.rollback();
+            throw e;
+        } finally {
+            cxn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Drops all summary triggers
+     */
+    public static void dropAllTriggers(Connection cxn) throws SQLException {
+        for (String triggerName : TRIGGER_NAMES) {
+            try (Statement stmt = cxn.createStatement()) {
+                stmt.executeUpdate("DROP TRIGGER IF EXISTS " + triggerName);
+            }
+        }
+    }
+}
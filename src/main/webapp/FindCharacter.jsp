@@ -375,6 +375,35 @@
                         </tbody>
                     </table>
                 </div>
+                
+                <!-- Pagination (full listing only) -->
+                <c:if test="${not empty page and (page.hasPrev or page.hasNext)}">
+                    <div class="d-flex justify-content-between mt-3">
+                        <c:choose>
+                            <c:when test="${page.hasPrev}">
+                                <c:url var="prevUrl" value="findcharacter">
+                                    <c:param name="sortBy" value="${currentSortBy}"/>
+                                    <c:param name="sortOrder" value="${currentSortOrder}"/>
+                                    <c:param name="cursor" value="${page.prevCursor}"/>
+                                </c:url>
+                                <a href="${prevUrl}" class="btn btn-action">
+                                    <i class="bi bi-chevron-left"></i> Previous
+                                </a>
+                            </c:when>
+                            <c:otherwise><span></span></c:otherwise>
+                        </c:choose>
+                        <c:if test="${page.hasNext}">
+                            <c:url var="nextUrl" value="findcharacter">
+                                <c:param name="sortBy" value="${currentSortBy}"/>
+                                <c:param name="sortOrder" value="${currentSortOrder}"/>
+                                <c:param name="cursor" value="${page.nextCursor}"/>
+                            </c:url>
+                            <a href="${nextUrl}" class="btn btn-action">
+                                Next <i class="bi bi-chevron-right"></i>
+                            </a>
+                        </c:if>
+                    </div>
+                </c:if>
             </div>
         </c:if>
         
@@ -0,0 +1,198 @@
+<%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c" %>
+<%@ taglib uri="http://java.sun.com/jsp/jstl/fmt" prefix="fmt" %>
+<%@ taglib uri="http://java.sun.com/jsp/jstl/functions" prefix="fn" %>
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
+<!DOCTYPE html>
+<html lang="en">
+<head>
+    <meta charset="UTF-8">
+    <meta name="viewport" content="width=device-width, initial-scale=1.0">
+    <title>Query Statistics - WoW DataHub</title>
+    <link href="https://cdn.jsdelivr.net/npm/bootstrap@5.3.0/dist/css/bootstrap.min.css" rel="stylesheet">
+    <link href="https://cdn.jsdelivr.net/npm/bootstrap-icons@1.10.0/font/bootstrap-icons.css" rel="stylesheet">
+</head>
+<body>
+    <!-- Include WoW Navigation -->
+    <jsp:include page="WoWStyle.jsp">
+        <jsp:param name="activePage" value="querystats" />
+    </jsp:include>
+
+    <div class="main-container">
+        <div class="main-content">
+            <h1 class="page-title">
+                <i class="bi bi-speedometer2"></i> Query Statistics
+            </h1>
+            <p class="page-subtitle">
+                ${totalCalls} executions of ${fingerprintCount} distinct queries since the last reset
+            </p>
+
+            <!-- Messages -->
+            <c:if test="${not empty messages}">
+                <c:forEach items="${messages}" var="message">
+                    <div class="alert alert-${message.key == 'error' ? 'danger' : (message.key == 'warning' ? 'warning' : 'success')} alert-dismissible fade show">
+                        <strong>
+                            <c:choose>
+                                <c:when test="${message.key == 'error'}"><i class="bi bi-exclamation-triangle"></i> Error!</c:when>
+                                <c:when test="${message.key == 'warning'}"><i class="bi bi-exclamation-circle"></i> Warning!</c:when>
+                                <c:otherwise><i class="bi bi-check-circle"></i> Success!</c:otherwise>
+                            </c:choose>
+                        </strong>
+                        ${message.value}
+                        <button type="button" class="btn-close" data-bs-dismiss="alert"></button>
+                    </div>
+                </c:forEach>
+            </c:if>
+
+            <!-- Controls -->
+            <div class="card mb-4">
+                <div class="card-body d-flex flex-wrap gap-2 align-items-center">
+                    <form method="post" action="querystats" class="d-inline">
+                        <input type="hidden" name="action" value="reset">
+                        <button type="submit" class="btn btn-outline-warning"><i class="bi bi-arrow-counterclockwise"></i> Reset</button>
+                    </form>
+                    <form method="post" action="querystats" class="d-inline">
+                        <input type="hidden" name="action" value="${enabled ? 'disable' : 'enable'}">
+                        <button type="submit" class="btn btn-outline-primary">
+                            <i class="bi bi-power"></i> ${enabled ? 'Disable' : 'Enable'} instrumentation
+                        </button>
+                    </form>
+                    <form method="post" action="querystats" class="d-inline-flex gap-2 align-items-center ms-auto">
+                        <input type="hidden" name="action" value="threshold">
+                        <label for="threshold" class="form-label mb-0">N+1 threshold</label>
+                        <input type="number" min="1" class="form-control" style="width: 6rem;" id="threshold" name="threshold" value="${nPlusOneThreshold}">
+                        <button type="submit" class="btn btn-outline-primary">Apply</button>
+                    </form>
+                </div>
+            </div>
+
+            <!-- Suspected N+1 queries -->
+            <div class="card mb-4">
+                <div class="card-header">
+                    <h5 class="mb-0"><i class="bi bi-exclamation-diamond"></i> Suspected N+1 Queries</h5>
+                </div>
+                <div class="card-body">
+                    <p class="small" style="color: #B8C5D6;">
+                        Queries executed more than ${nPlusOneThreshold} times within a single request.
+                    </p>
+                    <c:choose>
+                        <c:when test="${empty topNPlusOne}">
+                            <p class="text-muted mb-0">None detected.</p>
+                        </c:when>
+                        <c:otherwise>
+                            <div class="table-responsive">
+                                <table class="table table-dark table-hover table-sm">
+                                    <thead>
+                                        <tr>
+                                            <th>Query</th>
+                                            <th>Requests</th>
+                                            <th>Total Calls</th>
+                                            <th>Mean (ms)</th>
+                                        </tr>
+                                    </thead>
+                                    <tbody>
+                                        <c:forEach items="${topNPlusOne}" var="query">
+                                            <tr>
+                                                <td><code class="small">${fn:escapeXml(query.fingerprint)}</code></td>
+                                                <td>${query.suspectedNPlusOneCount}</td>
+                                                <td>${query.calls}</td>
+                                                <td><fmt:formatNumber value="${query.meanMillis}" maxFractionDigits="3"/></td>
+                                            </tr>
+                                        </c:forEach>
+                                    </tbody>
+                                </table>
+                            </div>
+                            <h6 class="mt-3">Recent requests</h6>
+                            <div class="table-responsive">
+                                <table class="table table-dark table-sm">
+                                    <thead>
+                                        <tr>
+                                            <th>When</th>
+                                            <th>Request</th>
+                                            <th>Executions</th>
+                                            <th>Query</th>
+                                        </tr>
+                                    </thead>
+                                    <tbody>
+                                        <c:forEach items="${recentNPlusOne}" var="event">
+                                            <tr>
+                                                <td class="text-nowrap"><fmt:formatDate value="${event.detectedAt}" pattern="yyyy-MM-dd HH:mm:ss"/></td>
+                                                <td>${fn:escapeXml(event.request)}</td>
+                                                <td>${event.executions}</td>
+                                                <td><code class="small">${fn:escapeXml(event.fingerprint)}</code></td>
+                                            </tr>
+                                        </c:forEach>
+                                    </tbody>
+                                </table>
+                            </div>
+                        </c:otherwise>
+                    </c:choose>
+                </div>
+            </div>
+
+            <!-- Rankings -->
+            <c:forEach items="${rankings}" var="ranking">
+                <div class="card mb-4">
+                    <div class="card-header">
+                        <h5 class="mb-0"><i class="bi bi-bar-chart"></i> ${ranking.key}</h5>
+                    </div>
+                    <div class="card-body">
+                        <c:choose>
+                            <c:when test="${empty ranking.value}">
+                                <p class="text-muted mb-0">No queries recorded yet.</p>
+                            </c:when>
+                            <c:otherwise>
+                                <div class="table-responsive">
+                                    <table class="table table-dark table-hover table-sm">
+                                        <thead>
+                                            <tr>
+                                                <th>Query</th>
+                                                <th>Calls</th>
+                                                <th>Errors</th>
+                                                <th>Total (ms)</th>
+                                                <th>Mean</th>
+                                                <th>p50</th>
+                                                <th>p95</th>
+                                                <th>p99</th>
+                                                <th>Max</th>
+                                                <th>Rows/Call</th>
+                                            </tr>
+                                        </thead>
+                                        <tbody>
+                                            <c:forEach items="${ranking.value}" var="query">
+                                                <tr>
+                                                    <td><code class="small" title="${fn:escapeXml(query.sample)}">${fn:escapeXml(query.fingerprint)}</code></td>
+                                                    <td>${query.calls}</td>
+                                                    <td>${query.errors}</td>
+                                                    <td><fmt:formatNumber value="${query.totalMillis}" maxFractionDigits="1"/></td>
+                                                    <td><fmt:formatNumber value="${query.meanMillis}" maxFractionDigits="3"/></td>
+                                                    <td><fmt:formatNumber value="${query.p50Millis}" maxFractionDigits="3"/></td>
+                                                    <td><fmt:formatNumber value="${query.p95Millis}" maxFractionDigits="3"/></td>
+                                                    <td><fmt:formatNumber value="${query.p99Millis}" maxFractionDigits="3"/></td>
+                                                    <td><fmt:formatNumber value="${query.maxMillis}" maxFractionDigits="3"/></td>
+                                                    <td><fmt:formatNumber value="${query.rowsPerCall}" maxFractionDigits="1"/></td>
+                                                </tr>
+                                            </c:forEach>
+                                        </tbody>
+                                    </table>
+                                </div>
+                            </c:otherwise>
+                        </c:choose>
+                    </div>
+                </div>
+            </c:forEach>
+
+            <!-- Quick Actions -->
+            <div class="text-center mt-4">
+                <a href="home" class="btn btn-outline-primary me-3">
+                    <i class="bi bi-house-door"></i> Back to Dashboard
+                </a>
+                <a href="etl" class="btn btn-outline-primary">
+                    <i class="bi bi-database-add"></i> ETL Management
+                </a>
+            </div>
+        </div>
+    </div>
+
+    <script src="https://cdn.jsdelivr.net/npm/bootstrap@5.3.0/dist/js/bootstrap.bundle.min.js"></script>
+</body>
+</html>